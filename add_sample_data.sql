@@ -64,3 +64,8 @@ LEFT JOIN incomes i ON u.user_id = i.user_id
 LEFT JOIN expenses e ON u.user_id = e.user_id
 GROUP BY u.user_id, u.username
 ORDER BY u.user_id;
+
+-- For realistic volume (thousands of users, years of history, up to
+-- hundreds of millions of rows) use the seeded bulk generator instead:
+--   java -cp "bin;lib/mysql-connector-j.jar" tools.DataGenerator --users=10000 --years=10 --workers=8
+-- See the comment at the top of src/tools/DataGenerator.java for load modes.
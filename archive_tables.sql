@@ -0,0 +1,50 @@
+-- Cold-history archive for incomes and expenses
+-- MySQL 8.0 Community Server
+--
+-- Rows older than archive.maxAgeMonths (config.properties) are moved here
+-- by service.ArchiveService. The archive tables are compressed and only
+-- indexed for per-user date lookups; archive_totals keeps monthly
+-- aggregates so lifetime totals never scan archived rows.
+-- Run once on an existing finance_tracker database (finance_db.sql
+-- already includes these tables for fresh installs):
+--   mysql -u root -p finance_tracker < archive_tables.sql
+
+USE finance_tracker;
+
+CREATE TABLE IF NOT EXISTS incomes_archive (
+  income_id INT NOT NULL,
+  user_id INT,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  date DATE NOT NULL,
+  notes VARCHAR(255),
+  created_at TIMESTAMP NULL,
+  recurring_rule_id INT NULL,
+  PRIMARY KEY (income_id, date),
+  INDEX idx_incomes_archive_user_date (user_id, date)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE IF NOT EXISTS expenses_archive (
+  expense_id INT NOT NULL,
+  user_id INT,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  date DATE NOT NULL,
+  notes VARCHAR(255),
+  created_at TIMESTAMP NULL,
+  recurring_rule_id INT NULL,
+  PRIMARY KEY (expense_id, date),
+  INDEX idx_expenses_archive_user_date (user_id, date)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE IF NOT EXISTS archive_totals (
+  user_id INT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  period_month DATE NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  total DECIMAL(14,2) NOT NULL,
+  row_count INT NOT NULL,
+  PRIMARY KEY (user_id, kind, period_month, category)
+);
+
+SELECT 'Archive tables ready!' AS Status;
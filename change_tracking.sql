@@ -0,0 +1,48 @@
+-- Change tracking for delta sync between clients
+-- MySQL 8.0 Community Server
+--
+-- Gives every user a monotonic change sequence. Each write stamps the
+-- changed rows with the next number (version), and deletes leave a
+-- tombstone with theirs, so a client can ask for everything after the
+-- last version it saw (dao.ChangeDAO.getChangesSince) instead of
+-- reloading the full history. Old tombstones are purged after
+-- sync.tombstoneRetentionDays; clients further behind are told to resync.
+-- Run once on an existing finance_tracker database (finance_db.sql
+-- already includes this for fresh installs):
+--   mysql -u root -p finance_tracker < change_tracking.sql
+--
+-- Rows written before this script, or bulk-loaded by tools.DataGenerator,
+-- have version 0 and only show up in a full load.
+
+USE finance_tracker;
+
+ALTER TABLE incomes
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  ADD INDEX idx_incomes_user_version (user_id, version);
+
+ALTER TABLE expenses
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+  ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  ADD INDEX idx_expenses_user_version (user_id, version);
+
+-- Last version handed out per user; purged_version is the newest
+-- tombstone that has been deleted by the retention job
+CREATE TABLE IF NOT EXISTS user_change_seq (
+  user_id INT PRIMARY KEY,
+  last_version BIGINT NOT NULL,
+  purged_version BIGINT NOT NULL DEFAULT 0
+);
+
+-- One row per deleted income/expense
+CREATE TABLE IF NOT EXISTS tombstones (
+  user_id INT NOT NULL,
+  version BIGINT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  row_id INT NOT NULL,
+  deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (user_id, version, kind, row_id),
+  INDEX idx_tombstones_deleted_at (deleted_at)
+);
+
+SELECT 'Change tracking ready!' AS Status;
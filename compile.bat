@@ -6,7 +6,7 @@ mkdir bin
 
 echo.
 echo Compiling Java files...
-javac -cp ".;lib\mysql-connector-j.jar" -d bin -sourcepath src src\Main.java src\db\*.java src\model\*.java src\dao\*.java src\service\*.java src\ui\*.java src\util\*.java
+javac -cp ".;lib\mysql-connector-j.jar" -d bin -sourcepath src src\Main.java src\db\*.java src\model\*.java src\dao\*.java src\event\*.java src\service\*.java src\ui\*.java src\util\*.java src\tools\*.java
 
 if %errorlevel% equ 0 (
     echo.
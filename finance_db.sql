@@ -23,6 +23,9 @@ CREATE TABLE incomes (
   date DATE NOT NULL,
   notes VARCHAR(255),
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  version BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  recurring_rule_id INT NULL,
   FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
@@ -35,12 +38,178 @@ CREATE TABLE expenses (
   date DATE NOT NULL,
   notes VARCHAR(255),
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  version BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  recurring_rule_id INT NULL,
   FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
 -- Create indexes for better performance
 CREATE INDEX idx_incomes_user_date ON incomes(user_id, date);
 CREATE INDEX idx_expenses_user_date ON expenses(user_id, date);
+CREATE INDEX idx_incomes_user_version ON incomes(user_id, version);
+CREATE INDEX idx_expenses_user_version ON expenses(user_id, version);
+CREATE INDEX idx_incomes_user_category_date ON incomes(user_id, category, date);
+CREATE INDEX idx_expenses_user_category_date ON expenses(user_id, category, date);
+CREATE INDEX idx_incomes_user_amount ON incomes(user_id, amount);
+CREATE INDEX idx_expenses_user_amount ON expenses(user_id, amount);
+-- Covering: date-range totals and category breakdowns never visit the rows
+CREATE INDEX idx_incomes_user_date_category_amount ON incomes(user_id, date, category, amount);
+CREATE INDEX idx_expenses_user_date_category_amount ON expenses(user_id, date, category, amount);
+-- One row per recurring rule and day (see migrations/V003)
+CREATE UNIQUE INDEX uq_incomes_recurrence ON incomes(recurring_rule_id, date);
+CREATE UNIQUE INDEX uq_expenses_recurrence ON expenses(recurring_rule_id, date);
+
+-- Applied schema migrations (see migrations/ and db.SchemaMigrator);
+-- this script already includes those listed here
+CREATE TABLE schema_version (
+  version INT PRIMARY KEY,
+  description VARCHAR(100) NOT NULL,
+  applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  duration_ms BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO schema_version (version, description) VALUES
+(1, 'covering indexes'),
+(2, 'ledger view'),
+(3, 'recurring rules'),
+(4, 'budgets'),
+(5, 'expense distributions'),
+(6, 'rollup users'),
+(7, 'archive recurring rule');
+
+-- Incomes and expenses as one ledger with a signed amount (see migrations/V002)
+CREATE VIEW ledger AS
+  SELECT 'income' AS kind, income_id AS id, user_id, category, amount, amount AS signed_amount,
+         date, notes, created_at
+  FROM incomes
+  UNION ALL
+  SELECT 'expense', expense_id, user_id, category, amount, -amount,
+         date, notes, created_at
+  FROM expenses;
+
+-- Recurring incomes and expenses (see migrations/V003 and service.RecurringScheduler)
+CREATE TABLE recurring_rules (
+  rule_id INT AUTO_INCREMENT PRIMARY KEY,
+  user_id INT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  notes VARCHAR(255),
+  frequency ENUM('DAY', 'WEEK', 'MONTH', 'YEAR') NOT NULL,
+  interval_count INT NOT NULL DEFAULT 1,
+  weekdays TINYINT NOT NULL DEFAULT 0,
+  start_date DATE NOT NULL,
+  end_date DATE NULL,
+  next_date DATE NOT NULL,
+  active BOOLEAN NOT NULL DEFAULT TRUE,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_recurring_rules_due (active, next_date),
+  INDEX idx_recurring_rules_user (user_id),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- Monthly spending limits per expense category (see migrations/V004 and service.BudgetService)
+CREATE TABLE budgets (
+  user_id INT NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  monthly_limit DECIMAL(10,2) NOT NULL,
+  warn_percent TINYINT NOT NULL DEFAULT 80,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (user_id, category),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- Expense amount distributions per month and category (see migrations/V005 and service.DistributionService)
+CREATE TABLE expense_distributions (
+  user_id INT NOT NULL,
+  month DATE NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  dirty BOOLEAN NOT NULL DEFAULT FALSE,
+  built_through INT NOT NULL DEFAULT 0,
+  data BLOB NULL,
+  PRIMARY KEY (user_id, month, category),
+  INDEX idx_expense_distributions_dirty (dirty),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- Cold-history archive (see archive_tables.sql and service.ArchiveService)
+CREATE TABLE incomes_archive (
+  income_id INT NOT NULL,
+  user_id INT,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  date DATE NOT NULL,
+  notes VARCHAR(255),
+  created_at TIMESTAMP NULL,
+  recurring_rule_id INT NULL,
+  PRIMARY KEY (income_id, date),
+  INDEX idx_incomes_archive_user_date (user_id, date)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE expenses_archive (
+  expense_id INT NOT NULL,
+  user_id INT,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  date DATE NOT NULL,
+  notes VARCHAR(255),
+  created_at TIMESTAMP NULL,
+  recurring_rule_id INT NULL,
+  PRIMARY KEY (expense_id, date),
+  INDEX idx_expenses_archive_user_date (user_id, date)
+) ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE archive_totals (
+  user_id INT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  period_month DATE NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  total DECIMAL(14,2) NOT NULL,
+  row_count INT NOT NULL,
+  PRIMARY KEY (user_id, kind, period_month, category)
+);
+
+-- Change tracking (see change_tracking.sql and dao.ChangeDAO)
+-- Last version handed out per user; purged_version is the newest
+-- tombstone that has been deleted by the retention job
+CREATE TABLE user_change_seq (
+  user_id INT PRIMARY KEY,
+  last_version BIGINT NOT NULL,
+  purged_version BIGINT NOT NULL DEFAULT 0
+);
+
+-- One row per deleted income/expense
+CREATE TABLE tombstones (
+  user_id INT NOT NULL,
+  version BIGINT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  row_id INT NOT NULL,
+  deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (user_id, version, kind, row_id),
+  INDEX idx_tombstones_deleted_at (deleted_at)
+);
+
+-- Multi-resolution rollups (see rollups.sql and service.RollupService)
+CREATE TABLE rollups (
+  user_id INT NOT NULL,
+  granularity ENUM('DAY', 'WEEK', 'MONTH', 'YEAR') NOT NULL,
+  period_start DATE NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  total DECIMAL(14,2) NOT NULL,
+  row_count INT NOT NULL,
+  PRIMARY KEY (user_id, granularity, period_start, kind, category),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- Rebuild state of the rollups per user (see migrations/V006 and dao.RollupDAO)
+CREATE TABLE rollup_users (
+  user_id INT NOT NULL,
+  dirty BOOLEAN NOT NULL DEFAULT FALSE,
+  built_version BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
 
 -- Insert sample data
 -- Password: 'admin123' (hashed using SHA-256)
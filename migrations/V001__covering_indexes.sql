@@ -0,0 +1,29 @@
+-- Covering and list indexes on incomes and expenses
+--
+-- (user_id, date, category, amount) answers date-range totals and the
+-- per-day/month/category groupings (dashboard totals, range totals, the
+-- search and rollup rebuilds) from the index alone, without visiting the
+-- clustered rows. (user_id, category, date) and (user_id, amount) serve
+-- category and amount filters and sorts in the transaction tables; they
+-- were previously in query_indexes.sql, so they may already exist.
+--
+-- idx_*_user_date stays: it looks like a prefix of the covering index, but
+-- InnoDB appends the primary key to it, which is what lets the tables page
+-- through ORDER BY date, id without sorting.
+--
+-- Every change is online (ALGORITHM=INPLACE, LOCK=NONE): reads and writes
+-- continue while the indexes are built.
+
+ALTER TABLE incomes ADD INDEX idx_incomes_user_date_category_amount (user_id, date, category, amount),
+  ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE incomes ADD INDEX idx_incomes_user_category_date (user_id, category, date),
+  ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE incomes ADD INDEX idx_incomes_user_amount (user_id, amount),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE expenses ADD INDEX idx_expenses_user_date_category_amount (user_id, date, category, amount),
+  ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE expenses ADD INDEX idx_expenses_user_category_date (user_id, category, date),
+  ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE expenses ADD INDEX idx_expenses_user_amount (user_id, amount),
+  ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,22 @@
+-- Unified ledger view over incomes and expenses
+--
+-- One row per transaction with its kind and a signed amount (income
+-- positive, expense negative), so reports and ad-hoc SQL can treat both
+-- sides as one table:
+--   SELECT kind, SUM(amount) FROM ledger WHERE user_id = 2 GROUP BY kind;
+--   SELECT SUM(signed_amount) AS savings FROM ledger WHERE user_id = 2;
+-- IDs are only unique within a kind. Rows moved to the archive tables are
+-- not included; their totals are in archive_totals.
+--
+-- The application reads both tables together through dao.LedgerDAO,
+-- which filters each branch itself rather than relying on the optimizer
+-- to push conditions into the view.
+
+CREATE OR REPLACE VIEW ledger AS
+  SELECT 'income' AS kind, income_id AS id, user_id, category, amount, amount AS signed_amount,
+         date, notes, created_at
+  FROM incomes
+  UNION ALL
+  SELECT 'expense', expense_id, user_id, category, amount, -amount,
+         date, notes, created_at
+  FROM expenses;
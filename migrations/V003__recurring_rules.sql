@@ -0,0 +1,40 @@
+-- Recurring incomes and expenses (see dao.RecurringRuleDAO and
+-- service.RecurringScheduler)
+--
+-- A rule occurs every interval_count days, weeks, months or years from
+-- start_date; weekly rules may pick several weekdays (bitmask, Monday = 1
+-- ... Sunday = 64). next_date is the first occurrence not yet written, so
+-- the due rules are one range scan of idx_recurring_rules_due.
+--
+-- Each written occurrence carries its rule ID, and (recurring_rule_id, date)
+-- is unique: a rule can never produce the same day twice, whatever happens
+-- to the scheduler. Hand-entered rows have NULL there and are unaffected.
+-- The key includes date, so it is also valid on partitioned tables.
+
+CREATE TABLE IF NOT EXISTS recurring_rules (
+  rule_id INT AUTO_INCREMENT PRIMARY KEY,
+  user_id INT NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  amount DECIMAL(10,2) NOT NULL,
+  notes VARCHAR(255),
+  frequency ENUM('DAY', 'WEEK', 'MONTH', 'YEAR') NOT NULL,
+  interval_count INT NOT NULL DEFAULT 1,
+  weekdays TINYINT NOT NULL DEFAULT 0,
+  start_date DATE NOT NULL,
+  end_date DATE NULL,
+  next_date DATE NOT NULL,
+  active BOOLEAN NOT NULL DEFAULT TRUE,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_recurring_rules_due (active, next_date),
+  INDEX idx_recurring_rules_user (user_id),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+ALTER TABLE incomes ADD COLUMN recurring_rule_id INT NULL, ALGORITHM=INSTANT;
+ALTER TABLE expenses ADD COLUMN recurring_rule_id INT NULL, ALGORITHM=INSTANT;
+
+ALTER TABLE incomes ADD UNIQUE INDEX uq_incomes_recurrence (recurring_rule_id, date),
+  ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE expenses ADD UNIQUE INDEX uq_expenses_recurrence (recurring_rule_id, date),
+  ALGORITHM=INPLACE, LOCK=NONE;
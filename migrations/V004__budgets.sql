@@ -0,0 +1,17 @@
+-- Monthly spending limits per user and expense category (see dao.BudgetDAO
+-- and service.BudgetService)
+--
+-- warn_percent is the share of the limit at which a warning is raised
+-- before the limit itself is crossed. Spend-to-date is not stored: it is
+-- read once per month from idx_expenses_user_date_category_amount and then
+-- kept current from the write events.
+
+CREATE TABLE IF NOT EXISTS budgets (
+  user_id INT NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  monthly_limit DECIMAL(10,2) NOT NULL,
+  warn_percent TINYINT NOT NULL DEFAULT 80,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (user_id, category),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
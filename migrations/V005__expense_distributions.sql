@@ -0,0 +1,21 @@
+-- Distribution of expense amounts per user, month and category (see
+-- dao.DistributionDAO and service.DistributionService)
+--
+-- data is a serialized model.AmountDistribution: a quantile sketch, amount
+-- histogram and largest expenses, a few KB at most however many expenses
+-- the month holds. Inserts are added to it; expenses up to built_through
+-- are already in it. Updates and deletes can't be taken out of a sketch,
+-- so they set dirty and the cell is rebuilt from its month's rows before
+-- it is next read.
+
+CREATE TABLE IF NOT EXISTS expense_distributions (
+  user_id INT NOT NULL,
+  month DATE NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  dirty BOOLEAN NOT NULL DEFAULT FALSE,
+  built_through INT NOT NULL DEFAULT 0,
+  data BLOB NULL,
+  PRIMARY KEY (user_id, month, category),
+  INDEX idx_expense_distributions_dirty (dirty),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
@@ -0,0 +1,15 @@
+-- Rebuild state of the chart rollups per user (see dao.RollupDAO and
+-- service.RollupService)
+--
+-- built_version is the user's change version (change_tracking.sql) the
+-- rollups were last rebuilt at; deltas of writes at or below it are
+-- already counted and are skipped. dirty is set when a delta failed to
+-- apply, and the user's rollups are rebuilt before they are next read.
+
+CREATE TABLE IF NOT EXISTS rollup_users (
+  user_id INT NOT NULL,
+  dirty BOOLEAN NOT NULL DEFAULT FALSE,
+  built_version BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (user_id),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
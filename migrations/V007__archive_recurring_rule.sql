@@ -0,0 +1,23 @@
+-- Keep the recurring rule of archived occurrences (see dao.ArchiveDAO)
+--
+-- migrations/V003 added recurring_rule_id to the hot tables only, so rows
+-- moved by service.ArchiveService lost their link to the rule. The
+-- archive tables are optional (archive_tables.sql), so each ALTER only runs
+-- where the table exists. Compressed tables can't add a column instantly;
+-- INPLACE rebuilds them online instead.
+
+SET @archive_alter = IF(EXISTS (SELECT 1 FROM information_schema.TABLES
+                                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'incomes_archive'),
+  'ALTER TABLE incomes_archive ADD COLUMN recurring_rule_id INT NULL, ALGORITHM=INPLACE, LOCK=NONE',
+  'DO 0');
+PREPARE archive_alter FROM @archive_alter;
+EXECUTE archive_alter;
+DEALLOCATE PREPARE archive_alter;
+
+SET @archive_alter = IF(EXISTS (SELECT 1 FROM information_schema.TABLES
+                                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'expenses_archive'),
+  'ALTER TABLE expenses_archive ADD COLUMN recurring_rule_id INT NULL, ALGORITHM=INPLACE, LOCK=NONE',
+  'DO 0');
+PREPARE archive_alter FROM @archive_alter;
+EXECUTE archive_alter;
+DEALLOCATE PREPARE archive_alter;
@@ -0,0 +1,97 @@
+-- Time-range partitioning for incomes and expenses
+-- MySQL 8.0 Community Server
+--
+-- Converts both transaction tables to monthly RANGE partitions on `date`
+-- so monthly queries and deletes only touch the partition they need.
+-- Run once on an existing finance_tracker database:
+--   mysql -u root -p finance_tracker < partition_tables.sql
+--
+-- Notes:
+-- * InnoDB does not support foreign keys on partitioned tables, so the
+--   user_id foreign keys are dropped. UserDAO.deleteUser removes a user's
+--   transactions explicitly instead of relying on ON DELETE CASCADE.
+-- * The primary keys become (id, date) because the partitioning column
+--   must be part of every unique key. IDs stay unique via AUTO_INCREMENT.
+-- * p_history holds everything before 2025, p_future catches anything
+--   beyond the last monthly partition. db.PartitionMaintenance splits new
+--   months out of p_future ahead of time. When archive_tables.sql is also
+--   installed, service.ArchiveService archives expired months by copying
+--   them to the *_archive tables and dropping their partitions.
+
+USE finance_tracker;
+
+-- incomes
+ALTER TABLE incomes DROP FOREIGN KEY incomes_ibfk_1;
+ALTER TABLE incomes
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (income_id, date);
+ALTER TABLE incomes
+PARTITION BY RANGE COLUMNS(date) (
+  PARTITION p_history VALUES LESS THAN ('2025-01-01'),
+  PARTITION p202501 VALUES LESS THAN ('2025-02-01'),
+  PARTITION p202502 VALUES LESS THAN ('2025-03-01'),
+  PARTITION p202503 VALUES LESS THAN ('2025-04-01'),
+  PARTITION p202504 VALUES LESS THAN ('2025-05-01'),
+  PARTITION p202505 VALUES LESS THAN ('2025-06-01'),
+  PARTITION p202506 VALUES LESS THAN ('2025-07-01'),
+  PARTITION p202507 VALUES LESS THAN ('2025-08-01'),
+  PARTITION p202508 VALUES LESS THAN ('2025-09-01'),
+  PARTITION p202509 VALUES LESS THAN ('2025-10-01'),
+  PARTITION p202510 VALUES LESS THAN ('2025-11-01'),
+  PARTITION p202511 VALUES LESS THAN ('2025-12-01'),
+  PARTITION p202512 VALUES LESS THAN ('2026-01-01'),
+  PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+  PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+  PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+  PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+  PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+  PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+  PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+  PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+  PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- expenses
+ALTER TABLE expenses DROP FOREIGN KEY expenses_ibfk_1;
+ALTER TABLE expenses
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (expense_id, date);
+ALTER TABLE expenses
+PARTITION BY RANGE COLUMNS(date) (
+  PARTITION p_history VALUES LESS THAN ('2025-01-01'),
+  PARTITION p202501 VALUES LESS THAN ('2025-02-01'),
+  PARTITION p202502 VALUES LESS THAN ('2025-03-01'),
+  PARTITION p202503 VALUES LESS THAN ('2025-04-01'),
+  PARTITION p202504 VALUES LESS THAN ('2025-05-01'),
+  PARTITION p202505 VALUES LESS THAN ('2025-06-01'),
+  PARTITION p202506 VALUES LESS THAN ('2025-07-01'),
+  PARTITION p202507 VALUES LESS THAN ('2025-08-01'),
+  PARTITION p202508 VALUES LESS THAN ('2025-09-01'),
+  PARTITION p202509 VALUES LESS THAN ('2025-10-01'),
+  PARTITION p202510 VALUES LESS THAN ('2025-11-01'),
+  PARTITION p202511 VALUES LESS THAN ('2025-12-01'),
+  PARTITION p202512 VALUES LESS THAN ('2026-01-01'),
+  PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+  PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+  PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+  PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+  PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+  PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+  PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+  PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+  PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+  PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+  PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+  PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- Display partition layout
+SELECT TABLE_NAME, PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+FROM information_schema.PARTITIONS
+WHERE TABLE_SCHEMA = 'finance_tracker' AND TABLE_NAME IN ('incomes', 'expenses')
+ORDER BY TABLE_NAME, PARTITION_ORDINAL_POSITION;
@@ -0,0 +1,30 @@
+-- Multi-resolution rollups for zoomable history charts
+-- MySQL 8.0 Community Server
+--
+-- Per user, kind and category totals at day, week, month and year
+-- resolution. The application keeps them current after every write
+-- (service.RollupService) and fills the table from the existing history
+-- the first time it finds it empty, so a chart over any window reads a
+-- few hundred pre-aggregated rows instead of every transaction.
+-- Run once on an existing finance_tracker database (finance_db.sql
+-- already includes this for fresh installs):
+--   mysql -u root -p finance_tracker < rollups.sql
+--
+-- Bulk loads that bypass the DAOs (tools.DataGenerator does this itself)
+-- must be followed by a rebuild: RollupDAO.rebuildAll().
+
+USE finance_tracker;
+
+CREATE TABLE IF NOT EXISTS rollups (
+  user_id INT NOT NULL,
+  granularity ENUM('DAY', 'WEEK', 'MONTH', 'YEAR') NOT NULL,
+  period_start DATE NOT NULL,
+  kind ENUM('income', 'expense') NOT NULL,
+  category VARCHAR(50) NOT NULL,
+  total DECIMAL(14,2) NOT NULL,
+  row_count INT NOT NULL,
+  PRIMARY KEY (user_id, granularity, period_start, kind, category),
+  FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+SELECT 'Rollups ready!' AS Status;
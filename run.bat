@@ -28,11 +28,11 @@ echo ✓ Binary directory ready
 
 echo.
 echo [2/4] Compiling Java source files...
-echo Compiling with packages: db, model, dao, service, ui, util
+echo Compiling with packages: db, model, dao, service, ui, util, tools
 echo.
 
 REM Compile all Java files with package structure
-javac -cp ".;lib\mysql-connector-j.jar" -d bin -sourcepath src src\Main.java src\db\*.java src\model\*.java src\dao\*.java src\service\*.java src\ui\*.java src\util\*.java
+javac -cp ".;lib\mysql-connector-j.jar" -d bin -sourcepath src src\Main.java src\db\*.java src\model\*.java src\dao\*.java src\event\*.java src\service\*.java src\ui\*.java src\util\*.java src\tools\*.java
 
 if %errorlevel% neq 0 (
     echo.
@@ -1,4 +1,11 @@
 import db.DatabaseConnection;
+import db.PartitionMaintenance;
+import db.SchemaMigrator;
+import service.ArchiveService;
+import service.DistributionService;
+import service.PeerSyncService;
+import service.RecurringScheduler;
+import service.RollupService;
 import ui.LoginFrame;
 
 import javax.swing.*;
@@ -18,6 +25,21 @@ public class Main {
             System.err.println("\n⚠️  WARNING: Database connection failed!");
             System.err.println("You can still use the application in Guest Mode.");
             System.err.println("However, data will not be persisted.\n");
+        } else {
+            // Bring the schema up to date before anything queries it (online DDL, see migrations/)
+            new SchemaMigrator().migrate();
+            // Keep monthly partitions ahead of time (no-op on unpartitioned tables)
+            new PartitionMaintenance().schedule();
+            // Move expired months to the archive tables (off unless archive.maxAgeMonths is set)
+            new ArchiveService().schedule();
+            // Push changes to other running instances (needs change_tracking.sql)
+            PeerSyncService.getInstance().start();
+            // Keep chart rollups current (needs rollups.sql)
+            RollupService.getInstance().start();
+            // Keep expense amount distributions current (needs migrations/V005)
+            DistributionService.getInstance().start();
+            // Write due recurring incomes/expenses; last, so the services above see the events
+            RecurringScheduler.getInstance().start();
         }
 
         // Set Nimbus Look and Feel for modern dark UI
@@ -0,0 +1,428 @@
+package dao;
+
+import db.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for the cold-history archive
+ * Old incomes/expenses live in compressed incomes_archive/expenses_archive
+ * tables, and archive_totals keeps per user, category and month aggregates
+ * of them so lifetime totals never have to scan archived rows.
+ *
+ * The kind argument is "income" or "expense" throughout.
+ */
+public class ArchiveDAO {
+    private static final int IN_CHUNK = 500;
+    private static volatile Boolean available;
+
+    private final DatabaseConnection dbConnection;
+
+    public ArchiveDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Check whether the archive schema (archive_tables.sql) is installed
+     * The answer is cached; call {@link #resetAvailability()} after creating the tables.
+     * @return true if the archive tables exist
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME IN ('incomes_archive', 'expenses_archive', 'archive_totals')";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 3;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking archive tables: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Lifetime archived total for a user
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @return Sum of archived amounts (zero when nothing is archived)
+     */
+    public BigDecimal getArchivedTotal(int userId, String kind) {
+        if (!isAvailable()) {
+            return BigDecimal.ZERO;
+        }
+        String sql = "SELECT COALESCE(SUM(total), 0) FROM archive_totals WHERE user_id = ? AND kind = ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, kind);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting archived total: " + e.getMessage());
+        }
+
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Archived totals per category for a user
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @return Map of category to archived total
+     */
+    public Map<String, BigDecimal> getArchivedTotalsByCategory(int userId, String kind) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        if (!isAvailable()) {
+            return totals;
+        }
+        String sql = "SELECT category, SUM(total) FROM archive_totals " +
+                     "WHERE user_id = ? AND kind = ? GROUP BY category";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, kind);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString(1), rs.getBigDecimal(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting archived category totals: " + e.getMessage());
+        }
+
+        return totals;
+    }
+
+    /**
+     * Archived totals per month and category for a user
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @return Map of first day of month to category totals, oldest month first
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getArchivedMonthlyTotals(int userId, String kind) {
+        TreeMap<LocalDate, Map<String, BigDecimal>> totals = new TreeMap<>();
+        if (!isAvailable()) {
+            return totals;
+        }
+        String sql = "SELECT period_month, category, SUM(total) FROM archive_totals " +
+                     "WHERE user_id = ? AND kind = ? GROUP BY period_month, category";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, kind);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.computeIfAbsent(rs.getDate(1).toLocalDate(), month -> new HashMap<>())
+                          .put(rs.getString(2), rs.getBigDecimal(3));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting archived monthly totals: " + e.getMessage());
+        }
+
+        return totals;
+    }
+
+    /**
+     * Date of the oldest row still in a hot table
+     * @param kind "income" or "expense"
+     * @return Oldest date, or null if the table is empty
+     */
+    public LocalDate getOldestHotDate(String kind) throws SQLException {
+        String sql = "SELECT MIN(date) FROM " + table(kind);
+
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next() && rs.getDate(1) != null) {
+                return rs.getDate(1).toLocalDate();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Users with rows in a date range of a hot table
+     * @param kind "income" or "expense"
+     * @param from First date
+     * @param to First date after the range
+     * @return User IDs; null stands for rows without a user
+     */
+    public List<Integer> getHotUsers(String kind, Date from, Date to) throws SQLException {
+        String sql = "SELECT DISTINCT user_id FROM " + table(kind) + " WHERE date >= ? AND date < ?";
+        List<Integer> users = new ArrayList<>();
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, from);
+            pstmt.setDate(2, to);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(rs.getObject(1, Integer.class));
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Move one user's hot rows in a date range into the archive table
+     * Runs as one transaction: the rows are locked first, so they can't be
+     * changed and no row can be added to the range in between; exactly the
+     * locked IDs are copied and deleted, and the user's archive_totals for
+     * the months involved are rebuilt before commit. Archived copies left
+     * by an earlier run are replaced rather than kept.
+     * @param kind "income" or "expense"
+     * @param userId User ID, or null for rows without a user (not in the totals)
+     * @param from First date moved
+     * @param to First date not moved
+     * @return Number of rows moved
+     */
+    public int moveToArchive(String kind, Integer userId, Date from, Date to) throws SQLException {
+        String table = table(kind);
+        String idColumn = kind + "_id";
+        String columns = columns(kind);
+        String lockSql = "SELECT " + idColumn + " FROM " + table +
+                         " WHERE user_id <=> ? AND date >= ? AND date < ? FOR UPDATE";
+        List<Integer> ids = new ArrayList<>();
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement lock = conn.prepareStatement(lockSql)) {
+                lock.setObject(1, userId, Types.INTEGER);
+                lock.setDate(2, from);
+                lock.setDate(3, to);
+
+                try (ResultSet rs = lock.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+            }
+
+            for (List<Integer> chunk : chunks(ids)) {
+                String byId = " WHERE " + idColumn + " IN " + placeholders(chunk.size());
+                executeForIds(conn, "DELETE FROM " + table + "_archive" + byId, chunk);
+                executeForIds(conn, "INSERT INTO " + table + "_archive (" + columns + ") " +
+                                    "SELECT " + columns + " FROM " + table + byId, chunk);
+                executeForIds(conn, "DELETE FROM " + table + byId, chunk);
+            }
+            if (userId != null && !ids.isEmpty()) {
+                refreshTotals(conn, kind, userId, from.toLocalDate(), to.toLocalDate());
+            }
+
+            conn.commit();
+        }
+        return ids.size();
+    }
+
+    /**
+     * Rebuild a user's archive_totals for the whole months around a date range
+     * Recomputing (instead of adding) keeps the aggregates correct when an
+     * archival run is repeated.
+     */
+    private static void refreshTotals(Connection conn, String kind, int userId, LocalDate from, LocalDate to)
+            throws SQLException {
+        Date firstMonth = Date.valueOf(from.withDayOfMonth(1));
+        Date afterLastMonth = Date.valueOf(to.minusDays(1).withDayOfMonth(1).plusMonths(1));
+        String deleteSql = "DELETE FROM archive_totals " +
+                           "WHERE user_id = ? AND kind = ? AND period_month >= ? AND period_month < ?";
+        String insertSql = "INSERT INTO archive_totals (user_id, kind, category, period_month, total, row_count) " +
+                           "SELECT ?, ?, category, DATE_FORMAT(date, '%Y-%m-01'), SUM(amount), COUNT(*) " +
+                           "FROM " + table(kind) + "_archive WHERE user_id = ? AND date >= ? AND date < ? " +
+                           "GROUP BY category, DATE_FORMAT(date, '%Y-%m-01')";
+
+        try (PreparedStatement delete = conn.prepareStatement(deleteSql);
+             PreparedStatement insert = conn.prepareStatement(insertSql)) {
+
+            delete.setInt(1, userId);
+            delete.setString(2, kind);
+            delete.setDate(3, firstMonth);
+            delete.setDate(4, afterLastMonth);
+            delete.executeUpdate();
+
+            insert.setInt(1, userId);
+            insert.setString(2, kind);
+            insert.setInt(3, userId);
+            insert.setDate(4, firstMonth);
+            insert.setDate(5, afterLastMonth);
+            insert.executeUpdate();
+        }
+    }
+
+    private static void executeForIds(Connection conn, String sql, List<Integer> ids) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += IN_CHUNK) {
+            chunks.add(items.subList(from, Math.min(from + IN_CHUNK, items.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Delete a single archived row and take it out of the aggregates
+     * @param kind "income" or "expense"
+     * @param id Row ID
+     * @param date Stored date of the row, or null if unknown
+     * @return true if a row was deleted
+     */
+    public boolean deleteArchivedRow(String kind, int id, Date date) {
+        if (!isAvailable()) {
+            return false;
+        }
+        String table = table(kind) + "_archive";
+        String idColumn = kind + "_id";
+        String dateFilter = date != null ? " AND date = ?" : "";
+        String selectSql = "SELECT user_id, category, amount, date FROM " + table +
+                           " WHERE " + idColumn + " = ?" + dateFilter + " FOR UPDATE";
+        String deleteSql = "DELETE FROM " + table + " WHERE " + idColumn + " = ?" + dateFilter;
+        String totalsSql = "UPDATE archive_totals SET total = total - ?, row_count = row_count - 1 " +
+                           "WHERE user_id = ? AND kind = ? AND category = ? AND period_month = ?";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql);
+                 PreparedStatement totals = conn.prepareStatement(totalsSql)) {
+
+                select.setInt(1, id);
+                delete.setInt(1, id);
+                if (date != null) {
+                    select.setDate(2, date);
+                    delete.setDate(2, date);
+                }
+
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    totals.setBigDecimal(1, rs.getBigDecimal("amount"));
+                    totals.setInt(2, rs.getInt("user_id"));
+                    totals.setString(3, kind);
+                    totals.setString(4, rs.getString("category"));
+                    totals.setDate(5, Date.valueOf(rs.getDate("date").toLocalDate().withDayOfMonth(1)));
+                }
+
+                delete.executeUpdate();
+                totals.executeUpdate();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting archived " + kind + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete all archived rows and aggregates of a user
+     * @param userId User ID
+     * @return true if successful (or nothing is archived)
+     */
+    public boolean deleteUserArchive(int userId) {
+        if (!isAvailable()) {
+            return true;
+        }
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement deleteIncomes = conn.prepareStatement("DELETE FROM incomes_archive WHERE user_id = ?");
+                 PreparedStatement deleteExpenses = conn.prepareStatement("DELETE FROM expenses_archive WHERE user_id = ?");
+                 PreparedStatement deleteTotals = conn.prepareStatement("DELETE FROM archive_totals WHERE user_id = ?")) {
+
+                deleteIncomes.setInt(1, userId);
+                deleteIncomes.executeUpdate();
+                deleteExpenses.setInt(1, userId);
+                deleteExpenses.executeUpdate();
+                deleteTotals.setInt(1, userId);
+                deleteTotals.executeUpdate();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting archived data: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Hot table name for a kind
+     */
+    static String table(String kind) {
+        if ("income".equals(kind)) {
+            return "incomes";
+        }
+        if ("expense".equals(kind)) {
+            return "expenses";
+        }
+        throw new IllegalArgumentException("Unknown transaction kind: " + kind);
+    }
+
+    /**
+     * Columns shared by a hot table and its archive table
+     */
+    static String columns(String kind) {
+        table(kind);
+        return kind + "_id, user_id, category, amount, date, notes, created_at, recurring_rule_id";
+    }
+}
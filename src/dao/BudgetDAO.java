@@ -0,0 +1,170 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.Budget;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for monthly category budgets (migrations/V004)
+ * Only the limits are stored; spend-to-date is summed once per month by
+ * getMonthSpend() and kept current by service.BudgetService.
+ */
+public class BudgetDAO {
+    private static volatile Boolean available;
+
+    private final DatabaseConnection dbConnection;
+
+    public BudgetDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Check whether the budgets table is installed
+     * The answer is cached; call {@link #resetAvailability()} after migrating.
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME = 'budgets'";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 1;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking budgets table: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Add a budget or replace the limit of an existing one
+     * @param budget Budget to save
+     * @return true if successful, false otherwise
+     */
+    public boolean setBudget(Budget budget) {
+        String sql = "INSERT INTO budgets (user_id, category, monthly_limit, warn_percent) VALUES (?, ?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE monthly_limit = VALUES(monthly_limit), " +
+                     "warn_percent = VALUES(warn_percent)";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, budget.getUserId());
+            pstmt.setString(2, budget.getCategory());
+            pstmt.setBigDecimal(3, budget.getMonthlyLimit());
+            pstmt.setInt(4, budget.getWarnPercent());
+            pstmt.executeUpdate();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error saving budget: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove the budget of a category
+     * @return true if a budget was removed
+     */
+    public boolean deleteBudget(int userId, String category) {
+        String sql = "DELETE FROM budgets WHERE user_id = ? AND category = ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setString(2, category);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting budget: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get all budgets of a user
+     * @param userId User ID
+     * @return Budgets by category, or null on error
+     */
+    public List<Budget> getBudgets(int userId) {
+        List<Budget> budgets = new ArrayList<>();
+        String sql = "SELECT category, monthly_limit, warn_percent FROM budgets WHERE user_id = ? ORDER BY category";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    budgets.add(new Budget(userId, rs.getString(1), rs.getBigDecimal(2), rs.getInt(3)));
+                }
+            }
+            return budgets;
+
+        } catch (SQLException e) {
+            System.err.println("Error getting budgets: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Expense totals per category in one month
+     * A range scan of the (user_id, date, category, amount) covering index.
+     * The archive is not read: only months that have ended are archived.
+     * @param userId User ID
+     * @param month Month to sum
+     * @return Map of category to total at the version it was read at, or null on error
+     */
+    public Versioned<Map<String, BigDecimal>> getMonthSpend(int userId, YearMonth month) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        String sql = "SELECT category, SUM(amount) FROM expenses WHERE user_id = ? AND date >= ? AND date < ? " +
+                     "GROUP BY category";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            // One transaction, so the version matches the rows summed
+            conn.setAutoCommit(false);
+            long version = DataVersion.current(conn, userId);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, userId);
+                pstmt.setDate(2, Date.valueOf(month.atDay(1)));
+                pstmt.setDate(3, Date.valueOf(month.plusMonths(1).atDay(1)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        totals.put(rs.getString(1), rs.getBigDecimal(2));
+                    }
+                }
+            }
+
+            conn.commit();
+            return new Versioned<>(totals, version);
+
+        } catch (SQLException e) {
+            System.err.println("Error getting month spend: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.ChangeSet;
+import model.Expense;
+import model.Income;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for per-user change tracking (change_tracking.sql)
+ * Every write to a user's incomes or expenses takes the next number from
+ * that user's row in user_change_seq, in the same transaction, and stamps
+ * it on the changed rows (version column) or on a tombstone for deletes.
+ * The sequence row stays locked until commit, so versions become visible
+ * in order and a client can poll getChangesSince() with the last version
+ * it saw without missing anything.
+ *
+ * The kind argument is "income" or "expense" throughout.
+ */
+public class ChangeDAO {
+    private static volatile Boolean available;
+
+    private final DatabaseConnection dbConnection;
+
+    public ChangeDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Check whether the change-tracking schema is installed
+     * The answer is cached; call {@link #resetAvailability()} after running the script.
+     * @return true if writes should be versioned
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT " +
+                         "(SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME IN ('user_change_seq', 'tombstones')) + " +
+                         "(SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME IN ('incomes', 'expenses') AND COLUMN_NAME = 'version')";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 4;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking change tracking tables: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Take the next change version for a user
+     * Must run inside the caller's transaction, before the rows are
+     * changed; the sequence row stays locked until that transaction ends.
+     * @param conn Connection with auto-commit off
+     * @param userId User ID
+     * @return New version, starting at 1
+     */
+    long nextVersion(Connection conn, int userId) throws SQLException {
+        String sql = "INSERT INTO user_change_seq (user_id, last_version) VALUES (?, LAST_INSERT_ID(1)) " +
+                     "ON DUPLICATE KEY UPDATE last_version = LAST_INSERT_ID(last_version + 1)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            pstmt.executeUpdate();
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Record a deleted row inside the caller's transaction
+     * @param conn Connection with auto-commit off
+     * @param userId Owner of the row
+     * @param kind "income" or "expense"
+     * @param rowId Income or expense ID
+     * @param version Version taken with nextVersion()
+     */
+    void addTombstone(Connection conn, int userId, String kind, int rowId, long version) throws SQLException {
+        String sql = "INSERT INTO tombstones (user_id, version, kind, row_id) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            pstmt.setLong(2, version);
+            pstmt.setString(3, kind);
+            pstmt.setInt(4, rowId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Record many deleted rows inside the caller's transaction, one insert per batch
+     * @param conn Connection with auto-commit off
+     * @param userId Owner of the rows
+     * @param kind "income" or "expense"
+     * @param rowIds Income or expense IDs
+     * @param version Version taken with nextVersion(), shared by all rows
+     */
+    void addTombstones(Connection conn, int userId, String kind, List<Integer> rowIds, long version)
+            throws SQLException {
+        String sql = "INSERT INTO tombstones (user_id, version, kind, row_id) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int rowId : rowIds) {
+                pstmt.setInt(1, userId);
+                pstmt.setLong(2, version);
+                pstmt.setString(3, kind);
+                pstmt.setInt(4, rowId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Record a deletion that happened outside a versioned transaction (archived rows)
+     * @param userId Owner of the row
+     * @param kind "income" or "expense"
+     * @param rowId Income or expense ID
+     * @return Version of the deletion, or 0 if it could not be recorded
+     */
+    public long recordDeletion(int userId, String kind, int rowId) {
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            long version = nextVersion(conn, userId);
+            addTombstone(conn, userId, kind, rowId, version);
+            conn.commit();
+            return version;
+
+        } catch (SQLException e) {
+            System.err.println("Error recording deletion: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Latest change version of a user
+     * A primary-key lookup, cheap enough to poll.
+     * @param userId User ID
+     * @return Latest version, or 0 if the user never changed anything
+     */
+    public long getCurrentVersion(int userId) {
+        String sql = "SELECT last_version FROM user_change_seq WHERE user_id = ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting change version: " + e.getMessage());
+        }
+
+        return 0;
+    }
+
+    /**
+     * Latest change version of a user, read inside the caller's transaction
+     * As the transaction's first read it fixes the snapshot, so later plain
+     * reads see exactly the writes up to this version. Locking reads
+     * (INSERT ... SELECT) don't use the snapshot; for them pass lock, which
+     * makes the user's writes wait until the transaction ends.
+     * @param conn Connection with auto-commit off
+     * @param userId User ID
+     * @param lock Share-lock the sequence row
+     * @return Latest version, or 0 if the user never changed anything
+     */
+    long getCurrentVersion(Connection conn, int userId, boolean lock) throws SQLException {
+        String sql = "SELECT last_version FROM user_change_seq WHERE user_id = ?" + (lock ? " LOCK IN SHARE MODE" : "");
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Everything that changed for a user after a given version
+     * All reads share one consistent snapshot, so the returned toVersion
+     * matches exactly the rows and tombstones returned.
+     * @param userId User ID
+     * @param sinceVersion Last version the caller has applied (0 for everything)
+     * @return Change set, or null on error
+     */
+    public ChangeSet getChangesSince(int userId, long sinceVersion) {
+        try (Connection conn = dbConnection.getConnection()) {
+            // One transaction, so every read sees the same snapshot
+            conn.setAutoCommit(false);
+
+            try {
+                long toVersion = 0;
+                long purgedVersion = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT last_version, purged_version FROM user_change_seq WHERE user_id = ?")) {
+                    pstmt.setInt(1, userId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            toVersion = rs.getLong(1);
+                            purgedVersion = rs.getLong(2);
+                        }
+                    }
+                }
+
+                if (toVersion <= sinceVersion) {
+                    return new ChangeSet(sinceVersion, sinceVersion, false,
+                                         List.of(), List.of(), List.of(), List.of());
+                }
+                if (sinceVersion < purgedVersion) {
+                    return new ChangeSet(sinceVersion, toVersion, true,
+                                         List.of(), List.of(), List.of(), List.of());
+                }
+
+                List<Income> incomes = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT income_id, user_id, category, amount, date, notes, created_at FROM incomes " +
+                        "WHERE user_id = ? AND version > ?")) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            incomes.add(mapIncome(rs));
+                        }
+                    }
+                }
+
+                List<Expense> expenses = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT expense_id, user_id, category, amount, date, notes, created_at FROM expenses " +
+                        "WHERE user_id = ? AND version > ?")) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            expenses.add(mapExpense(rs));
+                        }
+                    }
+                }
+
+                List<Integer> deletedIncomeIds = new ArrayList<>();
+                List<Integer> deletedExpenseIds = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT kind, row_id FROM tombstones WHERE user_id = ? AND version > ?")) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setLong(2, sinceVersion);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            if ("income".equals(rs.getString(1))) {
+                                deletedIncomeIds.add(rs.getInt(2));
+                            } else {
+                                deletedExpenseIds.add(rs.getInt(2));
+                            }
+                        }
+                    }
+                }
+
+                return new ChangeSet(sinceVersion, toVersion, false,
+                                     incomes, expenses, deletedIncomeIds, deletedExpenseIds);
+            } finally {
+                conn.commit();
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting changes: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delete tombstones older than a number of days
+     * Each user's purged_version is raised first, so clients that were
+     * offline longer than the retention get a full-resync answer instead
+     * of a delta with missing deletions.
+     * @param retentionDays Tombstones younger than this are kept
+     * @return Number of tombstones deleted
+     */
+    public int purgeTombstones(int retentionDays) throws SQLException {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - retentionDays * 86_400_000L);
+        String markSql = "UPDATE user_change_seq s " +
+                         "JOIN (SELECT user_id, MAX(version) AS version FROM tombstones " +
+                         "WHERE deleted_at < ? GROUP BY user_id) t ON s.user_id = t.user_id " +
+                         "SET s.purged_version = GREATEST(s.purged_version, t.version)";
+        String deleteSql = "DELETE FROM tombstones WHERE deleted_at < ?";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            int deleted;
+
+            try (PreparedStatement mark = conn.prepareStatement(markSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                mark.setTimestamp(1, cutoff);
+                mark.executeUpdate();
+                delete.setTimestamp(1, cutoff);
+                deleted = delete.executeUpdate();
+            }
+
+            conn.commit();
+            return deleted;
+        }
+    }
+
+    /**
+     * Remove a user's sequence and tombstones inside the caller's transaction
+     */
+    void deleteUserChanges(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement tombstones = conn.prepareStatement("DELETE FROM tombstones WHERE user_id = ?");
+             PreparedStatement sequence = conn.prepareStatement("DELETE FROM user_change_seq WHERE user_id = ?")) {
+            tombstones.setInt(1, userId);
+            tombstones.executeUpdate();
+            sequence.setInt(1, userId);
+            sequence.executeUpdate();
+        }
+    }
+
+    private Income mapIncome(ResultSet rs) throws SQLException {
+        Income income = new Income();
+        income.setIncomeId(rs.getInt("income_id"));
+        income.setUserId(rs.getInt("user_id"));
+        income.setCategory(rs.getString("category"));
+        income.setAmount(rs.getBigDecimal("amount"));
+        income.setDate(rs.getDate("date"));
+        income.setNotes(rs.getString("notes"));
+        income.setCreatedAt(rs.getTimestamp("created_at"));
+        return income;
+    }
+
+    private Expense mapExpense(ResultSet rs) throws SQLException {
+        Expense expense = new Expense();
+        expense.setExpenseId(rs.getInt("expense_id"));
+        expense.setUserId(rs.getInt("user_id"));
+        expense.setCategory(rs.getString("category"));
+        expense.setAmount(rs.getBigDecimal("amount"));
+        expense.setDate(rs.getDate("date"));
+        expense.setNotes(rs.getString("notes"));
+        expense.setCreatedAt(rs.getTimestamp("created_at"));
+        return expense;
+    }
+}
@@ -0,0 +1,61 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user data versions that let views skip reloading when nothing has changed
+ * With change tracking installed (change_tracking.sql) this is the user's
+ * database change version, so writes from other clients count too.
+ * Otherwise DAOs bump an in-process counter after every successful write.
+ * Versions only ever increase.
+ */
+public final class DataVersion {
+    private static final ConcurrentHashMap<Integer, AtomicLong> userVersions = new ConcurrentHashMap<>();
+    private static final ChangeDAO changeDAO = new ChangeDAO();
+
+    private DataVersion() {
+    }
+
+    /**
+     * Record an untracked change to one user's data
+     * @param userId User ID
+     * @return The user's new in-process version
+     */
+    static long bump(int userId) {
+        return userVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Current version of a user's data
+     * May query the database, so don't call it on the Event Dispatch Thread.
+     * @param userId User ID
+     * @return Version that changes whenever the user's data may have changed
+     */
+    public static long current(int userId) {
+        if (changeDAO.isAvailable()) {
+            return changeDAO.getCurrentVersion(userId);
+        }
+        AtomicLong userVersion = userVersions.get(userId);
+        return userVersion != null ? userVersion.get() : 0;
+    }
+
+    /**
+     * Version of a user's data for the reads that follow on a connection
+     * Call it first in a transaction. With change tracking it is read in the
+     * transaction's snapshot, so the reads see exactly the writes up to it.
+     * Otherwise it is the in-process version: writes bump it after they
+     * commit, so those at or below it are in the reads, but one committing
+     * while the reads start can be in them with a higher version.
+     * @param conn Connection with auto-commit off
+     * @param userId User ID
+     */
+    static long current(Connection conn, int userId) throws SQLException {
+        if (changeDAO.isAvailable()) {
+            return changeDAO.getCurrentVersion(conn, userId, false);
+        }
+        return current(userId);
+    }
+}
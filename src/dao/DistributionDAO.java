@@ -0,0 +1,397 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.AmountDistribution;
+import model.Expense;
+import model.Granularity;
+import model.Transaction;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for expense amount distributions (migrations/V005)
+ * One serialized AmountDistribution per user, month and category. Inserted
+ * expenses are added to their cell; updated and deleted ones mark it dirty,
+ * and dirty cells are rebuilt from their month's rows (archive included)
+ * before they are read. A cell remembers the highest expense ID it was
+ * built from: an insert at or below it may already be in the cell, so it
+ * marks the cell dirty instead of being added twice.
+ */
+public class DistributionDAO {
+    private static final String MARK_DIRTY_SQL =
+        "INSERT INTO expense_distributions (user_id, month, category, dirty) VALUES (?, ?, ?, TRUE) " +
+        "ON DUPLICATE KEY UPDATE dirty = TRUE";
+    private static volatile Boolean available;
+
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+
+    public DistributionDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+    }
+
+    /**
+     * Check whether the expense_distributions table is installed
+     * The answer is cached; call {@link #resetAvailability()} after migrating.
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME = 'expense_distributions'";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 1;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking expense_distributions table: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Check whether the distributions have never been filled
+     */
+    public boolean isEmpty() throws SQLException {
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM expense_distributions LIMIT 1")) {
+            return !rs.next();
+        }
+    }
+
+    /**
+     * Mark every month and category that has expenses dirty, creating missing cells
+     * The cells are built by {@link #rebuildDirty(Integer, YearMonth, YearMonth)}.
+     */
+    public void markAllDirty() throws SQLException {
+        String month = TimeSeriesDAO.periodOf(Granularity.MONTH, "date");
+        String branch = "SELECT DISTINCT user_id, " + month + " AS month, category FROM %s WHERE user_id IS NOT NULL";
+        String source = String.format(branch, "expenses");
+        if (archiveDAO.isAvailable()) {
+            source += " UNION " + String.format(branch, "expenses_archive");
+        }
+        String sql = "INSERT INTO expense_distributions (user_id, month, category, dirty) " +
+                     "SELECT user_id, month, category, TRUE FROM (" + source + ") AS cells " +
+                     "ON DUPLICATE KEY UPDATE dirty = TRUE";
+
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Add inserted expenses to their cells in one transaction
+     * Cells are locked in key order so concurrent writers lock them in the
+     * same order. A missing cell is created dirty, since the month may hold
+     * rows that were never added.
+     * @param rows Inserted expenses
+     * @return true if successful
+     */
+    public boolean addRows(List<Expense> rows) {
+        Map<String, List<Expense>> cells = groupByCell(rows);
+        if (cells.isEmpty()) {
+            return true;
+        }
+
+        String selectSql = "SELECT dirty, built_through, data FROM expense_distributions " +
+                           "WHERE user_id = ? AND month = ? AND category = ? FOR UPDATE";
+        String updateSql = "UPDATE expense_distributions SET data = ? WHERE user_id = ? AND month = ? AND category = ?";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement update = conn.prepareStatement(updateSql);
+                 PreparedStatement dirty = conn.prepareStatement(MARK_DIRTY_SQL)) {
+
+                for (List<Expense> cell : cells.values()) {
+                    Expense first = cell.get(0);
+                    Date month = monthOf(first);
+                    bindCell(select, 1, first.getUserId(), month, first.getCategory());
+
+                    AmountDistribution distribution = null;
+                    boolean rebuilding = false;
+                    try (ResultSet rs = select.executeQuery()) {
+                        if (rs.next()) {
+                            rebuilding = rs.getBoolean("dirty");
+                            if (!rebuilding) {
+                                distribution = addToCell(rs.getInt("built_through"), rs.getBytes("data"),
+                                    first.getCategory(), cell);
+                            }
+                        }
+                    }
+                    if (rebuilding) {
+                        continue; // the rebuild reads these rows
+                    }
+
+                    if (distribution != null) {
+                        update.setBytes(1, distribution.toBytes());
+                        bindCell(update, 2, first.getUserId(), month, first.getCategory());
+                        update.addBatch();
+                    } else {
+                        bindCell(dirty, 1, first.getUserId(), month, first.getCategory());
+                        dirty.addBatch();
+                    }
+                }
+                update.executeBatch();
+                dirty.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error updating expense distributions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Mark the cells of updated or deleted expenses for a rebuild
+     * @param removedRows Rows that no longer count (deleted, or before an update)
+     * @param addedRows Rows that now count (after an update)
+     * @return true if successful
+     */
+    public boolean markDirty(List<? extends Transaction> removedRows, List<? extends Transaction> addedRows) {
+        List<Transaction> rows = new ArrayList<>(removedRows);
+        rows.addAll(addedRows);
+        Map<String, List<Transaction>> cells = groupByCell(rows);
+        if (cells.isEmpty()) {
+            return true;
+        }
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(MARK_DIRTY_SQL)) {
+                for (List<Transaction> cell : cells.values()) {
+                    Transaction first = cell.get(0);
+                    bindCell(pstmt, 1, first.getUserId(), monthOf(first), first.getCategory());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error marking expense distributions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebuild dirty cells from the expenses, one transaction per cell
+     * @param userId User ID, or null for every user
+     * @param from First month, or null for all history
+     * @param to Last month included
+     * @return Number of cells rebuilt, or -1 on error
+     */
+    public int rebuildDirty(Integer userId, YearMonth from, YearMonth to) {
+        String userFilter = userId != null ? " AND user_id = ?" : "";
+        String findSql = "SELECT user_id, month, category FROM expense_distributions WHERE dirty = TRUE" + userFilter +
+                         " AND month >= ? AND month <= ? ORDER BY user_id, month, category";
+        String lockSql = "SELECT dirty FROM expense_distributions " +
+                         "WHERE user_id = ? AND month = ? AND category = ? FOR UPDATE";
+        String branch = "SELECT expense_id, amount, date FROM %s WHERE user_id = ? AND category = ? " +
+                        "AND date >= ? AND date < ?";
+        String rowsSql = String.format(branch, "expenses");
+        boolean archived = archiveDAO.isAvailable();
+        if (archived) {
+            rowsSql += " UNION ALL " + String.format(branch, "expenses_archive");
+        }
+        String updateSql = "UPDATE expense_distributions SET dirty = FALSE, built_through = ?, data = ? " +
+                           "WHERE user_id = ? AND month = ? AND category = ?";
+        String deleteSql = "DELETE FROM expense_distributions WHERE user_id = ? AND month = ? AND category = ?";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            List<Object[]> dirty = new ArrayList<>();
+            try (PreparedStatement find = conn.prepareStatement(findSql)) {
+                int index = 1;
+                if (userId != null) {
+                    find.setInt(index++, userId);
+                }
+                bindMonths(find, index, from, to);
+                try (ResultSet rs = find.executeQuery()) {
+                    while (rs.next()) {
+                        dirty.add(new Object[] {rs.getInt("user_id"), rs.getDate("month"), rs.getString("category")});
+                    }
+                }
+            }
+
+            int rebuilt = 0;
+            conn.setAutoCommit(false);
+            try (PreparedStatement lock = conn.prepareStatement(lockSql);
+                 PreparedStatement read = conn.prepareStatement(rowsSql);
+                 PreparedStatement update = conn.prepareStatement(updateSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+
+                for (Object[] cell : dirty) {
+                    int cellUser = (Integer) cell[0];
+                    Date month = (Date) cell[1];
+                    String category = (String) cell[2];
+
+                    // Another writer may have rebuilt it since it was listed
+                    bindCell(lock, 1, cellUser, month, category);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next() || !rs.getBoolean("dirty")) {
+                            conn.commit();
+                            continue;
+                        }
+                    }
+
+                    Date next = Date.valueOf(month.toLocalDate().plusMonths(1));
+                    bindMonth(read, 1, cellUser, category, month, next);
+                    if (archived) {
+                        bindMonth(read, 5, cellUser, category, month, next);
+                    }
+                    AmountDistribution distribution = new AmountDistribution();
+                    int builtThrough = 0;
+                    try (ResultSet rs = read.executeQuery()) {
+                        while (rs.next()) {
+                            int expenseId = rs.getInt("expense_id");
+                            long cents = rs.getBigDecimal("amount").movePointRight(2).longValue();
+                            distribution.add(expenseId, category, cents, rs.getDate("date").toLocalDate());
+                            builtThrough = Math.max(builtThrough, expenseId);
+                        }
+                    }
+
+                    if (distribution.isEmpty()) {
+                        bindCell(delete, 1, cellUser, month, category);
+                        delete.executeUpdate();
+                    } else {
+                        update.setInt(1, builtThrough);
+                        update.setBytes(2, distribution.toBytes());
+                        bindCell(update, 3, cellUser, month, category);
+                        update.executeUpdate();
+                    }
+                    conn.commit();
+                    rebuilt++;
+                }
+            }
+            return rebuilt;
+
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding expense distributions: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Distribution of a user's expenses per category over a range of months
+     * Dirty cells in the range are rebuilt first; the rest are only merged.
+     * @param userId User ID
+     * @param from First month, or null for all history
+     * @param to Last month included
+     * @return Distributions by category, or null on error
+     */
+    public Map<String, AmountDistribution> getDistributions(int userId, YearMonth from, YearMonth to) {
+        if (rebuildDirty(userId, from, to) < 0) {
+            return null;
+        }
+        String sql = "SELECT category, data FROM expense_distributions " +
+                     "WHERE user_id = ? AND month >= ? AND month <= ? AND data IS NOT NULL";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            bindMonths(pstmt, 2, from, to);
+
+            Map<String, AmountDistribution> distributions = new TreeMap<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String category = rs.getString("category");
+                    AmountDistribution cell = AmountDistribution.fromBytes(rs.getBytes("data"), category);
+                    AmountDistribution merged = distributions.putIfAbsent(category, cell);
+                    if (merged != null) {
+                        merged.merge(cell);
+                    }
+                }
+            }
+            return distributions;
+
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error getting expense distributions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Add the rows above a built cell's high-water mark
+     * @return Updated distribution, or null if the cell needs a rebuild
+     */
+    private static AmountDistribution addToCell(int builtThrough, byte[] data, String category, List<Expense> rows) {
+        AmountDistribution distribution;
+        try {
+            distribution = data != null ? AmountDistribution.fromBytes(data, category) : new AmountDistribution();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Rebuilding unreadable expense distribution: " + e.getMessage());
+            return null;
+        }
+        for (Expense row : rows) {
+            if (row.getExpenseId() <= builtThrough) {
+                return null; // the build may or may not have read it
+            }
+            distribution.add(row);
+        }
+        return distribution;
+    }
+
+    private static <T extends Transaction> Map<String, List<T>> groupByCell(List<T> rows) {
+        Map<String, List<T>> cells = new TreeMap<>();
+        for (T row : rows) {
+            String key = row.getUserId() + "|" + monthOf(row) + "|" + row.getCategory();
+            cells.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+        return cells;
+    }
+
+    private static Date monthOf(Transaction row) {
+        return Date.valueOf(row.getDate().toLocalDate().withDayOfMonth(1));
+    }
+
+    private static void bindCell(PreparedStatement pstmt, int index, int userId, Date month, String category)
+            throws SQLException {
+        pstmt.setInt(index, userId);
+        pstmt.setDate(index + 1, month);
+        pstmt.setString(index + 2, category);
+    }
+
+    private static void bindMonths(PreparedStatement pstmt, int index, YearMonth from, YearMonth to)
+            throws SQLException {
+        pstmt.setDate(index, Date.valueOf(from != null ? from.atDay(1) : TimeSeriesDAO.MIN_DATE));
+        pstmt.setDate(index + 1, Date.valueOf(to.atDay(1)));
+    }
+
+    private static void bindMonth(PreparedStatement pstmt, int index, int userId, String category, Date month,
+                                  Date next) throws SQLException {
+        pstmt.setInt(index, userId);
+        pstmt.setString(index + 1, category);
+        pstmt.setDate(index + 2, month);
+        pstmt.setDate(index + 3, next);
+    }
+}
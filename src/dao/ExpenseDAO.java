@@ -1,203 +1,251 @@
 package dao;
 
-import db.DatabaseConnection;
 import model.Expense;
+import model.TransactionQuery;
+import model.TransactionRecord;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Expense operations
+ * The queries live in TransactionDAO, shared with IncomeDAO; this class maps
+ * rows to Expense beans and keeps the expense-named methods. See
+ * TransactionDAO for the archive, change tracking and event behaviour.
  */
-public class ExpenseDAO {
-    private final DatabaseConnection dbConnection;
+public class ExpenseDAO extends TransactionDAO<Expense> {
 
     public ExpenseDAO() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        super(Expense.class, "expense");
     }
 
     /**
-     * Add new expense entry
-     * @param expense Expense object to add
-     * @return true if successful, false otherwise
+     * Add new expense entry; the generated ID is set on the expense object
      */
     public boolean addExpense(Expense expense) {
-        String sql = "INSERT INTO expenses (user_id, category, amount, date, notes) VALUES (?, ?, ?, ?, ?)";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, expense.getUserId());
-            pstmt.setString(2, expense.getCategory());
-            pstmt.setBigDecimal(3, expense.getAmount());
-            pstmt.setDate(4, expense.getDate());
-            pstmt.setString(5, expense.getNotes());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error adding expense: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Get all expenses for a user
-     * @param userId User ID
-     * @return List of expenses
+        return add(expense);
+    }
+
+    /**
+     * Get all expenses for a user, newest first, held in memory
      */
     public List<Expense> getExpensesByUserId(int userId) {
-        List<Expense> expenses = new ArrayList<>();
-        String sql = "SELECT * FROM expenses WHERE user_id = ? ORDER BY date DESC";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Expense expense = new Expense();
-                    expense.setExpenseId(rs.getInt("expense_id"));
-                    expense.setUserId(rs.getInt("user_id"));
-                    expense.setCategory(rs.getString("category"));
-                    expense.setAmount(rs.getBigDecimal("amount"));
-                    expense.setDate(rs.getDate("date"));
-                    expense.setNotes(rs.getString("notes"));
-                    expense.setCreatedAt(rs.getTimestamp("created_at"));
-                    expenses.add(expense);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting expenses: " + e.getMessage());
-        }
-        
-        return expenses;
-    }
-
-    /**
-     * Get expenses by month and year
-     * @param userId User ID
-     * @param month Month (1-12)
-     * @param year Year (e.g., 2025)
-     * @return List of expenses for the specified month/year
+        return getByUserId(userId);
+    }
+
+    /**
+     * Pass each of a user's expenses, newest first, to a consumer through a server-side cursor
+     */
+    public boolean forEachExpense(int userId, Consumer<Expense> consumer) {
+        return forEach(userId, consumer);
+    }
+
+    /**
+     * Pass each of a user's expenses to a consumer in date order
+     * @return Version of the user's data the rows were read at, or -1 if not every row was read
+     */
+    public long forEachExpense(int userId, boolean oldestFirst, Consumer<Expense> consumer) {
+        return forEach(userId, oldestFirst, consumer);
+    }
+
+    /**
+     * Stream a user's expenses, newest first; close the stream to release its connection
+     */
+    public Stream<Expense> streamExpenses(int userId) {
+        return stream(userId);
+    }
+
+    /**
+     * Get the most recent expenses for a user, newest first
+     */
+    public List<Expense> getRecentExpenses(int userId, int limit) {
+        return getRecent(userId, limit);
+    }
+
+    /**
+     * Get expenses by month (1-12) and year
      */
     public List<Expense> getExpensesByMonth(int userId, int month, int year) {
-        List<Expense> expenses = new ArrayList<>();
-        String sql = "SELECT * FROM expenses WHERE user_id = ? " +
-                     "AND MONTH(date) = ? AND YEAR(date) = ? " +
-                     "ORDER BY date DESC";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, month);
-            pstmt.setInt(3, year);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Expense expense = new Expense();
-                    expense.setExpenseId(rs.getInt("expense_id"));
-                    expense.setUserId(rs.getInt("user_id"));
-                    expense.setCategory(rs.getString("category"));
-                    expense.setAmount(rs.getBigDecimal("amount"));
-                    expense.setDate(rs.getDate("date"));
-                    expense.setNotes(rs.getString("notes"));
-                    expense.setCreatedAt(rs.getTimestamp("created_at"));
-                    expenses.add(expense);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting expenses by month: " + e.getMessage());
-        }
-        
-        return expenses;
-    }
-
-    /**
-     * Update an expense entry
-     * @param expense Expense object with updated values
-     * @return true if successful, false otherwise
+        return getByMonth(userId, month, year);
+    }
+
+    /**
+     * Get expenses from one date (included) to another (excluded), newest first
+     */
+    public List<Expense> getExpensesByDateRange(int userId, Date from, Date to) {
+        return getByDateRange(userId, from, to);
+    }
+
+    /**
+     * Find expenses by filters, in a chosen order, one page at a time
+     */
+    public List<TransactionRecord> findExpenseRecords(int userId, TransactionQuery query) {
+        return findRecords(userId, query);
+    }
+
+    /**
+     * Update an expense entry, searching every partition for the ID
      */
     public boolean updateExpense(Expense expense) {
-        String sql = "UPDATE expenses SET category = ?, amount = ?, date = ?, notes = ? WHERE expense_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, expense.getCategory());
-            pstmt.setBigDecimal(2, expense.getAmount());
-            pstmt.setDate(3, expense.getDate());
-            pstmt.setString(4, expense.getNotes());
-            pstmt.setInt(5, expense.getExpenseId());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating expense: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Delete an expense entry
-     * @param expenseId Expense ID to delete
-     * @return true if successful, false otherwise
+        return update(expense);
+    }
+
+    /**
+     * Update an expense entry whose stored date is known (null if unknown)
+     */
+    public boolean updateExpense(Expense expense, Date originalDate) {
+        return update(expense, originalDate);
+    }
+
+    /**
+     * Delete an expense entry, searching every partition for the ID
      */
     public boolean deleteExpense(int expenseId) {
-        String sql = "DELETE FROM expenses WHERE expense_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, expenseId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error deleting expense: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Get expense by ID
-     * @param expenseId Expense ID
-     * @return Expense object or null if not found
+        return delete(expenseId);
+    }
+
+    /**
+     * Delete an expense entry whose date is known (null if unknown)
+     */
+    public boolean deleteExpense(int expenseId, Date date) {
+        return delete(expenseId, date);
+    }
+
+    /**
+     * Delete many expenses of a user in one transaction, archived ones included
+     * @return Number of expenses deleted, or -1 on error
+     */
+    public int deleteExpenses(int userId, Collection<Integer> expenseIds) {
+        return deleteAll(userId, expenseIds);
+    }
+
+    /**
+     * Delete every expense of a user matching a query's filters, archived ones included
+     * @return Number of expenses deleted, or -1 on error
+     */
+    public int deleteExpensesWhere(int userId, TransactionQuery query) {
+        return deleteWhere(userId, query);
+    }
+
+    /**
+     * Move many expenses of a user to another category; archived rows are not changed
+     * @return Number of expenses changed, or -1 on error
+     */
+    public int recategorizeExpenses(int userId, Collection<Integer> expenseIds, String category) {
+        return recategorizeAll(userId, expenseIds, category);
+    }
+
+    /**
+     * Move every expense of a user matching a query's filters to another category
+     * @return Number of expenses changed, or -1 on error
+     */
+    public int recategorizeExpensesWhere(int userId, TransactionQuery query, String category) {
+        return recategorizeWhere(userId, query, category);
+    }
+
+    /**
+     * Number of a user's archived expenses among the given IDs
+     */
+    public int countArchivedExpenses(int userId, Collection<Integer> expenseIds) {
+        return countArchived(userId, expenseIds);
+    }
+
+    /**
+     * Number of a user's archived expenses matching a query's filters
+     */
+    public int countArchivedExpensesWhere(int userId, TransactionQuery query) {
+        return countArchivedWhere(userId, query);
+    }
+
+    /**
+     * Get expense by ID, or null if not found
      */
     public Expense getExpenseById(int expenseId) {
-        String sql = "SELECT * FROM expenses WHERE expense_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, expenseId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Expense expense = new Expense();
-                    expense.setExpenseId(rs.getInt("expense_id"));
-                    expense.setUserId(rs.getInt("user_id"));
-                    expense.setCategory(rs.getString("category"));
-                    expense.setAmount(rs.getBigDecimal("amount"));
-                    expense.setDate(rs.getDate("date"));
-                    expense.setNotes(rs.getString("notes"));
-                    expense.setCreatedAt(rs.getTimestamp("created_at"));
-                    return expense;
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting expense by ID: " + e.getMessage());
-        }
-        
-        return null;
+        return getById(expenseId);
+    }
+
+    /**
+     * Get expense by ID and stored date (null if unknown), or null if not found
+     */
+    public Expense getExpenseById(int expenseId, Date date) {
+        return getById(expenseId, date);
+    }
+
+    /**
+     * Lifetime expense total for a user, hot and archived combined
+     */
+    public BigDecimal getTotalExpenses(int userId) {
+        return getTotal(userId);
+    }
+
+    /**
+     * Lifetime expense totals per category for a user
+     */
+    public Map<String, BigDecimal> getExpenseTotalsByCategory(int userId) {
+        return getTotalsByCategory(userId);
+    }
+
+    /**
+     * Expense totals per month and category for a user, oldest month first
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getMonthlyExpenseTotalsByCategory(int userId) {
+        return getMonthlyTotalsByCategory(userId);
+    }
+
+    /**
+     * Expense total over a date range, for one category or all (null)
+     */
+    public BigDecimal getExpenseTotalBetween(int userId, Date from, Date to, String category) {
+        return getTotalBetween(userId, from, to, category);
+    }
+
+    /**
+     * Expense totals per day and category for a user, at the version read; null if the query fails
+     */
+    public Versioned<TreeMap<LocalDate, Map<String, BigDecimal>>> getDailyExpenseTotalsByCategory(int userId) {
+        return getDailyTotalsByCategory(userId);
+    }
+
+    /**
+     * Pass the searchable text and ID of each of a user's expenses to a consumer
+     */
+    public boolean forEachExpenseText(int userId, ObjIntConsumer<String> consumer) {
+        return forEachText(userId, consumer);
+    }
+
+    @Override
+    protected Expense map(ResultSet rs) throws SQLException {
+        Expense expense = new Expense();
+        expense.setExpenseId(rs.getInt("expense_id"));
+        expense.setUserId(rs.getInt("user_id"));
+        expense.setCategory(rs.getString("category"));
+        expense.setAmount(rs.getBigDecimal("amount"));
+        expense.setDate(rs.getDate("date"));
+        expense.setNotes(rs.getString("notes"));
+        expense.setCreatedAt(rs.getTimestamp("created_at"));
+        return expense;
+    }
+
+    @Override
+    protected void setId(Expense expense, int expenseId) {
+        expense.setExpenseId(expenseId);
+    }
+
+    @Override
+    protected Expense withCategory(Expense old, String category) {
+        Expense expense = new Expense(old.getUserId(), category, old.getAmount(), old.getDate(), old.getNotes());
+        expense.setExpenseId(old.getExpenseId());
+        expense.setCreatedAt(old.getCreatedAt());
+        return expense;
     }
 }
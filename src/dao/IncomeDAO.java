@@ -1,203 +1,251 @@
 package dao;
 
-import db.DatabaseConnection;
 import model.Income;
+import model.TransactionQuery;
+import model.TransactionRecord;
 
-import java.sql.*;
-import java.util.ArrayList;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Income operations
+ * The queries live in TransactionDAO, shared with IncomeDAO; this class maps
+ * rows to Income beans and keeps the income-named methods. See
+ * TransactionDAO for the archive, change tracking and event behaviour.
  */
-public class IncomeDAO {
-    private final DatabaseConnection dbConnection;
+public class IncomeDAO extends TransactionDAO<Income> {
 
     public IncomeDAO() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        super(Income.class, "income");
     }
 
     /**
-     * Add new income entry
-     * @param income Income object to add
-     * @return true if successful, false otherwise
+     * Add new income entry; the generated ID is set on the income object
      */
     public boolean addIncome(Income income) {
-        String sql = "INSERT INTO incomes (user_id, category, amount, date, notes) VALUES (?, ?, ?, ?, ?)";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, income.getUserId());
-            pstmt.setString(2, income.getCategory());
-            pstmt.setBigDecimal(3, income.getAmount());
-            pstmt.setDate(4, income.getDate());
-            pstmt.setString(5, income.getNotes());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error adding income: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Get all incomes for a user
-     * @param userId User ID
-     * @return List of incomes
+        return add(income);
+    }
+
+    /**
+     * Get all incomes for a user, newest first, held in memory
      */
     public List<Income> getIncomesByUserId(int userId) {
-        List<Income> incomes = new ArrayList<>();
-        String sql = "SELECT * FROM incomes WHERE user_id = ? ORDER BY date DESC";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Income income = new Income();
-                    income.setIncomeId(rs.getInt("income_id"));
-                    income.setUserId(rs.getInt("user_id"));
-                    income.setCategory(rs.getString("category"));
-                    income.setAmount(rs.getBigDecimal("amount"));
-                    income.setDate(rs.getDate("date"));
-                    income.setNotes(rs.getString("notes"));
-                    income.setCreatedAt(rs.getTimestamp("created_at"));
-                    incomes.add(income);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting incomes: " + e.getMessage());
-        }
-        
-        return incomes;
-    }
-
-    /**
-     * Get incomes by month and year
-     * @param userId User ID
-     * @param month Month (1-12)
-     * @param year Year (e.g., 2025)
-     * @return List of incomes for the specified month/year
+        return getByUserId(userId);
+    }
+
+    /**
+     * Pass each of a user's incomes, newest first, to a consumer through a server-side cursor
+     */
+    public boolean forEachIncome(int userId, Consumer<Income> consumer) {
+        return forEach(userId, consumer);
+    }
+
+    /**
+     * Pass each of a user's incomes to a consumer in date order
+     * @return Version of the user's data the rows were read at, or -1 if not every row was read
+     */
+    public long forEachIncome(int userId, boolean oldestFirst, Consumer<Income> consumer) {
+        return forEach(userId, oldestFirst, consumer);
+    }
+
+    /**
+     * Stream a user's incomes, newest first; close the stream to release its connection
+     */
+    public Stream<Income> streamIncomes(int userId) {
+        return stream(userId);
+    }
+
+    /**
+     * Get the most recent incomes for a user, newest first
+     */
+    public List<Income> getRecentIncomes(int userId, int limit) {
+        return getRecent(userId, limit);
+    }
+
+    /**
+     * Get incomes by month (1-12) and year
      */
     public List<Income> getIncomesByMonth(int userId, int month, int year) {
-        List<Income> incomes = new ArrayList<>();
-        String sql = "SELECT * FROM incomes WHERE user_id = ? " +
-                     "AND MONTH(date) = ? AND YEAR(date) = ? " +
-                     "ORDER BY date DESC";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, month);
-            pstmt.setInt(3, year);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Income income = new Income();
-                    income.setIncomeId(rs.getInt("income_id"));
-                    income.setUserId(rs.getInt("user_id"));
-                    income.setCategory(rs.getString("category"));
-                    income.setAmount(rs.getBigDecimal("amount"));
-                    income.setDate(rs.getDate("date"));
-                    income.setNotes(rs.getString("notes"));
-                    income.setCreatedAt(rs.getTimestamp("created_at"));
-                    incomes.add(income);
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting incomes by month: " + e.getMessage());
-        }
-        
-        return incomes;
-    }
-
-    /**
-     * Update an income entry
-     * @param income Income object with updated values
-     * @return true if successful, false otherwise
+        return getByMonth(userId, month, year);
+    }
+
+    /**
+     * Get incomes from one date (included) to another (excluded), newest first
+     */
+    public List<Income> getIncomesByDateRange(int userId, Date from, Date to) {
+        return getByDateRange(userId, from, to);
+    }
+
+    /**
+     * Find incomes by filters, in a chosen order, one page at a time
+     */
+    public List<TransactionRecord> findIncomeRecords(int userId, TransactionQuery query) {
+        return findRecords(userId, query);
+    }
+
+    /**
+     * Update an income entry, searching every partition for the ID
      */
     public boolean updateIncome(Income income) {
-        String sql = "UPDATE incomes SET category = ?, amount = ?, date = ?, notes = ? WHERE income_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, income.getCategory());
-            pstmt.setBigDecimal(2, income.getAmount());
-            pstmt.setDate(3, income.getDate());
-            pstmt.setString(4, income.getNotes());
-            pstmt.setInt(5, income.getIncomeId());
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating income: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Delete an income entry
-     * @param incomeId Income ID to delete
-     * @return true if successful, false otherwise
+        return update(income);
+    }
+
+    /**
+     * Update an income entry whose stored date is known (null if unknown)
+     */
+    public boolean updateIncome(Income income, Date originalDate) {
+        return update(income, originalDate);
+    }
+
+    /**
+     * Delete an income entry, searching every partition for the ID
      */
     public boolean deleteIncome(int incomeId) {
-        String sql = "DELETE FROM incomes WHERE income_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, incomeId);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("Error deleting income: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Get income by ID
-     * @param incomeId Income ID
-     * @return Income object or null if not found
+        return delete(incomeId);
+    }
+
+    /**
+     * Delete an income entry whose date is known (null if unknown)
+     */
+    public boolean deleteIncome(int incomeId, Date date) {
+        return delete(incomeId, date);
+    }
+
+    /**
+     * Delete many incomes of a user in one transaction, archived ones included
+     * @return Number of incomes deleted, or -1 on error
+     */
+    public int deleteIncomes(int userId, Collection<Integer> incomeIds) {
+        return deleteAll(userId, incomeIds);
+    }
+
+    /**
+     * Delete every income of a user matching a query's filters, archived ones included
+     * @return Number of incomes deleted, or -1 on error
+     */
+    public int deleteIncomesWhere(int userId, TransactionQuery query) {
+        return deleteWhere(userId, query);
+    }
+
+    /**
+     * Move many incomes of a user to another category; archived rows are not changed
+     * @return Number of incomes changed, or -1 on error
+     */
+    public int recategorizeIncomes(int userId, Collection<Integer> incomeIds, String category) {
+        return recategorizeAll(userId, incomeIds, category);
+    }
+
+    /**
+     * Move every income of a user matching a query's filters to another category
+     * @return Number of incomes changed, or -1 on error
+     */
+    public int recategorizeIncomesWhere(int userId, TransactionQuery query, String category) {
+        return recategorizeWhere(userId, query, category);
+    }
+
+    /**
+     * Number of a user's archived incomes among the given IDs
+     */
+    public int countArchivedIncomes(int userId, Collection<Integer> incomeIds) {
+        return countArchived(userId, incomeIds);
+    }
+
+    /**
+     * Number of a user's archived incomes matching a query's filters
+     */
+    public int countArchivedIncomesWhere(int userId, TransactionQuery query) {
+        return countArchivedWhere(userId, query);
+    }
+
+    /**
+     * Get income by ID, or null if not found
      */
     public Income getIncomeById(int incomeId) {
-        String sql = "SELECT * FROM incomes WHERE income_id = ?";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, incomeId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Income income = new Income();
-                    income.setIncomeId(rs.getInt("income_id"));
-                    income.setUserId(rs.getInt("user_id"));
-                    income.setCategory(rs.getString("category"));
-                    income.setAmount(rs.getBigDecimal("amount"));
-                    income.setDate(rs.getDate("date"));
-                    income.setNotes(rs.getString("notes"));
-                    income.setCreatedAt(rs.getTimestamp("created_at"));
-                    return income;
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting income by ID: " + e.getMessage());
-        }
-        
-        return null;
+        return getById(incomeId);
+    }
+
+    /**
+     * Get income by ID and stored date (null if unknown), or null if not found
+     */
+    public Income getIncomeById(int incomeId, Date date) {
+        return getById(incomeId, date);
+    }
+
+    /**
+     * Lifetime income total for a user, hot and archived combined
+     */
+    public BigDecimal getTotalIncomes(int userId) {
+        return getTotal(userId);
+    }
+
+    /**
+     * Lifetime income totals per category for a user
+     */
+    public Map<String, BigDecimal> getIncomeTotalsByCategory(int userId) {
+        return getTotalsByCategory(userId);
+    }
+
+    /**
+     * Income totals per month and category for a user, oldest month first
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getMonthlyIncomeTotalsByCategory(int userId) {
+        return getMonthlyTotalsByCategory(userId);
+    }
+
+    /**
+     * Income total over a date range, for one category or all (null)
+     */
+    public BigDecimal getIncomeTotalBetween(int userId, Date from, Date to, String category) {
+        return getTotalBetween(userId, from, to, category);
+    }
+
+    /**
+     * Income totals per day and category for a user, at the version read; null if the query fails
+     */
+    public Versioned<TreeMap<LocalDate, Map<String, BigDecimal>>> getDailyIncomeTotalsByCategory(int userId) {
+        return getDailyTotalsByCategory(userId);
+    }
+
+    /**
+     * Pass the searchable text and ID of each of a user's incomes to a consumer
+     */
+    public boolean forEachIncomeText(int userId, ObjIntConsumer<String> consumer) {
+        return forEachText(userId, consumer);
+    }
+
+    @Override
+    protected Income map(ResultSet rs) throws SQLException {
+        Income income = new Income();
+        income.setIncomeId(rs.getInt("income_id"));
+        income.setUserId(rs.getInt("user_id"));
+        income.setCategory(rs.getString("category"));
+        income.setAmount(rs.getBigDecimal("amount"));
+        income.setDate(rs.getDate("date"));
+        income.setNotes(rs.getString("notes"));
+        income.setCreatedAt(rs.getTimestamp("created_at"));
+        return income;
+    }
+
+    @Override
+    protected void setId(Income income, int incomeId) {
+        income.setIncomeId(incomeId);
+    }
+
+    @Override
+    protected Income withCategory(Income old, String category) {
+        Income income = new Income(old.getUserId(), category, old.getAmount(), old.getDate(), old.getNotes());
+        income.setIncomeId(old.getIncomeId());
+        income.setCreatedAt(old.getCreatedAt());
+        return income;
     }
 }
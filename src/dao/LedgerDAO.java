@@ -0,0 +1,154 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.Expense;
+import model.Income;
+import model.Transaction;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for incomes and expenses read together
+ * Answers the questions that need both sides with a single UNION ALL
+ * statement instead of one query per table, so the dashboard and summary
+ * take one round trip and one pooled connection. Each branch filters on
+ * user_id itself, so the per-table indexes apply; the ledger view
+ * (migrations/V002) has the same shape for reports and ad-hoc SQL.
+ *
+ * The tables themselves stay separate: IDs, change tombstones, search
+ * segments, partitions and the archive are all kept per kind.
+ */
+public class LedgerDAO {
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+
+    public LedgerDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+    }
+
+    /**
+     * Lifetime income and expense totals for a user in one query
+     * Hot rows are summed from the covering indexes; archived history comes
+     * from the precomputed aggregates.
+     * @param userId User ID
+     * @return Map with "income" and "expense" totals (zero on error)
+     */
+    public Map<String, BigDecimal> getTotals(int userId) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        totals.put("income", BigDecimal.ZERO);
+        totals.put("expense", BigDecimal.ZERO);
+        boolean archived = archiveDAO.isAvailable();
+        String sql = "SELECT kind, COALESCE(SUM(total), 0) FROM (" +
+                     "SELECT 'income' AS kind, SUM(amount) AS total FROM incomes WHERE user_id = ? " +
+                     "UNION ALL SELECT 'expense', SUM(amount) FROM expenses WHERE user_id = ?" +
+                     (archived ? " UNION ALL SELECT kind, SUM(total) FROM archive_totals " +
+                                 "WHERE user_id = ? GROUP BY kind" : "") +
+                     ") AS totals GROUP BY kind";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, userId);
+            if (archived) {
+                pstmt.setInt(3, userId);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString(1), rs.getBigDecimal(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting ledger totals: " + e.getMessage());
+        }
+
+        return totals;
+    }
+
+    /**
+     * Most recent incomes and expenses for a user in one query
+     * Every branch is limited on its own, as in getRecentIncomes/getRecentExpenses.
+     * @param userId User ID
+     * @param limit Maximum number of entries of each kind
+     * @return Income and Expense objects, newest first, up to limit of each
+     */
+    public List<Transaction> getRecent(int userId, int limit) {
+        List<Transaction> recent = new ArrayList<>();
+        boolean archived = archiveDAO.isAvailable();
+        List<String> branches = new ArrayList<>();
+        branches.add(recentBranch("incomes", "income"));
+        branches.add(recentBranch("expenses", "expense"));
+        if (archived) {
+            branches.add(recentBranch("incomes_archive", "income"));
+            branches.add(recentBranch("expenses_archive", "expense"));
+        }
+        String sql = String.join(" UNION ALL ", branches) + " ORDER BY date DESC";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (int branch = 0; branch < branches.size(); branch++) {
+                pstmt.setInt(branch * 2 + 1, userId);
+                pstmt.setInt(branch * 2 + 2, limit);
+            }
+
+            int incomes = 0;
+            int expenses = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // Hot and archived branches of a kind may together return more than limit
+                    if ("income".equals(rs.getString("kind"))) {
+                        if (incomes++ < limit) {
+                            recent.add(mapIncome(rs));
+                        }
+                    } else if (expenses++ < limit) {
+                        recent.add(mapExpense(rs));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting recent ledger entries: " + e.getMessage());
+        }
+
+        return recent;
+    }
+
+    private static String recentBranch(String table, String kind) {
+        String idColumn = kind + "_id";
+        return "(SELECT '" + kind + "' AS kind, " + idColumn + " AS id, user_id, category, amount, date, " +
+               "notes, created_at FROM " + table + " WHERE user_id = ? ORDER BY date DESC LIMIT ?)";
+    }
+
+    private Income mapIncome(ResultSet rs) throws SQLException {
+        Income income = new Income();
+        income.setIncomeId(rs.getInt("id"));
+        income.setUserId(rs.getInt("user_id"));
+        income.setCategory(rs.getString("category"));
+        income.setAmount(rs.getBigDecimal("amount"));
+        income.setDate(rs.getDate("date"));
+        income.setNotes(rs.getString("notes"));
+        income.setCreatedAt(rs.getTimestamp("created_at"));
+        return income;
+    }
+
+    private Expense mapExpense(ResultSet rs) throws SQLException {
+        Expense expense = new Expense();
+        expense.setExpenseId(rs.getInt("id"));
+        expense.setUserId(rs.getInt("user_id"));
+        expense.setCategory(rs.getString("category"));
+        expense.setAmount(rs.getBigDecimal("amount"));
+        expense.setDate(rs.getDate("date"));
+        expense.setNotes(rs.getString("notes"));
+        expense.setCreatedAt(rs.getTimestamp("created_at"));
+        return expense;
+    }
+}
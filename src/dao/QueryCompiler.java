@@ -0,0 +1,281 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.Transaction;
+import model.TransactionQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns a TransactionQuery into parameterized SQL over incomes or expenses
+ * Every filter is a plain comparison on a column, so the predicates stay
+ * sargable, and every order ends with the ID so pages are stable and can be
+ * continued by keyset.
+ *
+ * The index is picked from the shape of the query when the composite
+ * indexes (migrations/V001) exist:
+ * - few categories, or a category sort: (user_id, category, date)
+ * - amount sort, or an amount range without dates: (user_id, amount)
+ * - otherwise the default (user_id, date), left to the optimizer
+ * InnoDB secondary indexes end with the primary key, so each of these
+ * returns rows already in the requested order and a LIMIT stops early.
+ */
+public final class QueryCompiler {
+    // Beyond this many categories an IN list over the category index reads more than the date index
+    private static final int MAX_INDEXED_CATEGORIES = 3;
+    private static volatile Set<String> indexes;
+
+    /**
+     * SQL text and its parameters in order
+     */
+    static final class Compiled {
+        final String sql;
+        final List<Object> params;
+
+        Compiled(String sql, List<Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        void bind(PreparedStatement pstmt) throws SQLException {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+        }
+    }
+
+    private QueryCompiler() {}
+
+    /**
+     * Compile a query for one user
+     * @param table "incomes" or "expenses"
+     * @param idColumn Primary key column of the table
+     * @param columns Columns to select
+     * @param userId User ID
+     * @param query Filters, order and page
+     * @param archived Whether to union in the archive table
+     * @return SQL and parameters
+     */
+    static Compiled compile(String table, String idColumn, String columns, int userId,
+                            TransactionQuery query, boolean archived) {
+        List<Object> params = new ArrayList<>();
+        String order = orderBy(query, idColumn);
+        int limit = query.getLimit();
+        int offset = limit > 0 ? query.getOffset() : 0;
+
+        String hot = branch(table, idColumn, columns, userId, query, params, chooseIndex(table, query));
+        if (!archived) {
+            String sql = hot + " ORDER BY " + order;
+            if (limit > 0) {
+                sql += " LIMIT ? OFFSET ?";
+                params.add(limit);
+                params.add(offset);
+            }
+            return new Compiled(sql, params);
+        }
+
+        // Each branch is ordered and cut on its own so neither reads past the page
+        if (limit > 0) {
+            hot += " ORDER BY " + order + " LIMIT ?";
+            params.add(offset + limit);
+        }
+        String cold = branch(table + "_archive", idColumn, columns, userId, query, params, null);
+        if (limit > 0) {
+            cold += " ORDER BY " + order + " LIMIT ?";
+            params.add(offset + limit);
+        }
+        String sql = "(" + hot + ") UNION ALL (" + cold + ") ORDER BY " + order;
+        if (limit > 0) {
+            sql += " LIMIT ? OFFSET ?";
+            params.add(limit);
+            params.add(offset);
+        }
+        return new Compiled(sql, params);
+    }
+
+    /**
+     * Compile a query's filters against the archive table alone, unordered and unpaged
+     * Bulk changes use it to find matching archived rows, which are handled
+     * apart from the hot ones.
+     * @param table "incomes" or "expenses"
+     * @param idColumn Primary key column of the table
+     * @param columns Columns to select
+     * @param userId User ID
+     * @param query Filters; paging is ignored
+     * @return SQL and parameters
+     */
+    static Compiled compileArchived(String table, String idColumn, String columns, int userId,
+                                    TransactionQuery query) {
+        List<Object> params = new ArrayList<>();
+        String sql = branch(table + "_archive", idColumn, columns, userId, query.allRows(), params, null);
+        return new Compiled(sql, params);
+    }
+
+    /**
+     * Forget the cached index names, e.g. after a schema migration
+     */
+    public static void resetIndexes() {
+        indexes = null;
+    }
+
+    private static String branch(String table, String idColumn, String columns, int userId,
+                                 TransactionQuery query, List<Object> params, String index) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM ").append(table);
+        if (index != null) {
+            sql.append(" USE INDEX (").append(index).append(')');
+        }
+        sql.append(" WHERE user_id = ?");
+        params.add(userId);
+
+        Set<String> categories = query.getCategories();
+        if (!categories.isEmpty()) {
+            sql.append(" AND category IN (")
+               .append(String.join(", ", Collections.nCopies(categories.size(), "?")))
+               .append(')');
+            params.addAll(categories);
+        }
+        if (query.getMinAmount() != null) {
+            sql.append(" AND amount >= ?");
+            params.add(query.getMinAmount());
+        }
+        if (query.getMaxAmount() != null) {
+            sql.append(" AND amount <= ?");
+            params.add(query.getMaxAmount());
+        }
+        if (query.getFromDate() != null) {
+            sql.append(" AND date >= ?");
+            params.add(query.getFromDate());
+        }
+        if (query.getToDate() != null) {
+            sql.append(" AND date < ?");
+            params.add(query.getToDate());
+        }
+        if (query.getNotesContains() != null) {
+            sql.append(" AND notes LIKE ? ESCAPE '!'");
+            params.add("%" + escapeLike(query.getNotesContains()) + "%");
+        }
+        if (query.getAfter() != null) {
+            sql.append(" AND ");
+            appendKeyset(sql, query, idColumn, params);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Rows strictly after the previous page's last row in the query order
+     */
+    private static void appendKeyset(StringBuilder sql, TransactionQuery query, String idColumn,
+                                     List<Object> params) {
+        Transaction last = query.getAfter();
+        String op = query.isDescending() ? " < ?" : " > ?";
+        String idTerm = idColumn + op;
+        switch (query.getSortKey()) {
+            case AMOUNT:
+                sql.append("(amount").append(op).append(" OR (amount = ? AND ").append(idTerm).append("))");
+                params.add(last.getAmount());
+                params.add(last.getAmount());
+                break;
+            case CATEGORY:
+                sql.append("(category").append(op).append(" OR (category = ? AND (date").append(op)
+                   .append(" OR (date = ? AND ").append(idTerm).append("))))");
+                params.add(last.getCategory());
+                params.add(last.getCategory());
+                params.add(last.getDate());
+                params.add(last.getDate());
+                break;
+            default:
+                sql.append("(date").append(op).append(" OR (date = ? AND ").append(idTerm).append("))");
+                params.add(last.getDate());
+                params.add(last.getDate());
+                break;
+        }
+        params.add(last.getId());
+    }
+
+    private static String orderBy(TransactionQuery query, String idColumn) {
+        String dir = query.isDescending() ? " DESC" : " ASC";
+        switch (query.getSortKey()) {
+            case AMOUNT:
+                return "amount" + dir + ", " + idColumn + dir;
+            case CATEGORY:
+                return "category" + dir + ", date" + dir + ", " + idColumn + dir;
+            default:
+                return "date" + dir + ", " + idColumn + dir;
+        }
+    }
+
+    /**
+     * Index hint for the hot table, or null to leave it to the optimizer
+     */
+    private static String chooseIndex(String table, TransactionQuery query) {
+        int categories = query.getCategories().size();
+        boolean dated = query.getFromDate() != null || query.getToDate() != null;
+        boolean amountRange = query.getMinAmount() != null || query.getMaxAmount() != null;
+        String choice = null;
+
+        switch (query.getSortKey()) {
+            case CATEGORY:
+                choice = "idx_" + table + "_user_category_date";
+                break;
+            case AMOUNT:
+                if (categories == 0 && !dated) {
+                    choice = "idx_" + table + "_user_amount";
+                } else if (categories > 0 && categories <= MAX_INDEXED_CATEGORIES) {
+                    choice = "idx_" + table + "_user_category_date";
+                }
+                break;
+            default:
+                if (categories == 1 || (categories > 0 && categories <= MAX_INDEXED_CATEGORIES && dated)) {
+                    choice = "idx_" + table + "_user_category_date";
+                } else if (categories == 0 && amountRange && !dated) {
+                    choice = "idx_" + table + "_user_amount";
+                }
+                break;
+        }
+        return choice != null && existingIndexes().contains(choice) ? choice : null;
+    }
+
+    /**
+     * Names of the indexes on incomes and expenses, cached once read
+     */
+    private static Set<String> existingIndexes() {
+        Set<String> result = indexes;
+        if (result == null) {
+            String sql = "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS " +
+                         "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('incomes', 'expenses')";
+
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = new HashSet<>();
+                while (rs.next()) {
+                    result.add(rs.getString(1));
+                }
+                indexes = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error reading table indexes: " + e.getMessage());
+                return Collections.emptySet();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Escape LIKE wildcards with '!' so the text matches literally
+     */
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,500 @@
+package dao;
+
+import db.DatabaseConnection;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Expense;
+import model.Granularity;
+import model.Income;
+import model.RecurringRule;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for recurring rules (migrations/V003)
+ * Besides the usual per-user operations, materializeDue() writes the due
+ * occurrences of many rules at once: every user's rows go in as multi-row
+ * inserts, and each row carries its rule ID so the unique
+ * (recurring_rule_id, date) key rejects a day written before. Rules are
+ * locked with SKIP LOCKED, so several instances can run the scheduler
+ * together and simply share the work.
+ */
+public class RecurringRuleDAO {
+    private static final String COLUMNS = "rule_id, user_id, kind, category, amount, notes, frequency, " +
+                                          "interval_count, weekdays, start_date, end_date, next_date, active";
+    // Rows per INSERT statement
+    private static final int INSERT_CHUNK = 1000;
+    private static final String[] KINDS = {"income", "expense"};
+    private static volatile Boolean available;
+
+    private final DatabaseConnection dbConnection;
+    private final ChangeDAO changeDAO;
+
+    /**
+     * Progress of one materializeDue() call
+     */
+    public static final class Batch {
+        private final int rules;
+        private final int lastRuleId;
+        private final int inserted;
+
+        Batch(int rules, int lastRuleId, int inserted) {
+            this.rules = rules;
+            this.lastRuleId = lastRuleId;
+            this.inserted = inserted;
+        }
+
+        /**
+         * Number of rules processed (0 when nothing was due)
+         */
+        public int getRules() {
+            return rules;
+        }
+
+        /**
+         * Highest rule ID processed; pass as afterRuleId for the next batch
+         */
+        public int getLastRuleId() {
+            return lastRuleId;
+        }
+
+        /**
+         * Number of transactions written
+         */
+        public int getInserted() {
+            return inserted;
+        }
+    }
+
+    public RecurringRuleDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.changeDAO = new ChangeDAO();
+    }
+
+    /**
+     * Check whether the recurring rules schema is installed
+     * The answer is cached; call {@link #resetAvailability()} after migrating.
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT " +
+                         "(SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME = 'recurring_rules') + " +
+                         "(SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME IN ('incomes', 'expenses') AND COLUMN_NAME = 'recurring_rule_id')";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 3;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking recurring rules table: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Add a rule; its first occurrence becomes the next date
+     * On success the generated ID and next date are set on the rule object.
+     * Occurrences up to today are written by the next scheduler run.
+     * @param rule Rule to add
+     * @return true if successful, false otherwise
+     */
+    public boolean addRule(RecurringRule rule) {
+        String sql = "INSERT INTO recurring_rules (user_id, kind, category, amount, notes, frequency, " +
+                     "interval_count, weekdays, start_date, end_date, next_date, active) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Date next = Date.valueOf(rule.firstOccurrence());
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            pstmt.setInt(1, rule.getUserId());
+            pstmt.setString(2, rule.getKind());
+            pstmt.setString(3, rule.getCategory());
+            pstmt.setBigDecimal(4, rule.getAmount());
+            pstmt.setString(5, rule.getNotes());
+            pstmt.setString(6, rule.getFrequency().name());
+            pstmt.setInt(7, rule.getInterval());
+            pstmt.setInt(8, rule.getWeekdays());
+            pstmt.setDate(9, rule.getStartDate());
+            pstmt.setDate(10, rule.getEndDate());
+            pstmt.setDate(11, next);
+            pstmt.setBoolean(12, rule.isActive());
+
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    rule.setRuleId(keys.getInt(1));
+                }
+            }
+            rule.setNextDate(next);
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error adding recurring rule: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get all rules of a user
+     * @param userId User ID
+     * @return Rules by ID (empty on error)
+     */
+    public List<RecurringRule> getRulesByUserId(int userId) {
+        List<RecurringRule> rules = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM recurring_rules WHERE user_id = ? ORDER BY rule_id";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rules.add(mapRule(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting recurring rules: " + e.getMessage());
+        }
+
+        return rules;
+    }
+
+    /**
+     * Pause or resume a rule
+     * A resumed rule catches up on the occurrences missed while paused.
+     * @return true if the rule was found
+     */
+    public boolean setActive(int ruleId, int userId, boolean active) {
+        String sql = "UPDATE recurring_rules SET active = ? WHERE rule_id = ? AND user_id = ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setBoolean(1, active);
+            pstmt.setInt(2, ruleId);
+            pstmt.setInt(3, userId);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error updating recurring rule: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete a rule; transactions it already wrote are kept
+     * @return true if the rule was found
+     */
+    public boolean deleteRule(int ruleId, int userId) {
+        String sql = "DELETE FROM recurring_rules WHERE rule_id = ? AND user_id = ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, ruleId);
+            pstmt.setInt(2, userId);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting recurring rule: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write the occurrences due by a date for the next batch of rules, across all users
+     * One transaction: the rules are locked (skipping any another instance
+     * holds), each affected user takes one change version, the occurrences
+     * are inserted in multi-row chunks and the rules move on to their next
+     * date. Afterwards one INSERTED event per user and kind is published.
+     * Call repeatedly with the returned last rule ID until no rules are left.
+     * @param today Last date to write occurrences for
+     * @param afterRuleId Only rules with a higher ID (0 to start)
+     * @param batchSize Maximum rules per call
+     * @return Progress, or null on error
+     */
+    public Batch materializeDue(LocalDate today, int afterRuleId, int batchSize) {
+        boolean tracked = changeDAO.isAvailable();
+        String lockSql = "SELECT " + COLUMNS + " FROM recurring_rules " +
+                         "WHERE active = TRUE AND next_date <= ? AND rule_id > ? " +
+                         "ORDER BY rule_id LIMIT ? FOR UPDATE SKIP LOCKED";
+        List<RecurringRule> rules = new ArrayList<>();
+        Map<RecurringRule, List<LocalDate>> due = new HashMap<>();
+        Map<Integer, Long> versions = new TreeMap<>();
+        Map<Integer, List<Income>> incomes = new HashMap<>();
+        Map<Integer, List<Expense>> expenses = new HashMap<>();
+        int inserted = 0;
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(lockSql)) {
+                pstmt.setDate(1, Date.valueOf(today));
+                pstmt.setInt(2, afterRuleId);
+                pstmt.setInt(3, batchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rules.add(mapRule(rs));
+                    }
+                }
+            }
+            if (rules.isEmpty()) {
+                return new Batch(0, afterRuleId, 0);
+            }
+
+            for (RecurringRule rule : rules) {
+                List<LocalDate> dates = rule.occurrencesThrough(today);
+                if (!dates.isEmpty()) {
+                    due.put(rule, dates);
+                    versions.put(rule.getUserId(), 0L);
+                }
+            }
+            // Users in ID order, so concurrent batches take sequence locks in the same order
+            if (tracked) {
+                for (Map.Entry<Integer, Long> user : versions.entrySet()) {
+                    user.setValue(changeDAO.nextVersion(conn, user.getKey()));
+                }
+            }
+
+            for (String kind : KINDS) {
+                Map<RecurringRule, List<LocalDate>> ofKind = new HashMap<>();
+                for (Map.Entry<RecurringRule, List<LocalDate>> entry : due.entrySet()) {
+                    if (kind.equals(entry.getKey().getKind())) {
+                        ofKind.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (!ofKind.isEmpty()) {
+                    inserted += insertOccurrences(conn, kind, ofKind, today, tracked ? versions : null,
+                                                  incomes, expenses);
+                }
+            }
+
+            advanceRules(conn, rules, due);
+            conn.commit();
+
+        } catch (SQLException e) {
+            System.err.println("Error writing recurring transactions: " + e.getMessage());
+            return null;
+        }
+
+        for (Map.Entry<Integer, Long> user : versions.entrySet()) {
+            int userId = user.getKey();
+            long version = tracked ? user.getValue() : DataVersion.bump(userId);
+            List<Income> userIncomes = incomes.get(userId);
+            if (userIncomes != null) {
+                EventBus.getInstance().publish(TransactionEvent.inserted(Income.class, userId, version, userIncomes));
+            }
+            List<Expense> userExpenses = expenses.get(userId);
+            if (userExpenses != null) {
+                EventBus.getInstance().publish(
+                    TransactionEvent.inserted(Expense.class, userId, version, userExpenses));
+            }
+        }
+        return new Batch(rules.size(), rules.get(rules.size() - 1).getRuleId(), inserted);
+    }
+
+    /**
+     * Insert the due occurrences of one kind, skipping days already written
+     * The new rows are read back for the change events.
+     * @return Number of rows inserted
+     */
+    private int insertOccurrences(Connection conn, String kind, Map<RecurringRule, List<LocalDate>> due,
+                                  LocalDate today, Map<Integer, Long> versions,
+                                  Map<Integer, List<Income>> incomes, Map<Integer, List<Expense>> expenses)
+            throws SQLException {
+        Map<Integer, RecurringRule> byId = new HashMap<>();
+        LocalDate from = today;
+        for (RecurringRule rule : due.keySet()) {
+            byId.put(rule.getRuleId(), rule);
+            LocalDate next = rule.getNextDate().toLocalDate();
+            if (next.isBefore(from)) {
+                from = next;
+            }
+        }
+        List<Integer> ruleIds = new ArrayList<>(byId.keySet());
+        Set<String> existing = new HashSet<>();
+        for (Occurrence row : readOccurrences(conn, kind, ruleIds, from, today)) {
+            existing.add(row.ruleId + ":" + row.date);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<RecurringRule, List<LocalDate>> entry : due.entrySet()) {
+            RecurringRule rule = entry.getKey();
+            for (LocalDate date : entry.getValue()) {
+                if (!existing.contains(rule.getRuleId() + ":" + date)) {
+                    rows.add(new Object[] {rule, date});
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        String table = ArchiveDAO.table(kind);
+        String columns = "(user_id, category, amount, date, notes, recurring_rule_id" +
+                         (versions != null ? ", version)" : ")");
+        String values = versions != null ? "(?, ?, ?, ?, ?, ?, ?)" : "(?, ?, ?, ?, ?, ?)";
+        int inserted = 0;
+        for (int start = 0; start < rows.size(); start += INSERT_CHUNK) {
+            List<Object[]> chunk = rows.subList(start, Math.min(start + INSERT_CHUNK, rows.size()));
+            String sql = "INSERT IGNORE INTO " + table + " " + columns + " VALUES " +
+                         String.join(", ", Collections.nCopies(chunk.size(), values));
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                for (Object[] row : chunk) {
+                    RecurringRule rule = (RecurringRule) row[0];
+                    pstmt.setInt(index++, rule.getUserId());
+                    pstmt.setString(index++, rule.getCategory());
+                    pstmt.setBigDecimal(index++, rule.getAmount());
+                    pstmt.setDate(index++, Date.valueOf((LocalDate) row[1]));
+                    pstmt.setString(index++, rule.getNotes());
+                    pstmt.setInt(index++, rule.getRuleId());
+                    if (versions != null) {
+                        pstmt.setLong(index++, versions.get(rule.getUserId()));
+                    }
+                }
+                inserted += pstmt.executeUpdate();
+            }
+        }
+
+        for (Occurrence row : readOccurrences(conn, kind, ruleIds, from, today)) {
+            if (existing.contains(row.ruleId + ":" + row.date)) {
+                continue;
+            }
+            if ("income".equals(kind)) {
+                incomes.computeIfAbsent(row.income.getUserId(), id -> new ArrayList<>()).add(row.income);
+            } else {
+                expenses.computeIfAbsent(row.expense.getUserId(), id -> new ArrayList<>()).add(row.expense);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * A written occurrence and the rule it came from
+     */
+    private static final class Occurrence {
+        final int ruleId;
+        final LocalDate date;
+        final Income income;
+        final Expense expense;
+
+        Occurrence(int ruleId, LocalDate date, Income income, Expense expense) {
+            this.ruleId = ruleId;
+            this.date = date;
+            this.income = income;
+            this.expense = expense;
+        }
+    }
+
+    /**
+     * Rows the given rules wrote between two dates, through the (recurring_rule_id, date) key
+     */
+    private List<Occurrence> readOccurrences(Connection conn, String kind, List<Integer> ruleIds,
+                                              LocalDate from, LocalDate to) throws SQLException {
+        List<Occurrence> rows = new ArrayList<>();
+        String sql = "SELECT " + ArchiveDAO.columns(kind) + " FROM " + ArchiveDAO.table(kind) +
+                     " WHERE recurring_rule_id IN (" + String.join(", ", Collections.nCopies(ruleIds.size(), "?")) +
+                     ") AND date >= ? AND date <= ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int ruleId : ruleIds) {
+                pstmt.setInt(index++, ruleId);
+            }
+            pstmt.setDate(index++, Date.valueOf(from));
+            pstmt.setDate(index, Date.valueOf(to));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    int userId = rs.getInt("user_id");
+                    Date date = rs.getDate("date");
+                    Income income = null;
+                    Expense expense = null;
+                    if ("income".equals(kind)) {
+                        income = new Income(userId, rs.getString("category"), rs.getBigDecimal("amount"), date,
+                                            rs.getString("notes"));
+                        income.setIncomeId(id);
+                        income.setCreatedAt(rs.getTimestamp("created_at"));
+                    } else {
+                        expense = new Expense(userId, rs.getString("category"), rs.getBigDecimal("amount"), date,
+                                              rs.getString("notes"));
+                        expense.setExpenseId(id);
+                        expense.setCreatedAt(rs.getTimestamp("created_at"));
+                    }
+                    rows.add(new Occurrence(rs.getInt("recurring_rule_id"), date.toLocalDate(), income, expense));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Move each rule past what was written; rules past their end date are switched off
+     */
+    private void advanceRules(Connection conn, List<RecurringRule> rules, Map<RecurringRule, List<LocalDate>> due)
+            throws SQLException {
+        String sql = "UPDATE recurring_rules SET next_date = ?, active = ? WHERE rule_id = ?";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (RecurringRule rule : rules) {
+                List<LocalDate> dates = due.get(rule);
+                LocalDate next = dates != null
+                    ? rule.following(dates.get(dates.size() - 1))
+                    : rule.getNextDate().toLocalDate();
+                pstmt.setDate(1, Date.valueOf(next));
+                pstmt.setBoolean(2, !rule.isFinishedAfter(next));
+                pstmt.setInt(3, rule.getRuleId());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private RecurringRule mapRule(ResultSet rs) throws SQLException {
+        RecurringRule rule = new RecurringRule();
+        rule.setRuleId(rs.getInt("rule_id"));
+        rule.setUserId(rs.getInt("user_id"));
+        rule.setKind(rs.getString("kind"));
+        rule.setCategory(rs.getString("category"));
+        rule.setAmount(rs.getBigDecimal("amount"));
+        rule.setNotes(rs.getString("notes"));
+        rule.setFrequency(Granularity.valueOf(rs.getString("frequency")));
+        rule.setInterval(rs.getInt("interval_count"));
+        rule.setWeekdays(rs.getInt("weekdays"));
+        rule.setStartDate(rs.getDate("start_date"));
+        rule.setEndDate(rs.getDate("end_date"));
+        rule.setNextDate(rs.getDate("next_date"));
+        rule.setActive(rs.getBoolean("active"));
+        return rule;
+    }
+}
@@ -0,0 +1,431 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.CategorySeries;
+import model.Granularity;
+import model.TimeSeries;
+import model.Transaction;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data Access Object for the multi-resolution rollups (rollups.sql)
+ * Totals and row counts per user, kind and category at day, week, month
+ * and year resolution. Writes are applied as deltas; rebuilds derive the
+ * day level from the transactions (archive included) and every coarser
+ * level from the day level.
+ *
+ * rollup_users (migrations/V006) records per user the change version the
+ * rollups were last rebuilt at, so deltas of writes the rebuild already
+ * counted are skipped, and a dirty flag for users whose delta failed to
+ * apply; those are rebuilt before their rollups are next read.
+ *
+ * The kind argument is "income" or "expense" throughout.
+ */
+public class RollupDAO {
+    private static final String MARK_DIRTY_SQL =
+        "INSERT INTO rollup_users (user_id, dirty) VALUES (?, TRUE) ON DUPLICATE KEY UPDATE dirty = TRUE";
+    private static volatile Boolean available;
+    // Without change tracking versions are per process, so they can't be stored
+    private static final Map<Integer, Long> untrackedBuiltVersions = new ConcurrentHashMap<>();
+
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+    private final ChangeDAO changeDAO;
+
+    public RollupDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+        this.changeDAO = new ChangeDAO();
+    }
+
+    /**
+     * Check whether the rollup tables are installed
+     * The answer is cached; call {@link #resetAvailability()} after running the script.
+     * @return true if rollups can be read and maintained
+     */
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            String sql = "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                         "AND TABLE_NAME IN ('rollups', 'rollup_users')";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                result = rs.next() && rs.getInt(1) == 2;
+                available = result;
+
+            } catch (SQLException e) {
+                // Don't cache: the database may simply be unreachable right now
+                System.err.println("Error checking rollups table: " + e.getMessage());
+                return false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached availability check
+     */
+    public static void resetAvailability() {
+        available = null;
+    }
+
+    /**
+     * Check whether the rollups have never been filled
+     */
+    public boolean isEmpty() throws SQLException {
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM rollups LIMIT 1")) {
+            return !rs.next();
+        }
+    }
+
+    /**
+     * Apply one user's written rows to every resolution in one transaction
+     * Rows hitting the same period and category are combined first, and the
+     * upserts run in key order so concurrent writers lock rows in the same order.
+     * A write the last rebuild already counted is skipped, as is any write
+     * while the user is marked dirty; if the delta fails or the version is
+     * unknown, the user is marked.
+     * @param kind "income" or "expense"
+     * @param userId Owner of the rows
+     * @param version Change version of the write (0 if unknown)
+     * @param removedRows Rows that no longer count (deleted, or before an update)
+     * @param addedRows Rows that now count (inserted, or after an update)
+     * @return true if the rollups account for the write
+     */
+    public boolean applyChange(String kind, int userId, long version, List<? extends Transaction> removedRows,
+                               List<? extends Transaction> addedRows) {
+        Map<String, Cell> cells = new TreeMap<>();
+        addCells(cells, removedRows, -1);
+        addCells(cells, addedRows, 1);
+        cells.values().removeIf(cell -> cell.count == 0 && cell.total.signum() == 0);
+        if (cells.isEmpty()) {
+            return true;
+        }
+
+        boolean tracked = changeDAO.isAvailable();
+        String stateSql = "SELECT dirty, built_version FROM rollup_users WHERE user_id = ? FOR UPDATE";
+        String sql = "INSERT INTO rollups (user_id, granularity, period_start, kind, category, total, row_count) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE total = total + VALUES(total), row_count = row_count + VALUES(row_count)";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // Locks out a rebuild of the user until the delta is in
+            long builtVersion = tracked ? 0 : untrackedBuiltVersions.getOrDefault(userId, 0L);
+            try (PreparedStatement state = conn.prepareStatement(stateSql)) {
+                state.setInt(1, userId);
+                try (ResultSet rs = state.executeQuery()) {
+                    if (rs.next()) {
+                        if (rs.getBoolean("dirty")) {
+                            return true;
+                        }
+                        if (tracked) {
+                            builtVersion = rs.getLong("built_version");
+                        }
+                    }
+                }
+            }
+            if (version == 0) {
+                // Can't tell whether the last rebuild counted it
+                try (PreparedStatement dirty = conn.prepareStatement(MARK_DIRTY_SQL)) {
+                    dirty.setInt(1, userId);
+                    dirty.executeUpdate();
+                }
+                conn.commit();
+                return true;
+            }
+            if (version <= builtVersion) {
+                return true;
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Cell cell : cells.values()) {
+                    pstmt.setInt(1, cell.userId);
+                    pstmt.setString(2, cell.granularity.name());
+                    pstmt.setDate(3, Date.valueOf(cell.periodStart));
+                    pstmt.setString(4, kind);
+                    pstmt.setString(5, cell.category);
+                    pstmt.setBigDecimal(6, cell.total);
+                    pstmt.setInt(7, cell.count);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error updating " + kind + " rollups: " + e.getMessage());
+            markDirty(userId);
+            return false;
+        }
+    }
+
+    /**
+     * Recompute every user's rollups from the transactions, one user at a time
+     */
+    public void rebuildAll() throws SQLException {
+        List<Integer> userIds = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT user_id FROM users")) {
+            while (rs.next()) {
+                userIds.add(rs.getInt(1));
+            }
+        }
+        for (int userId : userIds) {
+            rebuildUser(userId);
+        }
+    }
+
+    /**
+     * Recompute a user's rollups if a delta failed to apply
+     * @param userId User ID
+     */
+    public void rebuildIfDirty(int userId) throws SQLException {
+        String sql = "SELECT 1 FROM rollup_users WHERE user_id = ? AND dirty";
+
+        boolean dirty;
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                dirty = rs.next();
+            }
+        }
+        if (dirty) {
+            rebuildUser(userId);
+        }
+    }
+
+    /**
+     * Recompute one user's rollups from the transactions
+     * With change tracking the user's writes wait while the rows are read,
+     * and the version they were read at is stored as built_version.
+     * @param userId User ID
+     */
+    public void rebuildUser(int userId) throws SQLException {
+        boolean tracked = changeDAO.isAvailable();
+        boolean archived = archiveDAO.isAvailable();
+        String stateSql = "INSERT INTO rollup_users (user_id, dirty, built_version) VALUES (?, FALSE, ?) " +
+                          "ON DUPLICATE KEY UPDATE dirty = FALSE, built_version = VALUES(built_version)";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // Untracked writes bump their version after commit, so one read before the rows is already in them
+            long version = tracked ? changeDAO.getCurrentVersion(conn, userId, true) : DataVersion.current(userId);
+            try (PreparedStatement state = conn.prepareStatement(stateSql)) {
+                state.setInt(1, userId);
+                state.setLong(2, tracked ? version : 0);
+                state.executeUpdate();
+            }
+
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM rollups WHERE user_id = ?")) {
+                delete.setInt(1, userId);
+                delete.executeUpdate();
+            }
+
+            // Day level from the transactions
+            for (String kind : new String[] {"income", "expense"}) {
+                String table = ArchiveDAO.table(kind);
+                String branch = "SELECT date, category, SUM(amount) AS total, COUNT(*) AS row_count " +
+                                "FROM %s WHERE user_id = ? GROUP BY date, category";
+                String source = String.format(branch, table);
+                if (archived) {
+                    source += " UNION ALL " + String.format(branch, table + "_archive");
+                }
+                String sql = "INSERT INTO rollups (user_id, granularity, period_start, kind, category, total, row_count) " +
+                             "SELECT ?, 'DAY', date, '" + kind + "', category, SUM(total), SUM(row_count) " +
+                             "FROM (" + source + ") AS days GROUP BY date, category";
+
+                try (PreparedStatement insert = conn.prepareStatement(sql)) {
+                    insert.setInt(1, userId);
+                    insert.setInt(2, userId);
+                    if (archived) {
+                        insert.setInt(3, userId);
+                    }
+                    insert.executeUpdate();
+                }
+            }
+
+            // Coarser levels from the day level
+            for (Granularity granularity : new Granularity[] {Granularity.WEEK, Granularity.MONTH, Granularity.YEAR}) {
+                String period = TimeSeriesDAO.periodOf(granularity, "period_start");
+                String sql = "INSERT INTO rollups (user_id, granularity, period_start, kind, category, total, row_count) " +
+                             "SELECT user_id, '" + granularity.name() + "', " + period + " AS period, kind, category, " +
+                             "SUM(total), SUM(row_count) FROM rollups WHERE granularity = 'DAY' AND user_id = ?" +
+                             " GROUP BY user_id, period, kind, category";
+
+                try (PreparedStatement insert = conn.prepareStatement(sql)) {
+                    insert.setInt(1, userId);
+                    insert.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            if (!tracked) {
+                untrackedBuiltVersions.put(userId, version);
+            }
+        }
+    }
+
+    /**
+     * Flag a user's rollups for a rebuild before their next read
+     */
+    private void markDirty(int userId) {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(MARK_DIRTY_SQL)) {
+            pstmt.setInt(1, userId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error flagging rollups for rebuild: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Income, expenses and savings per period from one resolution
+     * Periods that start before to are included whole.
+     * @param userId User ID
+     * @param from First date (widened to the start of its period), or null for all history
+     * @param to First date excluded
+     * @param granularity Resolution to read
+     * @return Gap-filled series; empty if there is nothing in range or the query fails
+     */
+    public TimeSeries getSeries(int userId, LocalDate from, LocalDate to, Granularity granularity) {
+        LocalDate first = from != null ? granularity.start(from) : null;
+        String sql = "SELECT period_start, " +
+                     "SUM(CASE WHEN kind = 'income' THEN total ELSE 0 END), " +
+                     "SUM(CASE WHEN kind = 'expense' THEN total ELSE 0 END) " +
+                     "FROM rollups WHERE user_id = ? AND granularity = ? AND period_start >= ? AND period_start < ? " +
+                     "GROUP BY period_start ORDER BY period_start";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindRange(pstmt, userId, granularity, first, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return TimeSeriesDAO.readSeries(rs, first, to, granularity);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting rollup series: " + e.getMessage());
+            return new TimeSeries(granularity, new int[0], new long[0], new long[0]);
+        }
+    }
+
+    /**
+     * Totals per period and category for one kind from one resolution
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param from First date (widened to the start of its period), or null for all history
+     * @param to First date excluded
+     * @param granularity Resolution to read
+     * @return Gap-filled series per category; empty if there is nothing in range or the query fails
+     */
+    public CategorySeries getCategorySeries(int userId, String kind, LocalDate from, LocalDate to,
+                                            Granularity granularity) {
+        LocalDate first = from != null ? granularity.start(from) : null;
+        String sql = "SELECT period_start, category, total FROM rollups " +
+                     "WHERE user_id = ? AND granularity = ? AND period_start >= ? AND period_start < ? AND kind = ? " +
+                     "ORDER BY period_start";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindRange(pstmt, userId, granularity, first, to);
+            pstmt.setString(5, kind);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return TimeSeriesDAO.readCategorySeries(rs, first, to, granularity);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting rollup category series: " + e.getMessage());
+            return new CategorySeries(granularity, new int[0], new String[0], new long[0][]);
+        }
+    }
+
+    /**
+     * First day with any income or expense, read from the day level
+     * @param userId User ID
+     * @return First date, or null if the user has no transactions
+     */
+    public LocalDate getFirstDate(int userId) {
+        String sql = "SELECT MIN(period_start) FROM rollups WHERE user_id = ? AND granularity = 'DAY' AND row_count > 0";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    return rs.getDate(1).toLocalDate();
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting first rollup date: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static void bindRange(PreparedStatement pstmt, int userId, Granularity granularity,
+                                  LocalDate first, LocalDate to) throws SQLException {
+        pstmt.setInt(1, userId);
+        pstmt.setString(2, granularity.name());
+        pstmt.setDate(3, Date.valueOf(first != null ? first : TimeSeriesDAO.MIN_DATE));
+        pstmt.setDate(4, Date.valueOf(to));
+    }
+
+    /**
+     * Add rows to the cells of every resolution they fall into
+     */
+    private static void addCells(Map<String, Cell> cells, List<? extends Transaction> rows, int sign) {
+        for (Transaction row : rows) {
+            LocalDate date = row.getDate().toLocalDate();
+            BigDecimal amount = sign < 0 ? row.getAmount().negate() : row.getAmount();
+            for (Granularity granularity : Granularity.values()) {
+                LocalDate periodStart = granularity.start(date);
+                String key = row.getUserId() + "|" + granularity + "|" + periodStart + "|" + row.getCategory();
+                Cell cell = cells.computeIfAbsent(key,
+                    k -> new Cell(row.getUserId(), granularity, periodStart, row.getCategory()));
+                cell.total = cell.total.add(amount);
+                cell.count += sign;
+            }
+        }
+    }
+
+    /**
+     * Pending delta for one rollup row
+     */
+    private static final class Cell {
+        final int userId;
+        final Granularity granularity;
+        final LocalDate periodStart;
+        final String category;
+        BigDecimal total = BigDecimal.ZERO;
+        int count;
+
+        Cell(int userId, Granularity granularity, LocalDate periodStart, String category) {
+            this.userId = userId;
+            this.granularity = granularity;
+            this.periodStart = periodStart;
+            this.category = category;
+        }
+    }
+}
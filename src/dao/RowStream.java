@@ -0,0 +1,79 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily mapped rows of an open result set
+ * The stream owns the connection, statement and result set and closes them
+ * all when it is closed, so it must be used in try-with-resources. A read
+ * error part-way through is thrown as IllegalStateException rather than
+ * ending the stream early, so a partial read can't pass for a full one.
+ */
+final class RowStream {
+
+    /**
+     * Maps the current row of a result set
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private RowStream() {}
+
+    /**
+     * Stream over the rows of an executed statement
+     * @param what Description of the rows for error messages, e.g. "expenses"
+     */
+    static <T> Stream<T> of(Connection conn, PreparedStatement pstmt, ResultSet rs,
+                            RowMapper<T> mapper, String what) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error streaming " + what + ": " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> close(conn, pstmt, rs));
+    }
+
+    /**
+     * Close whatever was opened, in reverse order; null arguments are skipped
+     */
+    static void close(Connection conn, PreparedStatement pstmt, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (pstmt != null) {
+                pstmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing result set: " + e.getMessage());
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Error closing connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package dao;
+
+import db.DatabaseConnection;
+import model.CategorySeries;
+import model.Granularity;
+import model.TimeSeries;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for income/expense time series
+ * Both tables are grouped per period in one UNION ALL query with a plain
+ * date range, so the (user_id, date) indexes and partition pruning apply
+ * and only one row per period leaves the database.
+ */
+public class TimeSeriesDAO {
+    static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+
+    public TimeSeriesDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+    }
+
+    /**
+     * Income, expenses and savings per period
+     * @param userId User ID
+     * @param from First date included (widened to the start of its period),
+     *             or null to start at the user's first transaction
+     * @param to First date excluded
+     * @param granularity Period length
+     * @return Gap-filled series; empty if there is nothing in range or the query fails
+     */
+    public TimeSeries getSeries(int userId, LocalDate from, LocalDate to, Granularity granularity) {
+        LocalDate first = from != null ? granularity.start(from) : null;
+        boolean archived = archiveDAO.isAvailable();
+        // Archived months are pre-aggregated; only usable when whole months are asked for
+        boolean archiveTotals = archived && to.getDayOfMonth() == 1
+            && (granularity == Granularity.MONTH || granularity == Granularity.YEAR);
+
+        List<String> branches = new ArrayList<>();
+        branches.add(branch(granularity, "incomes", true));
+        branches.add(branch(granularity, "expenses", false));
+        if (archiveTotals) {
+            branches.add(totalsBranch(granularity, "income"));
+            branches.add(totalsBranch(granularity, "expense"));
+        } else if (archived) {
+            branches.add(branch(granularity, "incomes_archive", true));
+            branches.add(branch(granularity, "expenses_archive", false));
+        }
+        String sql = "SELECT period, SUM(income), SUM(expense) FROM (" + String.join(" UNION ALL ", branches) +
+                     ") AS periods GROUP BY period ORDER BY period";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindRanges(pstmt, branches.size(), userId, first, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readSeries(rs, first, to, granularity);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting time series: " + e.getMessage());
+            return new TimeSeries(granularity, new int[0], new long[0], new long[0]);
+        }
+    }
+
+    /**
+     * Totals per period and category for one kind
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param from First date included (widened to the start of its period),
+     *             or null to start at the first transaction of that kind
+     * @param to First date excluded
+     * @param granularity Period length
+     * @return Gap-filled series per category; empty if there is nothing in range or the query fails
+     */
+    public CategorySeries getCategorySeries(int userId, String kind, LocalDate from, LocalDate to,
+                                            Granularity granularity) {
+        LocalDate first = from != null ? granularity.start(from) : null;
+        String table = ArchiveDAO.table(kind);
+        String period = periodOf(granularity, "date");
+        String branch = "SELECT " + period + " AS period, category, SUM(amount) AS total FROM %s " +
+                        "WHERE user_id = ? AND date >= ? AND date < ? GROUP BY period, category";
+        List<String> branches = new ArrayList<>();
+        branches.add(String.format(branch, table));
+        if (archiveDAO.isAvailable()) {
+            branches.add(String.format(branch, table + "_archive"));
+        }
+        String sql = "SELECT period, category, SUM(total) FROM (" + String.join(" UNION ALL ", branches) +
+                     ") AS periods GROUP BY period, category ORDER BY period";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindRanges(pstmt, branches.size(), userId, first, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return readCategorySeries(rs, first, to, granularity);
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting category series: " + e.getMessage());
+            return new CategorySeries(granularity, new int[0], new String[0], new long[0][]);
+        }
+    }
+
+    /**
+     * Date of a user's first income or expense
+     * Each branch is a MIN over the (user_id, date) index.
+     * @param userId User ID
+     * @return First date, or null if the user has no transactions
+     */
+    public LocalDate getFirstDate(int userId) {
+        String branch = "SELECT MIN(date) AS first FROM %s WHERE user_id = ?";
+        List<String> branches = new ArrayList<>();
+        for (String table : archiveDAO.isAvailable()
+                ? new String[] {"incomes", "expenses", "incomes_archive", "expenses_archive"}
+                : new String[] {"incomes", "expenses"}) {
+            branches.add(String.format(branch, table));
+        }
+        String sql = "SELECT MIN(first) FROM (" + String.join(" UNION ALL ", branches) + ") AS firsts";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (int b = 0; b < branches.size(); b++) {
+                pstmt.setInt(b + 1, userId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    return rs.getDate(1).toLocalDate();
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting first transaction date: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Bind (user_id, from, to) for each of a query's branches
+     */
+    private static void bindRanges(PreparedStatement pstmt, int branches, int userId,
+                                   LocalDate first, LocalDate to) throws SQLException {
+        Date lower = Date.valueOf(first != null ? first : MIN_DATE);
+        Date upper = Date.valueOf(to);
+        for (int b = 0; b < branches; b++) {
+            pstmt.setInt(b * 3 + 1, userId);
+            pstmt.setDate(b * 3 + 2, lower);
+            pstmt.setDate(b * 3 + 3, upper);
+        }
+    }
+
+    /**
+     * Build a gap-filled series from (period, income, expense) rows ordered by period
+     * @param rs Rows to read
+     * @param first First period start, or null to start at the first row
+     * @param to First date excluded; the last period is the one containing the day before
+     */
+    static TimeSeries readSeries(ResultSet rs, LocalDate first, LocalDate to,
+                                 Granularity granularity) throws SQLException {
+        List<LocalDate> periods = new ArrayList<>();
+        List<long[]> amounts = new ArrayList<>();
+        while (rs.next()) {
+            periods.add(rs.getDate(1).toLocalDate());
+            amounts.add(new long[] {cents(rs.getBigDecimal(2)), cents(rs.getBigDecimal(3))});
+        }
+        if (first == null) {
+            first = periods.isEmpty() ? null : periods.get(0);
+        }
+
+        int count = periodCount(first, to, granularity);
+        long[] income = new long[count];
+        long[] expenses = new long[count];
+        for (int r = 0; r < periods.size(); r++) {
+            int index = granularity.periodsBetween(first, periods.get(r));
+            if (index >= 0 && index < count) {
+                income[index] += amounts.get(r)[0];
+                expenses[index] += amounts.get(r)[1];
+            }
+        }
+        return new TimeSeries(granularity, periodStarts(first, count, granularity), income, expenses);
+    }
+
+    /**
+     * Build a gap-filled per-category series from (period, category, total) rows
+     * @param rs Rows to read
+     * @param first First period start, or null to start at the earliest row
+     * @param to First date excluded; the last period is the one containing the day before
+     */
+    static CategorySeries readCategorySeries(ResultSet rs, LocalDate first, LocalDate to,
+                                             Granularity granularity) throws SQLException {
+        Map<String, Map<LocalDate, Long>> byCategory = new TreeMap<>();
+        LocalDate earliest = null;
+        while (rs.next()) {
+            LocalDate period = rs.getDate(1).toLocalDate();
+            byCategory.computeIfAbsent(rs.getString(2), category -> new TreeMap<>())
+                      .merge(period, cents(rs.getBigDecimal(3)), Long::sum);
+            if (earliest == null || period.isBefore(earliest)) {
+                earliest = period;
+            }
+        }
+        if (first == null) {
+            first = earliest;
+        }
+
+        int count = periodCount(first, to, granularity);
+        String[] categories = byCategory.keySet().toArray(new String[0]);
+        long[][] cents = new long[categories.length][count];
+        for (int c = 0; c < categories.length; c++) {
+            for (Map.Entry<LocalDate, Long> period : byCategory.get(categories[c]).entrySet()) {
+                int index = granularity.periodsBetween(first, period.getKey());
+                if (index >= 0 && index < count) {
+                    cents[c][index] = period.getValue();
+                }
+            }
+        }
+        return new CategorySeries(granularity, periodStarts(first, count, granularity), categories, cents);
+    }
+
+    /**
+     * Number of periods from first up to the one containing the day before to
+     */
+    private static int periodCount(LocalDate first, LocalDate to, Granularity granularity) {
+        if (first == null) {
+            return 0;
+        }
+        return Math.max(0, granularity.periodsBetween(first, granularity.start(to.minusDays(1))) + 1);
+    }
+
+    /**
+     * Per-period sum of one row table, with user and date range parameters
+     */
+    private static String branch(Granularity granularity, String table, boolean income) {
+        String sum = "SUM(amount)";
+        return "SELECT " + periodOf(granularity, "date") + " AS period, " +
+               (income ? sum + ", 0" : "0, " + sum) +
+               " FROM " + table + " WHERE user_id = ? AND date >= ? AND date < ? GROUP BY period";
+    }
+
+    /**
+     * Per-period sum of archive_totals for one kind, with the same parameters as branch()
+     */
+    private static String totalsBranch(Granularity granularity, String kind) {
+        String sum = "SUM(total)";
+        return "SELECT " + periodOf(granularity, "period_month") + " AS period, " +
+               ("income".equals(kind) ? sum + ", 0" : "0, " + sum) +
+               " FROM archive_totals WHERE user_id = ? AND period_month >= ? AND period_month < ?" +
+               " AND kind = '" + kind + "' GROUP BY period";
+    }
+
+    /**
+     * SQL expression for the first day of the period containing a DATE column
+     */
+    static String periodOf(Granularity granularity, String column) {
+        switch (granularity) {
+            case WEEK:
+                return "DATE_SUB(" + column + ", INTERVAL WEEKDAY(" + column + ") DAY)";
+            case MONTH:
+                return "DATE_SUB(" + column + ", INTERVAL DAYOFMONTH(" + column + ") - 1 DAY)";
+            case YEAR:
+                return "MAKEDATE(YEAR(" + column + "), 1)";
+            default:
+                return column;
+        }
+    }
+
+    private static int[] periodStarts(LocalDate first, int count, Granularity granularity) {
+        int[] starts = new int[count];
+        LocalDate period = first;
+        for (int i = 0; i < count; i++) {
+            starts[i] = (int) period.toEpochDay();
+            period = granularity.next(period);
+        }
+        return starts;
+    }
+
+    static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+}
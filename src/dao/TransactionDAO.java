@@ -0,0 +1,1172 @@
+package dao;
+
+import db.DatabaseConnection;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Transaction;
+import model.TransactionQuery;
+import model.TransactionRecord;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Shared data access for incomes and expenses
+ * The two tables have the same shape, so every query is written once here
+ * against a kind ("income" or "expense"), its table, ID column and bean
+ * type. IncomeDAO and ExpenseDAO supply the bean mapping and keep the
+ * per-kind method names; code that handles either kind, such as
+ * TransactionPanel, uses the methods here directly.
+ *
+ * Reads transparently include rows moved to the *_archive table when the
+ * archive tier is installed. Writes take a change version when change
+ * tracking is installed, and successful writes publish a TransactionEvent.
+ *
+ * @param <T> Bean type of a row, Income or Expense
+ */
+public abstract class TransactionDAO<T extends Transaction> {
+    // IDs per IN list in batch operations; keeps statements and lock sets small
+    private static final int IN_CHUNK = 500;
+
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+    private final ChangeDAO changeDAO;
+    private final Class<T> type;
+    private final String kind;
+    private final String table;
+    private final String archiveTable;
+    private final String idColumn;
+    private final String columns;
+
+    /**
+     * @param type Bean class, used as the event row type
+     * @param kind "income" or "expense"; the table is its plural
+     */
+    protected TransactionDAO(Class<T> type, String kind) {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+        this.changeDAO = new ChangeDAO();
+        this.type = type;
+        this.kind = kind;
+        this.table = kind + "s";
+        this.archiveTable = table + "_archive";
+        this.idColumn = kind + "_id";
+        this.columns = idColumn + ", user_id, category, amount, date, notes, created_at";
+    }
+
+    /**
+     * Map the current result set row to a bean
+     */
+    protected abstract T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Set the generated ID on a newly added bean
+     */
+    protected abstract void setId(T row, int id);
+
+    /**
+     * Copy of a bean with another category, keeping its ID and creation time
+     */
+    protected abstract T withCategory(T row, String category);
+
+    /**
+     * Add a new row
+     * On success the generated ID is set on the bean
+     * @param row Row to add
+     * @return true if successful, false otherwise
+     */
+    public boolean add(T row) {
+        boolean tracked = changeDAO.isAvailable();
+        String sql = "INSERT INTO " + table + " (user_id, category, amount, date, notes" +
+                     (tracked ? ", version) VALUES (?, ?, ?, ?, ?, ?)" : ") VALUES (?, ?, ?, ?, ?)");
+        long version = 0;
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, row.getUserId());
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, row.getUserId());
+                pstmt.setString(2, row.getCategory());
+                pstmt.setBigDecimal(3, row.getAmount());
+                pstmt.setDate(4, row.getDate());
+                pstmt.setString(5, row.getNotes());
+                if (tracked) {
+                    pstmt.setLong(6, version);
+                }
+                
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+                
+                // Hand the generated ID back to the caller
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        setId(row, keys.getInt(1));
+                    }
+                }
+            }
+            
+            conn.commit();
+            
+        } catch (SQLException e) {
+            System.err.println("Error adding " + kind + ": " + e.getMessage());
+            return false;
+        }
+        
+        if (!tracked) {
+            version = DataVersion.bump(row.getUserId());
+        }
+        EventBus.getInstance().publish(
+            TransactionEvent.inserted(type, row.getUserId(), version, List.of(row)));
+        return true;
+    }
+
+    /**
+     * Get all rows for a user
+     * Holds the whole history in memory; use forEach or stream
+     * for exports and other full scans.
+     * @param userId User ID
+     * @return List of rows
+     */
+    public List<T> getByUserId(int userId) {
+        List<T> rows = new ArrayList<>();
+        boolean archived = archiveDAO.isAvailable();
+        String sql = selectWithArchive("user_id = ?", archived) + " ORDER BY date DESC";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            if (archived) {
+                pstmt.setInt(2, userId);
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting " + table + ": " + e.getMessage());
+        }
+        
+        return rows;
+    }
+
+    /**
+     * Pass each of a user's rows, newest first, to a consumer
+     * Rows are read through a server-side cursor, db.fetchSize at a time, so
+     * memory use doesn't grow with the history. The connection is held until
+     * the last row, so the consumer must not use the DAOs itself.
+     * @param userId User ID
+     * @param consumer Receives each row
+     * @return true if every row was read
+     */
+    public boolean forEach(int userId, Consumer<T> consumer) {
+        return forEach(userId, false, consumer) >= 0;
+    }
+
+    /**
+     * Pass each of a user's rows to a consumer in date order
+     * Same as {@link #forEach(int, Consumer)}, for consumers that
+     * replay the history, such as rolling statistics, and need to know
+     * which writes the replay holds.
+     * @param userId User ID
+     * @param oldestFirst true for oldest first, false for newest first
+     * @param consumer Receives each row
+     * @return Version of the user's data the rows were read at (see
+     *         DataVersion), or -1 if not every row was read
+     */
+    public long forEach(int userId, boolean oldestFirst, Consumer<T> consumer) {
+        boolean archived = archiveDAO.isAvailable();
+        String sql = selectWithArchive("user_id = ?", archived) + (oldestFirst ? " ORDER BY date" : " ORDER BY date DESC");
+
+        try (Connection conn = dbConnection.getConnection()) {
+            // One transaction, so the version matches the rows read
+            conn.setAutoCommit(false);
+            long version = DataVersion.current(conn, userId);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setFetchSize(dbConnection.getFetchSize());
+                pstmt.setInt(1, userId);
+                if (archived) {
+                    pstmt.setInt(2, userId);
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(map(rs));
+                    }
+                }
+            }
+
+            conn.commit();
+            return version;
+
+        } catch (SQLException e) {
+            System.err.println("Error reading " + table + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Stream a user's rows, newest first, through a server-side cursor
+     * The stream holds a pooled connection until it is closed, so always use
+     * try-with-resources and don't call the DAOs while it is open. A read
+     * error after the first row throws IllegalStateException.
+     * @param userId User ID
+     * @return Open stream of rows (empty if the query failed)
+     */
+    public Stream<T> stream(int userId) {
+        boolean archived = archiveDAO.isAvailable();
+        String sql = selectWithArchive("user_id = ?", archived) + " ORDER BY date DESC";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = dbConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(dbConnection.getFetchSize());
+            pstmt.setInt(1, userId);
+            if (archived) {
+                pstmt.setInt(2, userId);
+            }
+            return RowStream.of(conn, pstmt, pstmt.executeQuery(), this::map, table);
+
+        } catch (SQLException e) {
+            System.err.println("Error streaming " + table + ": " + e.getMessage());
+            RowStream.close(conn, pstmt, null);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Get the most recent rows for a user
+     * Each branch is limited on its own so only a few index entries are
+     * read, however long the history is.
+     * @param userId User ID
+     * @param limit Maximum number of rows
+     * @return Up to limit rows, newest first
+     */
+    public List<T> getRecent(int userId, int limit) {
+        List<T> rows = new ArrayList<>();
+        boolean archived = archiveDAO.isAvailable();
+        String branch = "SELECT " + columns + " FROM %s WHERE user_id = ? ORDER BY date DESC LIMIT ?";
+        String sql = archived
+            ? "(" + String.format(branch, table) + ") UNION ALL (" +
+              String.format(branch, archiveTable) + ") ORDER BY date DESC LIMIT ?"
+            : String.format(branch, table);
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, limit);
+            if (archived) {
+                pstmt.setInt(3, userId);
+                pstmt.setInt(4, limit);
+                pstmt.setInt(5, limit);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting recent " + table + ": " + e.getMessage());
+        }
+
+        return rows;
+    }
+
+    /**
+     * Get rows by month and year
+     * @param userId User ID
+     * @param month Month (1-12)
+     * @param year Year (e.g., 2025)
+     * @return List of rows for the specified month/year
+     */
+    public List<T> getByMonth(int userId, int month, int year) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        return getByDateRange(userId, Date.valueOf(first), Date.valueOf(first.plusMonths(1)));
+    }
+
+    /**
+     * Get rows in a date range
+     * Uses a plain range predicate on date so the (user_id, date) index and
+     * partition pruning apply.
+     * @param userId User ID
+     * @param from First date included
+     * @param to First date excluded
+     * @return List of rows in the range, newest first
+     */
+    public List<T> getByDateRange(int userId, Date from, Date to) {
+        List<T> rows = new ArrayList<>();
+        boolean archived = archiveDAO.isAvailable();
+        String sql = selectWithArchive("user_id = ? AND date >= ? AND date < ?", archived) +
+                     " ORDER BY date DESC";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            for (int offset = 0; offset <= (archived ? 3 : 0); offset += 3) {
+                pstmt.setInt(offset + 1, userId);
+                pstmt.setDate(offset + 2, from);
+                pstmt.setDate(offset + 3, to);
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting " + table + " by date range: " + e.getMessage());
+        }
+        
+        return rows;
+    }
+
+    /**
+     * Find rows by filters, in a chosen order, one page at a time
+     * Filtering, sorting and paging all run in the database; see QueryCompiler.
+     * Rows come back as compact records, since large pages are held in memory.
+     * @param userId User ID
+     * @param query Filters, order and page
+     * @return Matching rows in query order (empty on error)
+     */
+    public List<TransactionRecord> findRecords(int userId, TransactionQuery query) {
+        List<TransactionRecord> rows = new ArrayList<>();
+        QueryCompiler.Compiled compiled = QueryCompiler.compile(
+            table, idColumn, columns, userId, query, archiveDAO.isAvailable());
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(compiled.sql)) {
+
+            compiled.bind(pstmt);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapRecord(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error finding " + table + ": " + e.getMessage());
+        }
+
+        return rows;
+    }
+
+    /**
+     * Update a row
+     * Searches every partition for the ID; prefer the overload with the original date.
+     * @param row Row with updated values
+     * @return true if successful, false otherwise
+     */
+    public boolean update(T row) {
+        return update(row, null);
+    }
+
+    /**
+     * Update a row whose stored date is known
+     * @param row Row with updated values
+     * @param originalDate Date currently stored for the row, or null if unknown
+     * @return true if successful, false otherwise
+     */
+    public boolean update(T row, Date originalDate) {
+        // Old values for the change event
+        T previous = getById(row.getId(), originalDate);
+        if (previous == null) {
+            return false;
+        }
+        boolean tracked = changeDAO.isAvailable();
+        String sql = "UPDATE " + table + " SET category = ?, amount = ?, date = ?, notes = ?" +
+                     (tracked ? ", version = ?" : "") + " WHERE " + idColumn + " = ?" +
+                     (originalDate != null ? " AND date = ?" : "");
+        long version = 0;
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, previous.getUserId());
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                pstmt.setString(index++, row.getCategory());
+                pstmt.setBigDecimal(index++, row.getAmount());
+                pstmt.setDate(index++, row.getDate());
+                pstmt.setString(index++, row.getNotes());
+                if (tracked) {
+                    pstmt.setLong(index++, version);
+                }
+                pstmt.setInt(index++, row.getId());
+                if (originalDate != null) {
+                    pstmt.setDate(index, originalDate);
+                }
+                
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            
+            conn.commit();
+            
+        } catch (SQLException e) {
+            System.err.println("Error updating " + kind + ": " + e.getMessage());
+            return false;
+        }
+        
+        if (!tracked) {
+            version = DataVersion.bump(previous.getUserId());
+        }
+        EventBus.getInstance().publish(TransactionEvent.updated(type, previous.getUserId(), version,
+            List.of(previous), List.of(row)));
+        return true;
+    }
+
+    /**
+     * Delete a row
+     * Searches every partition for the ID; prefer the overload with the date.
+     * @param id ID of the row to delete
+     * @return true if successful, false otherwise
+     */
+    public boolean delete(int id) {
+        return delete(id, null);
+    }
+
+    /**
+     * Delete a row whose date is known
+     * The date predicate lets MySQL prune to the single partition holding the row.
+     * @param id ID of the row to delete
+     * @param date Stored date of the row, or null if unknown
+     * @return true if successful, false otherwise
+     */
+    public boolean delete(int id, Date date) {
+        // The deleted row goes into the change event
+        T existing = getById(id, date);
+        if (existing == null) {
+            return false;
+        }
+        boolean tracked = changeDAO.isAvailable();
+        String sql = "DELETE FROM " + table + " WHERE " + idColumn + " = ?" + (date != null ? " AND date = ?" : "");
+        long version = 0;
+        int rowsAffected;
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, existing.getUserId());
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, id);
+                if (date != null) {
+                    pstmt.setDate(2, date);
+                }
+                rowsAffected = pstmt.executeUpdate();
+            }
+            
+            // Nothing deleted means nothing to commit; closing rolls the version back
+            if (rowsAffected > 0) {
+                if (tracked) {
+                    changeDAO.addTombstone(conn, existing.getUserId(), kind, id, version);
+                }
+                conn.commit();
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error deleting " + kind + ": " + e.getMessage());
+            return false;
+        }
+        
+        if (rowsAffected == 0) {
+            // Not in the hot table; it may have been archived
+            if (!archiveDAO.deleteArchivedRow(kind, id, date)) {
+                return false;
+            }
+            version = tracked ? changeDAO.recordDeletion(existing.getUserId(), kind, id) : 0;
+        }
+        
+        if (!tracked) {
+            version = DataVersion.bump(existing.getUserId());
+        }
+        EventBus.getInstance().publish(
+            TransactionEvent.deleted(type, existing.getUserId(), version, List.of(existing)));
+        return true;
+    }
+
+    /**
+     * Delete many rows of a user in one transaction
+     * The rows are locked and deleted in IN-list chunks under a single change
+     * version, and one DELETED event is published for all of them. IDs not in
+     * the hot table are looked up in the archive and deleted one by one there.
+     * @param userId Owner of the rows; other users' IDs are ignored
+     * @param rowIds IDs of the rows to delete
+     * @return Number of rows deleted, or -1 on error
+     */
+    public int deleteAll(int userId, Collection<Integer> rowIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(rowIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        boolean tracked = changeDAO.isAvailable();
+        List<T> deleted;
+        long version = 0;
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, userId);
+            }
+            deleted = lock(conn, userId, ids);
+            if (!deleted.isEmpty()) {
+                deleteLocked(conn, userId, deleted, tracked, version);
+                conn.commit();
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting " + table + ": " + e.getMessage());
+            return -1;
+        }
+
+        // Whatever wasn't in the hot table may have been archived
+        if (deleted.size() < ids.size() && archiveDAO.isAvailable()) {
+            Set<Integer> missing = new LinkedHashSet<>(ids);
+            for (T row : deleted) {
+                missing.remove(row.getId());
+            }
+            List<T> archived = new ArrayList<>();
+            for (int id : missing) {
+                T row = getById(id);
+                if (row != null) {
+                    archived.add(row);
+                }
+            }
+            version = deleteArchived(userId, archived, deleted, tracked, version);
+        }
+
+        if (!deleted.isEmpty()) {
+            if (!tracked) {
+                version = DataVersion.bump(userId);
+            }
+            EventBus.getInstance().publish(TransactionEvent.deleted(type, userId, version, deleted));
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Delete every row of a user matching a query's filters, e.g. all Shopping in March
+     * Hot rows go in one transaction under one change version; matching
+     * archived rows are then deleted one by one as in deleteAll. One
+     * event is published for all of them.
+     * @param userId User ID
+     * @param query Filters; paging is ignored and at least one filter must be set
+     * @return Number of rows deleted, or -1 on error
+     */
+    public int deleteWhere(int userId, TransactionQuery query) {
+        if (!query.isFiltered()) {
+            System.err.println("Error deleting " + table + ": refusing to delete without a filter");
+            return -1;
+        }
+        boolean tracked = changeDAO.isAvailable();
+        List<T> deleted;
+        long version = 0;
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, userId);
+            }
+            deleted = lockWhere(conn, userId, query);
+            if (!deleted.isEmpty()) {
+                deleteLocked(conn, userId, deleted, tracked, version);
+                conn.commit();
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error deleting " + table + ": " + e.getMessage());
+            return -1;
+        }
+
+        if (archiveDAO.isAvailable()) {
+            version = deleteArchived(userId, findArchivedWhere(userId, query), deleted, tracked, version);
+        }
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+        if (!tracked) {
+            version = DataVersion.bump(userId);
+        }
+        EventBus.getInstance().publish(TransactionEvent.deleted(type, userId, version, deleted));
+        return deleted.size();
+    }
+
+    /**
+     * Move many rows of a user to another category in one transaction
+     * Archived rows are not changed, as with update; countArchived
+     * tells how many of the IDs that left alone.
+     * @param userId Owner of the rows; other users' IDs are ignored
+     * @param rowIds IDs of the rows to change
+     * @param category New category
+     * @return Number of rows changed, or -1 on error
+     */
+    public int recategorizeAll(int userId, Collection<Integer> rowIds, String category) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(rowIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return recategorizeLocked(userId, category, conn -> lock(conn, userId, ids));
+    }
+
+    /**
+     * Move every row of a user matching a query's filters to another category
+     * Archived rows are not changed; countArchivedWhere tells how many matched.
+     * @param userId User ID
+     * @param query Filters; paging is ignored and at least one filter must be set
+     * @param category New category
+     * @return Number of rows changed, or -1 on error
+     */
+    public int recategorizeWhere(int userId, TransactionQuery query, String category) {
+        if (!query.isFiltered()) {
+            System.err.println("Error recategorizing " + table + ": refusing to change every row without a filter");
+            return -1;
+        }
+        return recategorizeLocked(userId, category, conn -> lockWhere(conn, userId, query));
+    }
+
+    /**
+     * Rows to change, read and locked inside the caller's transaction
+     */
+    @FunctionalInterface
+    private interface RowLocker<T> {
+        List<T> lock(Connection conn) throws SQLException;
+    }
+
+    private int recategorizeLocked(int userId, String category, RowLocker<T> locker) {
+        boolean tracked = changeDAO.isAvailable();
+        List<T> previous;
+        List<T> changed = new ArrayList<>();
+        long version = 0;
+
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            if (tracked) {
+                version = changeDAO.nextVersion(conn, userId);
+            }
+            previous = locker.lock(conn);
+            previous.removeIf(row -> category.equals(row.getCategory()));
+            if (previous.isEmpty()) {
+                return 0;
+            }
+
+            String sql = "UPDATE " + table + " SET category = ?" + (tracked ? ", version = ?" : "") +
+                         " WHERE user_id = ? AND " + idColumn + " IN ";
+            for (List<T> chunk : chunks(previous)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql + placeholders(chunk.size()))) {
+                    int index = 1;
+                    pstmt.setString(index++, category);
+                    if (tracked) {
+                        pstmt.setLong(index++, version);
+                    }
+                    pstmt.setInt(index++, userId);
+                    for (T row : chunk) {
+                        pstmt.setInt(index++, row.getId());
+                    }
+                    pstmt.executeUpdate();
+                }
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            System.err.println("Error recategorizing " + table + ": " + e.getMessage());
+            return -1;
+        }
+
+        for (T old : previous) {
+            changed.add(withCategory(old, category));
+        }
+        if (!tracked) {
+            version = DataVersion.bump(userId);
+        }
+        EventBus.getInstance().publish(
+            TransactionEvent.updated(type, userId, version, previous, changed));
+        return changed.size();
+    }
+
+    /**
+     * Read and lock a user's hot rows with the given IDs, chunk by chunk
+     */
+    private List<T> lock(Connection conn, int userId, List<Integer> ids) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        for (List<Integer> chunk : chunks(ids)) {
+            String sql = "SELECT " + columns + " FROM " + table + " WHERE user_id = ? AND " + idColumn +
+                         " IN " + placeholders(chunk.size()) + " FOR UPDATE";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, userId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 2, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(map(rs));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Read and lock a user's hot rows matching a query's filters
+     */
+    private List<T> lockWhere(Connection conn, int userId, TransactionQuery query)
+            throws SQLException {
+        QueryCompiler.Compiled compiled = QueryCompiler.compile(table, idColumn, columns, userId,
+            query.allRows(), false);
+        List<T> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(compiled.sql + " FOR UPDATE")) {
+            compiled.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Read a user's archived rows matching a query's filters
+     * @return Matching rows (empty if none or on error)
+     */
+    private List<T> findArchivedWhere(int userId, TransactionQuery query) {
+        QueryCompiler.Compiled compiled = QueryCompiler.compileArchived(table, idColumn, columns,
+            userId, query);
+        List<T> rows = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(compiled.sql)) {
+            compiled.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding archived " + table + ": " + e.getMessage());
+        }
+        return rows;
+    }
+
+    /**
+     * Delete a user's archived rows one by one, adding those deleted to the list
+     * @return Highest change version recorded, or version if none was
+     */
+    private long deleteArchived(int userId, List<T> archived, List<T> deleted,
+                                boolean tracked, long version) {
+        for (T row : archived) {
+            if (row.getUserId() == userId
+                    && archiveDAO.deleteArchivedRow(kind, row.getId(), row.getDate())) {
+                deleted.add(row);
+                if (tracked) {
+                    version = Math.max(version, changeDAO.recordDeletion(userId, kind, row.getId()));
+                }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Number of a user's archived rows among the given IDs
+     * @param userId User ID
+     * @param rowIds Row IDs
+     * @return Count, 0 without the archive tier or on error
+     */
+    public int countArchived(int userId, Collection<Integer> rowIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(rowIds));
+        if (ids.isEmpty() || !archiveDAO.isAvailable()) {
+            return 0;
+        }
+        int count = 0;
+        try (Connection conn = dbConnection.getConnection()) {
+            for (List<Integer> chunk : chunks(ids)) {
+                String sql = "SELECT COUNT(*) FROM " + archiveTable + " WHERE user_id = ? AND " + idColumn +
+                             " IN " + placeholders(chunk.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, userId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 2, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        count += rs.getInt(1);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting archived " + table + ": " + e.getMessage());
+            return 0;
+        }
+        return count;
+    }
+
+    /**
+     * Number of a user's archived rows matching a query's filters
+     * @param userId User ID
+     * @param query Filters; paging is ignored
+     * @return Count, 0 without the archive tier or on error
+     */
+    public int countArchivedWhere(int userId, TransactionQuery query) {
+        if (!archiveDAO.isAvailable()) {
+            return 0;
+        }
+        QueryCompiler.Compiled compiled = QueryCompiler.compileArchived(table, idColumn, "1",
+            userId, query);
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "SELECT COUNT(*) FROM (" + compiled.sql + ") AS archived")) {
+            compiled.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting archived " + table + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Delete locked rows in IN-list chunks and tombstone them under one version
+     */
+    private void deleteLocked(Connection conn, int userId, List<T> rows, boolean tracked, long version)
+            throws SQLException {
+        List<Integer> ids = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            ids.add(row.getId());
+        }
+        for (List<Integer> chunk : chunks(ids)) {
+            String sql = "DELETE FROM " + table + " WHERE user_id = ? AND " + idColumn + " IN " +
+                         placeholders(chunk.size());
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, userId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 2, chunk.get(i));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+        if (tracked) {
+            changeDAO.addTombstones(conn, userId, kind, ids, version);
+        }
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += IN_CHUNK) {
+            chunks.add(items.subList(from, Math.min(from + IN_CHUNK, items.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Get row by ID
+     * @param id Row ID
+     * @return Row or null if not found
+     */
+    public T getById(int id) {
+        return getById(id, null);
+    }
+
+    /**
+     * Get row by ID and date
+     * @param id Row ID
+     * @param date Stored date of the row, or null if unknown
+     * @return Row or null if not found
+     */
+    public T getById(int id, Date date) {
+        boolean archived = archiveDAO.isAvailable();
+        String sql = selectWithArchive(idColumn + " = ?" + (date != null ? " AND date = ?" : ""), archived);
+        int params = date != null ? 2 : 1;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            for (int offset = 0; offset <= (archived ? params : 0); offset += params) {
+                pstmt.setInt(offset + 1, id);
+                if (date != null) {
+                    pstmt.setDate(offset + 2, date);
+                }
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return map(rs);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting " + kind + " by ID: " + e.getMessage());
+        }
+        
+        return null;
+    }
+
+    /**
+     * Lifetime total for a user
+     * Sums the hot table and adds the precomputed archive aggregates.
+     * @param userId User ID
+     * @return Total amount
+     */
+    public BigDecimal getTotal(int userId) {
+        BigDecimal total = BigDecimal.ZERO;
+        String sql = "SELECT COALESCE(SUM(amount), 0) FROM " + table + " WHERE user_id = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    total = rs.getBigDecimal(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting " + kind + " total: " + e.getMessage());
+        }
+        
+        return total.add(archiveDAO.getArchivedTotal(userId, kind));
+    }
+
+    /**
+     * Lifetime totals per category for a user
+     * @param userId User ID
+     * @return Map of category to total amount, hot and archived combined
+     */
+    public Map<String, BigDecimal> getTotalsByCategory(int userId) {
+        Map<String, BigDecimal> totals = archiveDAO.getArchivedTotalsByCategory(userId, kind);
+        String sql = "SELECT category, SUM(amount) FROM " + table + " WHERE user_id = ? GROUP BY category";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.merge(rs.getString(1), rs.getBigDecimal(2), BigDecimal::add);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting " + kind + " category totals: " + e.getMessage());
+        }
+        
+        return totals;
+    }
+
+    /**
+     * Totals per month and category for a user
+     * Groups in the database, so trend charts read one row per month and
+     * category instead of every row.
+     * @param userId User ID
+     * @return Map of first day of month to category totals, oldest month
+     *         first, hot and archived combined
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getMonthlyTotalsByCategory(int userId) {
+        TreeMap<LocalDate, Map<String, BigDecimal>> totals = archiveDAO.getArchivedMonthlyTotals(userId, kind);
+        String sql = "SELECT DATE_FORMAT(date, '%Y-%m-01') AS month, category, SUM(amount) FROM " + table +
+                     " WHERE user_id = ? GROUP BY month, category";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.computeIfAbsent(LocalDate.parse(rs.getString(1)), month -> new HashMap<>())
+                          .merge(rs.getString(2), rs.getBigDecimal(3), BigDecimal::add);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting monthly " + kind + " totals: " + e.getMessage());
+        }
+        
+        return totals;
+    }
+
+    /**
+     * Total over a date range, summed in the database
+     * @param userId User ID
+     * @param from First date included
+     * @param to First date excluded
+     * @param category Category to sum, or null for all
+     * @return Total amount, hot and archived combined
+     */
+    public BigDecimal getTotalBetween(int userId, Date from, Date to, String category) {
+        boolean archived = archiveDAO.isAvailable();
+        String branch = "SELECT SUM(amount) AS total FROM %s WHERE user_id = ? AND date >= ? AND date < ?" +
+                        (category != null ? " AND category = ?" : "");
+        String sql = "SELECT COALESCE(SUM(total), 0) FROM (" + String.format(branch, table) +
+                     (archived ? " UNION ALL " + String.format(branch, archiveTable) : "") + ") AS totals";
+        int params = category != null ? 4 : 3;
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (int offset = 0; offset <= (archived ? params : 0); offset += params) {
+                pstmt.setInt(offset + 1, userId);
+                pstmt.setDate(offset + 2, from);
+                pstmt.setDate(offset + 3, to);
+                if (category != null) {
+                    pstmt.setString(offset + 4, category);
+                }
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getBigDecimal(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error getting " + kind + " total for range: " + e.getMessage());
+        }
+
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Totals per day and category for a user
+     * Read once to build in-memory range indexes, so archived rows are
+     * grouped from the archive table rather than the monthly aggregates.
+     * @param userId User ID
+     * @return Map of day to category totals, oldest day first, hot and
+     *         archived combined, at the version it was read at; null if the query fails
+     */
+    public Versioned<TreeMap<LocalDate, Map<String, BigDecimal>>> getDailyTotalsByCategory(int userId) {
+        TreeMap<LocalDate, Map<String, BigDecimal>> totals = new TreeMap<>();
+        boolean archived = archiveDAO.isAvailable();
+        String branch = "SELECT date, category, SUM(amount) FROM %s WHERE user_id = ? GROUP BY date, category";
+        String sql = String.format(branch, table) +
+                     (archived ? " UNION ALL " + String.format(branch, archiveTable) : "");
+
+        try (Connection conn = dbConnection.getConnection()) {
+            // One transaction, so the version matches the rows read
+            conn.setAutoCommit(false);
+            long version = DataVersion.current(conn, userId);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, userId);
+                if (archived) {
+                    pstmt.setInt(2, userId);
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        totals.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new HashMap<>())
+                              .merge(rs.getString(2), rs.getBigDecimal(3), BigDecimal::add);
+                    }
+                }
+            }
+
+            conn.commit();
+            return new Versioned<>(totals, version);
+
+        } catch (SQLException e) {
+            System.err.println("Error getting daily " + kind + " totals: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Pass the searchable text of each of a user's rows to a consumer
+     * Reads only the ID, category and notes, for building search indexes.
+     * @param userId User ID
+     * @param consumer Receives "category notes" and the row ID
+     * @return true if every row was read
+     */
+    public boolean forEachText(int userId, ObjIntConsumer<String> consumer) {
+        boolean archived = archiveDAO.isAvailable();
+        String branch = "SELECT " + idColumn + ", category, notes FROM %s WHERE user_id = ?";
+        String sql = String.format(branch, table) +
+                     (archived ? " UNION ALL " + String.format(branch, archiveTable) : "");
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setFetchSize(dbConnection.getFetchSize());
+            pstmt.setInt(1, userId);
+            if (archived) {
+                pstmt.setInt(2, userId);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(searchText(rs.getString(2), rs.getString(3)), rs.getInt(1));
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Error reading " + kind + " text: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Text a transaction is found by in search
+     */
+    public static String searchText(String category, String notes) {
+        return notes != null ? category + " " + notes : category;
+    }
+
+    /**
+     * SELECT over the hot table, unioned with the archive table when installed
+     * The WHERE clause is repeated, so its parameters must be bound twice.
+     */
+    private String selectWithArchive(String where, boolean archived) {
+        String sql = "SELECT " + columns + " FROM " + table + " WHERE " + where;
+        if (archived) {
+            sql += " UNION ALL SELECT " + columns + " FROM " + archiveTable + " WHERE " + where;
+        }
+        return sql;
+    }
+
+    /**
+     * Map the current result set row to a compact record
+     */
+    private TransactionRecord mapRecord(ResultSet rs) throws SQLException {
+        return TransactionRecord.of(rs.getInt(idColumn), rs.getInt("user_id"), rs.getString("category"),
+            rs.getBigDecimal("amount"), rs.getDate("date").toLocalDate(), rs.getString("notes"));
+    }
+}
@@ -129,6 +129,49 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Delete a user together with all of their incomes and expenses
+     * Transactions are removed explicitly so this also works when the
+     * tables are partitioned and have no ON DELETE CASCADE foreign keys.
+     * @param userId User ID
+     * @return true if the user was deleted, false otherwise
+     */
+    public boolean deleteUser(int userId) {
+        // Archived history first, on its own connection
+        if (!new ArchiveDAO().deleteUserArchive(userId)) {
+            return false;
+        }
+        ChangeDAO changeDAO = new ChangeDAO();
+        boolean tracked = changeDAO.isAvailable();
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement deleteIncomes = conn.prepareStatement("DELETE FROM incomes WHERE user_id = ?");
+                 PreparedStatement deleteExpenses = conn.prepareStatement("DELETE FROM expenses WHERE user_id = ?");
+                 PreparedStatement deleteUser = conn.prepareStatement("DELETE FROM users WHERE user_id = ?")) {
+                
+                deleteIncomes.setInt(1, userId);
+                deleteIncomes.executeUpdate();
+                deleteExpenses.setInt(1, userId);
+                deleteExpenses.executeUpdate();
+                if (tracked) {
+                    changeDAO.deleteUserChanges(conn, userId);
+                }
+                deleteUser.setInt(1, userId);
+                int rowsAffected = deleteUser.executeUpdate();
+                
+                conn.commit();
+                DataVersion.bump(userId);
+                return rowsAffected > 0;
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error deleting user: " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Get user by ID
      * @param userId User ID
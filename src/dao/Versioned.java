@@ -0,0 +1,24 @@
+package dao;
+
+/**
+ * A read result together with the version of the user's data it was read at
+ * Every write at or below the version is in the result and no later one
+ * is, so change events can be matched against it (see DataVersion).
+ */
+public final class Versioned<T> {
+    private final T value;
+    private final long version;
+
+    public Versioned(T value, long version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
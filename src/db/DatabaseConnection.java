@@ -2,43 +2,161 @@ package db;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Singleton class for managing database connections
  * Loads configuration from config.properties file
+ * (or the file named by the finance.config system property)
+ *
+ * Connections are handed out from a bounded pool so that any number of
+ * threads (including virtual threads) can use the DAOs concurrently.
+ * Callers close the returned connection as usual; closing returns the
+ * underlying physical connection to the pool instead of dropping it.
  */
 public class DatabaseConnection {
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final long VALIDATE_AFTER_IDLE_MS = 30_000;
+    private static final String CONFIG_PROPERTY = "finance.config";
+
+    private static volatile DatabaseConnection instance;
     private String url;
     private String username;
     private String password;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private final Properties config = new Properties();
+
+    private Semaphore permits;
+    private BlockingQueue<PooledConnection> idleConnections;
+    // Set by closeConnection(); returned connections are closed instead of pooled
+    private volatile boolean closed;
+
+    // Pool statistics
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong openConnections = new AtomicLong();
 
     /**
      * Private constructor - loads database configuration
      */
     private DatabaseConnection() {
         try {
-            Properties props = new Properties();
-            FileInputStream fis = new FileInputStream("config.properties");
-            props.load(fis);
+            FileInputStream fis = new FileInputStream(System.getProperty(CONFIG_PROPERTY, "config.properties"));
+            config.load(fis);
             fis.close();
 
-            this.url = props.getProperty("db.url");
-            this.username = props.getProperty("db.username");
-            this.password = props.getProperty("db.password");
+            this.url = config.getProperty("db.url");
+            this.username = config.getProperty("db.username");
+            this.password = config.getProperty("db.password");
+            this.maxConnections = parseInt(config.getProperty("db.maxConnections"), DEFAULT_MAX_CONNECTIONS);
+            this.timeoutSeconds = parseInt(config.getProperty("db.timeout"), DEFAULT_TIMEOUT_SECONDS);
+            this.fetchSize = parseFetchSize(config.getProperty("db.fetchSize"));
 
             // Load MySQL JDBC driver
             Class.forName("com.mysql.cj.jdbc.Driver");
-            
+
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("Error loading database configuration: " + e.getMessage());
             e.printStackTrace();
         }
+
+        this.permits = new Semaphore(maxConnections, true);
+        this.idleConnections = new ArrayBlockingQueue<>(maxConnections);
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Rows per cursor fetch; 0 turns cursor fetching off
+     */
+    private static int parseFetchSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_FETCH_SIZE;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_FETCH_SIZE;
+        }
+    }
+
+    /**
+     * Driver settings for a new physical connection
+     * With a fetch size, statements that set one read through a server-side
+     * cursor (useCursorFetch), fetchSize rows per round trip, instead of the
+     * driver buffering the whole result. Cursor fetch needs server-side
+     * prepared statements, so those are cached per connection. Settings
+     * already given in db.url are left alone.
+     */
+    private Properties connectionProperties() {
+        Properties info = new Properties();
+        if (username != null) {
+            info.setProperty("user", username);
+        }
+        if (password != null) {
+            info.setProperty("password", password);
+        }
+        if (fetchSize > 0) {
+            setUnlessInUrl(info, "useCursorFetch", "true");
+            setUnlessInUrl(info, "cachePrepStmts", "true");
+        }
+        return info;
+    }
+
+    private void setUnlessInUrl(Properties info, String key, String value) {
+        if (url == null || !url.contains(key + "=")) {
+            info.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Get a setting from the loaded configuration file
+     * @param key Property name (e.g. partition.monthsAhead)
+     * @param defaultValue Value used when the property is missing or blank
+     */
+    public String getProperty(String key, String defaultValue) {
+        String value = config.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Get an integer setting from the loaded configuration file
+     */
+    public int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     /**
@@ -56,15 +174,74 @@ public class DatabaseConnection {
     }
 
     /**
-     * Get active database connection
-     * Creates new connection if none exists or connection is closed
+     * Borrow a database connection from the pool
+     * Blocks for at most db.timeout seconds when all connections are in use.
+     * The returned connection must be closed to give it back to the pool.
      */
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(url, username, password);
-            System.out.println("✓ Database connection established successfully");
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + timeoutSeconds
+                    + "s waiting for a database connection (pool size " + maxConnections + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeIdleConnection();
+            if (pooled == null) {
+                Connection physical = DriverManager.getConnection(url, connectionProperties());
+                if (openConnections.incrementAndGet() == 1) {
+                    System.out.println("✓ Database connection established successfully");
+                }
+                pooled = new PooledConnection(physical);
+            }
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take a usable idle connection, discarding any that have gone stale
+     */
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idleConnections.poll()) != null) {
+            if (pooled.isUsable()) {
+                return pooled;
+            }
+            pooled.closePhysical();
+        }
+        return null;
+    }
+
+    private void recordWait(long waitNanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Give a physical connection back to the pool
+     */
+    private void release(PooledConnection pooled, boolean reusable) {
+        try {
+            if (!reusable || closed || !idleConnections.offer(pooled)) {
+                pooled.closePhysical();
+            } else if (closed) {
+                // closeConnection() ran between the check and the offer
+                closeIdle();
+            }
+        } finally {
+            permits.release();
         }
-        return connection;
     }
 
     /**
@@ -72,8 +249,7 @@ public class DatabaseConnection {
      * @return true if connection successful, false otherwise
      */
     public boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             if (conn != null && !conn.isClosed()) {
                 System.out.println("✓ Database connection test: SUCCESS");
                 return true;
@@ -90,16 +266,179 @@ public class DatabaseConnection {
     }
 
     /**
-     * Close database connection
+     * Close all pooled connections
+     * Idle connections are closed now; connections currently borrowed are
+     * closed when they are returned. Connections borrowed afterwards still
+     * work but are no longer pooled.
      */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("✓ Database connection closed");
+        closed = true;
+        if (closeIdle()) {
+            System.out.println("✓ Database connection closed");
+        }
+    }
+
+    /**
+     * Close the idle connections
+     * @return true if any were open
+     */
+    private boolean closeIdle() {
+        PooledConnection pooled;
+        boolean closedAny = false;
+        while ((pooled = idleConnections.poll()) != null) {
+            pooled.closePhysical();
+            closedAny = true;
+        }
+        return closedAny;
+    }
+
+    // Pool statistics accessors
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Rows fetched per round trip by streaming reads (db.fetchSize)
+     * Pass to Statement.setFetchSize; 0 means the driver reads the whole
+     * result at once.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getActiveConnections() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0.0 : totalWaitNanos.sum() / (count * 1_000_000.0);
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Human readable summary of pool contention
+     */
+    public String getPoolStats() {
+        return String.format("pool size=%d, active=%d, acquisitions=%d, avg wait=%.2f ms, max wait=%.2f ms, timeouts=%d",
+            maxConnections, getActiveConnections(), getAcquisitionCount(),
+            getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount());
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private long lastReturned = System.currentTimeMillis();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        boolean isUsable() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (System.currentTimeMillis() - lastReturned > VALIDATE_AFTER_IDLE_MS) {
+                    return physical.isValid(2);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LeaseHandler(this));
+        }
+
+        void closePhysical() {
+            openConnections.decrementAndGet();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Handle given to callers; close() returns the connection to the pool
+     * and any use after that fails instead of touching a shared connection.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                returnToPool();
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return returned || pooled.physical.isClosed();
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "PooledConnection[" + pooled.physical + "]";
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private synchronized void returnToPool() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+
+            boolean reusable;
+            try {
+                // Leave the connection the way the next borrower expects it
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                reusable = !pooled.physical.isClosed();
+            } catch (SQLException e) {
+                reusable = false;
+            }
+            pooled.lastReturned = System.currentTimeMillis();
+            release(pooled, reusable);
         }
     }
 }
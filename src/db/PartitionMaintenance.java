@@ -0,0 +1,222 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintenance job for the monthly RANGE partitions created by partition_tables.sql
+ * Splits upcoming months out of p_future so new rows never land in the
+ * catch-all partition. Expired months are moved out by service.ArchiveService,
+ * which drops whole partitions through this class.
+ *
+ * Settings (config.properties):
+ *   partition.monthsAhead   months to pre-create (default 3)
+ *
+ * Does nothing when the tables are not partitioned.
+ */
+public class PartitionMaintenance {
+    private static final String[] TABLES = {"incomes", "expenses"};
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final DatabaseConnection dbConnection;
+    private ScheduledExecutorService scheduler;
+
+    public PartitionMaintenance() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Run maintenance now and then once a day on a background thread
+     */
+    public synchronized void schedule() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "partition-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::runMaintenance, 0, 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * Add future partitions for every partitioned table
+     */
+    public void runMaintenance() {
+        int monthsAhead = dbConnection.getIntProperty("partition.monthsAhead", 3);
+        YearMonth current = YearMonth.now();
+
+        for (String table : TABLES) {
+            try {
+                if (!isPartitioned(table)) {
+                    continue;
+                }
+                int added = addFuturePartitions(table, current.plusMonths(monthsAhead));
+                if (added > 0) {
+                    System.out.println("✓ Partition maintenance on " + table + ": " + added + " added");
+                }
+            } catch (SQLException e) {
+                System.err.println("Error maintaining partitions for " + table + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Check whether a table uses partitioning
+     * @param table Table name
+     * @return true if the table has more than one partition
+     */
+    public boolean isPartitioned(String table) throws SQLException {
+        return listPartitions(table).size() > 1;
+    }
+
+    /**
+     * Partition names of a table in ordinal order
+     * @param table Table name
+     * @return Partition names, or a single null entry for an unpartitioned table
+     */
+    public List<String> listPartitions(String table) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+                     "ORDER BY PARTITION_ORDINAL_POSITION";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, table);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Make sure a monthly partition exists for every month up to and including lastMonth
+     * New months are split out of p_future with REORGANIZE PARTITION, which only
+     * rewrites p_future itself (normally empty).
+     * @param table Table name
+     * @param lastMonth Last month that needs its own partition
+     * @return Number of partitions added
+     */
+    public int addFuturePartitions(String table, YearMonth lastMonth) throws SQLException {
+        List<String> partitions = listPartitions(table);
+        YearMonth newest = newestMonthlyPartition(partitions);
+        if (newest == null || !newest.isBefore(lastMonth)) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table)
+            .append(" REORGANIZE PARTITION ").append(FUTURE_PARTITION).append(" INTO (");
+        int added = 0;
+        for (YearMonth month = newest.plusMonths(1); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            sql.append("PARTITION ").append(month.format(PARTITION_NAME))
+               .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+            added++;
+        }
+        sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql.toString());
+        }
+        return added;
+    }
+
+    /**
+     * Upper bound of every bounded partition, in ordinal order
+     * @param table Table name
+     * @return Map of partition name to its exclusive upper date (p_future is left out)
+     */
+    public Map<String, LocalDate> getPartitionUpperBounds(String table) throws SQLException {
+        Map<String, LocalDate> bounds = new LinkedHashMap<>();
+        String sql = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                     "ORDER BY PARTITION_ORDINAL_POSITION";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, table);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String description = rs.getString(2).replace("'", "");
+                    if (!"MAXVALUE".equalsIgnoreCase(description)) {
+                        bounds.put(rs.getString(1), LocalDate.parse(description));
+                    }
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Drop a partition if it holds no rows
+     * The table is write-locked from the check until the drop, so a row
+     * written meanwhile keeps the partition instead of being dropped with it.
+     * @param table Table name
+     * @param partition Partition name
+     * @return true if the partition was empty and has been dropped
+     */
+    public boolean dropPartitionIfEmpty(String table, String partition) throws SQLException {
+        if (!partition.matches("p\\w+")) {
+            throw new IllegalArgumentException("Invalid partition name: " + partition);
+        }
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("LOCK TABLES " + table + " WRITE");
+            try {
+                try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + table + " PARTITION (" + partition + ") LIMIT 1")) {
+                    if (rs.next()) {
+                        return false;
+                    }
+                }
+                stmt.execute("ALTER TABLE " + table + " DROP PARTITION " + partition);
+                return true;
+            } finally {
+                stmt.execute("UNLOCK TABLES");
+            }
+        }
+    }
+
+    private static YearMonth newestMonthlyPartition(List<String> partitions) {
+        YearMonth newest = null;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && (newest == null || month.isAfter(newest))) {
+                newest = month;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Month covered by a pYYYYMM partition, or null for p_history/p_future
+     */
+    private static YearMonth parseMonth(String partition) {
+        if (partition == null || !partition.matches("p\\d{6}")) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(partition.substring(1, 5)), Integer.parseInt(partition.substring(5)));
+    }
+}
@@ -0,0 +1,246 @@
+package db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies versioned schema scripts at startup
+ * Scripts live in db.migrationsDir (default "migrations") and are named
+ * V<version>__<description>.sql. Each one runs once, in version order, and
+ * is then recorded in schema_version; scripts are forward-only and must not
+ * be edited after release.
+ *
+ * DDL can't be rolled back in MySQL, so a script that fails half-way is
+ * re-run from the top on the next start. Statements whose effect is already
+ * there (table, column or index exists, index already dropped) are skipped,
+ * which makes that safe for the usual CREATE/ALTER scripts.
+ *
+ * Index changes should use online DDL (ALGORITHM=INPLACE, LOCK=NONE) so
+ * they run alongside normal traffic. Online DDL still needs a brief metadata
+ * lock at start and end; the runner waits at most LOCK_WAIT_SECONDS for it
+ * rather than queueing every other query behind a long transaction, and
+ * retries on the next start.
+ */
+public class SchemaMigrator {
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String LOCK_NAME = "finance_tracker.schema_migrator";
+    // Another instance may be building an index; wait for it rather than racing
+    private static final int INSTANCE_LOCK_SECONDS = 600;
+    private static final int LOCK_WAIT_SECONDS = 10;
+    // Table exists, duplicate column, duplicate key name, can't drop missing key
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(1050, 1060, 1061, 1091);
+
+    private final DatabaseConnection dbConnection;
+
+    public SchemaMigrator() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Apply every script newer than the database
+     * @return true if the schema is now current
+     */
+    public boolean migrate() {
+        Path dir = Paths.get(dbConnection.getProperty("db.migrationsDir", "migrations"));
+        TreeMap<Integer, Path> scripts = findScripts(dir);
+        if (scripts == null || scripts.isEmpty()) {
+            return scripts != null;
+        }
+
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                         "version INT PRIMARY KEY, " +
+                         "description VARCHAR(100) NOT NULL, " +
+                         "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                         "duration_ms BIGINT NOT NULL DEFAULT 0)");
+
+            if (!acquireLock(conn)) {
+                System.err.println("Schema migration skipped: another instance is still migrating");
+                return false;
+            }
+            int previousWait = 0;
+            try (ResultSet rs = stmt.executeQuery("SELECT @@SESSION.lock_wait_timeout")) {
+                if (rs.next()) {
+                    previousWait = rs.getInt(1);
+                }
+            }
+            try {
+                stmt.execute("SET SESSION lock_wait_timeout = " + LOCK_WAIT_SECONDS);
+                Set<Integer> applied = appliedVersions(conn);
+                for (Map.Entry<Integer, Path> script : scripts.entrySet()) {
+                    if (!applied.contains(script.getKey())
+                            && !apply(conn, script.getKey(), script.getValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                // The connection goes back to the pool
+                if (previousWait > 0) {
+                    stmt.execute("SET SESSION lock_wait_timeout = " + previousWait);
+                }
+                stmt.execute("DO RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error migrating schema: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Latest applied version
+     * @return Highest version in schema_version, 0 if none, or -1 on error
+     */
+    public int getCurrentVersion() {
+        String sql = "SELECT COALESCE(MAX(version), 0) FROM schema_version";
+
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException e) {
+            System.err.println("Error reading schema version: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private boolean apply(Connection conn, int version, Path script) {
+        Matcher name = SCRIPT_NAME.matcher(script.getFileName().toString());
+        name.matches();
+        String description = name.group(2).replace('_', ' ');
+        long start = System.nanoTime();
+
+        List<String> statements;
+        try {
+            statements = splitStatements(Files.readString(script, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Error reading migration " + script + ": " + e.getMessage());
+            return false;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED.contains(e.getErrorCode())) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error applying migration V" + version + " (" + description + "): " +
+                               e.getMessage());
+            return false;
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        String sql = "INSERT INTO schema_version (version, description, duration_ms) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, description);
+            pstmt.setLong(3, millis);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error recording migration V" + version + ": " + e.getMessage());
+            return false;
+        }
+        System.out.println("✓ Applied migration V" + version + " (" + description + ") in " + millis + " ms");
+        return true;
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT GET_LOCK('" + LOCK_NAME + "', " + INSTANCE_LOCK_SECONDS + ")")) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Scripts in a directory by version
+     * @return Scripts in version order, empty if the directory doesn't exist, or null on error
+     */
+    private static TreeMap<Integer, Path> findScripts(Path dir) {
+        TreeMap<Integer, Path> scripts = new TreeMap<>();
+        if (!Files.isDirectory(dir)) {
+            return scripts;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "V*.sql")) {
+            for (Path file : files) {
+                Matcher name = SCRIPT_NAME.matcher(file.getFileName().toString());
+                if (!name.matches()) {
+                    System.err.println("Ignoring migration with unexpected name: " + file);
+                    continue;
+                }
+                Path previous = scripts.put(Integer.parseInt(name.group(1)), file);
+                if (previous != null) {
+                    System.err.println("Duplicate migration version: " + previous + " and " + file);
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing migrations in " + dir + ": " + e.getMessage());
+            return null;
+        }
+        return scripts;
+    }
+
+    /**
+     * Split a script into statements
+     * Statements end with ';' at the end of a line; lines starting with "--" are comments.
+     */
+    private static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,69 @@
+package event;
+
+import model.Transaction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for transaction change events
+ * DAOs publish after a write has committed; listeners are called
+ * synchronously on the publishing thread, so they must be quick and
+ * UI listeners have to hand work to the Event Dispatch Thread themselves.
+ * A failing listener is logged and does not affect the others.
+ */
+public final class EventBus {
+    private static final EventBus INSTANCE = new EventBus();
+
+    private final Map<Class<?>, List<Consumer<?>>> listeners = new ConcurrentHashMap<>();
+
+    private EventBus() {
+    }
+
+    public static EventBus getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Handle to an active subscription; closing it stops delivery
+     */
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Listen for events about one row type
+     * @param rowType Income.class or Expense.class
+     * @param listener Called for every matching event
+     * @return Subscription to close when the listener is no longer needed
+     */
+    public <T extends Transaction> Subscription subscribe(Class<T> rowType, Consumer<TransactionEvent<T>> listener) {
+        List<Consumer<?>> forType = listeners.computeIfAbsent(rowType, type -> new CopyOnWriteArrayList<>());
+        forType.add(listener);
+        return () -> forType.remove(listener);
+    }
+
+    /**
+     * Deliver an event to every listener of its row type
+     * @param event Event to publish
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Transaction> void publish(TransactionEvent<T> event) {
+        List<Consumer<?>> forType = listeners.get(event.getRowType());
+        if (forType == null) {
+            return;
+        }
+        for (Consumer<?> listener : forType) {
+            try {
+                ((Consumer<TransactionEvent<T>>) listener).accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Error in event listener for " + event + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package event;
+
+import model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Domain event published after incomes or expenses were written
+ * One event covers every row touched by a single operation, so batch
+ * operations publish once. All rows belong to the same user and share
+ * the change version the write was committed at.
+ *
+ * SYNCED events replay writes made by another instance (see
+ * service.PeerSyncService). Only the rows' current state is known for
+ * them, so they carry the affected IDs instead of the previous rows and
+ * have no amount delta.
+ * @param <T> Row type (Income or Expense)
+ */
+public final class TransactionEvent<T extends Transaction> {
+    public enum Type {
+        INSERTED,
+        UPDATED,
+        DELETED,
+        SYNCED
+    }
+
+    private final Type type;
+    private final Class<T> rowType;
+    private final int userId;
+    private final long version;
+    private final List<T> rows;
+    private final List<T> previousRows;
+    private final List<Integer> removedIds;
+
+    private TransactionEvent(Type type, Class<T> rowType, int userId, long version,
+                             List<T> rows, List<T> previousRows, List<Integer> removedIds) {
+        this.type = type;
+        this.rowType = rowType;
+        this.userId = userId;
+        this.version = version;
+        this.rows = Collections.unmodifiableList(rows);
+        this.previousRows = Collections.unmodifiableList(previousRows);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+    }
+
+    /**
+     * Rows were added
+     */
+    public static <T extends Transaction> TransactionEvent<T> inserted(Class<T> rowType, int userId, long version,
+                                                                      List<T> rows) {
+        return new TransactionEvent<>(Type.INSERTED, rowType, userId, version, rows, List.of(), List.of());
+    }
+
+    /**
+     * Rows were changed
+     * @param previousRows Rows as they were before the update, in the same order as rows
+     * @param rows Rows as they are now
+     */
+    public static <T extends Transaction> TransactionEvent<T> updated(Class<T> rowType, int userId, long version,
+                                                                     List<T> previousRows, List<T> rows) {
+        return new TransactionEvent<>(Type.UPDATED, rowType, userId, version, rows, previousRows, idsOf(previousRows));
+    }
+
+    /**
+     * Rows were removed
+     * @param rows Rows as they were before the delete
+     */
+    public static <T extends Transaction> TransactionEvent<T> deleted(Class<T> rowType, int userId, long version,
+                                                                     List<T> rows) {
+        return new TransactionEvent<>(Type.DELETED, rowType, userId, version, rows, List.of(), idsOf(rows));
+    }
+
+    /**
+     * Rows were changed by another instance and pulled from the database
+     * @param rows Inserted or updated rows in their current state
+     * @param deletedIds IDs of deleted rows
+     */
+    public static <T extends Transaction> TransactionEvent<T> synced(Class<T> rowType, int userId, long version,
+                                                                    List<T> rows, List<Integer> deletedIds) {
+        List<Integer> removedIds = new ArrayList<>(idsOf(rows));
+        removedIds.addAll(deletedIds);
+        return new TransactionEvent<>(Type.SYNCED, rowType, userId, version, rows, List.of(), removedIds);
+    }
+
+    private static List<Integer> idsOf(List<? extends Transaction> rows) {
+        List<Integer> ids = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Class<T> getRowType() {
+        return rowType;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Change version of the write, comparable with DataVersion.current()
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Inserted or updated rows in their new state, or the deleted rows
+     */
+    public List<T> getRows() {
+        return rows;
+    }
+
+    /**
+     * Rows before an update (empty for inserts and deletes)
+     */
+    public List<T> getPreviousRows() {
+        return previousRows;
+    }
+
+    /**
+     * Rows that no longer exist in their old form (deleted, or the old side of an update)
+     * Always empty for SYNCED events; use getRemovedIds() to patch views.
+     */
+    public List<T> getRemovedRows() {
+        return type == Type.DELETED ? rows : previousRows;
+    }
+
+    /**
+     * IDs of rows a view must drop before adding getAddedRows()
+     * For SYNCED events this includes every changed row, whether or not the
+     * view was showing it.
+     */
+    public List<Integer> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * Rows that now exist in their new form (inserted, or the new side of an update)
+     */
+    public List<T> getAddedRows() {
+        return type == Type.DELETED ? List.of() : rows;
+    }
+
+    /**
+     * Whether getAmountDelta() can be used (false for SYNCED events)
+     */
+    public boolean isAmountDeltaKnown() {
+        return type != Type.SYNCED;
+    }
+
+    /**
+     * Change of the user's total amount caused by this event
+     * @throws IllegalStateException for SYNCED events
+     */
+    public BigDecimal getAmountDelta() {
+        if (!isAmountDeltaKnown()) {
+            throw new IllegalStateException("Amount delta of a synced event is unknown");
+        }
+        BigDecimal delta = BigDecimal.ZERO;
+        for (T row : getAddedRows()) {
+            delta = delta.add(row.getAmount());
+        }
+        for (T row : getRemovedRows()) {
+            delta = delta.subtract(row.getAmount());
+        }
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionEvent{" +
+                "type=" + type +
+                ", rowType=" + rowType.getSimpleName() +
+                ", userId=" + userId +
+                ", version=" + version +
+                ", rows=" + rows.size() +
+                '}';
+    }
+}
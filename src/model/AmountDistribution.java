@@ -0,0 +1,270 @@
+package model;
+
+import util.KllSketch;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Distribution of expense amounts that can be added to and merged
+ * Keeps a KLL sketch of the amounts for quantiles, counts per amount
+ * bucket, the total and the TOP largest expenses, all in cents. Its size
+ * doesn't grow with the number of expenses, and two distributions merge
+ * into the distribution of both, so one is stored per month and category
+ * and any range of months is their merge.
+ */
+public final class AmountDistribution {
+    public static final int TOP = 10;
+    // Bucket lower bounds in cents: ₹1, ₹2, ₹5, ₹10, ... ₹5,00,00,000
+    private static final long[] BUCKET_EDGES = bucketEdges();
+    private static final byte FORMAT = 1;
+    private static final Comparator<Largest> LARGEST_FIRST =
+        Comparator.comparingLong(Largest::getAmountCents).reversed().thenComparingInt(Largest::getExpenseId);
+
+    private final KllSketch sketch;
+    private final long[] histogram;
+    private final List<Largest> largest;
+    private long totalCents;
+
+    public AmountDistribution() {
+        this(new KllSketch(), new long[BUCKET_EDGES.length + 1], new ArrayList<>());
+    }
+
+    private AmountDistribution(KllSketch sketch, long[] histogram, List<Largest> largest) {
+        this.sketch = sketch;
+        this.histogram = histogram;
+        this.largest = largest;
+    }
+
+    /**
+     * Add an expense
+     */
+    public void add(Expense expense) {
+        add(expense.getExpenseId(), expense.getCategory(), expense.getAmount().movePointRight(2).longValue(),
+            expense.getDate().toLocalDate());
+    }
+
+    /**
+     * Add an expense read as columns
+     * @param expenseId Expense ID
+     * @param category Category
+     * @param amountCents Amount in cents
+     * @param date Date of the expense
+     */
+    public void add(int expenseId, String category, long amountCents, LocalDate date) {
+        sketch.update(amountCents);
+        histogram[bucketOf(amountCents)]++;
+        totalCents += amountCents;
+        if (largest.size() < TOP || amountCents > largest.get(largest.size() - 1).amountCents) {
+            largest.add(new Largest(expenseId, category, amountCents, date));
+            trimLargest();
+        }
+    }
+
+    /**
+     * Add every expense of another distribution
+     */
+    public void merge(AmountDistribution other) {
+        sketch.merge(other.sketch);
+        for (int b = 0; b < histogram.length; b++) {
+            histogram[b] += other.histogram[b];
+        }
+        totalCents += other.totalCents;
+        largest.addAll(other.largest);
+        trimLargest();
+    }
+
+    public long getCount() {
+        return sketch.getN();
+    }
+
+    public boolean isEmpty() {
+        return sketch.isEmpty();
+    }
+
+    public BigDecimal getTotal() {
+        return BigDecimal.valueOf(totalCents, 2);
+    }
+
+    /**
+     * Average amount, or zero if there are no expenses
+     */
+    public BigDecimal getMean() {
+        return isEmpty() ? BigDecimal.ZERO : BigDecimal.valueOf(Math.round((double) totalCents / getCount()), 2);
+    }
+
+    /**
+     * Amount at a quantile, e.g. 0.5 for the median or 0.9 for p90
+     * Exact for small distributions, estimated within about 1.7% in rank for large ones.
+     * @param q Quantile between 0 and 1
+     * @return Amount, or zero if there are no expenses
+     */
+    public BigDecimal getQuantile(double q) {
+        return BigDecimal.valueOf(sketch.quantile(q), 2);
+    }
+
+    public BigDecimal getMin() {
+        return isEmpty() ? BigDecimal.ZERO : BigDecimal.valueOf(sketch.getMin(), 2);
+    }
+
+    public BigDecimal getMax() {
+        return isEmpty() ? BigDecimal.ZERO : BigDecimal.valueOf(sketch.getMax(), 2);
+    }
+
+    /**
+     * Number of expenses per amount bucket
+     * Bucket 0 is below the first edge, bucket i from edge i - 1 up to edge i.
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * Lower bounds in cents of buckets 1 and up
+     */
+    public static long[] getBucketEdges() {
+        return BUCKET_EDGES.clone();
+    }
+
+    /**
+     * The largest expenses, largest first
+     */
+    public List<Largest> getLargest() {
+        return Collections.unmodifiableList(largest);
+    }
+
+    /**
+     * Serialized form for storage; categories of the largest expenses are left out
+     */
+    public byte[] toBytes() {
+        byte[] sketchBytes = sketch.toBytes();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 1 + 8 * histogram.length + 1 + 16 * largest.size()
+            + 4 + sketchBytes.length);
+        buffer.put(FORMAT).putLong(totalCents).put((byte) histogram.length);
+        for (long count : histogram) {
+            buffer.putLong(count);
+        }
+        buffer.put((byte) largest.size());
+        for (Largest expense : largest) {
+            buffer.putInt(expense.expenseId).putLong(expense.amountCents).putInt((int) expense.date.toEpochDay());
+        }
+        buffer.putInt(sketchBytes.length).put(sketchBytes);
+        return buffer.array();
+    }
+
+    /**
+     * Read a distribution written by {@link #toBytes()}
+     * @param data Serialized distribution
+     * @param category Category of its largest expenses
+     * @throws IllegalArgumentException if the data is not a distribution
+     */
+    public static AmountDistribution fromBytes(byte[] data, String category) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != FORMAT) {
+                throw new IllegalArgumentException("Unknown distribution format");
+            }
+            long totalCents = buffer.getLong();
+            long[] histogram = new long[buffer.get()];
+            if (histogram.length != BUCKET_EDGES.length + 1) {
+                throw new IllegalArgumentException("Unexpected bucket count " + histogram.length);
+            }
+            for (int b = 0; b < histogram.length; b++) {
+                histogram[b] = buffer.getLong();
+            }
+            int top = buffer.get();
+            List<Largest> largest = new ArrayList<>(top);
+            for (int i = 0; i < top; i++) {
+                largest.add(new Largest(buffer.getInt(), category, buffer.getLong(),
+                    LocalDate.ofEpochDay(buffer.getInt())));
+            }
+            byte[] sketchBytes = new byte[buffer.getInt()];
+            buffer.get(sketchBytes);
+
+            AmountDistribution distribution =
+                new AmountDistribution(KllSketch.fromBytes(sketchBytes), histogram, largest);
+            distribution.totalCents = totalCents;
+            return distribution;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Corrupt distribution: " + e.getMessage(), e);
+        }
+    }
+
+    private void trimLargest() {
+        largest.sort(LARGEST_FIRST);
+        while (largest.size() > TOP) {
+            largest.remove(largest.size() - 1);
+        }
+    }
+
+    private static int bucketOf(long cents) {
+        int bucket = 0;
+        while (bucket < BUCKET_EDGES.length && cents >= BUCKET_EDGES[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static long[] bucketEdges() {
+        List<Long> edges = new ArrayList<>();
+        for (long decade = 100; decade <= 1_000_000_000L; decade *= 10) {
+            edges.add(decade);
+            edges.add(decade * 2);
+            edges.add(decade * 5);
+        }
+        return edges.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public String toString() {
+        return "AmountDistribution{" +
+                "count=" + getCount() +
+                ", total=" + getTotal() +
+                ", median=" + getQuantile(0.5) +
+                ", p90=" + getQuantile(0.9) +
+                ", max=" + getMax() +
+                '}';
+    }
+
+    /**
+     * One of the largest expenses of a distribution
+     */
+    public static final class Largest {
+        private final int expenseId;
+        private final String category;
+        private final long amountCents;
+        private final LocalDate date;
+
+        public Largest(int expenseId, String category, long amountCents, LocalDate date) {
+            this.expenseId = expenseId;
+            this.category = category;
+            this.amountCents = amountCents;
+            this.date = date;
+        }
+
+        public int getExpenseId() {
+            return expenseId;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        public BigDecimal getAmount() {
+            return BigDecimal.valueOf(amountCents, 2);
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+    }
+}
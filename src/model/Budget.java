@@ -0,0 +1,69 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Monthly spending limit for one expense category of a user
+ */
+public class Budget {
+    private int userId;
+    private String category;
+    private BigDecimal monthlyLimit;
+    private int warnPercent = 80;
+
+    // Constructors
+    public Budget() {}
+
+    public Budget(int userId, String category, BigDecimal monthlyLimit, int warnPercent) {
+        this.userId = userId;
+        this.category = category;
+        this.monthlyLimit = monthlyLimit;
+        this.warnPercent = warnPercent;
+    }
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    /**
+     * Share of the limit, in percent, at which a warning is raised
+     */
+    public int getWarnPercent() {
+        return warnPercent;
+    }
+
+    public void setWarnPercent(int warnPercent) {
+        this.warnPercent = Math.max(1, Math.min(100, warnPercent));
+    }
+
+    @Override
+    public String toString() {
+        return "Budget{" +
+                "userId=" + userId +
+                ", category='" + category + '\'' +
+                ", monthlyLimit=" + monthlyLimit +
+                ", warnPercent=" + warnPercent +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+
+/**
+ * Spend-to-date against one budget in one month
+ * Immutable; alerts carry the status right after the write that crossed a threshold.
+ */
+public final class BudgetStatus {
+    public enum Level {
+        OK,
+        WARNING,
+        EXCEEDED
+    }
+
+    private final int userId;
+    private final YearMonth month;
+    private final String category;
+    private final BigDecimal limit;
+    private final BigDecimal spent;
+    private final Level level;
+
+    public BudgetStatus(int userId, YearMonth month, String category, BigDecimal limit, BigDecimal spent,
+                        Level level) {
+        this.userId = userId;
+        this.month = month;
+        this.category = category;
+        this.limit = limit;
+        this.spent = spent;
+        this.level = level;
+    }
+
+    /**
+     * Level reached by an amount spent against a limit
+     * @param limit Monthly limit
+     * @param warnPercent Share of the limit that raises a warning
+     * @param spent Amount spent
+     */
+    public static Level levelOf(BigDecimal limit, int warnPercent, BigDecimal spent) {
+        if (spent.compareTo(limit) > 0) {
+            return Level.EXCEEDED;
+        }
+        return spent.multiply(BigDecimal.valueOf(100)).compareTo(limit.multiply(BigDecimal.valueOf(warnPercent))) >= 0
+            ? Level.WARNING
+            : Level.OK;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public BigDecimal getLimit() {
+        return limit;
+    }
+
+    public BigDecimal getSpent() {
+        return spent;
+    }
+
+    /**
+     * Limit minus spent; negative once exceeded
+     */
+    public BigDecimal getRemaining() {
+        return limit.subtract(spent);
+    }
+
+    /**
+     * Spent as a whole percentage of the limit
+     */
+    public int getPercentUsed() {
+        if (limit.signum() == 0) {
+            return spent.signum() > 0 ? 100 : 0;
+        }
+        return spent.multiply(BigDecimal.valueOf(100)).divide(limit, 0, RoundingMode.DOWN).intValue();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    @Override
+    public String toString() {
+        return "BudgetStatus{" +
+                "userId=" + userId +
+                ", month=" + month +
+                ", category='" + category + '\'' +
+                ", limit=" + limit +
+                ", spent=" + spent +
+                ", level=" + level +
+                '}';
+    }
+}
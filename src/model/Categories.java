@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Income and expense categories offered in the UI
+ */
+public final class Categories {
+    public static final String[] INCOME = {"Salary", "Freelance", "Business", "Investment", "Bonus", "Gift", "Other"};
+
+    public static final String[] EXPENSE = {"Food", "Rent", "Transportation", "Utilities", "Healthcare",
+                                            "Entertainment", "Shopping", "Education", "Bills", "Other"};
+
+    private Categories() {}
+}
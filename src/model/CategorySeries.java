@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * Dense per-category series, one entry per period
+ * Like TimeSeries, but split by category for one kind (income or
+ * expense). Categories are in alphabetical order and amounts are whole
+ * paise; the arrays are shared, not copied.
+ */
+public class CategorySeries {
+    private final Granularity granularity;
+    private final int[] periodStarts;
+    private final String[] categories;
+    private final long[][] cents;
+
+    public CategorySeries(Granularity granularity, int[] periodStarts, String[] categories, long[][] cents) {
+        this.granularity = granularity;
+        this.periodStarts = periodStarts;
+        this.categories = categories;
+        this.cents = cents;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return periodStarts.length;
+    }
+
+    /**
+     * First day of each period as epoch days, ascending
+     */
+    public int[] getPeriodStarts() {
+        return periodStarts;
+    }
+
+    public String[] getCategories() {
+        return categories;
+    }
+
+    /**
+     * Amounts per period for the category at the same index as getCategories()
+     */
+    public long[] getCents(int categoryIndex) {
+        return cents[categoryIndex];
+    }
+}
@@ -0,0 +1,88 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Changes to one user's incomes and expenses between two change versions
+ * Returned by ChangeDAO.getChangesSince; apply the upserts and deletions
+ * and remember getToVersion() for the next poll.
+ */
+public class ChangeSet {
+    private final long fromVersion;
+    private final long toVersion;
+    private final boolean fullResyncRequired;
+    private final List<Income> incomes;
+    private final List<Expense> expenses;
+    private final List<Integer> deletedIncomeIds;
+    private final List<Integer> deletedExpenseIds;
+
+    public ChangeSet(long fromVersion, long toVersion, boolean fullResyncRequired,
+                     List<Income> incomes, List<Expense> expenses,
+                     List<Integer> deletedIncomeIds, List<Integer> deletedExpenseIds) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.fullResyncRequired = fullResyncRequired;
+        this.incomes = incomes;
+        this.expenses = expenses;
+        this.deletedIncomeIds = deletedIncomeIds;
+        this.deletedExpenseIds = deletedExpenseIds;
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * Version the user's data is at once these changes are applied
+     */
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    /**
+     * True when tombstones the caller would need have already been purged;
+     * the caller must reload everything instead of applying this delta
+     */
+    public boolean isFullResyncRequired() {
+        return fullResyncRequired;
+    }
+
+    /**
+     * Incomes inserted or updated since fromVersion, in their current state
+     */
+    public List<Income> getIncomes() {
+        return incomes;
+    }
+
+    /**
+     * Expenses inserted or updated since fromVersion, in their current state
+     */
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+
+    public List<Integer> getDeletedIncomeIds() {
+        return deletedIncomeIds;
+    }
+
+    public List<Integer> getDeletedExpenseIds() {
+        return deletedExpenseIds;
+    }
+
+    public boolean isEmpty() {
+        return incomes.isEmpty() && expenses.isEmpty() && deletedIncomeIds.isEmpty() && deletedExpenseIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet{" +
+                "fromVersion=" + fromVersion +
+                ", toVersion=" + toVersion +
+                ", incomes=" + incomes.size() +
+                ", expenses=" + expenses.size() +
+                ", deletedIncomes=" + deletedIncomeIds.size() +
+                ", deletedExpenses=" + deletedExpenseIds.size() +
+                (fullResyncRequired ? ", fullResyncRequired" : "") +
+                '}';
+    }
+}
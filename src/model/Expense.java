@@ -7,7 +7,7 @@ import java.sql.Timestamp;
 /**
  * Expense model class representing an expense entry
  */
-public class Expense {
+public class Expense implements Transaction {
     private int expenseId;
     private int userId;
     private String category;
@@ -35,6 +35,11 @@ public class Expense {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return expenseId;
+    }
+
     public int getExpenseId() {
         return expenseId;
     }
@@ -43,6 +48,7 @@ public class Expense {
         this.expenseId = expenseId;
     }
 
+    @Override
     public int getUserId() {
         return userId;
     }
@@ -51,6 +57,7 @@ public class Expense {
         this.userId = userId;
     }
 
+    @Override
     public String getCategory() {
         return category;
     }
@@ -59,6 +66,7 @@ public class Expense {
         this.category = category;
     }
 
+    @Override
     public BigDecimal getAmount() {
         return amount;
     }
@@ -67,6 +75,7 @@ public class Expense {
         this.amount = amount;
     }
 
+    @Override
     public Date getDate() {
         return date;
     }
@@ -75,6 +84,7 @@ public class Expense {
         this.date = date;
     }
 
+    @Override
     public String getNotes() {
         return notes;
     }
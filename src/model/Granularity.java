@@ -0,0 +1,65 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Period length of a time series
+ * Weeks start on Monday, matching MySQL's WEEKDAY().
+ */
+public enum Granularity {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    /**
+     * First day of the period containing a date
+     */
+    public LocalDate start(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case YEAR:
+                return date.withDayOfYear(1);
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * First day of the period after the one starting at periodStart
+     */
+    public LocalDate next(LocalDate periodStart) {
+        switch (this) {
+            case WEEK:
+                return periodStart.plusWeeks(1);
+            case MONTH:
+                return periodStart.plusMonths(1);
+            case YEAR:
+                return periodStart.plusYears(1);
+            default:
+                return periodStart.plusDays(1);
+        }
+    }
+
+    /**
+     * Number of whole periods between two period starts
+     */
+    public int periodsBetween(LocalDate firstStart, LocalDate periodStart) {
+        switch (this) {
+            case WEEK:
+                return (int) ChronoUnit.WEEKS.between(firstStart, periodStart);
+            case MONTH:
+                return (int) ChronoUnit.MONTHS.between(firstStart, periodStart);
+            case YEAR:
+                return (int) ChronoUnit.YEARS.between(firstStart, periodStart);
+            default:
+                return (int) ChronoUnit.DAYS.between(firstStart, periodStart);
+        }
+    }
+}
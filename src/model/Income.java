@@ -7,7 +7,7 @@ import java.sql.Timestamp;
 /**
  * Income model class representing an income entry
  */
-public class Income {
+public class Income implements Transaction {
     private int incomeId;
     private int userId;
     private String category;
@@ -35,6 +35,11 @@ public class Income {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return incomeId;
+    }
+
     public int getIncomeId() {
         return incomeId;
     }
@@ -43,6 +48,7 @@ public class Income {
         this.incomeId = incomeId;
     }
 
+    @Override
     public int getUserId() {
         return userId;
     }
@@ -51,6 +57,7 @@ public class Income {
         this.userId = userId;
     }
 
+    @Override
     public String getCategory() {
         return category;
     }
@@ -59,6 +66,7 @@ public class Income {
         this.category = category;
     }
 
+    @Override
     public BigDecimal getAmount() {
         return amount;
     }
@@ -67,6 +75,7 @@ public class Income {
         this.amount = amount;
     }
 
+    @Override
     public Date getDate() {
         return date;
     }
@@ -75,6 +84,7 @@ public class Income {
         this.date = date;
     }
 
+    @Override
     public String getNotes() {
         return notes;
     }
@@ -0,0 +1,246 @@
+package model;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recurring income or expense, e.g. monthly rent or a weekly allowance
+ * Occurs every interval days, weeks, months or years from the start date.
+ * Weekly rules may name several weekdays (weekdays bitmask, Monday = 1,
+ * Tuesday = 2, ... Sunday = 64); then every chosen day of every interval-th
+ * week occurs. Monthly and yearly dates are always counted from the start
+ * date, so a rule on the 31st falls on the last day of shorter months and
+ * returns to the 31st afterwards.
+ *
+ * nextDate is the first occurrence not yet written as a transaction.
+ */
+public class RecurringRule {
+    private int ruleId;
+    private int userId;
+    private String kind;
+    private String category;
+    private BigDecimal amount;
+    private String notes;
+    private Granularity frequency = Granularity.MONTH;
+    private int interval = 1;
+    private int weekdays;
+    private Date startDate;
+    private Date endDate;
+    private Date nextDate;
+    private boolean active = true;
+
+    // Constructors
+    public RecurringRule() {}
+
+    public RecurringRule(int userId, String kind, String category, BigDecimal amount, String notes,
+                         Granularity frequency, int interval, Date startDate) {
+        this.userId = userId;
+        this.kind = kind;
+        this.category = category;
+        this.amount = amount;
+        this.notes = notes;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.startDate = startDate;
+    }
+
+    /**
+     * First occurrence on or after the start date
+     */
+    public LocalDate firstOccurrence() {
+        LocalDate start = startDate.toLocalDate();
+        return frequency == Granularity.WEEK && weekdays != 0 && !isChosenDay(start) ? following(start) : start;
+    }
+
+    /**
+     * Occurrence after a given occurrence
+     */
+    public LocalDate following(LocalDate occurrence) {
+        LocalDate start = startDate.toLocalDate();
+        switch (frequency) {
+            case WEEK:
+                if (weekdays == 0) {
+                    return occurrence.plusWeeks(interval);
+                }
+                // A later chosen day this week, else the first one interval weeks on
+                LocalDate day = occurrence.plusDays(1);
+                while (day.getDayOfWeek() != DayOfWeek.MONDAY) {
+                    if (isChosenDay(day)) {
+                        return day;
+                    }
+                    day = day.plusDays(1);
+                }
+                day = day.plusWeeks(interval - 1);
+                while (!isChosenDay(day)) {
+                    day = day.plusDays(1);
+                }
+                return day;
+            case MONTH:
+                long months = ChronoUnit.MONTHS.between(start.withDayOfMonth(1), occurrence.withDayOfMonth(1));
+                return start.plusMonths(months + interval);
+            case YEAR:
+                return start.plusYears(occurrence.getYear() - start.getYear() + interval);
+            default:
+                return occurrence.plusDays(interval);
+        }
+    }
+
+    /**
+     * Occurrences from nextDate up to and including a date, stopping at the end date
+     */
+    public List<LocalDate> occurrencesThrough(LocalDate last) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate end = endDate != null && endDate.toLocalDate().isBefore(last) ? endDate.toLocalDate() : last;
+        for (LocalDate date = nextDate.toLocalDate(); !date.isAfter(end); date = following(date)) {
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    /**
+     * Whether no occurrence can follow a date (end date passed)
+     */
+    public boolean isFinishedAfter(LocalDate date) {
+        return endDate != null && date.isAfter(endDate.toLocalDate());
+    }
+
+    private boolean isChosenDay(LocalDate day) {
+        return (weekdays & (1 << (day.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    // Getters and Setters
+    public int getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(int ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * "income" or "expense"
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public Granularity getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(Granularity frequency) {
+        this.frequency = frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Periods between occurrences (at least 1)
+     */
+    public void setInterval(int interval) {
+        this.interval = Math.max(1, interval);
+    }
+
+    public int getWeekdays() {
+        return weekdays;
+    }
+
+    /**
+     * Days of the week for weekly rules as a bitmask (Monday = 1 ... Sunday = 64); 0 = the start day
+     */
+    public void setWeekdays(int weekdays) {
+        this.weekdays = weekdays & 0x7F;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    /**
+     * Last day an occurrence may fall on, or null for no end
+     */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+        this.endDate = endDate;
+    }
+
+    public Date getNextDate() {
+        return nextDate;
+    }
+
+    public void setNextDate(Date nextDate) {
+        this.nextDate = nextDate;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public String toString() {
+        return "RecurringRule{" +
+                "ruleId=" + ruleId +
+                ", userId=" + userId +
+                ", kind='" + kind + '\'' +
+                ", category='" + category + '\'' +
+                ", amount=" + amount +
+                ", frequency=" + frequency +
+                ", interval=" + interval +
+                ", nextDate=" + nextDate +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.math.BigDecimal;
+
+/**
+ * Expense flagged as far above what its user usually spends in its category
+ * Immutable; typical amount and score describe the category before this expense.
+ */
+public final class SpendAnomaly {
+    private final Expense expense;
+    private final BigDecimal typicalAmount;
+    private final double zScore;
+
+    public SpendAnomaly(Expense expense, BigDecimal typicalAmount, double zScore) {
+        this.expense = expense;
+        this.typicalAmount = typicalAmount;
+        this.zScore = zScore;
+    }
+
+    public Expense getExpense() {
+        return expense;
+    }
+
+    public int getUserId() {
+        return expense.getUserId();
+    }
+
+    public String getCategory() {
+        return expense.getCategory();
+    }
+
+    /**
+     * Median of the user's recent expenses in the category
+     */
+    public BigDecimal getTypicalAmount() {
+        return typicalAmount;
+    }
+
+    /**
+     * How many times the typical amount this expense is
+     */
+    public double getRatio() {
+        return typicalAmount.signum() == 0 ? Double.POSITIVE_INFINITY
+            : expense.getAmount().doubleValue() / typicalAmount.doubleValue();
+    }
+
+    /**
+     * Standard deviations above the category's moving average
+     */
+    public double getZScore() {
+        return zScore;
+    }
+
+    @Override
+    public String toString() {
+        return "SpendAnomaly{" +
+                "userId=" + getUserId() +
+                ", category='" + getCategory() + '\'' +
+                ", amount=" + expense.getAmount() +
+                ", date=" + expense.getDate() +
+                ", typicalAmount=" + typicalAmount +
+                ", zScore=" + String.format("%.1f", zScore) +
+                '}';
+    }
+}
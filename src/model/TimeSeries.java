@@ -0,0 +1,62 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Dense income/expense/savings series, one entry per period
+ * Periods without transactions are present with zero amounts. Amounts
+ * are whole paise (hundredths) in parallel primitive arrays; the arrays
+ * are shared, not copied, so callers must not modify them.
+ */
+public class TimeSeries {
+    private final Granularity granularity;
+    private final int[] periodStarts;
+    private final long[] incomeCents;
+    private final long[] expenseCents;
+    private final long[] savingsCents;
+
+    public TimeSeries(Granularity granularity, int[] periodStarts, long[] incomeCents, long[] expenseCents) {
+        this.granularity = granularity;
+        this.periodStarts = periodStarts;
+        this.incomeCents = incomeCents;
+        this.expenseCents = expenseCents;
+        this.savingsCents = new long[periodStarts.length];
+        for (int i = 0; i < savingsCents.length; i++) {
+            savingsCents[i] = incomeCents[i] - expenseCents[i];
+        }
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return periodStarts.length;
+    }
+
+    /**
+     * First day of each period as epoch days, ascending
+     */
+    public int[] getPeriodStarts() {
+        return periodStarts;
+    }
+
+    public LocalDate getPeriodStart(int index) {
+        return LocalDate.ofEpochDay(periodStarts[index]);
+    }
+
+    public long[] getIncomeCents() {
+        return incomeCents;
+    }
+
+    public long[] getExpenseCents() {
+        return expenseCents;
+    }
+
+    /**
+     * Income minus expenses per period
+     */
+    public long[] getSavingsCents() {
+        return savingsCents;
+    }
+}
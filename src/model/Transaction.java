@@ -0,0 +1,24 @@
+package model;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+
+/**
+ * Common view of an income or expense entry
+ */
+public interface Transaction {
+    /**
+     * Income or expense ID
+     */
+    int getId();
+
+    int getUserId();
+
+    String getCategory();
+
+    BigDecimal getAmount();
+
+    Date getDate();
+
+    String getNotes();
+}
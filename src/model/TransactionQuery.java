@@ -0,0 +1,246 @@
+package model;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Filter, sort and page specification for income/expense lists
+ * The DAOs compile it to parameterized SQL (see dao.QueryCompiler);
+ * matches() and comparator() give the same answer in memory, so views can
+ * place changed rows without asking the database again.
+ *
+ * Pages are read either by offset or, cheaper for deep pages, by keyset:
+ * nextPage(lastRow) continues after the last row of the previous page.
+ */
+public class TransactionQuery {
+    public enum SortKey {
+        DATE,
+        AMOUNT,
+        CATEGORY
+    }
+
+    private Set<String> categories = Collections.emptySet();
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private Date fromDate;
+    private Date toDate;
+    private String notesContains;
+    private SortKey sortKey = SortKey.DATE;
+    private boolean descending = true;
+    private int limit;
+    private int offset;
+    private Transaction after;
+
+    public TransactionQuery() {}
+
+    /**
+     * Copy of another query
+     */
+    public TransactionQuery(TransactionQuery other) {
+        this.categories = other.categories;
+        this.minAmount = other.minAmount;
+        this.maxAmount = other.maxAmount;
+        this.fromDate = other.fromDate;
+        this.toDate = other.toDate;
+        this.notesContains = other.notesContains;
+        this.sortKey = other.sortKey;
+        this.descending = other.descending;
+        this.limit = other.limit;
+        this.offset = other.offset;
+        this.after = other.after;
+    }
+
+    /**
+     * The page following the one that ended with lastRow, by keyset
+     */
+    public TransactionQuery nextPage(Transaction lastRow) {
+        TransactionQuery next = new TransactionQuery(this);
+        next.offset = 0;
+        next.after = lastRow;
+        return next;
+    }
+
+    /**
+     * The same filters without paging, for operations on every matching row
+     */
+    public TransactionQuery allRows() {
+        TransactionQuery all = new TransactionQuery(this);
+        all.limit = 0;
+        all.offset = 0;
+        all.after = null;
+        return all;
+    }
+
+    /**
+     * Check a row against the filters (not the page)
+     */
+    public boolean matches(Transaction row) {
+        if (!categories.isEmpty() && !categories.contains(row.getCategory())) {
+            return false;
+        }
+        if (minAmount != null && row.getAmount().compareTo(minAmount) < 0) {
+            return false;
+        }
+        if (maxAmount != null && row.getAmount().compareTo(maxAmount) > 0) {
+            return false;
+        }
+        if (fromDate != null && row.getDate().compareTo(fromDate) < 0) {
+            return false;
+        }
+        if (toDate != null && row.getDate().compareTo(toDate) >= 0) {
+            return false;
+        }
+        if (notesContains != null) {
+            String notes = row.getNotes();
+            return notes != null
+                && notes.toLowerCase(Locale.ROOT).contains(notesContains.toLowerCase(Locale.ROOT));
+        }
+        return true;
+    }
+
+    /**
+     * Order of the rows: the sort key (category sorts then by date), then
+     * the ID, all in the same direction
+     */
+    public Comparator<Transaction> comparator() {
+        Comparator<Transaction> byKey;
+        switch (sortKey) {
+            case AMOUNT:
+                byKey = Comparator.comparing(Transaction::getAmount);
+                break;
+            case CATEGORY:
+                byKey = Comparator.comparing(Transaction::getCategory, String.CASE_INSENSITIVE_ORDER)
+                                  .thenComparing(Transaction::getDate);
+                break;
+            default:
+                byKey = Comparator.comparing(Transaction::getDate);
+                break;
+        }
+        Comparator<Transaction> order = byKey.thenComparingInt(Transaction::getId);
+        return descending ? order.reversed() : order;
+    }
+
+    /**
+     * Whether any filter is set
+     */
+    public boolean isFiltered() {
+        return !categories.isEmpty() || minAmount != null || maxAmount != null
+            || fromDate != null || toDate != null || notesContains != null;
+    }
+
+    // Getters and Setters
+    public Set<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Only rows in these categories; empty for all
+     */
+    public void setCategories(Set<String> categories) {
+        this.categories = categories == null || categories.isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(new LinkedHashSet<>(categories));
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    /**
+     * Lowest amount included, or null
+     */
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    /**
+     * Highest amount included, or null
+     */
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Date getFromDate() {
+        return fromDate;
+    }
+
+    /**
+     * First date included, or null
+     */
+    public void setFromDate(Date fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public Date getToDate() {
+        return toDate;
+    }
+
+    /**
+     * First date excluded, or null
+     */
+    public void setToDate(Date toDate) {
+        this.toDate = toDate;
+    }
+
+    public String getNotesContains() {
+        return notesContains;
+    }
+
+    /**
+     * Case-insensitive substring the notes must contain, or null
+     */
+    public void setNotesContains(String notesContains) {
+        this.notesContains = notesContains == null || notesContains.isEmpty() ? null : notesContains;
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setSort(SortKey sortKey, boolean descending) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Maximum rows per page; 0 for no limit
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Rows to skip; prefer nextPage() for deep pages
+     */
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Last row of the previous page, or null for the first page
+     */
+    public Transaction getAfter() {
+        return after;
+    }
+}
@@ -0,0 +1,111 @@
+package model;
+
+import util.StringPool;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Compact read-only income or expense row
+ * Holds the date as an epoch day and the amount in cents, with category
+ * and notes shared through a pool, so a row is one ~40-byte object instead
+ * of a bean with a BigDecimal, Date, Timestamp and two private strings.
+ * Used where many rows are held at once (the transaction tables); the
+ * Transaction getters convert on demand for code written against beans.
+ *
+ * @param id Income or expense ID
+ * @param userId User ID
+ * @param category Category (pooled)
+ * @param amountCents Amount in cents
+ * @param epochDay Date as days since 1970-01-01
+ * @param notes Notes (pooled), or null
+ */
+public record TransactionRecord(int id, int userId, String category, long amountCents, int epochDay,
+                                String notes) implements Transaction {
+    // Bounded LRU: categories and repeated notes stay shared, one-off notes age out
+    private static final StringPool STRINGS = new StringPool(50_000);
+
+    public TransactionRecord {
+        category = STRINGS.get(category);
+        notes = STRINGS.get(notes);
+    }
+
+    /**
+     * Record of a row given as separate values
+     */
+    public static TransactionRecord of(int id, int userId, String category, BigDecimal amount,
+                                       LocalDate date, String notes) {
+        return new TransactionRecord(id, userId, category, toCents(amount), (int) date.toEpochDay(), notes);
+    }
+
+    /**
+     * Record of an Income, Expense or other transaction
+     */
+    public static TransactionRecord of(Transaction transaction) {
+        if (transaction instanceof TransactionRecord) {
+            return (TransactionRecord) transaction;
+        }
+        return of(transaction.getId(), transaction.getUserId(), transaction.getCategory(),
+                  transaction.getAmount(), transaction.getDate().toLocalDate(), transaction.getNotes());
+    }
+
+    /**
+     * Amount in cents; amounts are stored with two decimals
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    public LocalDate localDate() {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Same row as an Income bean
+     */
+    public Income toIncome() {
+        Income income = new Income(userId, category, getAmount(), getDate(), notes);
+        income.setIncomeId(id);
+        return income;
+    }
+
+    /**
+     * Same row as an Expense bean
+     */
+    public Expense toExpense() {
+        Expense expense = new Expense(userId, category, getAmount(), getDate(), notes);
+        expense.setExpenseId(id);
+        return expense;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getCategory() {
+        return category;
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(amountCents, 2);
+    }
+
+    @Override
+    public Date getDate() {
+        return Date.valueOf(localDate());
+    }
+
+    @Override
+    public String getNotes() {
+        return notes;
+    }
+}
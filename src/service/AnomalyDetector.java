@@ -0,0 +1,253 @@
+package service;
+
+import dao.ExpenseDAO;
+import db.DatabaseConnection;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Expense;
+import model.SpendAnomaly;
+import util.RollingStats;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Flags expenses far above what a user usually spends in a category
+ * Per user and category, a RollingStats keeps a moving average and
+ * variance and the last WINDOW amounts, so memory per category is fixed
+ * however long the history is. Each new expense is scored against the
+ * statistics before it is added: it is an outlier when it is at least
+ * anomaly.ratio times the recent median (default 5) and at least
+ * anomaly.zScore standard deviations above the average (default 3).
+ * Categories with fewer than MIN_SAMPLES expenses are never flagged.
+ *
+ * A user's statistics are built by replaying their history, oldest first,
+ * when they are opened, and then fed from the insert events. The replay
+ * knows the data version it was read at: inserts at or below it are
+ * already in it, and a replay that missed a later insert is discarded and
+ * retried. A user closed during the replay stays closed. Updates, deletes and
+ * changes synced from other instances are not replayed into the
+ * statistics; the next build picks them up.
+ */
+public final class AnomalyDetector {
+    private static final AnomalyDetector INSTANCE = new AnomalyDetector();
+    private static final int WINDOW = 32;
+    // Weight of each new expense in the average; about the last 20 expenses count
+    private static final double ALPHA = 0.1;
+    private static final int MIN_SAMPLES = 8;
+    private static final int BUILD_ATTEMPTS = 3;
+
+    private final ExpenseDAO expenseDAO;
+    private final int ratio;
+    private final int zScore;
+    private final Map<Integer, OpenUser> users = new HashMap<>();
+    // Inserts seen per user, to detect builds that missed a write
+    private final ChangeWatermarks<Integer> watermarks = new ChangeWatermarks<>();
+    private final List<Consumer<SpendAnomaly>> listeners = new CopyOnWriteArrayList<>();
+
+    private AnomalyDetector() {
+        this.expenseDAO = new ExpenseDAO();
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        this.ratio = Math.max(1, dbConnection.getIntProperty("anomaly.ratio", 5));
+        this.zScore = Math.max(0, dbConnection.getIntProperty("anomaly.zScore", 3));
+        EventBus.getInstance().subscribe(Expense.class, this::apply);
+    }
+
+    public static AnomalyDetector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Listen for outlying expenses of opened users
+     * Called on the writing thread; UI listeners must hand over to the Event Dispatch Thread.
+     * @param listener Called with each flagged expense
+     * @return Subscription to close when the listener is no longer needed
+     */
+    public EventBus.Subscription addAnomalyListener(Consumer<SpendAnomaly> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Start watching a user's expenses, building the statistics in the background
+     * @param userId User ID
+     */
+    public void open(int userId) {
+        OpenUser user = new OpenUser();
+        synchronized (this) {
+            if (users.putIfAbsent(userId, user) != null) {
+                return;
+            }
+        }
+        RequestExecutor.getInstance().run(() -> build(userId, user, null));
+    }
+
+    /**
+     * Stop watching a user's expenses and drop the statistics
+     * @param userId User ID
+     */
+    public synchronized void close(int userId) {
+        users.remove(userId);
+    }
+
+    /**
+     * Build the statistics of many users from their history, several at a time
+     * Each user is one ordered pass over their expenses and holds one pooled
+     * connection while it runs. Rebuilt users stay open.
+     * @param userIds Users to build
+     * @param threads Users read at once
+     * @param historical Receives the outliers found in the history, from
+     *                   several threads at once; may be null
+     * @return Number of users built
+     */
+    public int rebuild(Collection<Integer> userIds, int threads, Consumer<SpendAnomaly> historical) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Boolean>> builds = new ArrayList<>(userIds.size());
+            for (int userId : userIds) {
+                OpenUser user = new OpenUser();
+                synchronized (this) {
+                    users.put(userId, user);
+                }
+                builds.add(pool.submit(() -> build(userId, user, historical)));
+            }
+            int built = 0;
+            for (Future<Boolean> build : builds) {
+                if (build.get()) {
+                    built++;
+                }
+            }
+            return built;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            System.err.println("Error building spending statistics: " + e.getCause().getMessage());
+            return 0;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Replay one user's history into fresh statistics
+     * @param user Entry the user was opened with; the statistics are only
+     *             installed while it is still the user's entry
+     * @return true if built, false if the history couldn't be read, kept
+     *         changing, or the user was closed meanwhile
+     */
+    private boolean build(int userId, OpenUser user, Consumer<SpendAnomaly> historical) {
+        for (int attempt = 0; attempt < BUILD_ATTEMPTS; attempt++) {
+            long mark;
+            synchronized (this) {
+                if (users.get(userId) != user) {
+                    return false;
+                }
+                mark = watermarks.mark(userId);
+            }
+
+            Map<String, RollingStats> stats = new HashMap<>();
+            List<SpendAnomaly> found = new ArrayList<>();
+            long version = expenseDAO.forEachExpense(userId, true, expense -> {
+                SpendAnomaly anomaly = observe(stats, expense);
+                if (anomaly != null && historical != null) {
+                    found.add(anomaly);
+                }
+            });
+            if (version < 0) {
+                break;
+            }
+
+            synchronized (this) {
+                if (users.get(userId) != user) {
+                    return false;
+                }
+                // Inserts after the read's version were published before there were statistics to feed
+                if (!watermarks.isCurrent(userId, version, mark)) {
+                    continue;
+                }
+                user.stats = stats;
+                user.version = version;
+            }
+            if (historical != null) {
+                found.forEach(historical);
+            }
+            return true;
+        }
+        synchronized (this) {
+            // Let the next open() try again
+            users.remove(userId, user);
+        }
+        return false;
+    }
+
+    private void apply(TransactionEvent<Expense> event) {
+        if (event.getType() != TransactionEvent.Type.INSERTED) {
+            return;
+        }
+        List<SpendAnomaly> found = new ArrayList<>();
+        synchronized (this) {
+            watermarks.record(event.getUserId(), event.getVersion());
+            OpenUser user = users.get(event.getUserId());
+            if (user == null || user.stats == null) {
+                return;
+            }
+            if (event.getVersion() > 0 && event.getVersion() <= user.version) {
+                // Already replayed
+                return;
+            }
+            for (Expense expense : event.getRows()) {
+                SpendAnomaly anomaly = observe(user.stats, expense);
+                if (anomaly != null) {
+                    found.add(anomaly);
+                }
+            }
+        }
+        for (SpendAnomaly anomaly : found) {
+            for (Consumer<SpendAnomaly> listener : listeners) {
+                try {
+                    listener.accept(anomaly);
+                } catch (RuntimeException e) {
+                    System.err.println("Anomaly listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Score an expense against its category, then add it
+     * @return Anomaly if the expense is an outlier, otherwise null
+     */
+    private SpendAnomaly observe(Map<String, RollingStats> stats, Expense expense) {
+        RollingStats category = stats.computeIfAbsent(expense.getCategory(), c -> new RollingStats(WINDOW));
+        long cents = expense.getAmount().movePointRight(2).longValue();
+        SpendAnomaly anomaly = null;
+        if (category.getCount() >= MIN_SAMPLES) {
+            long typical = category.quantile(0.5);
+            double score = category.zScore(cents);
+            if (cents >= ratio * typical && score >= zScore) {
+                anomaly = new SpendAnomaly(expense, BigDecimal.valueOf(typical, 2), score);
+            }
+        }
+        category.add(cents, ALPHA);
+        return anomaly;
+    }
+
+    /**
+     * Statistics of an open user; null until the first build has finished
+     */
+    private static final class OpenUser {
+        Map<String, RollingStats> stats;
+        long version;
+    }
+}
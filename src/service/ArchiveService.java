@@ -0,0 +1,170 @@
+package service;
+
+import dao.ArchiveDAO;
+import dao.ChangeDAO;
+import db.DatabaseConnection;
+import db.PartitionMaintenance;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data-lifecycle job that moves old transactions into the archive tier
+ * Rows older than archive.maxAgeMonths (config.properties, 0 = disabled)
+ * are moved one user and month at a time: each move locks the rows,
+ * copies them into the compressed *_archive tables, deletes them from the
+ * hot table and rebuilds their monthly aggregates in archive_totals in a
+ * single transaction. Partitioned tables are moved per partition and the
+ * emptied partitions dropped.
+ *
+ * DAO reads include archived rows and FinanceService totals add the
+ * archive aggregates, so nothing disappears from the user's point of view.
+ *
+ * The same daily run purges change-tracking tombstones older than
+ * sync.tombstoneRetentionDays (default 30, 0 = keep forever).
+ */
+public class ArchiveService {
+    private static final String[] KINDS = {"income", "expense"};
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+
+    private final DatabaseConnection dbConnection;
+    private final ArchiveDAO archiveDAO;
+    private final ChangeDAO changeDAO;
+    private final PartitionMaintenance partitionMaintenance;
+    private ScheduledExecutorService scheduler;
+
+    public ArchiveService() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.archiveDAO = new ArchiveDAO();
+        this.changeDAO = new ChangeDAO();
+        this.partitionMaintenance = new PartitionMaintenance();
+    }
+
+    /**
+     * Run archival and tombstone purging now and then once a day on a background thread
+     */
+    public synchronized void schedule() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archive-service");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            runArchival();
+            purgeTombstones();
+        }, 0, 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * Archive everything older than the configured age
+     */
+    public void runArchival() {
+        int maxAgeMonths = dbConnection.getIntProperty("archive.maxAgeMonths", 0);
+        if (maxAgeMonths <= 0 || !archiveDAO.isAvailable()) {
+            return;
+        }
+        LocalDate cutoff = YearMonth.now().minusMonths(maxAgeMonths).atDay(1);
+
+        for (String kind : KINDS) {
+            try {
+                int archived = archiveBefore(kind, cutoff);
+                if (archived > 0) {
+                    System.out.println("✓ Archived " + archived + " month(s) of " + kind + "s before " + cutoff);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error archiving " + kind + "s: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delete tombstones past the configured retention
+     * Clients that last synced before the purged range get a full resync
+     * from ChangeDAO.getChangesSince instead of a delta.
+     */
+    public void purgeTombstones() {
+        int retentionDays = dbConnection.getIntProperty("sync.tombstoneRetentionDays", 30);
+        if (retentionDays <= 0 || !changeDAO.isAvailable()) {
+            return;
+        }
+        try {
+            int purged = changeDAO.purgeTombstones(retentionDays);
+            if (purged > 0) {
+                System.out.println("✓ Purged " + purged + " tombstone(s) older than " + retentionDays + " days");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error purging tombstones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move all rows of one kind dated before the cutoff into the archive
+     * @param kind "income" or "expense"
+     * @param cutoff First date that stays in the hot table (start of a month)
+     * @return Number of partitions or months moved
+     */
+    public int archiveBefore(String kind, LocalDate cutoff) throws SQLException {
+        String table = kind + "s";
+        if (partitionMaintenance.isPartitioned(table)) {
+            return archivePartitions(kind, table, cutoff);
+        }
+        return archiveMonths(kind, cutoff);
+    }
+
+    /**
+     * Partitioned tables: move each expired partition's rows, then drop it
+     * A partition that got a row after its move is kept until the next run.
+     */
+    private int archivePartitions(String kind, String table, LocalDate cutoff) throws SQLException {
+        int archived = 0;
+        LocalDate lower = MIN_DATE;
+        for (Map.Entry<String, LocalDate> partition : partitionMaintenance.getPartitionUpperBounds(table).entrySet()) {
+            LocalDate upper = partition.getValue();
+            if (upper.isAfter(cutoff)) {
+                break;
+            }
+            moveRange(kind, lower, upper);
+            if (partitionMaintenance.dropPartitionIfEmpty(table, partition.getKey())) {
+                archived++;
+            }
+            lower = upper;
+        }
+        return archived;
+    }
+
+    /**
+     * Unpartitioned tables: move one month at a time to keep transactions small
+     */
+    private int archiveMonths(String kind, LocalDate cutoff) throws SQLException {
+        LocalDate oldest = archiveDAO.getOldestHotDate(kind);
+        if (oldest == null || !oldest.isBefore(cutoff)) {
+            return 0;
+        }
+        int archived = 0;
+        for (LocalDate month = oldest.withDayOfMonth(1); month.isBefore(cutoff); month = month.plusMonths(1)) {
+            moveRange(kind, month, month.plusMonths(1));
+            archived++;
+        }
+        return archived;
+    }
+
+    /**
+     * Move every user's rows in a date range, one transaction per user
+     */
+    private void moveRange(String kind, LocalDate from, LocalDate to) throws SQLException {
+        Date fromDate = Date.valueOf(from);
+        Date toDate = Date.valueOf(to);
+        for (Integer userId : archiveDAO.getHotUsers(kind, fromDate, toDate)) {
+            archiveDAO.moveToArchive(kind, userId, fromDate, toDate);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package service;
+
+import dao.BudgetDAO;
+import dao.Versioned;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Budget;
+import model.BudgetStatus;
+import model.Expense;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Monthly budgets with spend-to-date kept current from the write events
+ * A user's budgets and this month's spend per category are read once (one
+ * grouped query) and then adjusted by every added, updated or deleted
+ * expense, so reading the status costs O(budgeted categories) however
+ * busy the month is. When a change lifts a category from OK to its warning
+ * share, or over its limit, the alert listeners get the new status.
+ *
+ * As in RangeTotalsIndex, the spend is read together with the data
+ * version: events at or below it are already in it, and a read that
+ * missed a later event is discarded and retried. Synced events, budget
+ * edits and the start of a new month drop the user's state so the next
+ * read starts over. Users whose status was never read are not tracked and
+ * raise no alerts.
+ *
+ * Needs migrations/V004; without it getStatus() returns null.
+ */
+public final class BudgetService {
+    private static final BudgetService INSTANCE = new BudgetService();
+    private static final int LOAD_ATTEMPTS = 3;
+
+    private final BudgetDAO budgetDAO;
+    private final Map<Integer, UserMonth> months = new HashMap<>();
+    // Changes seen per user, to detect reads that missed a write
+    private final ChangeWatermarks<Integer> watermarks = new ChangeWatermarks<>();
+    private final List<Consumer<BudgetStatus>> alertListeners = new CopyOnWriteArrayList<>();
+
+    private BudgetService() {
+        this.budgetDAO = new BudgetDAO();
+        EventBus.getInstance().subscribe(Expense.class, this::apply);
+    }
+
+    public static BudgetService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Listen for budgets crossing their warning share or limit
+     * Called on the writing thread; UI listeners must hand over to the Event Dispatch Thread.
+     * @param listener Called with the status right after the crossing write
+     * @return Subscription to close when the listener is no longer needed
+     */
+    public EventBus.Subscription addAlertListener(Consumer<BudgetStatus> listener) {
+        alertListeners.add(listener);
+        return () -> alertListeners.remove(listener);
+    }
+
+    /**
+     * This month's status of every budget of a user
+     * Queries the database on first use per user and month, so don't call
+     * it on the Event Dispatch Thread.
+     * @param userId User ID
+     * @return Statuses by category, or null if budgets are not installed or couldn't be read
+     */
+    public List<BudgetStatus> getStatus(int userId) {
+        UserMonth month = month(userId);
+        if (month == null) {
+            return null;
+        }
+        synchronized (this) {
+            return month.statuses();
+        }
+    }
+
+    /**
+     * Add or change a budget
+     * @return true if successful
+     */
+    public boolean setBudget(Budget budget) {
+        if (!budgetDAO.setBudget(budget)) {
+            return false;
+        }
+        forget(budget.getUserId());
+        return true;
+    }
+
+    /**
+     * Remove the budget of a category
+     * @return true if a budget was removed
+     */
+    public boolean deleteBudget(int userId, String category) {
+        if (!budgetDAO.deleteBudget(userId, category)) {
+            return false;
+        }
+        forget(userId);
+        return true;
+    }
+
+    private synchronized void forget(int userId) {
+        months.remove(userId);
+        // Budgets aren't versioned; fail any read in progress
+        watermarks.record(userId, 0);
+    }
+
+    /**
+     * Cached state for the current month, reading it if needed
+     * @return State, or null if it couldn't be read or kept changing while being read
+     */
+    private UserMonth month(int userId) {
+        if (!budgetDAO.isAvailable()) {
+            return null;
+        }
+        YearMonth current = YearMonth.now();
+        for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+            long mark;
+            synchronized (this) {
+                UserMonth month = months.get(userId);
+                if (month != null && month.month.equals(current)) {
+                    return month;
+                }
+                mark = watermarks.mark(userId);
+            }
+
+            List<Budget> budgets = budgetDAO.getBudgets(userId);
+            if (budgets == null) {
+                return null;
+            }
+            // Without budgets the spend is never asked for, so there is nothing to keep
+            // current; setting one drops this state
+            Versioned<Map<String, BigDecimal>> spend = budgets.isEmpty()
+                ? new Versioned<>(Map.of(), Long.MAX_VALUE)
+                : budgetDAO.getMonthSpend(userId, current);
+            if (spend == null) {
+                return null;
+            }
+            UserMonth built = new UserMonth(userId, current, budgets, spend.getValue(), spend.getVersion());
+
+            synchronized (this) {
+                // Events after the read's version were published before there was a state to patch
+                if (watermarks.isCurrent(userId, built.version, mark)) {
+                    months.put(userId, built);
+                    return built;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void apply(TransactionEvent<Expense> event) {
+        List<BudgetStatus> alerts;
+        synchronized (this) {
+            int userId = event.getUserId();
+            watermarks.record(userId, event.getVersion());
+            UserMonth month = months.get(userId);
+            if (month == null) {
+                return;
+            }
+            if (event.getVersion() > 0 && event.getVersion() <= month.version) {
+                // Already in the spend that was read
+                return;
+            }
+            if (event.getVersion() == 0 || !event.isAmountDeltaKnown() || !month.month.equals(YearMonth.now())) {
+                // Unknown version or old values, or a new month to read
+                months.remove(userId);
+                return;
+            }
+            alerts = month.apply(event.getRemovedRows(), event.getAddedRows());
+        }
+        for (BudgetStatus alert : alerts) {
+            for (Consumer<BudgetStatus> listener : alertListeners) {
+                try {
+                    listener.accept(alert);
+                } catch (RuntimeException e) {
+                    System.err.println("Budget alert listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    /**
+     * One user's budgets and spend per category in one month
+     */
+    private static final class UserMonth {
+        private final int userId;
+        private final YearMonth month;
+        private final long version;
+        private final Map<String, Budget> budgets = new TreeMap<>();
+        private final Map<String, Long> spent = new HashMap<>();
+
+        UserMonth(int userId, YearMonth month, List<Budget> budgets, Map<String, BigDecimal> spend, long version) {
+            this.userId = userId;
+            this.month = month;
+            this.version = version;
+            for (Budget budget : budgets) {
+                this.budgets.put(budget.getCategory(), budget);
+            }
+            for (Map.Entry<String, BigDecimal> category : spend.entrySet()) {
+                spent.put(category.getKey(), cents(category.getValue()));
+            }
+        }
+
+        /**
+         * Adjust the spend by the rows of this month
+         * @return Statuses of budgets whose level went up
+         */
+        List<BudgetStatus> apply(List<Expense> removedRows, List<Expense> addedRows) {
+            Map<String, Long> deltas = new HashMap<>();
+            for (Expense row : removedRows) {
+                if (YearMonth.from(row.getDate().toLocalDate()).equals(month)) {
+                    deltas.merge(row.getCategory(), -cents(row.getAmount()), Long::sum);
+                }
+            }
+            for (Expense row : addedRows) {
+                if (YearMonth.from(row.getDate().toLocalDate()).equals(month)) {
+                    deltas.merge(row.getCategory(), cents(row.getAmount()), Long::sum);
+                }
+            }
+
+            List<BudgetStatus> alerts = new ArrayList<>();
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                String category = delta.getKey();
+                long before = spent.getOrDefault(category, 0L);
+                long after = before + delta.getValue();
+                spent.put(category, after);
+
+                Budget budget = budgets.get(category);
+                if (budget != null && level(budget, after).compareTo(level(budget, before)) > 0) {
+                    alerts.add(status(budget));
+                }
+            }
+            return alerts;
+        }
+
+        List<BudgetStatus> statuses() {
+            List<BudgetStatus> statuses = new ArrayList<>(budgets.size());
+            for (Budget budget : budgets.values()) {
+                statuses.add(status(budget));
+            }
+            return statuses;
+        }
+
+        private BudgetStatus status(Budget budget) {
+            long cents = spent.getOrDefault(budget.getCategory(), 0L);
+            return new BudgetStatus(userId, month, budget.getCategory(), budget.getMonthlyLimit(),
+                                    BigDecimal.valueOf(cents, 2), level(budget, cents));
+        }
+
+        private static BudgetStatus.Level level(Budget budget, long cents) {
+            return BudgetStatus.levelOf(budget.getMonthlyLimit(), budget.getWarnPercent(), BigDecimal.valueOf(cents, 2));
+        }
+    }
+}
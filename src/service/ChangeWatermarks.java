@@ -0,0 +1,46 @@
+package service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latest change version published per key, to tell whether a read missed a change
+ * Services that read state once and then patch it from the change events
+ * record every event here, also for keys they hold no state for. A read
+ * taken at a version (dao.Versioned) holds every write up to it, so it is
+ * current unless an event above that version was published meanwhile.
+ * Changes without a version (0) can't be placed and fail every read they
+ * overlap. Not thread-safe; callers hold their own lock.
+ */
+final class ChangeWatermarks<K> {
+    private final Map<K, Long> latest = new HashMap<>();
+    private final Map<K, Long> unversioned = new HashMap<>();
+
+    /**
+     * Record a published change
+     * @param version Change version, or 0 if unknown
+     */
+    void record(K key, long version) {
+        if (version > 0) {
+            latest.merge(key, version, Math::max);
+        } else {
+            unversioned.merge(key, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Mark to take before a read starts and pass to {@link #isCurrent}
+     */
+    long mark(K key) {
+        return unversioned.getOrDefault(key, 0L);
+    }
+
+    /**
+     * Check that no change was published after a read's version
+     * @param version Version the read was taken at
+     * @param mark Mark taken before the read
+     */
+    boolean isCurrent(K key, long version, long mark) {
+        return latest.getOrDefault(key, 0L) <= version && unversioned.getOrDefault(key, 0L) == mark;
+    }
+}
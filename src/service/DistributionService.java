@@ -0,0 +1,161 @@
+package service;
+
+import dao.DistributionDAO;
+import dao.ExpenseDAO;
+import event.EventBus;
+import event.TransactionEvent;
+import model.AmountDistribution;
+import model.Expense;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the per-month expense distributions current and merges them per range
+ * Local inserts are added to their month's distribution on a background
+ * thread, in publish order; local updates and deletes mark the month for a
+ * rebuild. Writes replayed from other instances are skipped because their
+ * writer already applied them. Reads run on the same thread after the
+ * changes queued before them, rebuild the months they touch that are
+ * marked, and merge one small distribution per month and category, so
+ * years of history are summarized without sorting their rows. An empty
+ * table is filled from the history on start.
+ *
+ * Without migrations/V005 the distributions are built from the rows instead.
+ */
+public final class DistributionService {
+    private static final DistributionService INSTANCE = new DistributionService();
+    private static final int SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final DistributionDAO distributionDAO;
+    private final ExpenseDAO expenseDAO;
+    private ExecutorService worker;
+
+    private DistributionService() {
+        this.distributionDAO = new DistributionDAO();
+        this.expenseDAO = new ExpenseDAO();
+    }
+
+    public static DistributionService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start maintaining the distributions, filling them first if they are empty
+     * @return true if the table is installed and being maintained
+     */
+    public synchronized boolean start() {
+        if (worker != null) {
+            return true;
+        }
+        if (!distributionDAO.isAvailable()) {
+            return false;
+        }
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "distribution-service");
+            t.setDaemon(true);
+            return t;
+        });
+        worker.execute(this::fillIfEmpty);
+        EventBus.getInstance().subscribe(Expense.class, this::enqueue);
+        // The worker is a daemon thread; don't drop queued changes when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "distribution-service-shutdown"));
+        return true;
+    }
+
+    /**
+     * Distribution of a user's expense amounts per category over whole months
+     * @param userId User ID
+     * @param from First month, or null for the user's whole history
+     * @param to Last month included
+     * @return Distributions by category (none for a user without expenses),
+     *         or null if the expenses couldn't be read
+     */
+    public Map<String, AmountDistribution> getDistributions(int userId, YearMonth from, YearMonth to) {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        if (executor != null) {
+            try {
+                Map<String, AmountDistribution> distributions =
+                    executor.submit(() -> distributionDAO.getDistributions(userId, from, to)).get();
+                if (distributions != null) {
+                    return distributions;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                System.err.println("Error reading expense distributions: " + e.getCause().getMessage());
+            }
+        }
+        return buildFromRows(userId, from, to);
+    }
+
+    /**
+     * Scan the user's expenses once, newest first, into fresh distributions
+     */
+    private Map<String, AmountDistribution> buildFromRows(int userId, YearMonth from, YearMonth to) {
+        Map<String, AmountDistribution> distributions = new TreeMap<>();
+        boolean complete = expenseDAO.forEachExpense(userId, expense -> {
+            YearMonth month = YearMonth.from(expense.getDate().toLocalDate());
+            if ((from == null || !month.isBefore(from)) && !month.isAfter(to)) {
+                distributions.computeIfAbsent(expense.getCategory(), c -> new AmountDistribution()).add(expense);
+            }
+        });
+        return complete ? distributions : null;
+    }
+
+    private void enqueue(TransactionEvent<Expense> event) {
+        if (event.getType() == TransactionEvent.Type.SYNCED) {
+            return;
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        if (event.getType() == TransactionEvent.Type.INSERTED) {
+            executor.execute(() -> distributionDAO.addRows(event.getRows()));
+        } else {
+            // A sketch can't take values out again; rebuild the months involved
+            executor.execute(() -> distributionDAO.markDirty(event.getRemovedRows(), event.getAddedRows()));
+        }
+    }
+
+    private void drain() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        try {
+            executor.submit(() -> { }).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            System.err.println("Distribution updates still pending at exit; empty expense_distributions " +
+                               "to rebuild it if the statistics look off");
+        }
+    }
+
+    private void fillIfEmpty() {
+        try {
+            if (distributionDAO.isEmpty()) {
+                long start = System.nanoTime();
+                distributionDAO.markAllDirty();
+                int built = distributionDAO.rebuildDirty(null, null, YearMonth.of(9999, 12));
+                if (built >= 0) {
+                    System.out.printf("✓ Built %,d expense distributions from history in %.1f s%n",
+                        built, (System.nanoTime() - start) / 1e9);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error building expense distributions: " + e.getMessage());
+        }
+    }
+}
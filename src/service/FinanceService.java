@@ -2,13 +2,18 @@ package service;
 
 import dao.IncomeDAO;
 import dao.ExpenseDAO;
-import model.Income;
-import model.Expense;
+import dao.LedgerDAO;
+import dao.TimeSeriesDAO;
+import model.AmountDistribution;
+import model.Granularity;
+import model.TimeSeries;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Service layer for finance calculations and business logic
@@ -16,53 +21,51 @@ import java.util.Map;
 public class FinanceService {
     private final IncomeDAO incomeDAO;
     private final ExpenseDAO expenseDAO;
+    private final LedgerDAO ledgerDAO;
+    private final TimeSeriesDAO timeSeriesDAO;
+    private final RangeTotalsIndex rangeIndex;
+    private final DistributionService distributions;
 
     public FinanceService() {
         this.incomeDAO = new IncomeDAO();
         this.expenseDAO = new ExpenseDAO();
+        this.ledgerDAO = new LedgerDAO();
+        this.timeSeriesDAO = new TimeSeriesDAO();
+        this.rangeIndex = RangeTotalsIndex.getInstance();
+        this.distributions = DistributionService.getInstance();
     }
 
     /**
      * Calculate total income for a user
+     * Hot rows are summed in the database; archived history comes from
+     * precomputed aggregates.
      * @param userId User ID
      * @return Total income amount
      */
     public BigDecimal calculateTotalIncome(int userId) {
-        List<Income> incomes = incomeDAO.getIncomesByUserId(userId);
-        BigDecimal total = BigDecimal.ZERO;
-        
-        for (Income income : incomes) {
-            total = total.add(income.getAmount());
-        }
-        
-        return total;
+        return incomeDAO.getTotalIncomes(userId);
     }
 
     /**
      * Calculate total expenses for a user
+     * Hot rows are summed in the database; archived history comes from
+     * precomputed aggregates.
      * @param userId User ID
      * @return Total expense amount
      */
     public BigDecimal calculateTotalExpenses(int userId) {
-        List<Expense> expenses = expenseDAO.getExpensesByUserId(userId);
-        BigDecimal total = BigDecimal.ZERO;
-        
-        for (Expense expense : expenses) {
-            total = total.add(expense.getAmount());
-        }
-        
-        return total;
+        return expenseDAO.getTotalExpenses(userId);
     }
 
     /**
      * Calculate savings (Income - Expenses)
+     * Both totals come from one query.
      * @param userId User ID
      * @return Savings amount
      */
     public BigDecimal calculateSavings(int userId) {
-        BigDecimal income = calculateTotalIncome(userId);
-        BigDecimal expenses = calculateTotalExpenses(userId);
-        return income.subtract(expenses);
+        Map<String, BigDecimal> totals = ledgerDAO.getTotals(userId);
+        return totals.get("income").subtract(totals.get("expense"));
     }
 
     /**
@@ -73,14 +76,8 @@ public class FinanceService {
      * @return Total income for the month
      */
     public BigDecimal calculateMonthlyIncome(int userId, int month, int year) {
-        List<Income> incomes = incomeDAO.getIncomesByMonth(userId, month, year);
-        BigDecimal total = BigDecimal.ZERO;
-        
-        for (Income income : incomes) {
-            total = total.add(income.getAmount());
-        }
-        
-        return total;
+        LocalDate first = LocalDate.of(year, month, 1);
+        return getIncomeBetween(userId, first, first.plusMonths(1));
     }
 
     /**
@@ -91,14 +88,8 @@ public class FinanceService {
      * @return Total expenses for the month
      */
     public BigDecimal calculateMonthlyExpenses(int userId, int month, int year) {
-        List<Expense> expenses = expenseDAO.getExpensesByMonth(userId, month, year);
-        BigDecimal total = BigDecimal.ZERO;
-        
-        for (Expense expense : expenses) {
-            total = total.add(expense.getAmount());
-        }
-        
-        return total;
+        LocalDate first = LocalDate.of(year, month, 1);
+        return getExpensesBetween(userId, first, first.plusMonths(1));
     }
 
     /**
@@ -114,22 +105,94 @@ public class FinanceService {
         return income.subtract(expenses);
     }
 
+    /**
+     * Total income between two dates
+     * Answered from the in-memory range index in O(log n).
+     * @param userId User ID
+     * @param from First date included
+     * @param to First date excluded
+     * @return Total income in the range
+     */
+    public BigDecimal getIncomeBetween(int userId, LocalDate from, LocalDate to) {
+        return rangeIndex.getTotal(userId, "income", null, from, to);
+    }
+
+    /**
+     * Total expenses between two dates
+     * Answered from the in-memory range index in O(log n).
+     * @param userId User ID
+     * @param from First date included
+     * @param to First date excluded
+     * @return Total expenses in the range
+     */
+    public BigDecimal getExpensesBetween(int userId, LocalDate from, LocalDate to) {
+        return rangeIndex.getTotal(userId, "expense", null, from, to);
+    }
+
+    /**
+     * Total expenses of one category between two dates
+     * @param userId User ID
+     * @param category Expense category
+     * @param from First date included
+     * @param to First date excluded
+     * @return Total expenses of the category in the range
+     */
+    public BigDecimal getCategoryExpensesBetween(int userId, String category, LocalDate from, LocalDate to) {
+        return rangeIndex.getTotal(userId, "expense", category, from, to);
+    }
+
+    /**
+     * Trailing-window income and expenses for every day of a range
+     * E.g. a window of 30 gives each day's "last 30 days" totals.
+     * @param userId User ID
+     * @param from First day reported
+     * @param to First day not reported
+     * @param windowDays Days per window, ending with the reported day
+     * @return Daily series of window totals; windows are grouped in the
+     *         database instead if the range index is unavailable
+     */
+    public TimeSeries getRollingTotals(int userId, LocalDate from, LocalDate to, int windowDays) {
+        long[] income = rangeIndex.getRollingTotals(userId, "income", from, to, windowDays);
+        long[] expenses = rangeIndex.getRollingTotals(userId, "expense", from, to, windowDays);
+        int days = (int) Math.max(0, to.toEpochDay() - from.toEpochDay());
+        int[] starts = new int[days];
+        for (int i = 0; i < days; i++) {
+            starts[i] = (int) from.toEpochDay() + i;
+        }
+        if (income == null || expenses == null) {
+            TimeSeries daily = getSeries(userId, from.minusDays(windowDays - 1L), to, Granularity.DAY);
+            income = trailingSums(daily.getIncomeCents(), windowDays, days);
+            expenses = trailingSums(daily.getExpenseCents(), windowDays, days);
+        }
+        return new TimeSeries(Granularity.DAY, starts, income, expenses);
+    }
+
+    /**
+     * Sliding sums over the last count entries of a daily series
+     */
+    private static long[] trailingSums(long[] daily, int windowDays, int count) {
+        long[] sums = new long[count];
+        int offset = daily.length - count;
+        long window = 0;
+        for (int i = 0; i < daily.length; i++) {
+            window += daily[i];
+            if (i >= windowDays) {
+                window -= daily[i - windowDays];
+            }
+            if (i >= offset) {
+                sums[i - offset] = window;
+            }
+        }
+        return sums;
+    }
+
     /**
      * Get income breakdown by category
      * @param userId User ID
      * @return Map of category to total amount
      */
     public Map<String, BigDecimal> getIncomeByCategoryBreakdown(int userId) {
-        List<Income> incomes = incomeDAO.getIncomesByUserId(userId);
-        Map<String, BigDecimal> breakdown = new HashMap<>();
-        
-        for (Income income : incomes) {
-            String category = income.getCategory();
-            BigDecimal amount = income.getAmount();
-            breakdown.put(category, breakdown.getOrDefault(category, BigDecimal.ZERO).add(amount));
-        }
-        
-        return breakdown;
+        return incomeDAO.getIncomeTotalsByCategory(userId);
     }
 
     /**
@@ -138,27 +201,51 @@ public class FinanceService {
      * @return Map of category to total amount
      */
     public Map<String, BigDecimal> getExpenseByCategoryBreakdown(int userId) {
-        List<Expense> expenses = expenseDAO.getExpensesByUserId(userId);
-        Map<String, BigDecimal> breakdown = new HashMap<>();
-        
-        for (Expense expense : expenses) {
-            String category = expense.getCategory();
-            BigDecimal amount = expense.getAmount();
-            breakdown.put(category, breakdown.getOrDefault(category, BigDecimal.ZERO).add(amount));
-        }
-        
-        return breakdown;
+        return expenseDAO.getExpenseTotalsByCategory(userId);
+    }
+
+    /**
+     * Get the distribution of expense amounts per category
+     * Count, median, p90, histogram and largest expenses come from merged
+     * per-month sketches, so long ranges are summarized without sorting rows.
+     * @param userId User ID
+     * @param from First month, or null for the user's whole history
+     * @param to Last month included
+     * @return Map of category to distribution, or null if the expenses couldn't be read
+     */
+    public Map<String, AmountDistribution> getExpenseDistributions(int userId, YearMonth from, YearMonth to) {
+        return distributions.getDistributions(userId, from, to);
+    }
+
+    /**
+     * Get income per month and category
+     * @param userId User ID
+     * @return Map of first day of month to category totals, oldest month first
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getMonthlyIncomeByCategory(int userId) {
+        return incomeDAO.getMonthlyIncomeTotalsByCategory(userId);
+    }
+
+    /**
+     * Get expenses per month and category
+     * @param userId User ID
+     * @return Map of first day of month to category totals, oldest month first
+     */
+    public TreeMap<LocalDate, Map<String, BigDecimal>> getMonthlyExpensesByCategory(int userId) {
+        return expenseDAO.getMonthlyExpenseTotalsByCategory(userId);
     }
 
     /**
      * Get financial summary for a user
+     * Income and expense totals come from one query over both tables.
      * @param userId User ID
      * @return Map with totalIncome, totalExpenses, and savings
      */
     public Map<String, BigDecimal> getFinancialSummary(int userId) {
         Map<String, BigDecimal> summary = new HashMap<>();
-        BigDecimal totalIncome = calculateTotalIncome(userId);
-        BigDecimal totalExpenses = calculateTotalExpenses(userId);
+        Map<String, BigDecimal> totals = ledgerDAO.getTotals(userId);
+        BigDecimal totalIncome = totals.get("income");
+        BigDecimal totalExpenses = totals.get("expense");
         BigDecimal savings = totalIncome.subtract(totalExpenses);
         
         summary.put("totalIncome", totalIncome);
@@ -168,6 +255,31 @@ public class FinanceService {
         return summary;
     }
 
+    /**
+     * Get income, expenses and savings per month in one query
+     * @param userId User ID
+     * @param from First date included (widened to the start of its month),
+     *             or null to start at the user's first transaction
+     * @param to First date excluded
+     * @return Series with one entry per month, empty months included
+     */
+    public TimeSeries getMonthlySeries(int userId, LocalDate from, LocalDate to) {
+        return timeSeriesDAO.getSeries(userId, from, to, Granularity.MONTH);
+    }
+
+    /**
+     * Get income, expenses and savings per day, week, month or year in one query
+     * @param userId User ID
+     * @param from First date included (widened to the start of its period),
+     *             or null to start at the user's first transaction
+     * @param to First date excluded
+     * @param granularity Period length
+     * @return Series with one entry per period, empty periods included
+     */
+    public TimeSeries getSeries(int userId, LocalDate from, LocalDate to, Granularity granularity) {
+        return timeSeriesDAO.getSeries(userId, from, to, granularity);
+    }
+
     /**
      * Get monthly financial summary
      * @param userId User ID
@@ -177,8 +289,12 @@ public class FinanceService {
      */
     public Map<String, BigDecimal> getMonthlySummary(int userId, int month, int year) {
         Map<String, BigDecimal> summary = new HashMap<>();
-        BigDecimal monthlyIncome = calculateMonthlyIncome(userId, month, year);
-        BigDecimal monthlyExpenses = calculateMonthlyExpenses(userId, month, year);
+        LocalDate first = LocalDate.of(year, month, 1);
+        TimeSeries series = getMonthlySeries(userId, first, first.plusMonths(1));
+        BigDecimal monthlyIncome = series.size() > 0
+            ? BigDecimal.valueOf(series.getIncomeCents()[0], 2) : BigDecimal.ZERO;
+        BigDecimal monthlyExpenses = series.size() > 0
+            ? BigDecimal.valueOf(series.getExpenseCents()[0], 2) : BigDecimal.ZERO;
         BigDecimal monthlySavings = monthlyIncome.subtract(monthlyExpenses);
         
         summary.put("monthlyIncome", monthlyIncome);
@@ -0,0 +1,325 @@
+package service;
+
+import dao.ChangeDAO;
+import db.DatabaseConnection;
+import event.EventBus;
+import event.TransactionEvent;
+import model.ChangeSet;
+import model.Expense;
+import model.Income;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Push notifications between instances running against the same database
+ * Every instance listens on its own Unix domain socket in a directory
+ * shared by all instances of one database (peer.socketDir, default: a
+ * folder in the temp directory named after db.url). After a local write
+ * it sends "userId version" to every other socket. A peer that has the
+ * user open pulls only the new changes with ChangeDAO.getChangesSince and
+ * republishes them on its own EventBus as SYNCED events, so the open
+ * views patch themselves instead of polling or reloading.
+ *
+ * Needs change tracking (change_tracking.sql); without it the service
+ * does not start and the dashboard keeps polling.
+ */
+public final class PeerSyncService {
+    private static final PeerSyncService INSTANCE = new PeerSyncService();
+    private static final String SOCKET_SUFFIX = ".sock";
+
+    private final DatabaseConnection dbConnection;
+    private final ChangeDAO changeDAO;
+    // Last version replayed (or written locally) per tracked user
+    private final Map<Integer, Long> syncedVersions = new HashMap<>();
+    private ServerSocketChannel server;
+    private ExecutorService worker;
+    private Path socketDir;
+    private Path socketPath;
+    private EventBus.Subscription incomeSubscription;
+    private EventBus.Subscription expenseSubscription;
+
+    private PeerSyncService() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.changeDAO = new ChangeDAO();
+    }
+
+    public static PeerSyncService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Open this instance's socket and start exchanging notifications
+     * @return true if the service is running
+     */
+    public synchronized boolean start() {
+        if (server != null) {
+            return true;
+        }
+        if (!changeDAO.isAvailable()) {
+            return false;
+        }
+        try {
+            socketDir = resolveSocketDir();
+            Files.createDirectories(socketDir);
+            socketPath = socketDir.resolve(ProcessHandle.current().pid() + SOCKET_SUFFIX);
+            // Left over from an earlier process with the same PID
+            Files.deleteIfExists(socketPath);
+
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Peer notifications disabled: " + e.getMessage());
+            closeServer();
+            return false;
+        }
+
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "peer-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        ServerSocketChannel channel = server;
+        Thread listener = new Thread(() -> acceptLoop(channel), "peer-listener");
+        listener.setDaemon(true);
+        listener.start();
+
+        incomeSubscription = EventBus.getInstance().subscribe(Income.class, this::onLocalChange);
+        expenseSubscription = EventBus.getInstance().subscribe(Expense.class, this::onLocalChange);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "peer-sync-shutdown"));
+        return true;
+    }
+
+    /**
+     * Close the socket and stop replaying changes
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        incomeSubscription.close();
+        expenseSubscription.close();
+        worker.shutdownNow();
+        worker = null;
+        closeServer();
+        syncedVersions.clear();
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Start replaying other instances' changes to a user's data
+     * Call before the user's views load: changes after the version read
+     * here are replayed, so nothing written in between is missed. Does
+     * one primary-key lookup.
+     * @param userId User ID
+     */
+    public void track(int userId) {
+        if (!isRunning()) {
+            return;
+        }
+        long version = changeDAO.getCurrentVersion(userId);
+        synchronized (this) {
+            syncedVersions.put(userId, version);
+        }
+    }
+
+    /**
+     * Stop replaying changes for a user
+     * @param userId User ID
+     */
+    public synchronized void untrack(int userId) {
+        syncedVersions.remove(userId);
+    }
+
+    /**
+     * Tell the peers about a write made by this instance
+     */
+    private void onLocalChange(TransactionEvent<?> event) {
+        if (event.getType() == TransactionEvent.Type.SYNCED) {
+            // Replayed from a peer; the writer already told everyone
+            return;
+        }
+        int userId = event.getUserId();
+        long version = event.getVersion();
+        ExecutorService executor;
+        synchronized (this) {
+            Long synced = syncedVersions.get(userId);
+            // Only skip ahead without a gap; a pending peer change must still be pulled
+            if (synced != null && version == synced + 1) {
+                syncedVersions.put(userId, version);
+            }
+            executor = worker;
+        }
+        if (executor != null) {
+            executor.execute(() -> broadcast(userId + " " + version + "\n"));
+        }
+    }
+
+    /**
+     * Send a message to every other instance, removing sockets nobody listens on
+     */
+    private void broadcast(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        try (DirectoryStream<Path> sockets = Files.newDirectoryStream(socketDir, "*" + SOCKET_SUFFIX)) {
+            for (Path peer : sockets) {
+                if (peer.equals(socketPath)) {
+                    continue;
+                }
+                try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(peer))) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (ConnectException e) {
+                    // The instance exited without cleaning up
+                    Files.deleteIfExists(peer);
+                } catch (IOException e) {
+                    System.err.println("Error notifying peer " + peer.getFileName() + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error listing peers: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read notifications from peers until the socket is closed
+     */
+    private void acceptLoop(ServerSocketChannel channel) {
+        while (channel.isOpen()) {
+            try (SocketChannel peer = channel.accept();
+                 BufferedReader reader = new BufferedReader(Channels.newReader(peer, StandardCharsets.UTF_8))) {
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    onNotification(line);
+                }
+
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Error reading peer notification: " + e.getMessage());
+            }
+        }
+    }
+
+    private void onNotification(String line) {
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 2) {
+            return;
+        }
+        int userId;
+        long version;
+        try {
+            userId = Integer.parseInt(parts[0]);
+            version = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        ExecutorService executor;
+        synchronized (this) {
+            Long synced = syncedVersions.get(userId);
+            if (synced == null || version <= synced) {
+                return;
+            }
+            executor = worker;
+        }
+        if (executor != null) {
+            executor.execute(() -> pull(userId));
+        }
+    }
+
+    /**
+     * Fetch a user's changes since the last synced version and republish them
+     */
+    private void pull(int userId) {
+        long since;
+        synchronized (this) {
+            Long synced = syncedVersions.get(userId);
+            if (synced == null) {
+                return;
+            }
+            since = synced;
+        }
+
+        ChangeSet changes = changeDAO.getChangesSince(userId, since);
+        if (changes == null || changes.getToVersion() <= since) {
+            // Failed (already logged) or already pulled by an earlier notification
+            return;
+        }
+
+        synchronized (this) {
+            Long synced = syncedVersions.get(userId);
+            if (synced == null) {
+                return;
+            }
+            syncedVersions.put(userId, Math.max(synced, changes.getToVersion()));
+        }
+
+        if (changes.isFullResyncRequired()) {
+            System.err.println("Peer changes for user " + userId + " are no longer available; use Refresh to reload");
+            return;
+        }
+        long version = changes.getToVersion();
+        if (!changes.getIncomes().isEmpty() || !changes.getDeletedIncomeIds().isEmpty()) {
+            EventBus.getInstance().publish(TransactionEvent.synced(Income.class, userId, version,
+                changes.getIncomes(), changes.getDeletedIncomeIds()));
+        }
+        if (!changes.getExpenses().isEmpty() || !changes.getDeletedExpenseIds().isEmpty()) {
+            EventBus.getInstance().publish(TransactionEvent.synced(Expense.class, userId, version,
+                changes.getExpenses(), changes.getDeletedExpenseIds()));
+        }
+    }
+
+    /**
+     * Socket directory shared by the instances of one database
+     */
+    private Path resolveSocketDir() {
+        String configured = dbConnection.getProperty("peer.socketDir", "");
+        if (!configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        String url = dbConnection.getProperty("db.url", "");
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+            "finance-tracker-" + Integer.toHexString(url.hashCode()));
+    }
+
+    private void closeServer() {
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error closing peer socket: " + e.getMessage());
+            }
+            server = null;
+        }
+        if (socketPath != null) {
+            try {
+                Files.deleteIfExists(socketPath);
+            } catch (IOException e) {
+                System.err.println("Error removing peer socket: " + e.getMessage());
+            }
+        }
+    }
+}
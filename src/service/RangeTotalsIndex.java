@@ -0,0 +1,245 @@
+package service;
+
+import dao.ExpenseDAO;
+import dao.IncomeDAO;
+import dao.Versioned;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Expense;
+import model.Income;
+import model.Transaction;
+import util.FenwickTree;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory prefix-sum index for date-range totals
+ * Per user and kind, one Fenwick tree over epoch-day buckets holds the
+ * daily totals, plus one tree per category. Any range total is then two
+ * O(log n) prefix sums instead of a scan, which makes rolling windows and
+ * arbitrary "between these dates" questions cheap enough to ask per day.
+ *
+ * Indexes are built from the DAOs on first use and patched from the
+ * change events after that. A build knows the data version it was read
+ * at: events at or below it are already in it, and a build that missed
+ * a later event is discarded and retried. Changes made by other
+ * processes arrive as synced events (see PeerSyncService), which drop the
+ * index for a rebuild. Only the most recently used users are kept.
+ */
+public final class RangeTotalsIndex {
+    private static final RangeTotalsIndex INSTANCE = new RangeTotalsIndex();
+    private static final int MAX_INDEXES = 32;
+    // Room around the history so back-dated and future-dated rows rarely force a rebuild
+    private static final int SPARE_DAYS = 366;
+    private static final int BUILD_ATTEMPTS = 3;
+
+    private final IncomeDAO incomeDAO;
+    private final ExpenseDAO expenseDAO;
+    private final Map<String, KindIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KindIndex> eldest) {
+            return size() > MAX_INDEXES;
+        }
+    };
+    // Changes seen per user and kind, to detect builds that missed a write
+    private final ChangeWatermarks<String> watermarks = new ChangeWatermarks<>();
+
+    private RangeTotalsIndex() {
+        this.incomeDAO = new IncomeDAO();
+        this.expenseDAO = new ExpenseDAO();
+        EventBus.getInstance().subscribe(Income.class, event -> apply("income", event));
+        EventBus.getInstance().subscribe(Expense.class, event -> apply("expense", event));
+    }
+
+    public static RangeTotalsIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Total over a date range
+     * Falls back to a SQL SUM if the index can't be built.
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param category Category to total, or null for all
+     * @param from First date included
+     * @param to First date excluded
+     * @return Total amount
+     */
+    public BigDecimal getTotal(int userId, String kind, String category, LocalDate from, LocalDate to) {
+        KindIndex index = index(userId, kind);
+        if (index == null) {
+            return "income".equals(kind)
+                ? incomeDAO.getIncomeTotalBetween(userId, Date.valueOf(from), Date.valueOf(to), category)
+                : expenseDAO.getExpenseTotalBetween(userId, Date.valueOf(from), Date.valueOf(to), category);
+        }
+        synchronized (this) {
+            return BigDecimal.valueOf(index.sum(category, from, to), 2);
+        }
+    }
+
+    /**
+     * Trailing-window totals for every day of a range
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param from First day reported
+     * @param to First day not reported
+     * @param windowDays Days per window, ending with (and including) the reported day
+     * @return Amounts in cents, one per day; null if the index can't be built
+     */
+    public long[] getRollingTotals(int userId, String kind, LocalDate from, LocalDate to, int windowDays) {
+        KindIndex index = index(userId, kind);
+        if (index == null) {
+            return null;
+        }
+        int days = (int) Math.max(0, to.toEpochDay() - from.toEpochDay());
+        long[] totals = new long[days];
+        synchronized (this) {
+            for (int i = 0; i < days; i++) {
+                LocalDate day = from.plusDays(i);
+                totals[i] = index.sum(null, day.minusDays(windowDays - 1L), day.plusDays(1));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Forget every index, e.g. after bulk changes that bypassed the DAOs
+     */
+    public synchronized void clear() {
+        indexes.clear();
+    }
+
+    /**
+     * Cached index, building it if needed
+     * @return Index, or null if it couldn't be read or kept changing while being built
+     */
+    private KindIndex index(int userId, String kind) {
+        String key = key(userId, kind);
+        for (int attempt = 0; attempt < BUILD_ATTEMPTS; attempt++) {
+            long mark;
+            synchronized (this) {
+                KindIndex index = indexes.get(key);
+                if (index != null) {
+                    return index;
+                }
+                mark = watermarks.mark(key);
+            }
+
+            Versioned<TreeMap<LocalDate, Map<String, BigDecimal>>> daily = "income".equals(kind)
+                ? incomeDAO.getDailyIncomeTotalsByCategory(userId)
+                : expenseDAO.getDailyExpenseTotalsByCategory(userId);
+            if (daily == null) {
+                return null;
+            }
+            KindIndex built = new KindIndex(daily.getValue(), daily.getVersion());
+
+            synchronized (this) {
+                // Events after the read's version were published before there was an index to patch
+                if (watermarks.isCurrent(key, built.version, mark)) {
+                    indexes.put(key, built);
+                    return built;
+                }
+            }
+        }
+        return null;
+    }
+
+    private synchronized void apply(String kind, TransactionEvent<? extends Transaction> event) {
+        String key = key(event.getUserId(), kind);
+        watermarks.record(key, event.getVersion());
+        KindIndex index = indexes.get(key);
+        if (index == null) {
+            return;
+        }
+        if (event.getVersion() > 0 && event.getVersion() <= index.version) {
+            // Already in the rows the index was built from
+            return;
+        }
+        if (event.getVersion() == 0 || !event.isAmountDeltaKnown()
+                || !index.add(event.getRemovedRows(), -1)
+                || !index.add(event.getAddedRows(), 1)) {
+            // Unknown version or old values, or a row outside the indexed days
+            indexes.remove(key);
+        }
+    }
+
+    private static String key(int userId, String kind) {
+        return userId + ":" + kind;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    /**
+     * Daily totals of one kind for one user, overall and per category
+     */
+    private static final class KindIndex {
+        private final long version;
+        private final long baseDay;
+        private final FenwickTree total;
+        private final Map<String, FenwickTree> categories = new HashMap<>();
+
+        KindIndex(TreeMap<LocalDate, Map<String, BigDecimal>> daily, long version) {
+            this.version = version;
+            long today = LocalDate.now().toEpochDay();
+            long first = daily.isEmpty() ? today : Math.min(today, daily.firstKey().toEpochDay());
+            long last = daily.isEmpty() ? today : Math.max(today, daily.lastKey().toEpochDay());
+            baseDay = first - SPARE_DAYS;
+            int days = (int) (last - baseDay + 1 + SPARE_DAYS);
+
+            long[] totals = new long[days];
+            Map<String, long[]> byCategory = new HashMap<>();
+            for (Map.Entry<LocalDate, Map<String, BigDecimal>> day : daily.entrySet()) {
+                int bucket = (int) (day.getKey().toEpochDay() - baseDay);
+                for (Map.Entry<String, BigDecimal> category : day.getValue().entrySet()) {
+                    long amount = cents(category.getValue());
+                    totals[bucket] += amount;
+                    byCategory.computeIfAbsent(category.getKey(), c -> new long[days])[bucket] += amount;
+                }
+            }
+            total = new FenwickTree(totals);
+            for (Map.Entry<String, long[]> category : byCategory.entrySet()) {
+                categories.put(category.getKey(), new FenwickTree(category.getValue()));
+            }
+        }
+
+        /**
+         * Add rows with a sign
+         * @return false if a row falls before the first indexed day
+         */
+        boolean add(List<? extends Transaction> rows, int sign) {
+            for (Transaction row : rows) {
+                long bucket = row.getDate().toLocalDate().toEpochDay() - baseDay;
+                if (bucket < 0 || bucket > Integer.MAX_VALUE) {
+                    return false;
+                }
+                long amount = sign * cents(row.getAmount());
+                total.add((int) bucket, amount);
+                categories.computeIfAbsent(row.getCategory(), c -> new FenwickTree(total.capacity()))
+                          .add((int) bucket, amount);
+            }
+            return true;
+        }
+
+        long sum(String category, LocalDate from, LocalDate to) {
+            FenwickTree tree = category != null ? categories.get(category) : total;
+            if (tree == null) {
+                return 0;
+            }
+            return tree.rangeSum(bucket(from), bucket(to));
+        }
+
+        private int bucket(LocalDate date) {
+            long bucket = date.toEpochDay() - baseDay;
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, bucket));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import dao.RecurringRuleDAO;
+import db.DatabaseConnection;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes due recurring incomes and expenses for all users
+ * Runs at start and then every recurring.intervalMinutes (default 60),
+ * working through the due rules recurring.batchSize (default 200) at a
+ * time until none are left, so an instance that was off for years catches
+ * up in one pass without holding everything in one transaction.
+ *
+ * Needs migrations/V003; without it the scheduler does nothing.
+ */
+public final class RecurringScheduler {
+    private static final RecurringScheduler INSTANCE = new RecurringScheduler();
+
+    private final RecurringRuleDAO recurringRuleDAO;
+    private ScheduledExecutorService scheduler;
+    private int batchSize;
+
+    private RecurringScheduler() {
+        this.recurringRuleDAO = new RecurringRuleDAO();
+    }
+
+    public static RecurringScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Write due occurrences now and then periodically on a background thread
+     * Start after the services that listen for transaction events, so they
+     * see the catch-up writes.
+     * @return true if recurring rules are installed and being scheduled
+     */
+    public synchronized boolean start() {
+        if (scheduler != null) {
+            return true;
+        }
+        if (!recurringRuleDAO.isAvailable()) {
+            return false;
+        }
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        int intervalMinutes = Math.max(1, dbConnection.getIntProperty("recurring.intervalMinutes", 60));
+        batchSize = Math.max(1, dbConnection.getIntProperty("recurring.batchSize", 200));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recurring-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runDue, 0, intervalMinutes, TimeUnit.MINUTES);
+        return true;
+    }
+
+    /**
+     * Run soon on the scheduler thread, e.g. after a rule was added
+     */
+    public synchronized void runNow() {
+        if (scheduler != null) {
+            scheduler.execute(this::runDue);
+        }
+    }
+
+    /**
+     * Write every occurrence due by today, batch by batch
+     * @return Number of transactions written
+     */
+    public int runDue() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        int afterRuleId = 0;
+        int rules = 0;
+        int inserted = 0;
+
+        while (true) {
+            RecurringRuleDAO.Batch batch = recurringRuleDAO.materializeDue(today, afterRuleId, batchSize);
+            if (batch == null || batch.getRules() == 0) {
+                break;
+            }
+            afterRuleId = batch.getLastRuleId();
+            rules += batch.getRules();
+            inserted += batch.getInserted();
+        }
+
+        if (inserted > 0) {
+            System.out.printf("✓ Wrote %,d recurring transaction(s) for %,d rule(s) in %d ms%n",
+                inserted, rules, (System.nanoTime() - start) / 1_000_000);
+        }
+        return inserted;
+    }
+}
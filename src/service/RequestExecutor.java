@@ -0,0 +1,80 @@
+package service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs requests against the service and DAO layer on virtual threads
+ * One virtual thread per request; blocking JDBC calls park the virtual
+ * thread while the bounded connection pool limits database concurrency.
+ */
+public class RequestExecutor {
+    private static volatile RequestExecutor instance;
+    private final ExecutorService executor;
+
+    private RequestExecutor() {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Get shared instance of RequestExecutor
+     */
+    public static RequestExecutor getInstance() {
+        if (instance == null) {
+            synchronized (RequestExecutor.class) {
+                if (instance == null) {
+                    instance = new RequestExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Submit a request for execution on its own virtual thread
+     * @param request Work to run
+     * @return Future completed with the request's result
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(request.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Submit a request that produces no result
+     * @param request Work to run
+     * @return Future completed when the request finishes
+     */
+    public CompletableFuture<Void> run(Runnable request) {
+        return submit(() -> {
+            request.run();
+            return null;
+        });
+    }
+
+    /**
+     * Stop accepting requests and wait for in-flight ones to finish
+     * @param timeoutSeconds Maximum time to wait
+     */
+    public void shutdown(long timeoutSeconds) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package service;
+
+import dao.RollupDAO;
+import dao.TimeSeriesDAO;
+import event.EventBus;
+import event.TransactionEvent;
+import model.CategorySeries;
+import model.Expense;
+import model.Granularity;
+import model.Income;
+import model.TimeSeries;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the day/week/month/year rollups current and serves zoomable series
+ * Every local write is applied to the rollups as a delta on a background
+ * thread, in publish order; writes replayed from other instances are
+ * skipped because their writer already applied them, and so are writes a
+ * rebuild already counted. Reads first wait for the deltas queued before
+ * them and rebuild the user's rollups if a delta failed, so a chart
+ * reloaded after a change includes it. An empty rollups table is filled
+ * from the history on start.
+ *
+ * Without rollups.sql and migrations/V006 the series are grouped from the
+ * transactions instead.
+ */
+public final class RollupService {
+    private static final RollupService INSTANCE = new RollupService();
+    // Draw at most one period per this many pixels; finer levels would only be decimated
+    private static final int PIXELS_PER_POINT = 2;
+    private static final double[] DAYS_PER_PERIOD = {1, 7, 30.44, 365.25};
+    private static final int SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final RollupDAO rollupDAO;
+    private final TimeSeriesDAO timeSeriesDAO;
+    private ExecutorService worker;
+
+    private RollupService() {
+        this.rollupDAO = new RollupDAO();
+        this.timeSeriesDAO = new TimeSeriesDAO();
+    }
+
+    public static RollupService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start maintaining the rollups, filling them first if they are empty
+     * @return true if rollups are installed and being maintained
+     */
+    public synchronized boolean start() {
+        if (worker != null) {
+            return true;
+        }
+        if (!rollupDAO.isAvailable()) {
+            return false;
+        }
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rollup-service");
+            t.setDaemon(true);
+            return t;
+        });
+        worker.execute(this::fillIfEmpty);
+        EventBus.getInstance().subscribe(Income.class, event -> enqueue("income", event));
+        EventBus.getInstance().subscribe(Expense.class, event -> enqueue("expense", event));
+        // The worker is a daemon thread; don't drop queued deltas when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "rollup-service-shutdown"));
+        return true;
+    }
+
+    /**
+     * Income, expenses and savings over a window at the resolution that fits the width
+     * @param userId User ID
+     * @param from First date, or null for the user's whole history
+     * @param to First date excluded
+     * @param pixelWidth Width the series will be drawn at
+     * @return Gap-filled series
+     */
+    public TimeSeries getSeries(int userId, LocalDate from, LocalDate to, int pixelWidth) {
+        boolean rollups = awaitPendingChanges(userId);
+        LocalDate start = from != null ? from : firstDate(userId, rollups);
+        if (start == null) {
+            return new TimeSeries(Granularity.MONTH, new int[0], new long[0], new long[0]);
+        }
+        Granularity granularity = chooseGranularity(start, to, pixelWidth);
+        return rollups
+            ? rollupDAO.getSeries(userId, start, to, granularity)
+            : timeSeriesDAO.getSeries(userId, start, to, granularity);
+    }
+
+    /**
+     * Totals per category over a window at the resolution that fits the width
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param from First date, or null for the user's whole history
+     * @param to First date excluded
+     * @param pixelWidth Width the series will be drawn at
+     * @return Gap-filled series per category
+     */
+    public CategorySeries getCategorySeries(int userId, String kind, LocalDate from, LocalDate to, int pixelWidth) {
+        boolean rollups = awaitPendingChanges(userId);
+        LocalDate start = from != null ? from : firstDate(userId, rollups);
+        if (start == null) {
+            return new CategorySeries(Granularity.MONTH, new int[0], new String[0], new long[0][]);
+        }
+        Granularity granularity = chooseGranularity(start, to, pixelWidth);
+        return rollups
+            ? rollupDAO.getCategorySeries(userId, kind, start, to, granularity)
+            : timeSeriesDAO.getCategorySeries(userId, kind, start, to, granularity);
+    }
+
+    /**
+     * Pick the finest resolution that still fits the width
+     * A window of a few months reads days; a decade on an 800 pixel chart
+     * reads about 120 months instead of 3,650 days.
+     * @param from First date of the window
+     * @param to First date after the window
+     * @param pixelWidth Width the series will be drawn at
+     * @return Resolution with at most one period per two pixels (years if none fits)
+     */
+    public static Granularity chooseGranularity(LocalDate from, LocalDate to, int pixelWidth) {
+        long days = Math.max(1, ChronoUnit.DAYS.between(from, to));
+        int maxPoints = Math.max(1, pixelWidth / PIXELS_PER_POINT);
+        Granularity[] levels = Granularity.values();
+        for (int i = 0; i < levels.length; i++) {
+            if (days / DAYS_PER_PERIOD[i] <= maxPoints) {
+                return levels[i];
+            }
+        }
+        return Granularity.YEAR;
+    }
+
+    private void enqueue(String kind, TransactionEvent<?> event) {
+        if (event.getType() == TransactionEvent.Type.SYNCED) {
+            return;
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        executor.execute(() -> rollupDAO.applyChange(kind, event.getUserId(), event.getVersion(),
+            event.getRemovedRows(), event.getAddedRows()));
+    }
+
+    /**
+     * Wait until the deltas queued so far are applied and the user's rollups are whole
+     * @param userId User about to be read
+     * @return true if the rollups can be read
+     */
+    private boolean awaitPendingChanges(int userId) {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        if (executor == null) {
+            return false;
+        }
+        try {
+            executor.submit(() -> {
+                rollupDAO.rebuildIfDirty(userId);
+                return null;
+            }).get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private void drain() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = worker;
+        }
+        try {
+            executor.submit(() -> { }).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            System.err.println("Rollup updates still pending at exit; rebuild the rollups if charts look off");
+        }
+    }
+
+    private LocalDate firstDate(int userId, boolean rollups) {
+        return rollups ? rollupDAO.getFirstDate(userId) : timeSeriesDAO.getFirstDate(userId);
+    }
+
+    private void fillIfEmpty() {
+        try {
+            if (rollupDAO.isEmpty()) {
+                long start = System.nanoTime();
+                rollupDAO.rebuildAll();
+                System.out.printf("✓ Built rollups from history in %.1f s%n", (System.nanoTime() - start) / 1e9);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error building rollups: " + e.getMessage());
+        }
+    }
+}
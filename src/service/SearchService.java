@@ -0,0 +1,358 @@
+package service;
+
+import dao.ChangeDAO;
+import dao.ExpenseDAO;
+import dao.IncomeDAO;
+import db.DatabaseConnection;
+import event.EventBus;
+import event.TransactionEvent;
+import model.ChangeSet;
+import model.Expense;
+import model.Income;
+import model.Transaction;
+import util.InvertedIndex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Word search over the notes and categories of a user's transactions
+ * Each open user has one InvertedIndex per kind, kept current from the
+ * change events, so a query is a few binary searches and list merges in
+ * memory instead of a scan of the table.
+ *
+ * With change tracking installed the indexes are saved as compact
+ * segments (search.indexDir) together with the change version they
+ * cover. Opening a user then reads the segment and applies only the
+ * changes since that version; otherwise the index is built from the
+ * database in the background, and searches return null until it is
+ * ready so callers can fall back to filtering what they have.
+ *
+ * Compaction and saving work on a copy of the index outside the lock, so
+ * searches and change events (which may come from the Event Dispatch
+ * Thread) never wait for them; a compacted copy is swapped in after the
+ * events that arrived meanwhile are applied to it.
+ */
+public final class SearchService {
+    private static final SearchService INSTANCE = new SearchService();
+    private static final String[] KINDS = {"income", "expense"};
+    // Fold the in-memory delta into the segment after this many changed rows
+    private static final int COMPACT_THRESHOLD = 10_000;
+    // Larger batches while building from scratch, where each compaction rewrites everything so far
+    private static final int BUILD_BATCH = 100_000;
+
+    private final DatabaseConnection dbConnection;
+    private final IncomeDAO incomeDAO;
+    private final ExpenseDAO expenseDAO;
+    private final ChangeDAO changeDAO;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ExecutorService worker;
+
+    /**
+     * Index of one user and kind; events wait in pending until it is loaded
+     * and are also kept in replay while a compacted copy is being made
+     */
+    private static final class Entry {
+        InvertedIndex index;
+        long version;
+        List<TransactionEvent<? extends Transaction>> pending = new ArrayList<>();
+        List<TransactionEvent<? extends Transaction>> replay;
+        boolean compactQueued;
+    }
+
+    private SearchService() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.incomeDAO = new IncomeDAO();
+        this.expenseDAO = new ExpenseDAO();
+        this.changeDAO = new ChangeDAO();
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "search-index");
+            t.setDaemon(true);
+            return t;
+        });
+        EventBus.getInstance().subscribe(Income.class, event -> apply("income", event));
+        EventBus.getInstance().subscribe(Expense.class, event -> apply("expense", event));
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveAll, "search-index-shutdown"));
+    }
+
+    public static SearchService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start loading a user's indexes in the background
+     * @param userId User ID
+     */
+    public void open(int userId) {
+        for (String kind : KINDS) {
+            String key = key(userId, kind);
+            Entry entry;
+            synchronized (this) {
+                if (entries.containsKey(key)) {
+                    continue;
+                }
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            worker.execute(() -> load(userId, kind, entry));
+        }
+    }
+
+    /**
+     * Save and drop a user's indexes
+     * @param userId User ID
+     */
+    public void close(int userId) {
+        worker.execute(() -> {
+            for (String kind : KINDS) {
+                Entry entry;
+                synchronized (this) {
+                    entry = entries.remove(key(userId, kind));
+                }
+                if (entry != null) {
+                    save(userId, kind, entry);
+                }
+            }
+        });
+    }
+
+    /**
+     * Find transactions by words in their notes or category
+     * Every word of the query must start some word of the text, so
+     * "net sub" finds "Netflix subscription".
+     * @param userId User ID
+     * @param kind "income" or "expense"
+     * @param query Words to look for
+     * @return Matching IDs in ascending order, or null if the index is not loaded yet
+     */
+    public int[] search(int userId, String kind, String query) {
+        synchronized (this) {
+            Entry entry = entries.get(key(userId, kind));
+            if (entry == null || entry.index == null) {
+                return null;
+            }
+            return entry.index.search(query);
+        }
+    }
+
+    private void load(int userId, String kind, Entry entry) {
+        boolean tracked = changeDAO.isAvailable();
+        InvertedIndex index = null;
+        long version = 0;
+
+        if (tracked) {
+            Path file = segmentFile(userId, kind);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                version = in.readLong();
+                index = InvertedIndex.read(in);
+                version = catchUp(userId, kind, index, version);
+                if (version < 0) {
+                    index = null; // too old to catch up; rebuild
+                }
+            } catch (NoSuchFileException e) {
+                // First time for this user
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable search index " + file + ": " + e.getMessage());
+                index = null;
+            }
+        }
+
+        if (index == null) {
+            long start = System.nanoTime();
+            version = tracked ? changeDAO.getCurrentVersion(userId) : 0;
+            InvertedIndex built = new InvertedIndex();
+            boolean complete = forEachText(userId, kind, (text, id) -> {
+                built.put(id, text);
+                if (built.deltaSize() >= BUILD_BATCH) {
+                    built.compact();
+                }
+            });
+            // Rows written during the scan are picked up by the catch-up
+            if (complete && tracked) {
+                version = catchUp(userId, kind, built, version);
+            }
+            if (!complete || version < 0) {
+                synchronized (this) {
+                    entries.remove(key(userId, kind), entry);
+                }
+                return;
+            }
+            built.compact();
+            index = built;
+            System.out.printf("✓ Built %s search index for user %d in %.1f s%n",
+                kind, userId, (System.nanoTime() - start) / 1e9);
+        }
+
+        synchronized (this) {
+            if (entries.get(key(userId, kind)) != entry) {
+                return; // closed while loading
+            }
+            entry.index = index;
+            entry.version = version;
+            for (TransactionEvent<? extends Transaction> event : entry.pending) {
+                applyEvent(index, event);
+            }
+            entry.pending = null;
+        }
+        if (tracked) {
+            save(userId, kind, entry);
+        }
+    }
+
+    /**
+     * Apply the changes committed after a version
+     * @return Version now covered, or -1 if the changes are no longer available
+     */
+    private long catchUp(int userId, String kind, InvertedIndex index, long version) {
+        ChangeSet changes = changeDAO.getChangesSince(userId, version);
+        if (changes == null || changes.isFullResyncRequired()) {
+            return -1;
+        }
+        boolean income = "income".equals(kind);
+        for (int id : income ? changes.getDeletedIncomeIds() : changes.getDeletedExpenseIds()) {
+            index.remove(id);
+        }
+        for (Transaction row : income ? changes.getIncomes() : changes.getExpenses()) {
+            index.put(row.getId(), IncomeDAO.searchText(row.getCategory(), row.getNotes()));
+        }
+        return changes.getToVersion();
+    }
+
+    private boolean forEachText(int userId, String kind, ObjIntConsumer<String> consumer) {
+        return "income".equals(kind)
+            ? incomeDAO.forEachIncomeText(userId, consumer)
+            : expenseDAO.forEachExpenseText(userId, consumer);
+    }
+
+    private synchronized void apply(String kind, TransactionEvent<? extends Transaction> event) {
+        String key = key(event.getUserId(), kind);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.index == null) {
+            entry.pending.add(event);
+            return;
+        }
+        applyEvent(entry.index, event);
+        if (entry.replay != null) {
+            entry.replay.add(event);
+        }
+        if (entry.index.deltaSize() >= COMPACT_THRESHOLD && !entry.compactQueued) {
+            entry.compactQueued = true;
+            worker.execute(() -> compact(entry));
+        }
+    }
+
+    /**
+     * Fold an index's delta into its segment on a copy, then swap the copy in
+     */
+    private void compact(Entry entry) {
+        InvertedIndex compacted;
+        synchronized (this) {
+            entry.compactQueued = false;
+            compacted = entry.index.copy();
+            entry.replay = new ArrayList<>();
+        }
+        compacted.compact();
+        synchronized (this) {
+            for (TransactionEvent<? extends Transaction> event : entry.replay) {
+                applyEvent(compacted, event);
+            }
+            entry.replay = null;
+            entry.index = compacted;
+        }
+    }
+
+    private static void applyEvent(InvertedIndex index, TransactionEvent<? extends Transaction> event) {
+        for (int id : event.getRemovedIds()) {
+            index.remove(id);
+        }
+        for (Transaction row : event.getAddedRows()) {
+            index.put(row.getId(), IncomeDAO.searchText(row.getCategory(), row.getNotes()));
+        }
+    }
+
+    /**
+     * Write an index as a segment
+     * The stored version is the one the index was caught up to when opened;
+     * the segment may also hold later changes, and applying those again on
+     * the next open is harmless.
+     */
+    private void save(int userId, String kind, Entry entry) {
+        if (!changeDAO.isAvailable()) {
+            return;
+        }
+        InvertedIndex index;
+        long version;
+        synchronized (this) {
+            if (entry.index == null) {
+                return;
+            }
+            index = entry.index.copy();
+            version = entry.version;
+        }
+        Path file = segmentFile(userId, kind);
+        try {
+            Files.createDirectories(file.getParent());
+            // Unique name: the shutdown hook may save while the worker does
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeLong(version);
+                index.write(out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving search index: " + e.getMessage());
+        }
+    }
+
+    private void saveAll() {
+        Map<String, Entry> open;
+        synchronized (this) {
+            open = new HashMap<>(entries);
+        }
+        for (Map.Entry<String, Entry> entry : open.entrySet()) {
+            String[] parts = entry.getKey().split(":");
+            save(Integer.parseInt(parts[0]), parts[1], entry.getValue());
+        }
+    }
+
+    /**
+     * Segment file of one user and kind
+     * Kept per database, since IDs mean nothing in another one.
+     */
+    private Path segmentFile(int userId, String kind) {
+        String configured = dbConnection.getProperty("search.indexDir", "");
+        Path dir = !configured.isBlank()
+            ? Paths.get(configured)
+            : Paths.get(System.getProperty("user.home"), ".finance-tracker", "search");
+        String url = dbConnection.getProperty("db.url", "");
+        return dir.resolve(Integer.toHexString(url.hashCode())).resolve(userId + "-" + kind + ".seg");
+    }
+
+    private static String key(int userId, String kind) {
+        return userId + ":" + kind;
+    }
+}
@@ -0,0 +1,72 @@
+package tools;
+
+import dao.UserDAO;
+import db.DatabaseConnection;
+import model.SpendAnomaly;
+import model.User;
+import service.AnomalyDetector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Builds the spending statistics of every user and lists the outliers in their history
+ * The users are replayed --threads at a time (default: the pool size minus
+ * one), which is the same build AnomalyDetector runs for one user at login.
+ * Prints the build time and the --top (default 20) most extreme expenses.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.AnomalyScan
+ *          [--threads=N] [--top=20]
+ */
+public class AnomalyScan {
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        if (!dbConnection.testConnection()) {
+            System.err.println("Scan needs a running database, aborting.");
+            System.exit(1);
+        }
+        int poolSize = dbConnection.getIntProperty("db.maxConnections", 10);
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Math.max(1, poolSize - 1))));
+        int top = Integer.parseInt(options.getOrDefault("top", "20"));
+
+        List<Integer> userIds = new ArrayList<>();
+        for (User user : new UserDAO().getAllUsers()) {
+            userIds.add(user.getUserId());
+        }
+
+        ConcurrentLinkedQueue<SpendAnomaly> found = new ConcurrentLinkedQueue<>();
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        int built = AnomalyDetector.getInstance().rebuild(userIds, threads, found::add);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("Built statistics for %,d of %,d users with %d threads in %.1f s (heap %+,d KB)%n",
+            built, userIds.size(), threads, seconds, (heapAfter - heapBefore) / 1024);
+        System.out.printf("%,d unusual expenses in the history%n", found.size());
+
+        List<SpendAnomaly> worst = new ArrayList<>(found);
+        worst.sort(Comparator.comparingDouble(SpendAnomaly::getRatio).reversed());
+        for (SpendAnomaly anomaly : worst.subList(0, Math.min(top, worst.size()))) {
+            System.out.printf("  user %-6d %-14s ₹%,12.2f on %s  %5.1fx typical ₹%,.2f  (z %.1f)%n",
+                anomaly.getUserId(), anomaly.getCategory(), anomaly.getExpense().getAmount(),
+                anomaly.getExpense().getDate(), anomaly.getRatio(), anomaly.getTypicalAmount(),
+                anomaly.getZScore());
+        }
+        dbConnection.closeConnection();
+    }
+}
@@ -0,0 +1,141 @@
+package tools;
+
+import dao.ExpenseDAO;
+import dao.UserDAO;
+import db.DatabaseConnection;
+import model.Expense;
+import model.User;
+import service.FinanceService;
+import service.RequestExecutor;
+import service.RollupService;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency load test for the DAO layer
+ * Starts one virtual thread per simulated user; each inserts expenses and
+ * reads the financial summary through the shared connection pool. The
+ * simulated users are spread over a set of dedicated accounts so inserts
+ * do not all queue on one account's change sequence.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.ConcurrencyLoadTest [users] [opsPerUser] [accounts]
+ */
+public class ConcurrencyLoadTest {
+    private static final String[] CATEGORIES = {"Food", "Transportation", "Shopping", "Entertainment"};
+    private static final String PASSWORD = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int opsPerUser = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : Math.min(users, 1_000);
+
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        if (!db.testConnection()) {
+            System.err.println("Load test needs a running database, aborting.");
+            System.exit(1);
+        }
+        // Writes below go through the DAOs; keep the chart rollups in step
+        RollupService.getInstance().start();
+
+        // Dedicated accounts so the test never touches real data
+        UserDAO userDAO = new UserDAO();
+        RequestExecutor executor = RequestExecutor.getInstance();
+        int[] userIds = createAccounts(userDAO, executor, accounts);
+        if (userIds.length == 0) {
+            System.err.println("Could not create load test users, aborting.");
+            System.exit(1);
+        }
+
+        System.out.printf("Running %,d simulated users x %d ops over %,d accounts against %s%n",
+            users, opsPerUser, userIds.length, db.getPoolStats());
+
+        ExpenseDAO expenseDAO = new ExpenseDAO();
+        FinanceService financeService = new FinanceService();
+
+        LongAdder inserts = new LongAdder();
+        LongAdder summaries = new LongAdder();
+        LongAdder failures = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(users);
+
+        for (int i = 0; i < users; i++) {
+            int userId = userIds[i % userIds.length];
+            futures.add(executor.run(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < opsPerUser; op++) {
+                    if (random.nextBoolean()) {
+                        Expense expense = new Expense(userId,
+                            CATEGORIES[random.nextInt(CATEGORIES.length)],
+                            BigDecimal.valueOf(random.nextInt(100, 5_000)),
+                            Date.valueOf(LocalDate.now().minusDays(random.nextInt(365))),
+                            "load test");
+                        if (expenseDAO.addExpense(expense)) {
+                            inserts.increment();
+                        } else {
+                            failures.increment();
+                        }
+                    } else {
+                        financeService.getFinancialSummary(userId);
+                        summaries.increment();
+                    }
+                }
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        long totalOps = inserts.sum() + summaries.sum();
+        System.out.println();
+        System.out.println("══════════════ Load test results ══════════════");
+        System.out.printf("Simulated users:   %,d%n", users);
+        System.out.printf("Accounts:          %,d%n", userIds.length);
+        System.out.printf("Inserts:           %,d%n", inserts.sum());
+        System.out.printf("Summaries:         %,d%n", summaries.sum());
+        System.out.printf("Failed inserts:    %,d%n", failures.sum());
+        System.out.printf("Elapsed:           %.2f s%n", seconds);
+        System.out.printf("Throughput:        %,.0f ops/s%n", totalOps / seconds);
+        System.out.println("Pool:              " + db.getPoolStats());
+
+        for (int userId : userIds) {
+            userDAO.deleteUser(userId);
+        }
+        executor.shutdown(10);
+        db.closeConnection();
+    }
+
+    /**
+     * Register the load test accounts concurrently
+     * @return IDs of the accounts that could be created
+     */
+    private static int[] createAccounts(UserDAO userDAO, RequestExecutor executor, int count) {
+        String prefix = "loadtest_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+        List<CompletableFuture<User>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = prefix + i;
+            futures.add(executor.submit(() ->
+                userDAO.registerUser(username, PASSWORD) ? userDAO.loginUser(username, PASSWORD) : null));
+        }
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .filter(user -> user != null)
+            .mapToInt(User::getUserId)
+            .toArray();
+    }
+}
@@ -0,0 +1,591 @@
+package tools;
+
+import dao.DistributionDAO;
+import dao.RollupDAO;
+import db.DatabaseConnection;
+import util.PasswordHasher;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk synthetic data generator
+ * Produces statistically realistic histories at any volume: seasonal
+ * salaries with yearly raises and bonuses, recurring rent, bills and
+ * subscriptions, weekly groceries and fuel, and long-tail (Pareto) shopping
+ * with a holiday spike. Each user's history depends only on the seed and
+ * the user number, so output is identical for any worker count.
+ *
+ * Rows are streamed straight to the database, never held in memory:
+ *   --mode=batch   batched INSERTs, one connection per worker
+ *                  (add rewriteBatchedStatements=true to db.url)
+ *   --mode=infile  per-worker TSV chunks loaded with LOAD DATA LOCAL INFILE
+ *                  (add allowLoadLocalInfile=true to db.url and enable
+ *                  local_infile on the server)
+ *   --mode=files   only write TSV chunks to --dir for loading elsewhere;
+ *                  user n is written as --first-user-id + n
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.DataGenerator
+ *          [--users=1000] [--years=5] [--start=2020-01-01] [--seed=42]
+ *          [--workers=8] [--mode=batch] [--batch-size=5000]
+ *          [--chunk-rows=1000000] [--dir=generated_data]
+ *
+ * Generated accounts are named gen_<n> with password "gen123".
+ */
+public class DataGenerator {
+    private static final String PASSWORD = "gen123";
+    private static final String USER_PREFIX = "gen_";
+
+    private static final String[][] SUBSCRIPTIONS = {
+        {"Netflix subscription", "64900"}, {"Spotify premium", "11900"},
+        {"Amazon Prime", "29900"}, {"YouTube premium", "12900"}, {"Gym membership", "150000"}
+    };
+    private static final String[] GROCERY_NOTES = {"Groceries", "Supermarket", "Vegetables and fruit", "Milk and bread"};
+    private static final String[] DINING_NOTES = {"Dinner out", "Lunch with friends", "Food delivery", "Coffee"};
+    private static final String[] SHOPPING_NOTES = {"Clothing", "Electronics", "Shoes", "Home decor", "Books", "Gadgets"};
+
+    private final int userCount;
+    private final int years;
+    private final LocalDate startDate;
+    private final long seed;
+    private final int workers;
+    private final String mode;
+    private final int batchSize;
+    private final int chunkRows;
+    private final File outputDir;
+    private final String firstUserIdOption;
+
+    private final AtomicLong incomeRows = new AtomicLong();
+    private final AtomicLong expenseRows = new AtomicLong();
+
+    public DataGenerator(Map<String, String> options) {
+        this.userCount = Integer.parseInt(options.getOrDefault("users", "1000"));
+        this.years = Integer.parseInt(options.getOrDefault("years", "5"));
+        this.startDate = LocalDate.parse(options.getOrDefault("start", "2020-01-01")).withDayOfMonth(1);
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        this.workers = Integer.parseInt(options.getOrDefault("workers", "8"));
+        this.mode = options.getOrDefault("mode", "batch");
+        this.batchSize = Integer.parseInt(options.getOrDefault("batch-size", "5000"));
+        this.chunkRows = Integer.parseInt(options.getOrDefault("chunk-rows", "1000000"));
+        this.outputDir = new File(options.getOrDefault("dir", "generated_data"));
+        this.firstUserIdOption = options.getOrDefault("first-user-id", "1");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                if (eq > 0) {
+                    options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                } else {
+                    options.put(arg.substring(2), "true");
+                }
+            }
+        }
+        new DataGenerator(options).run();
+    }
+
+    public void run() throws Exception {
+        boolean needsDatabase = !"files".equals(mode);
+        int[] userIds;
+        if (needsDatabase) {
+            if (!DatabaseConnection.getInstance().testConnection()) {
+                System.err.println("Data generator needs a running database, aborting.");
+                System.exit(1);
+            }
+            userIds = ensureUsers();
+        } else {
+            // Offline files can't look IDs up; user n is written as first-user-id + n
+            int firstUserId = Integer.parseInt(firstUserIdOption);
+            userIds = new int[userCount];
+            for (int i = 0; i < userCount; i++) {
+                userIds[i] = firstUserId + i;
+            }
+        }
+        if (!"batch".equals(mode) && !outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create output directory " + outputDir);
+        }
+
+        System.out.printf("Generating %d years for %,d users with %d workers (mode=%s, seed=%d)%n",
+            years, userCount, workers, mode, seed);
+        long startNanos = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ScheduledProgress progress = new ScheduledProgress(startNanos);
+        progress.start();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                int worker = w;
+                futures.add(pool.submit(() -> {
+                    try (RowSink sink = createSink(worker)) {
+                        for (int u = worker; u < userCount; u += workers) {
+                            generateUser(u, userIds[u], sink);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            progress.stop();
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        long total = incomeRows.get() + expenseRows.get();
+        System.out.printf("%nDone: %,d incomes + %,d expenses = %,d rows in %.1f s (%,.0f rows/s)%n",
+            incomeRows.get(), expenseRows.get(), total, seconds, total / seconds);
+        if (needsDatabase) {
+            // Bulk rows bypass the DAOs, so the chart rollups and distributions have to be recomputed
+            RollupDAO rollupDAO = new RollupDAO();
+            if (rollupDAO.isAvailable()) {
+                long rollupStart = System.nanoTime();
+                rollupDAO.rebuildAll();
+                System.out.printf("Rebuilt rollups in %.1f s%n", (System.nanoTime() - rollupStart) / 1e9);
+            }
+            DistributionDAO distributionDAO = new DistributionDAO();
+            if (distributionDAO.isAvailable()) {
+                long distributionStart = System.nanoTime();
+                distributionDAO.markAllDirty();
+                int built = distributionDAO.rebuildDirty(null, null, YearMonth.of(9999, 12));
+                if (built < 0) {
+                    System.err.println("Rebuilding expense distributions failed; they are rebuilt as they are read");
+                } else {
+                    System.out.printf("Rebuilt %,d expense distributions in %.1f s%n",
+                        built, (System.nanoTime() - distributionStart) / 1e9);
+                }
+            }
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+
+    /**
+     * Create the gen_<n> accounts that don't exist yet and return their IDs
+     */
+    private int[] ensureUsers() throws SQLException {
+        String hash = PasswordHasher.hashPassword(PASSWORD);
+        int[] ids = new int[userCount];
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT IGNORE INTO users (username, password_hash) VALUES (?, ?)")) {
+                for (int i = 0; i < userCount; i++) {
+                    insert.setString(1, USER_PREFIX + i);
+                    insert.setString(2, hash);
+                    insert.addBatch();
+                    if ((i + 1) % batchSize == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+
+            Map<String, Integer> byName = new HashMap<>();
+            try (PreparedStatement select = conn.prepareStatement(
+                    "SELECT user_id, username FROM users WHERE username LIKE ?")) {
+                select.setString(1, USER_PREFIX + "%");
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        byName.put(rs.getString(2), rs.getInt(1));
+                    }
+                }
+            }
+            for (int i = 0; i < userCount; i++) {
+                Integer id = byName.get(USER_PREFIX + i);
+                if (id == null) {
+                    throw new SQLException("Generated user " + USER_PREFIX + i + " is missing");
+                }
+                ids[i] = id;
+            }
+        }
+        return ids;
+    }
+
+    private RowSink createSink(int worker) throws SQLException, IOException {
+        if ("batch".equals(mode)) {
+            return new BatchSink();
+        }
+        return new FileSink(worker, "infile".equals(mode));
+    }
+
+    /**
+     * Generate one user's full history
+     * @param userNumber Stable user number; together with the seed it fixes the output
+     * @param userId Database ID written to the rows
+     */
+    private void generateUser(int userNumber, int userId, RowSink sink) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + userNumber);
+
+        long salary = roundTo(logNormal(rnd, Math.log(6_000_000), 0.45), 100_000);
+        long rent = roundTo(salary * (0.2 + rnd.nextDouble() * 0.15), 50_000);
+        int payday = 1 + rnd.nextInt(5);
+        int leaseMonth = 1 + rnd.nextInt(12);
+        int birthdayMonth = 1 + rnd.nextInt(12);
+        long bills = 50_000 + rnd.nextInt(150_000);
+        long utilitiesBase = 150_000 + rnd.nextInt(250_000);
+        double spendingLevel = 0.6 + rnd.nextDouble() * 0.9;
+        boolean ownsCar = rnd.nextInt(3) > 0;
+
+        List<String[]> subscriptions = new ArrayList<>();
+        for (String[] sub : SUBSCRIPTIONS) {
+            if (rnd.nextInt(3) == 0) {
+                subscriptions.add(sub);
+            }
+        }
+
+        int months = years * 12;
+        for (int m = 0; m < months; m++) {
+            LocalDate month = startDate.plusMonths(m);
+            int monthValue = month.getMonthValue();
+            int days = month.lengthOfMonth();
+
+            // Yearly raise every April, yearly rent increase on the lease anniversary
+            if (m > 0 && monthValue == 4) {
+                salary = roundTo(salary * (1.03 + rnd.nextDouble() * 0.05), 10_000);
+            }
+            if (m > 0 && monthValue == leaseMonth) {
+                rent = roundTo(rent * (1.03 + rnd.nextDouble() * 0.04), 50_000);
+            }
+
+            // ---- Income ----
+            sink.income(userId, "Salary", salary, month.withDayOfMonth(payday), "Monthly salary");
+            if (monthValue == 3 && rnd.nextDouble() < 0.6) {
+                sink.income(userId, "Bonus", roundTo(salary * (0.5 + rnd.nextDouble()), 1_000),
+                    month.withDayOfMonth(25), "Annual performance bonus");
+            }
+            if (monthValue == 12 && rnd.nextDouble() < 0.3) {
+                sink.income(userId, "Bonus", roundTo(salary * 0.25, 1_000), month.withDayOfMonth(20), "Holiday bonus");
+            }
+            if (rnd.nextDouble() < 0.25) {
+                sink.income(userId, "Freelance", roundTo(logNormal(rnd, Math.log(1_500_000), 0.8), 100),
+                    day(rnd, month, days), "Freelance project");
+            }
+            if (monthValue % 3 == 0 && rnd.nextDouble() < 0.4) {
+                sink.income(userId, "Investment", roundTo(logNormal(rnd, Math.log(300_000), 0.7), 100),
+                    day(rnd, month, days), "Stock dividends");
+            }
+            if (monthValue == birthdayMonth && rnd.nextDouble() < 0.5) {
+                sink.income(userId, "Gift", roundTo(logNormal(rnd, Math.log(300_000), 0.6), 10_000),
+                    day(rnd, month, days), "Birthday gift");
+            }
+
+            // ---- Recurring expenses ----
+            sink.expense(userId, "Rent", rent, month, "Monthly rent");
+            sink.expense(userId, "Bills", bills, month.withDayOfMonth(Math.min(7, days)), "Phone and internet");
+            double season = 1 + 0.35 * Math.abs(Math.cos(2 * Math.PI * (monthValue - 1) / 12.0));
+            sink.expense(userId, "Utilities", roundTo(utilitiesBase * season * (0.9 + rnd.nextDouble() * 0.2), 100),
+                month.withDayOfMonth(Math.min(10, days)), "Electricity and water");
+            for (String[] sub : subscriptions) {
+                sink.expense(userId, "Entertainment", Long.parseLong(sub[1]), month.withDayOfMonth(Math.min(15, days)), sub[0]);
+            }
+
+            // ---- Variable expenses ----
+            int groceries = poisson(rnd, 9 * spendingLevel);
+            for (int i = 0; i < groceries; i++) {
+                sink.expense(userId, "Food", roundTo(logNormal(rnd, Math.log(120_000 * spendingLevel), 0.5), 100),
+                    day(rnd, month, days), pick(rnd, GROCERY_NOTES));
+            }
+            int dining = poisson(rnd, 4 * spendingLevel);
+            for (int i = 0; i < dining; i++) {
+                sink.expense(userId, "Food", roundTo(logNormal(rnd, Math.log(80_000), 0.6), 100),
+                    day(rnd, month, days), pick(rnd, DINING_NOTES));
+            }
+            int trips = poisson(rnd, ownsCar ? 4 : 10);
+            for (int i = 0; i < trips; i++) {
+                long amount = ownsCar ? logNormal(rnd, Math.log(250_000), 0.3) : logNormal(rnd, Math.log(8_000), 0.5);
+                sink.expense(userId, "Transportation", roundTo(amount, 100), day(rnd, month, days),
+                    ownsCar ? "Fuel" : "Metro and cab");
+            }
+            // Long-tail shopping with a holiday season spike
+            double holiday = monthValue >= 11 ? 2.2 : 1.0;
+            int purchases = poisson(rnd, 2 * spendingLevel * holiday);
+            for (int i = 0; i < purchases; i++) {
+                sink.expense(userId, "Shopping", roundTo(pareto(rnd, 50_000, 1.6, 50_000_000), 100),
+                    day(rnd, month, days), pick(rnd, SHOPPING_NOTES));
+            }
+            if (rnd.nextDouble() < 0.15) {
+                sink.expense(userId, "Healthcare", roundTo(logNormal(rnd, Math.log(300_000), 1.0), 100),
+                    day(rnd, month, days), "Doctor visit and medicines");
+            }
+            if (rnd.nextDouble() < 0.05) {
+                sink.expense(userId, "Education", roundTo(logNormal(rnd, Math.log(1_000_000), 0.7), 100),
+                    day(rnd, month, days), "Online course");
+            }
+            if (rnd.nextDouble() < 0.3) {
+                sink.expense(userId, "Entertainment", roundTo(logNormal(rnd, Math.log(150_000), 0.6), 100),
+                    day(rnd, month, days), "Movies and outings");
+            }
+        }
+    }
+
+    // ---- Distributions (amounts are in paise/cents) ----
+
+    private static long logNormal(SplittableRandom rnd, double mu, double sigma) {
+        return (long) Math.exp(mu + sigma * gaussian(rnd));
+    }
+
+    private static long pareto(SplittableRandom rnd, double scale, double shape, double cap) {
+        return (long) Math.min(cap, scale / Math.pow(1 - rnd.nextDouble(), 1 / shape));
+    }
+
+    private static double gaussian(SplittableRandom rnd) {
+        double u1 = 1 - rnd.nextDouble();
+        double u2 = rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static int poisson(SplittableRandom rnd, double lambda) {
+        double limit = Math.exp(-lambda);
+        double product = rnd.nextDouble();
+        int n = 0;
+        while (product > limit) {
+            product *= rnd.nextDouble();
+            n++;
+        }
+        return n;
+    }
+
+    private static long roundTo(double cents, long unit) {
+        return Math.max(unit, Math.round(cents / unit) * unit);
+    }
+
+    private static LocalDate day(SplittableRandom rnd, LocalDate month, int days) {
+        return month.withDayOfMonth(1 + rnd.nextInt(days));
+    }
+
+    private static String pick(SplittableRandom rnd, String[] values) {
+        return values[rnd.nextInt(values.length)];
+    }
+
+    private static String formatCents(long cents) {
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    // ---- Sinks ----
+
+    /**
+     * Destination for generated rows; one per worker, not thread-safe
+     */
+    private interface RowSink extends AutoCloseable {
+        void income(int userId, String category, long cents, LocalDate date, String notes) throws IOException, SQLException;
+
+        void expense(int userId, String category, long cents, LocalDate date, String notes) throws IOException, SQLException;
+
+        @Override
+        void close() throws IOException, SQLException;
+    }
+
+    /**
+     * Batched INSERTs committed every batch-size rows
+     */
+    private class BatchSink implements RowSink {
+        private final Connection conn;
+        private final PreparedStatement incomeStmt;
+        private final PreparedStatement expenseStmt;
+        private int pendingIncomes;
+        private int pendingExpenses;
+
+        BatchSink() throws SQLException {
+            conn = DatabaseConnection.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            incomeStmt = conn.prepareStatement(
+                "INSERT INTO incomes (user_id, category, amount, date, notes) VALUES (?, ?, ?, ?, ?)");
+            expenseStmt = conn.prepareStatement(
+                "INSERT INTO expenses (user_id, category, amount, date, notes) VALUES (?, ?, ?, ?, ?)");
+        }
+
+        @Override
+        public void income(int userId, String category, long cents, LocalDate date, String notes) throws SQLException {
+            bind(incomeStmt, userId, category, cents, date, notes);
+            if (++pendingIncomes >= batchSize) {
+                incomeRows.addAndGet(flush(incomeStmt, pendingIncomes));
+                pendingIncomes = 0;
+            }
+        }
+
+        @Override
+        public void expense(int userId, String category, long cents, LocalDate date, String notes) throws SQLException {
+            bind(expenseStmt, userId, category, cents, date, notes);
+            if (++pendingExpenses >= batchSize) {
+                expenseRows.addAndGet(flush(expenseStmt, pendingExpenses));
+                pendingExpenses = 0;
+            }
+        }
+
+        private void bind(PreparedStatement stmt, int userId, String category, long cents,
+                          LocalDate date, String notes) throws SQLException {
+            stmt.setInt(1, userId);
+            stmt.setString(2, category);
+            stmt.setBigDecimal(3, BigDecimal.valueOf(cents, 2));
+            stmt.setDate(4, Date.valueOf(date));
+            stmt.setString(5, notes);
+            stmt.addBatch();
+        }
+
+        private int flush(PreparedStatement stmt, int pending) throws SQLException {
+            stmt.executeBatch();
+            conn.commit();
+            return pending;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pendingIncomes > 0) {
+                    incomeRows.addAndGet(flush(incomeStmt, pendingIncomes));
+                }
+                if (pendingExpenses > 0) {
+                    expenseRows.addAndGet(flush(expenseStmt, pendingExpenses));
+                }
+            } finally {
+                incomeStmt.close();
+                expenseStmt.close();
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Tab-separated chunk files, optionally bulk loaded as each fills up
+     */
+    private class FileSink implements RowSink {
+        private final int worker;
+        private final boolean load;
+        private final ChunkWriter incomes;
+        private final ChunkWriter expenses;
+
+        FileSink(int worker, boolean load) throws IOException {
+            this.worker = worker;
+            this.load = load;
+            this.incomes = new ChunkWriter("incomes", incomeRows);
+            this.expenses = new ChunkWriter("expenses", expenseRows);
+        }
+
+        @Override
+        public void income(int userId, String category, long cents, LocalDate date, String notes) throws IOException, SQLException {
+            incomes.write(userId, category, cents, date, notes);
+        }
+
+        @Override
+        public void expense(int userId, String category, long cents, LocalDate date, String notes) throws IOException, SQLException {
+            expenses.write(userId, category, cents, date, notes);
+        }
+
+        @Override
+        public void close() throws IOException, SQLException {
+            incomes.finish();
+            expenses.finish();
+        }
+
+        private class ChunkWriter {
+            private final String table;
+            private final AtomicLong counter;
+            private int chunk;
+            private int rows;
+            private File file;
+            private BufferedWriter writer;
+            private final StringBuilder line = new StringBuilder(128);
+
+            ChunkWriter(String table, AtomicLong counter) {
+                this.table = table;
+                this.counter = counter;
+            }
+
+            void write(int userId, String category, long cents, LocalDate date, String notes) throws IOException, SQLException {
+                if (writer == null) {
+                    file = new File(outputDir, String.format("%s_w%02d_%05d.tsv", table, worker, chunk++));
+                    writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+                }
+                line.setLength(0);
+                line.append(userId).append('\t').append(category).append('\t')
+                    .append(formatCents(cents)).append('\t').append(date).append('\t')
+                    .append(notes == null ? "\\N" : notes).append('\n');
+                writer.write(line.toString());
+                if (++rows >= chunkRows) {
+                    finish();
+                }
+            }
+
+            void finish() throws IOException, SQLException {
+                if (writer == null) {
+                    return;
+                }
+                writer.close();
+                writer = null;
+                if (load) {
+                    loadFile(file, table);
+                    Files.delete(file.toPath());
+                }
+                counter.addAndGet(rows);
+                rows = 0;
+            }
+        }
+    }
+
+    private void loadFile(File file, String table) throws SQLException {
+        String path = file.getAbsolutePath().replace('\\', '/').replace("'", "\\'");
+        String sql = "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table +
+                     " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n'" +
+                     " (user_id, category, amount, date, notes)";
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Prints row counts and throughput every few seconds
+     */
+    private class ScheduledProgress {
+        private final long startNanos;
+        private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor();
+
+        ScheduledProgress(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void start() {
+            timer.scheduleAtFixedRate(() -> {
+                double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+                long total = incomeRows.get() + expenseRows.get();
+                System.out.printf("  %6.0f s  %,15d rows  %,12.0f rows/s%n", seconds, total, total / seconds);
+            }, 5, 5, TimeUnit.SECONDS);
+        }
+
+        void stop() {
+            timer.shutdownNow();
+        }
+    }
+}
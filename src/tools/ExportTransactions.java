@@ -0,0 +1,100 @@
+package tools;
+
+import dao.ExpenseDAO;
+import dao.IncomeDAO;
+import db.DatabaseConnection;
+import model.Expense;
+import model.Income;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exports a user's full income and expense history to CSV
+ * Rows are streamed from the database through a server-side cursor and
+ * written as they arrive, so memory stays flat however long the history is
+ * (set db.fetchSize to trade round trips for memory).
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.ExportTransactions
+ *          --user=ID [--out=transactions.csv]
+ */
+public class ExportTransactions {
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        if (!options.containsKey("user")) {
+            System.err.println("Usage: tools.ExportTransactions --user=ID [--out=transactions.csv]");
+            System.exit(1);
+        }
+        int userId = Integer.parseInt(options.get("user"));
+        String out = options.getOrDefault("out", "transactions.csv");
+
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        if (!dbConnection.testConnection()) {
+            System.err.println("Export needs a running database, aborting.");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+            writer.write("kind,id,date,category,amount,notes\n");
+            try (Stream<Income> incomes = new IncomeDAO().streamIncomes(userId)) {
+                incomes.forEach(income -> {
+                    writeRow(writer, "income", income.getIncomeId(), income.getDate().toString(),
+                        income.getCategory(), income.getAmount().toPlainString(), income.getNotes());
+                    rows[0]++;
+                });
+            }
+            try (Stream<Expense> expenses = new ExpenseDAO().streamExpenses(userId)) {
+                expenses.forEach(expense -> {
+                    writeRow(writer, "expense", expense.getExpenseId(), expense.getDate().toString(),
+                        expense.getCategory(), expense.getAmount().toPlainString(), expense.getNotes());
+                    rows[0]++;
+                });
+            }
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.out.printf("Exported %,d rows for user %d to %s in %.1f s (heap in use %,d KB)%n",
+            rows[0], userId, out, (System.nanoTime() - start) / 1e9,
+            (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024);
+        dbConnection.closeConnection();
+    }
+
+    private static void writeRow(BufferedWriter writer, String kind, int id, String date, String category,
+                                 String amount, String notes) {
+        try {
+            writer.write(kind + "," + id + "," + date + "," + csv(category) + "," + amount + "," +
+                         (notes == null ? "" : csv(notes)) + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Quote a field if it contains a comma, quote or line break
+     */
+    private static String csv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
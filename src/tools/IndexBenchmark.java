@@ -0,0 +1,211 @@
+package tools;
+
+import db.DatabaseConnection;
+import db.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Times typical totals and list queries before and after the V001 indexes
+ * Each query runs once with the indexes from migrations/V001 hidden by
+ * IGNORE INDEX, which leaves the original (user_id, date) index, and once as
+ * the optimizer plans it with them. Both run on the same data and
+ * connection, alternating so caches warm up evenly. The EXPLAIN of the
+ * "after" plan shows the chosen index and whether it covers the query.
+ *
+ * Use a long history so the difference is visible, e.g. generate one with
+ *   tools.DataGenerator --users=1 --years=20
+ * and pass the generated user's ID.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.IndexBenchmark
+ *          --user=ID [--runs=20] [--warmup=3] [--migrate]
+ */
+public class IndexBenchmark {
+    private static final String[] NEW_INDEXES = {
+        "idx_expenses_user_date_category_amount",
+        "idx_expenses_user_category_date",
+        "idx_expenses_user_amount"
+    };
+
+    /**
+     * One benchmark query; %s is replaced by the index hint
+     */
+    private static final class Query {
+        final String name;
+        final String sql;
+        final int dateParams;
+
+        Query(String name, String sql, int dateParams) {
+            this.name = name;
+            this.sql = sql;
+            this.dateParams = dateParams;
+        }
+    }
+
+    private static final List<Query> QUERIES = List.of(
+        new Query("Lifetime totals by category",
+            "SELECT category, SUM(amount) FROM expenses %s WHERE user_id = ? GROUP BY category", 0),
+        new Query("Total for last year",
+            "SELECT SUM(amount) FROM expenses %s WHERE user_id = ? AND date >= ? AND date < ?", 2),
+        new Query("Food total for last year",
+            "SELECT SUM(amount) FROM expenses %s WHERE user_id = ? AND date >= ? AND date < ? " +
+            "AND category = 'Food'", 2),
+        new Query("Monthly totals by category",
+            "SELECT YEAR(date), MONTH(date), category, SUM(amount) FROM expenses %s WHERE user_id = ? " +
+            "GROUP BY YEAR(date), MONTH(date), category", 0),
+        new Query("Daily totals by category",
+            "SELECT date, category, SUM(amount) FROM expenses %s WHERE user_id = ? GROUP BY date, category", 0),
+        new Query("Largest 500 expenses",
+            "SELECT expense_id, category, amount, date FROM expenses %s WHERE user_id = ? " +
+            "ORDER BY amount DESC, expense_id DESC LIMIT 500", 0),
+        new Query("Latest 500 Food expenses",
+            "SELECT expense_id, category, amount, date FROM expenses %s WHERE user_id = ? " +
+            "AND category = 'Food' ORDER BY date DESC, expense_id DESC LIMIT 500", 0)
+    );
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (arg.startsWith("--")) {
+                options.put(arg.substring(2), "true");
+            }
+        }
+        if (!options.containsKey("user")) {
+            System.err.println("Usage: tools.IndexBenchmark --user=ID [--runs=20] [--warmup=3] [--migrate]");
+            System.exit(1);
+        }
+        int userId = Integer.parseInt(options.get("user"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "20"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        if (!dbConnection.testConnection()) {
+            System.err.println("Benchmark needs a running database, aborting.");
+            System.exit(1);
+        }
+        if (options.containsKey("migrate") && !new SchemaMigrator().migrate()) {
+            System.err.println("Migration failed, aborting.");
+            System.exit(1);
+        }
+
+        LocalDate to = LocalDate.now().plusDays(1);
+        Date from = Date.valueOf(to.minusYears(1));
+        String hidden = "IGNORE INDEX (" + String.join(", ", NEW_INDEXES) + ")";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            Set<String> missing = missingIndexes(conn);
+            if (!missing.isEmpty()) {
+                System.err.println("Missing indexes " + missing + "; run with --migrate or start the app once.");
+                System.exit(1);
+            }
+            System.out.printf("User %d, %,d expenses, %d runs per query (%d warm-up)%n%n",
+                userId, countRows(conn, userId), runs, warmup);
+            System.out.printf("%-30s %12s %12s %9s   %s%n", "Query", "before p50", "after p50", "speed-up", "after plan");
+
+            for (Query query : QUERIES) {
+                try (PreparedStatement before = conn.prepareStatement(String.format(query.sql, hidden));
+                     PreparedStatement after = conn.prepareStatement(String.format(query.sql, ""))) {
+
+                    bind(before, query, userId, from, Date.valueOf(to));
+                    bind(after, query, userId, from, Date.valueOf(to));
+                    LatencyHistogram beforeLatency = new LatencyHistogram();
+                    LatencyHistogram afterLatency = new LatencyHistogram();
+                    for (int run = 0; run < warmup + runs; run++) {
+                        long beforeNanos = time(before);
+                        long afterNanos = time(after);
+                        if (run >= warmup) {
+                            beforeLatency.record(beforeNanos);
+                            afterLatency.record(afterNanos);
+                        }
+                    }
+
+                    double beforeMillis = beforeLatency.percentileMillis(50);
+                    double afterMillis = afterLatency.percentileMillis(50);
+                    System.out.printf("%-30s %9.2f ms %9.2f ms %8.1fx   %s%n", query.name,
+                        beforeMillis, afterMillis, beforeMillis / afterMillis,
+                        explain(conn, query, userId, from, Date.valueOf(to)));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+            System.exit(1);
+        }
+        dbConnection.closeConnection();
+    }
+
+    private static void bind(PreparedStatement pstmt, Query query, int userId, Date from, Date to)
+            throws SQLException {
+        pstmt.setInt(1, userId);
+        if (query.dateParams == 2) {
+            pstmt.setDate(2, from);
+            pstmt.setDate(3, to);
+        }
+    }
+
+    /**
+     * Run a query and read every row, as the application would
+     */
+    private static long time(PreparedStatement pstmt) throws SQLException {
+        long start = System.nanoTime();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                rs.getObject(1);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Index and covering flag of the planned query, from EXPLAIN
+     */
+    private static String explain(Connection conn, Query query, int userId, Date from, Date to)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + String.format(query.sql, ""))) {
+            bind(pstmt, query, userId, from, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return "";
+                }
+                String extra = rs.getString("Extra");
+                boolean covered = extra != null && extra.contains("Using index");
+                boolean sorted = extra != null && extra.contains("Using filesort");
+                return rs.getString("key") + (covered ? ", covering" : "") + (sorted ? ", filesort" : "");
+            }
+        }
+    }
+
+    private static Set<String> missingIndexes(Connection conn) throws SQLException {
+        Set<String> missing = new HashSet<>(List.of(NEW_INDEXES));
+        String sql = "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'expenses'";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                missing.remove(rs.getString(1));
+            }
+        }
+        return missing;
+    }
+
+    private static long countRows(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM expenses WHERE user_id = ?")) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
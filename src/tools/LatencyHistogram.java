@@ -0,0 +1,100 @@
+package tools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets
+ * Each power-of-two range is split into 16 sub-buckets, which keeps the
+ * relative error of reported percentiles under ~6% from 1 µs to minutes.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MIN_NANOS = 1_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Record one latency sample
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketIndex(Math.max(nanos, MIN_NANOS)));
+        total.increment();
+    }
+
+    /**
+     * Number of recorded samples
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Latency at the given percentile
+     * @param percentile Percentile in the range 0-100
+     * @return Upper bound of the matching bucket in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        long n = count();
+        if (n == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) {
+                return bucketUpperBound(i) / 1_000_000.0;
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1) / 1_000_000.0;
+    }
+
+    /**
+     * Add all samples of another histogram to this one
+     */
+    public void add(LatencyHistogram other) {
+        long added = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+                added += c;
+            }
+        }
+        total.add(added);
+    }
+
+    /**
+     * Clear all samples
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+    }
+
+    private static int bucketIndex(long nanos) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) nanos;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,418 @@
+package tools;
+
+import dao.ExpenseDAO;
+import dao.IncomeDAO;
+import dao.UserDAO;
+import db.DatabaseConnection;
+import model.Categories;
+import model.Expense;
+import model.Income;
+import model.User;
+import service.FinanceService;
+import service.RequestExecutor;
+import service.RollupService;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load-generation and soak-test harness
+ * Creates a population of synthetic users with realistic histories, then
+ * drives a mixed workload at a fixed target rate and reports throughput
+ * and p50/p99/p99.9 latency per interval.
+ *
+ * Latency is measured from each request's scheduled start time, so a
+ * stalled database shows up as queueing delay instead of hiding it.
+ *
+ * Runs against whatever config.properties points at; use
+ * -Dfinance.config=other.properties to target a separate MySQL-compatible
+ * instance or an embedded stand-in whose JDBC driver is on the classpath.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.LoadGenerator
+ *          [--users=100] [--months=12] [--rate=200] [--duration=60]
+ *          [--interval=10] [--max-inflight=5000] [--seed=42] [--keep]
+ */
+public class LoadGenerator {
+
+    /**
+     * Workload mix; weights are relative
+     */
+    private enum Operation {
+        LOGIN(5), ADD(30), DELETE(10), SUMMARY(35), MONTHLY_SUMMARY(20);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A generated account and the rows it has inserted during the run
+     */
+    private static class SyntheticUser {
+        final int userId;
+        final String username;
+        final ConcurrentLinkedDeque<Income> incomes = new ConcurrentLinkedDeque<>();
+        final ConcurrentLinkedDeque<Expense> expenses = new ConcurrentLinkedDeque<>();
+
+        SyntheticUser(int userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+    }
+
+    private static final String PASSWORD = "loadgen123";
+
+    private final int userCount;
+    private final int months;
+    private final int rate;
+    private final int durationSeconds;
+    private final int intervalSeconds;
+    private final int maxInFlight;
+    private final long seed;
+    private final boolean keepUsers;
+
+    private final UserDAO userDAO = new UserDAO();
+    private final IncomeDAO incomeDAO = new IncomeDAO();
+    private final ExpenseDAO expenseDAO = new ExpenseDAO();
+    private final FinanceService financeService = new FinanceService();
+    private final RequestExecutor executor = RequestExecutor.getInstance();
+
+    private final Map<Operation, LatencyHistogram> intervalLatency = new EnumMap<>(Operation.class);
+    private final Map<Operation, LatencyHistogram> totalLatency = new EnumMap<>(Operation.class);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public LoadGenerator(Map<String, String> options) {
+        this.userCount = Integer.parseInt(options.getOrDefault("users", "100"));
+        this.months = Integer.parseInt(options.getOrDefault("months", "12"));
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.intervalSeconds = Integer.parseInt(options.getOrDefault("interval", "10"));
+        this.maxInFlight = Integer.parseInt(options.getOrDefault("max-inflight", "5000"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        this.keepUsers = options.containsKey("keep");
+
+        for (Operation op : Operation.values()) {
+            intervalLatency.put(op, new LatencyHistogram());
+            totalLatency.put(op, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                if (eq > 0) {
+                    options.put(arg.substring(2, eq), arg.substring(eq + 1));
+                } else {
+                    options.put(arg.substring(2), "true");
+                }
+            }
+        }
+
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        if (!db.testConnection()) {
+            System.err.println("Load generator needs a running database, aborting.");
+            System.exit(1);
+        }
+        // Writes below go through the DAOs; keep the chart rollups in step
+        RollupService.getInstance().start();
+
+        LoadGenerator generator = new LoadGenerator(options);
+        List<SyntheticUser> users = generator.createUsers();
+        if (users.isEmpty()) {
+            System.err.println("No synthetic users could be created, aborting.");
+            System.exit(1);
+        }
+        generator.generateHistories(users);
+        generator.runWorkload(users);
+        if (!generator.keepUsers) {
+            generator.deleteUsers(users);
+        }
+
+        RequestExecutor.getInstance().shutdown(10);
+        db.closeConnection();
+    }
+
+    /**
+     * Register the synthetic population through UserDAO
+     */
+    private List<SyntheticUser> createUsers() {
+        String prefix = "loadgen_" + Long.toString(System.currentTimeMillis(), 36) + "_";
+        System.out.printf("Creating %,d synthetic users...%n", userCount);
+
+        List<CompletableFuture<SyntheticUser>> futures = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String username = prefix + i;
+            futures.add(executor.submit(() -> {
+                if (!userDAO.registerUser(username, PASSWORD)) {
+                    return null;
+                }
+                User user = userDAO.loginUser(username, PASSWORD);
+                return user == null ? null : new SyntheticUser(user.getUserId(), username);
+            }));
+        }
+
+        List<SyntheticUser> users = new ArrayList<>(userCount);
+        for (CompletableFuture<SyntheticUser> future : futures) {
+            SyntheticUser user = future.join();
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Give each user a seeded, realistic history: monthly salary and rent,
+     * regular food and utility spend, and occasional long-tail purchases
+     */
+    private void generateHistories(List<SyntheticUser> users) {
+        System.out.printf("Generating %d months of history per user...%n", months);
+        AtomicInteger rows = new AtomicInteger();
+        long startNanos = System.nanoTime();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(users.size());
+        for (SyntheticUser user : users) {
+            futures.add(executor.run(() -> rows.addAndGet(generateHistory(user))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        System.out.printf("Inserted %,d history rows in %.1f s%n", rows.get(), seconds);
+    }
+
+    private int generateHistory(SyntheticUser user) {
+        Random random = new Random(seed ^ user.userId);
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1L);
+        double salary = 30_000 + random.nextInt(90_000);
+        double rent = salary * (0.2 + random.nextDouble() * 0.15);
+        int rows = 0;
+
+        for (int m = 0; m < months; m++) {
+            LocalDate month = firstMonth.plusMonths(m);
+            int days = month.lengthOfMonth();
+
+            rows += addIncome(user.userId, "Salary", salary, month.withDayOfMonth(Math.min(5, days)), "Monthly salary");
+            if (random.nextInt(4) == 0) {
+                rows += addIncome(user.userId, "Freelance", salary * (0.1 + random.nextDouble() * 0.3),
+                    month.withDayOfMonth(1 + random.nextInt(days)), "Side project");
+            }
+            if (month.getMonthValue() == 12 || month.getMonthValue() == 3) {
+                rows += addIncome(user.userId, "Bonus", salary * random.nextDouble(), month.withDayOfMonth(20), "Bonus");
+            }
+
+            rows += addExpense(user.userId, "Rent", rent, month, "Monthly rent");
+            rows += addExpense(user.userId, "Utilities", 1_500 + random.nextInt(2_500),
+                month.withDayOfMonth(Math.min(10, days)), "Electricity and water");
+            for (int week = 0; week < 4; week++) {
+                rows += addExpense(user.userId, "Food", 1_800 + random.nextGaussian() * 400,
+                    month.withDayOfMonth(1 + Math.min(days - 1, week * 7 + random.nextInt(7))), "Groceries");
+            }
+            int extras = random.nextInt(5);
+            for (int e = 0; e < extras; e++) {
+                String category = Categories.EXPENSE[random.nextInt(Categories.EXPENSE.length)];
+                // Log-normal amounts give the long tail of occasional large purchases
+                double amount = Math.exp(6.5 + random.nextGaussian() * 1.1);
+                rows += addExpense(user.userId, category, amount,
+                    month.withDayOfMonth(1 + random.nextInt(days)), null);
+            }
+        }
+        return rows;
+    }
+
+    private int addIncome(int userId, String category, double amount, LocalDate date, String notes) {
+        Income income = new Income(userId, category, money(amount), Date.valueOf(date), notes);
+        return incomeDAO.addIncome(income) ? 1 : 0;
+    }
+
+    private int addExpense(int userId, String category, double amount, LocalDate date, String notes) {
+        Expense expense = new Expense(userId, category, money(amount), Date.valueOf(date), notes);
+        return expenseDAO.addExpense(expense) ? 1 : 0;
+    }
+
+    private static BigDecimal money(double amount) {
+        return BigDecimal.valueOf(Math.max(1.0, Math.round(amount * 100) / 100.0));
+    }
+
+    /**
+     * Issue requests at the target rate and report each interval
+     */
+    private void runWorkload(List<SyntheticUser> users) {
+        System.out.printf("Driving %,d req/s for %d s (interval %d s)...%n%n", rate, durationSeconds, intervalSeconds);
+        System.out.println("  time      ops       ops/s   errors  dropped   p50 ms   p99 ms  p999 ms");
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long periodNanos = 1_000_000_000L / Math.max(1, rate);
+        long intervalNanos = intervalSeconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        long end = start + durationSeconds * 1_000_000_000L;
+        long nextReport = start + intervalNanos;
+        int totalWeight = 0;
+        for (Operation op : Operation.values()) {
+            totalWeight += op.weight;
+        }
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * periodNanos;
+            if (intended >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (now >= nextReport) {
+                report(now - start);
+                nextReport += intervalNanos;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            SyntheticUser user = users.get(random.nextInt(users.size()));
+            Operation op = pick(random.nextInt(totalWeight));
+
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            executor.run(() -> {
+                try {
+                    execute(op, user);
+                } catch (RuntimeException e) {
+                    errors.increment();
+                } finally {
+                    long latency = System.nanoTime() - intended;
+                    intervalLatency.get(op).record(latency);
+                    inFlight.release();
+                }
+            });
+        }
+
+        // Let in-flight requests drain before the final report
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+        report(System.nanoTime() - start);
+        printTotals(System.nanoTime() - start);
+    }
+
+    private static Operation pick(int roll) {
+        for (Operation op : Operation.values()) {
+            roll -= op.weight;
+            if (roll < 0) {
+                return op;
+            }
+        }
+        return Operation.SUMMARY;
+    }
+
+    private void execute(Operation op, SyntheticUser user) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (op) {
+            case LOGIN:
+                if (userDAO.loginUser(user.username, PASSWORD) == null) {
+                    errors.increment();
+                }
+                break;
+            case ADD:
+                Date today = Date.valueOf(LocalDate.now());
+                if (random.nextInt(4) == 0) {
+                    Income income = new Income(user.userId,
+                        Categories.INCOME[random.nextInt(Categories.INCOME.length)],
+                        money(500 + random.nextInt(20_000)), today, "load");
+                    if (incomeDAO.addIncome(income)) {
+                        user.incomes.push(income);
+                    } else {
+                        errors.increment();
+                    }
+                } else {
+                    Expense expense = new Expense(user.userId,
+                        Categories.EXPENSE[random.nextInt(Categories.EXPENSE.length)],
+                        money(Math.exp(6.0 + random.nextGaussian())), today, "load");
+                    if (expenseDAO.addExpense(expense)) {
+                        user.expenses.push(expense);
+                    } else {
+                        errors.increment();
+                    }
+                }
+                break;
+            case DELETE:
+                Expense expense = user.expenses.poll();
+                if (expense != null) {
+                    if (!expenseDAO.deleteExpense(expense.getExpenseId(), expense.getDate())) {
+                        errors.increment();
+                    }
+                } else {
+                    Income income = user.incomes.poll();
+                    if (income != null && !incomeDAO.deleteIncome(income.getIncomeId(), income.getDate())) {
+                        errors.increment();
+                    }
+                }
+                break;
+            case SUMMARY:
+                financeService.getFinancialSummary(user.userId);
+                break;
+            case MONTHLY_SUMMARY:
+                LocalDate now = LocalDate.now();
+                financeService.getMonthlySummary(user.userId, now.getMonthValue(), now.getYear());
+                break;
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Operation op : Operation.values()) {
+            LatencyHistogram interval = intervalLatency.get(op);
+            merged.add(interval);
+            totalLatency.get(op).add(interval);
+            interval.reset();
+        }
+        System.out.printf("%5ds %9d %11.1f %8d %8d %8.2f %8.2f %8.2f%n",
+            elapsedNanos / 1_000_000_000L, merged.count(), merged.count() / (double) intervalSeconds,
+            errors.sum(), dropped.sum(),
+            merged.percentileMillis(50), merged.percentileMillis(99), merged.percentileMillis(99.9));
+    }
+
+    private void printTotals(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.println();
+        System.out.println("══════════════ Totals by operation ══════════════");
+        System.out.println("operation              ops     ops/s   p50 ms   p99 ms  p999 ms");
+        for (Operation op : Operation.values()) {
+            LatencyHistogram h = totalLatency.get(op);
+            System.out.printf("%-16s %9d %9.1f %8.2f %8.2f %8.2f%n", op, h.count(), h.count() / seconds,
+                h.percentileMillis(50), h.percentileMillis(99), h.percentileMillis(99.9));
+        }
+        System.out.printf("errors=%d dropped=%d%n", errors.sum(), dropped.sum());
+        System.out.println("Pool: " + DatabaseConnection.getInstance().getPoolStats());
+    }
+
+    /**
+     * Remove the synthetic population together with their transactions
+     */
+    private void deleteUsers(List<SyntheticUser> users) {
+        int removed = 0;
+        for (SyntheticUser user : users) {
+            if (userDAO.deleteUser(user.userId)) {
+                removed++;
+            }
+        }
+        System.out.printf("Removed %,d synthetic users%n", removed);
+    }
+}
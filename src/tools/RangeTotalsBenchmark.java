@@ -0,0 +1,138 @@
+package tools;
+
+import dao.ExpenseDAO;
+import dao.TimeSeriesDAO;
+import db.DatabaseConnection;
+import model.Categories;
+import service.RangeTotalsIndex;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares date-range totals from the in-memory range index with SQL SUM
+ * Runs the same random ranges (whole history, any category or one) through
+ * both paths after a warm-up, checks that the answers agree and reports
+ * per-query cost. Also times a year of rolling 30-day totals, which the
+ * index answers with two prefix sums per day.
+ *
+ * Index queries take well under the histogram's 1 µs floor, so the index
+ * is reported as an average over the whole run.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.RangeTotalsBenchmark
+ *          --user=ID [--queries=2000] [--warmup=200] [--seed=42]
+ */
+public class RangeTotalsBenchmark {
+    private static final int INDEX_REPEATS = 1_000;
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        if (!options.containsKey("user")) {
+            System.err.println("Usage: tools.RangeTotalsBenchmark --user=ID [--queries=2000] [--warmup=200] [--seed=42]");
+            System.exit(1);
+        }
+        int userId = Integer.parseInt(options.get("user"));
+        int queries = Integer.parseInt(options.getOrDefault("queries", "2000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "200"));
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+
+        if (!DatabaseConnection.getInstance().testConnection()) {
+            System.err.println("Benchmark needs a running database, aborting.");
+            System.exit(1);
+        }
+        LocalDate first = new TimeSeriesDAO().getFirstDate(userId);
+        if (first == null) {
+            System.err.println("User " + userId + " has no transactions, aborting.");
+            System.exit(1);
+        }
+        LocalDate end = LocalDate.now().plusDays(1);
+        int span = (int) (end.toEpochDay() - first.toEpochDay());
+
+        ExpenseDAO expenseDAO = new ExpenseDAO();
+        RangeTotalsIndex index = RangeTotalsIndex.getInstance();
+
+        long buildStart = System.nanoTime();
+        index.getTotal(userId, "expense", null, first, end);
+        System.out.printf("Index build for user %d (%,d days): %.1f ms%n",
+            userId, span, (System.nanoTime() - buildStart) / 1e6);
+
+        // Same ranges for both paths
+        LocalDate[] froms = new LocalDate[queries];
+        LocalDate[] tos = new LocalDate[queries];
+        String[] categories = new String[queries];
+        for (int q = 0; q < queries; q++) {
+            int a = random.nextInt(span + 1);
+            int b = random.nextInt(span + 1);
+            froms[q] = first.plusDays(Math.min(a, b));
+            tos[q] = first.plusDays(Math.max(a, b));
+            categories[q] = random.nextBoolean()
+                ? null : Categories.EXPENSE[random.nextInt(Categories.EXPENSE.length)];
+        }
+
+        for (int q = 0; q < Math.min(warmup, queries); q++) {
+            sqlTotal(expenseDAO, userId, categories[q], froms[q], tos[q]);
+        }
+        LatencyHistogram sqlLatency = new LatencyHistogram();
+        BigDecimal[] sqlTotals = new BigDecimal[queries];
+        long sqlStart = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            long start = System.nanoTime();
+            sqlTotals[q] = sqlTotal(expenseDAO, userId, categories[q], froms[q], tos[q]);
+            sqlLatency.record(System.nanoTime() - start);
+        }
+        double sqlMicros = (System.nanoTime() - sqlStart) / 1e3 / queries;
+
+        int mismatches = 0;
+        for (int q = 0; q < queries; q++) {
+            BigDecimal total = index.getTotal(userId, "expense", categories[q], froms[q], tos[q]);
+            if (total.compareTo(sqlTotals[q]) != 0) {
+                mismatches++;
+            }
+        }
+
+        long checksum = 0;
+        for (int r = 0; r < Math.max(1, INDEX_REPEATS / 10); r++) {
+            for (int q = 0; q < queries; q++) {
+                checksum += index.getTotal(userId, "expense", categories[q], froms[q], tos[q]).unscaledValue().longValue();
+            }
+        }
+        long indexStart = System.nanoTime();
+        for (int r = 0; r < INDEX_REPEATS; r++) {
+            for (int q = 0; q < queries; q++) {
+                checksum += index.getTotal(userId, "expense", categories[q], froms[q], tos[q]).unscaledValue().longValue();
+            }
+        }
+        double indexMicros = (System.nanoTime() - indexStart) / 1e3 / ((double) queries * INDEX_REPEATS);
+
+        LocalDate yearAgo = end.minusYears(1);
+        long rollingStart = System.nanoTime();
+        long[] rolling = index.getRollingTotals(userId, "expense", yearAgo, end, 30);
+        double rollingMillis = (System.nanoTime() - rollingStart) / 1e6;
+
+        System.out.printf("%nRandom ranges:     %,d (%d warm-up)%n", queries, warmup);
+        System.out.printf("SQL SUM:           %10.1f µs/query  p50 %.2f ms  p99 %.2f ms  p99.9 %.2f ms%n",
+            sqlMicros, sqlLatency.percentileMillis(50), sqlLatency.percentileMillis(99),
+            sqlLatency.percentileMillis(99.9));
+        System.out.printf("Range index:       %10.3f µs/query  (%,d repeats, checksum %d)%n",
+            indexMicros, INDEX_REPEATS, checksum);
+        System.out.printf("Speed-up:          %10.0fx%n", sqlMicros / indexMicros);
+        System.out.printf("Mismatches:        %10d%n", mismatches);
+        System.out.printf("Rolling 30 days:   %10.2f ms for %d days%n",
+            rollingMillis, rolling != null ? rolling.length : 0);
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    private static BigDecimal sqlTotal(ExpenseDAO dao, int userId, String category, LocalDate from, LocalDate to) {
+        return dao.getExpenseTotalBetween(userId, Date.valueOf(from), Date.valueOf(to), category);
+    }
+}
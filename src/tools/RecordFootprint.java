@@ -0,0 +1,109 @@
+package tools;
+
+import model.Categories;
+import model.Expense;
+import model.TransactionRecord;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Measures heap per row for Expense beans and TransactionRecords
+ * Builds the same synthetic rows both ways, with a fresh String for every
+ * category and note as the JDBC driver returns them, and reports the retained
+ * heap after a full GC. Run with a fixed heap so the GC settles, e.g.
+ *   java -Xms2g -Xmx2g -cp bin tools.RecordFootprint --rows=1000000
+ *
+ * Usage: java -cp bin tools.RecordFootprint [--rows=1000000] [--seed=42]
+ */
+public class RecordFootprint {
+    private static final String[] NOTES = {
+        null, "", "Weekly shop", "Monthly rent", "Coffee", "Fuel", "Lunch with team",
+        "Online order", "Subscription", "Gift"
+    };
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        long baseline = usedHeap();
+        List<Expense> beans = beans(rows, new SplittableRandom(seed));
+        long beanBytes = usedHeap() - baseline;
+        System.out.printf("Expense beans:       %,d rows, %,d bytes, %.1f bytes/row%n",
+            beans.size(), beanBytes, (double) beanBytes / rows);
+        beans = null;
+
+        baseline = usedHeap();
+        List<TransactionRecord> records = records(rows, new SplittableRandom(seed));
+        long recordBytes = usedHeap() - baseline;
+        System.out.printf("TransactionRecords:  %,d rows, %,d bytes, %.1f bytes/row%n",
+            records.size(), recordBytes, (double) recordBytes / rows);
+        System.out.printf("Records use %.1f%% of the bean heap (%.1fx smaller)%n",
+            100.0 * recordBytes / beanBytes, (double) beanBytes / recordBytes);
+    }
+
+    private static List<Expense> beans(int rows, SplittableRandom random) {
+        List<Expense> beans = new ArrayList<>(rows);
+        LocalDate start = LocalDate.now().minusYears(20);
+        for (int i = 0; i < rows; i++) {
+            Expense expense = new Expense(1, category(random), amount(random),
+                Date.valueOf(start.plusDays(random.nextInt(7300))), note(random));
+            expense.setExpenseId(i + 1);
+            expense.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+            beans.add(expense);
+        }
+        return beans;
+    }
+
+    private static List<TransactionRecord> records(int rows, SplittableRandom random) {
+        List<TransactionRecord> records = new ArrayList<>(rows);
+        LocalDate start = LocalDate.now().minusYears(20);
+        for (int i = 0; i < rows; i++) {
+            String category = category(random);
+            BigDecimal amount = amount(random);
+            LocalDate date = start.plusDays(random.nextInt(7300));
+            records.add(TransactionRecord.of(i + 1, 1, category, amount, date, note(random)));
+        }
+        return records;
+    }
+
+    private static String category(SplittableRandom random) {
+        return new String(Categories.EXPENSE[random.nextInt(Categories.EXPENSE.length)]);
+    }
+
+    private static BigDecimal amount(SplittableRandom random) {
+        return BigDecimal.valueOf(random.nextLong(100, 50_000_00), 2);
+    }
+
+    private static String note(SplittableRandom random) {
+        String note = NOTES[random.nextInt(NOTES.length)];
+        return note == null ? null : new String(note);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,159 @@
+package tools;
+
+import dao.RecurringRuleDAO;
+import db.DatabaseConnection;
+import db.SchemaMigrator;
+import model.Granularity;
+import model.RecurringRule;
+import service.RecurringScheduler;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the recurring scheduler catching up on years of missed occurrences
+ * Gives each of the first --users accounts (e.g. from tools.DataGenerator)
+ * a monthly salary, monthly rent, a fortnightly and a weekly expense, all
+ * starting --years ago, then runs the scheduler twice: the first run writes
+ * everything, the second must write nothing. Finally it checks that no
+ * rule produced the same day twice. Run against a test database; the rules
+ * and their rows are removed afterwards unless --keep is given.
+ *
+ * Usage: java -cp "bin;lib/mysql-connector-j.jar" tools.RecurringCatchUpBenchmark
+ *          [--users=1000] [--years=5] [--keep] [--migrate]
+ */
+public class RecurringCatchUpBenchmark {
+    private static final String NOTE = "catch-up benchmark";
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 0) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (arg.startsWith("--")) {
+                options.put(arg.substring(2), "true");
+            }
+        }
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int years = Integer.parseInt(options.getOrDefault("years", "5"));
+
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        if (!dbConnection.testConnection()) {
+            System.err.println("Benchmark needs a running database, aborting.");
+            System.exit(1);
+        }
+        if (options.containsKey("migrate") && !new SchemaMigrator().migrate()) {
+            System.err.println("Migration failed, aborting.");
+            System.exit(1);
+        }
+        RecurringRuleDAO recurringRuleDAO = new RecurringRuleDAO();
+        if (!recurringRuleDAO.isAvailable()) {
+            System.err.println("Recurring rules are not installed; run with --migrate or start the app once.");
+            System.exit(1);
+        }
+
+        try {
+            List<Integer> userIds = firstUsers(dbConnection, users);
+            Date start = Date.valueOf(LocalDate.now().minusYears(years));
+            long setup = System.nanoTime();
+            for (int userId : userIds) {
+                addRule(recurringRuleDAO, userId, "income", "Salary", "85000.00", Granularity.MONTH, 1, start);
+                addRule(recurringRuleDAO, userId, "expense", "Rent", "25000.00", Granularity.MONTH, 1, start);
+                addRule(recurringRuleDAO, userId, "expense", "Utilities", "1200.00", Granularity.WEEK, 2, start);
+                addRule(recurringRuleDAO, userId, "expense", "Food", "3000.00", Granularity.WEEK, 1, start);
+            }
+            System.out.printf("Created %,d rules for %,d users in %.1f s%n", userIds.size() * 4, userIds.size(),
+                (System.nanoTime() - setup) / 1e9);
+
+            RecurringScheduler scheduler = RecurringScheduler.getInstance();
+            long first = System.nanoTime();
+            int written = scheduler.runDue();
+            double seconds = (System.nanoTime() - first) / 1e9;
+            System.out.printf("Catch-up: %,d transactions in %.2f s (%,.0f rows/s)%n",
+                written, seconds, written / seconds);
+
+            long second = System.nanoTime();
+            int again = scheduler.runDue();
+            System.out.printf("Second run: %,d transactions in %.1f ms%n", again, (System.nanoTime() - second) / 1e6);
+
+            long duplicates = countDuplicates(dbConnection);
+            System.out.println(again == 0 && duplicates == 0
+                ? "✓ No duplicate occurrences"
+                : "✗ " + again + " rows written twice, " + duplicates + " duplicate (rule, date) pairs");
+
+            if (!options.containsKey("keep")) {
+                cleanUp(dbConnection);
+            }
+        } catch (SQLException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+            System.exit(1);
+        }
+        dbConnection.closeConnection();
+    }
+
+    private static void addRule(RecurringRuleDAO dao, int userId, String kind, String category, String amount,
+                                Granularity frequency, int interval, Date start) {
+        RecurringRule rule = new RecurringRule(userId, kind, category, new BigDecimal(amount), NOTE,
+                                               frequency, interval, start);
+        if (!dao.addRule(rule)) {
+            throw new IllegalStateException("Could not add rule for user " + userId);
+        }
+    }
+
+    private static List<Integer> firstUsers(DatabaseConnection dbConnection, int count) throws SQLException {
+        List<Integer> userIds = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT user_id FROM users ORDER BY user_id LIMIT ?")) {
+            pstmt.setInt(1, count);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    userIds.add(rs.getInt(1));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private static long countDuplicates(DatabaseConnection dbConnection) throws SQLException {
+        long duplicates = 0;
+        try (Connection conn = dbConnection.getConnection()) {
+            for (String table : new String[] {"incomes", "expenses"}) {
+                String sql = "SELECT COUNT(*) FROM (SELECT recurring_rule_id, date FROM " + table +
+                             " WHERE recurring_rule_id IS NOT NULL GROUP BY recurring_rule_id, date " +
+                             "HAVING COUNT(*) > 1) AS twice";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    duplicates += rs.getLong(1);
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    private static void cleanUp(DatabaseConnection dbConnection) throws SQLException {
+        try (Connection conn = dbConnection.getConnection()) {
+            for (String table : new String[] {"incomes", "expenses"}) {
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + table +
+                        " WHERE recurring_rule_id IN (SELECT rule_id FROM recurring_rules WHERE notes = ?)")) {
+                    pstmt.setString(1, NOTE);
+                    pstmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM recurring_rules WHERE notes = ?")) {
+                pstmt.setString(1, NOTE);
+                System.out.printf("Removed %,d benchmark rules and their transactions%n", pstmt.executeUpdate());
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package ui;
+
+import event.EventBus;
+import model.Budget;
+import model.BudgetStatus;
+import model.Categories;
+import model.Expense;
+import model.User;
+import service.BudgetService;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Panel for setting monthly category budgets and watching this month's spend
+ * The status comes from BudgetService, which keeps the spend current from
+ * the expense events, so refreshing after every change reads no expenses.
+ */
+public class BudgetPanel extends JPanel {
+    private static final String[] COLUMNS = {"Category", "Limit (₹)", "Spent (₹)", "Remaining (₹)", "Used", "Status"};
+    private static final int STATUS_COLUMN = 5;
+    private static final Color OK_COLOR = new Color(60, 179, 113);
+    private static final Color WARNING_COLOR = new Color(255, 193, 7);
+    private static final Color EXCEEDED_COLOR = new Color(220, 53, 69);
+
+    private User currentUser;
+    private BudgetService budgetService;
+
+    private JComboBox<String> categoryCombo;
+    private JTextField limitField;
+    private JSpinner warnSpinner;
+    private JLabel monthLabel;
+    private DefaultTableModel tableModel;
+    private JTable budgetTable;
+    private int loadGeneration; // guards against out-of-order background loads
+    private EventBus.Subscription subscription;
+
+    public BudgetPanel(User user) {
+        this.currentUser = user;
+        // Taken before subscribing, so the service sees each change before this panel asks
+        this.budgetService = BudgetService.getInstance();
+
+        setLayout(new BorderLayout(10, 10));
+        setBackground(new Color(35, 35, 35));
+        setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        initializeComponents();
+
+        // Refresh the status when expenses change (guests have no budgets)
+        if (currentUser.getUserId() != -1) {
+            subscription = EventBus.getInstance().subscribe(Expense.class,
+                event -> SwingUtilities.invokeLater(this::loadStatus));
+        }
+        loadStatus();
+    }
+
+    @Override
+    public void removeNotify() {
+        // Called when the dashboard is disposed
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        super.removeNotify();
+    }
+
+    private void initializeComponents() {
+        // Top panel for title
+        JPanel titlePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        titlePanel.setBackground(new Color(35, 35, 35));
+        JLabel titleLabel = new JLabel("🎯 Monthly Budgets");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        titlePanel.add(titleLabel);
+        add(titlePanel, BorderLayout.NORTH);
+
+        JPanel centerPanel = new JPanel(new BorderLayout(10, 10));
+        centerPanel.setBackground(new Color(35, 35, 35));
+        centerPanel.add(createFormPanel(), BorderLayout.NORTH);
+        centerPanel.add(createTablePanel(), BorderLayout.CENTER);
+        add(centerPanel, BorderLayout.CENTER);
+    }
+
+    private JPanel createFormPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBackground(new Color(45, 45, 45));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(70, 130, 180), 2),
+            BorderFactory.createEmptyBorder(15, 15, 15, 15)
+        ));
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 10, 5, 10);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        // Category
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        panel.add(createLabel("Category:"), gbc);
+
+        categoryCombo = new JComboBox<>(Categories.EXPENSE);
+        categoryCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        categoryCombo.setBackground(new Color(60, 60, 60));
+        categoryCombo.setForeground(Color.WHITE);
+        gbc.gridx = 1;
+        panel.add(categoryCombo, gbc);
+
+        // Monthly limit
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        panel.add(createLabel("Monthly limit:"), gbc);
+
+        limitField = new JTextField(20);
+        limitField.setFont(new Font("Arial", Font.PLAIN, 14));
+        limitField.setBackground(new Color(60, 60, 60));
+        limitField.setForeground(Color.WHITE);
+        limitField.setCaretColor(Color.WHITE);
+        limitField.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100)),
+            BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+        gbc.gridx = 1;
+        panel.add(limitField, gbc);
+
+        // Warning share
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        panel.add(createLabel("Warn at (% of limit):"), gbc);
+
+        warnSpinner = new JSpinner(new SpinnerNumberModel(80, 1, 100, 5));
+        warnSpinner.setFont(new Font("Arial", Font.PLAIN, 14));
+        gbc.gridx = 1;
+        panel.add(warnSpinner, gbc);
+
+        // Button panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        buttonPanel.setBackground(new Color(45, 45, 45));
+
+        JButton saveButton = createStyledButton("Save Budget", new Color(70, 130, 180));
+        saveButton.addActionListener(e -> handleSaveBudget());
+        buttonPanel.add(saveButton);
+
+        JButton removeButton = createStyledButton("Remove", new Color(220, 53, 69));
+        removeButton.addActionListener(e -> handleRemoveBudget());
+        buttonPanel.add(removeButton);
+
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        panel.add(buttonPanel, gbc);
+
+        boolean signedIn = currentUser.getUserId() != -1;
+        saveButton.setEnabled(signedIn);
+        removeButton.setEnabled(signedIn);
+
+        return panel;
+    }
+
+    private JPanel createTablePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(45, 45, 45));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(70, 130, 180), 2),
+            BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+
+        monthLabel = new JLabel(YearMonth.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+        monthLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        monthLabel.setForeground(Color.WHITE);
+        monthLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        panel.add(monthLabel, BorderLayout.NORTH);
+
+        tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        budgetTable = new JTable(tableModel);
+        budgetTable.setFont(new Font("Arial", Font.PLAIN, 13));
+        budgetTable.setRowHeight(25);
+        budgetTable.setBackground(new Color(50, 50, 50));
+        budgetTable.setForeground(Color.WHITE);
+        budgetTable.setGridColor(new Color(70, 70, 70));
+        budgetTable.getTableHeader().setBackground(new Color(70, 130, 180));
+        budgetTable.getTableHeader().setForeground(Color.WHITE);
+        budgetTable.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
+        budgetTable.getColumnModel().getColumn(STATUS_COLUMN).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                           boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                setForeground(colorOf(value));
+                return this;
+            }
+        });
+        // Pick a row to edit its budget
+        budgetTable.getSelectionModel().addListSelectionListener(e -> {
+            int row = budgetTable.getSelectedRow();
+            if (!e.getValueIsAdjusting() && row != -1) {
+                categoryCombo.setSelectedItem(tableModel.getValueAt(row, 0));
+                limitField.setText(tableModel.getValueAt(row, 1).toString().replace(",", ""));
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(budgetTable);
+        scrollPane.getViewport().setBackground(new Color(50, 50, 50));
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        return panel;
+    }
+
+    private JLabel createLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("Arial", Font.BOLD, 14));
+        label.setForeground(Color.WHITE);
+        return label;
+    }
+
+    private JButton createStyledButton(String text, Color bgColor) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 13));
+        button.setBackground(bgColor);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setPreferredSize(new Dimension(130, 35));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+
+    private static Color colorOf(Object level) {
+        if (BudgetStatus.Level.EXCEEDED.name().equals(level)) {
+            return EXCEEDED_COLOR;
+        }
+        return BudgetStatus.Level.WARNING.name().equals(level) ? WARNING_COLOR : OK_COLOR;
+    }
+
+    private void handleSaveBudget() {
+        BigDecimal limit;
+        try {
+            limit = new BigDecimal(limitField.getText().trim());
+        } catch (NumberFormatException e) {
+            showError("Please enter a valid limit");
+            return;
+        }
+        if (limit.signum() <= 0) {
+            showError("Limit must be greater than zero");
+            return;
+        }
+        Budget budget = new Budget(currentUser.getUserId(), (String) categoryCombo.getSelectedItem(),
+                                   limit, (Integer) warnSpinner.getValue());
+        runAndReload(() -> budgetService.setBudget(budget), "Could not save the budget");
+    }
+
+    private void handleRemoveBudget() {
+        String category = (String) categoryCombo.getSelectedItem();
+        int confirm = JOptionPane.showConfirmDialog(this, "Remove the " + category + " budget?",
+            "Confirm Remove", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+        runAndReload(() -> budgetService.deleteBudget(currentUser.getUserId(), category),
+            "No budget set for " + category);
+    }
+
+    /**
+     * Run a budget change on a worker thread, then reload the status
+     */
+    private void runAndReload(BooleanSupplier change, String failure) {
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() {
+                return change.getAsBoolean();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    if (!get()) {
+                        showError(failure);
+                        return;
+                    }
+                    limitField.setText("");
+                    loadStatus();
+                } catch (InterruptedException | ExecutionException e) {
+                    showError(failure + ": " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void loadStatus() {
+        if (currentUser.getUserId() == -1) {
+            monthLabel.setText("Sign in to keep monthly budgets");
+            return;
+        }
+        int generation = ++loadGeneration;
+        new SwingWorker<List<BudgetStatus>, Void>() {
+            @Override
+            protected List<BudgetStatus> doInBackground() {
+                return budgetService.getStatus(currentUser.getUserId());
+            }
+
+            @Override
+            protected void done() {
+                if (generation != loadGeneration) {
+                    return; // superseded by a newer load
+                }
+                try {
+                    showStatus(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    showError("Error loading budgets: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void showStatus(List<BudgetStatus> statuses) {
+        tableModel.setRowCount(0);
+        if (statuses == null) {
+            monthLabel.setText("Budgets unavailable (apply migrations/V004)");
+            return;
+        }
+        monthLabel.setText(YearMonth.now().format(DateTimeFormatter.ofPattern("MMMM yyyy")) +
+            (statuses.isEmpty() ? " - no budgets yet" : ""));
+        for (BudgetStatus status : statuses) {
+            tableModel.addRow(new Object[] {
+                status.getCategory(),
+                String.format("%,.2f", status.getLimit()),
+                String.format("%,.2f", status.getSpent()),
+                String.format("%,.2f", status.getRemaining()),
+                status.getPercentUsed() + "%",
+                status.getLevel().name()
+            });
+        }
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+}
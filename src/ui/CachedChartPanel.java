@@ -0,0 +1,64 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Chart panel that paints from a cached image
+ * The chart is rendered once into a BufferedImage and repaints just copy
+ * it, so scrolling, tooltips and window overlaps don't redo the layout.
+ * The image is thrown away when the panel is resized, the screen scale
+ * changes or a subclass calls invalidateChart() after new data.
+ */
+abstract class CachedChartPanel extends JPanel {
+    private BufferedImage cache;
+
+    /**
+     * Draw the chart
+     * @param g2d Graphics of the cached image, already scaled for the screen
+     * @param width Panel width in user-space pixels
+     * @param height Panel height in user-space pixels
+     */
+    protected abstract void renderChart(Graphics2D g2d, int width, int height);
+
+    /**
+     * Drop the cached image and repaint; call after the data changed
+     */
+    protected void invalidateChart() {
+        cache = null;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        // Render at device resolution so HiDPI screens stay sharp
+        AffineTransform transform = ((Graphics2D) g).getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        int imageWidth = (int) Math.ceil(width * scaleX);
+        int imageHeight = (int) Math.ceil(height * scaleY);
+
+        if (cache == null || cache.getWidth() != imageWidth || cache.getHeight() != imageHeight) {
+            cache = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = cache.createGraphics();
+            try {
+                g2d.scale(scaleX, scaleY);
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                renderChart(g2d, width, height);
+            } finally {
+                g2d.dispose();
+            }
+        }
+        g.drawImage(cache, 0, 0, width, height, null);
+    }
+}
@@ -0,0 +1,122 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lazily constructed cards for a CardLayout container
+ * Each card is registered with a factory and only built the first time it
+ * is shown or prewarmed, so opening the dashboard does not pay for screens
+ * the user never visits. Must be used from the Event Dispatch Thread.
+ */
+class CardRegistry {
+    private final JPanel container;
+    private final CardLayout cardLayout;
+    private final Map<String, Supplier<? extends JComponent>> factories = new LinkedHashMap<>();
+    private final Map<String, Runnable> showHandlers = new HashMap<>();
+    private final Map<String, JComponent> builtCards = new HashMap<>();
+    private String currentCard;
+
+    CardRegistry(JPanel container, CardLayout cardLayout) {
+        this.container = container;
+        this.cardLayout = cardLayout;
+    }
+
+    /**
+     * Register a card without building it
+     * @param name Card name used with show()
+     * @param factory Creates the card component on first use
+     */
+    void register(String name, Supplier<? extends JComponent> factory) {
+        factories.put(name, factory);
+    }
+
+    /**
+     * Register a card with a handler that runs every time it is shown
+     * @param name Card name used with show()
+     * @param factory Creates the card component on first use
+     * @param onShow Called after the card is brought to the front
+     */
+    void register(String name, Supplier<? extends JComponent> factory, Runnable onShow) {
+        factories.put(name, factory);
+        showHandlers.put(name, onShow);
+    }
+
+    /**
+     * Build the card if needed and bring it to the front
+     * @param name Card name
+     */
+    void show(String name) {
+        getCard(name);
+        cardLayout.show(container, name);
+        currentCard = name;
+
+        Runnable onShow = showHandlers.get(name);
+        if (onShow != null) {
+            onShow.run();
+        }
+    }
+
+    /**
+     * Name of the card on screen, or null before the first show()
+     */
+    String getCurrentCard() {
+        return currentCard;
+    }
+
+    /**
+     * Get a card, building and adding it to the container on first use
+     * @param name Card name
+     * @return The card component
+     */
+    JComponent getCard(String name) {
+        JComponent card = builtCards.get(name);
+        if (card == null) {
+            Supplier<? extends JComponent> factory = factories.get(name);
+            if (factory == null) {
+                throw new IllegalArgumentException("Unknown card: " + name);
+            }
+            card = factory.get();
+            builtCards.put(name, card);
+            container.add(card, name);
+        }
+        return card;
+    }
+
+    /**
+     * Check whether a card has been built yet
+     */
+    boolean isBuilt(String name) {
+        return builtCards.containsKey(name);
+    }
+
+    /**
+     * Build cards in the background of the UI after a delay
+     * One card is built per timer tick so input stays responsive; cards the
+     * user opened in the meantime are skipped.
+     * @param delayMillis Delay before the first card and between cards
+     * @param names Cards to prewarm, most likely first
+     */
+    void prewarm(int delayMillis, String... names) {
+        Deque<String> pending = new ArrayDeque<>(Arrays.asList(names));
+        Timer timer = new Timer(delayMillis, null);
+        timer.addActionListener(e -> {
+            String name = pending.poll();
+            if (name == null) {
+                timer.stop();
+                return;
+            }
+            if (!isBuilt(name)) {
+                getCard(name);
+            }
+        });
+        timer.start();
+    }
+}
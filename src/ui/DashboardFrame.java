@@ -1,21 +1,71 @@
 package ui;
 
+import dao.DataVersion;
+import dao.LedgerDAO;
+import event.EventBus;
+import event.TransactionEvent;
+import model.BudgetStatus;
+import model.Expense;
+import model.Income;
+import model.SpendAnomaly;
+import model.Transaction;
 import model.User;
+import service.AnomalyDetector;
+import service.BudgetService;
+import service.FinanceService;
+import service.PeerSyncService;
+import service.SearchService;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Main dashboard frame with navigation to different modules
+ * Module panels are created on first use, and every panel loads its data
+ * off the Event Dispatch Thread, so the frame appears immediately however
+ * long the user's history is. The welcome card is bound to a DashboardModel,
+ * patched from change events and only reloaded when the user's data
+ * version has moved on.
  */
 public class DashboardFrame extends JFrame {
+    private static final int PREWARM_DELAY_MS = 300;
+    private static final int RECENT_COUNT = 3;
+    private static final int REFRESH_CHECK_MS = 5000;
+
     private User currentUser;
     private JPanel contentPanel;
     private CardLayout cardLayout;
+    private CardRegistry cards;
+    private final DashboardModel dashboardModel = new DashboardModel();
+    private boolean refreshInFlight;
+    private boolean refreshPending;
+    private Timer refreshTimer;
+    private List<Income> recentIncomes = List.of();
+    private List<Expense> recentExpenses = List.of();
+    private EventBus.Subscription incomeSubscription;
+    private EventBus.Subscription expenseSubscription;
+    private EventBus.Subscription budgetSubscription;
+    private EventBus.Subscription anomalySubscription;
 
     public DashboardFrame(User user) {
         this.currentUser = user;
+        if (user.getUserId() != -1) {
+            // Baseline for other instances' changes, taken before any card loads
+            PeerSyncService.getInstance().track(user.getUserId());
+            // Load the search indexes while the user looks at the welcome card
+            SearchService.getInstance().open(user.getUserId());
+            // Replay the history into the spending statistics that flag unusual expenses
+            AnomalyDetector.getInstance().open(user.getUserId());
+        }
         initializeComponents();
     }
 
@@ -41,16 +91,77 @@ public class DashboardFrame extends JFrame {
         contentPanel = new JPanel(cardLayout);
         contentPanel.setBackground(new Color(35, 35, 35));
 
-        // Add panels
-        contentPanel.add(createWelcomePanel(), "Welcome");
-        contentPanel.add(new IncomePanel(currentUser), "Income");
-        contentPanel.add(new ExpensePanel(currentUser), "Expense");
-        contentPanel.add(new SummaryPanel(currentUser), "Summary");
+        // Register panels; each is built the first time it is shown
+        cards = new CardRegistry(contentPanel, cardLayout);
+        cards.register("Welcome", this::createWelcomePanel, () -> refreshDashboard(false));
+        cards.register("Income", () -> new IncomePanel(currentUser));
+        cards.register("Expense", () -> new ExpensePanel(currentUser));
+        cards.register("Summary", () -> new SummaryPanel(currentUser));
+        cards.register("Budgets", () -> new BudgetPanel(currentUser));
 
         add(contentPanel, BorderLayout.CENTER);
 
         // Show welcome panel by default
-        cardLayout.show(contentPanel, "Welcome");
+        cards.show("Welcome");
+
+        // Once the frame is on screen, build the most used panels in the background
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // Budgets too: its first load starts the budget tracking that raises alerts
+                cards.prewarm(PREWARM_DELAY_MS, "Income", "Expense", "Summary", "Budgets");
+            }
+        });
+
+        // Pick up changes made elsewhere while the welcome card is on screen;
+        // not needed when other instances push their changes
+        refreshTimer = new Timer(REFRESH_CHECK_MS, e -> {
+            if ("Welcome".equals(cards.getCurrentCard())) {
+                refreshDashboard(false);
+            }
+        });
+        if (!PeerSyncService.getInstance().isRunning()) {
+            refreshTimer.start();
+        }
+
+        // Patch the welcome card after writes instead of reloading it
+        if (currentUser.getUserId() != -1) {
+            incomeSubscription = EventBus.getInstance().subscribe(Income.class,
+                event -> SwingUtilities.invokeLater(() -> onIncomeChange(event)));
+            expenseSubscription = EventBus.getInstance().subscribe(Expense.class,
+                event -> SwingUtilities.invokeLater(() -> onExpenseChange(event)));
+            budgetSubscription = BudgetService.getInstance().addAlertListener(status -> {
+                if (status.getUserId() == currentUser.getUserId()) {
+                    SwingUtilities.invokeLater(() -> showBudgetAlert(status));
+                }
+            });
+            anomalySubscription = AnomalyDetector.getInstance().addAnomalyListener(anomaly -> {
+                if (anomaly.getUserId() == currentUser.getUserId()) {
+                    SwingUtilities.invokeLater(() -> showAnomalyAlert(anomaly));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        if (incomeSubscription != null) {
+            incomeSubscription.close();
+            expenseSubscription.close();
+            budgetSubscription.close();
+            anomalySubscription.close();
+            incomeSubscription = null;
+            expenseSubscription = null;
+            budgetSubscription = null;
+            anomalySubscription = null;
+        }
+        PeerSyncService.getInstance().untrack(currentUser.getUserId());
+        if (currentUser.getUserId() != -1) {
+            SearchService.getInstance().close(currentUser.getUserId());
+            AnomalyDetector.getInstance().close(currentUser.getUserId());
+        }
+        super.dispose();
     }
 
     private JPanel createTopPanel() {
@@ -103,6 +214,8 @@ public class DashboardFrame extends JFrame {
         navPanel.add(createNavButton("💸 Expenses", "Expense"));
         navPanel.add(Box.createRigidArea(new Dimension(0, 10)));
         navPanel.add(createNavButton("📈 Summary", "Summary"));
+        navPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        navPanel.add(createNavButton("🎯 Budgets", "Budgets"));
 
         // Add glue to push buttons to top
         navPanel.add(Box.createVerticalGlue());
@@ -121,7 +234,7 @@ public class DashboardFrame extends JFrame {
         button.setBorderPainted(false);
         button.setCursor(new Cursor(Cursor.HAND_CURSOR));
 
-        button.addActionListener(e -> cardLayout.show(contentPanel, panelName));
+        button.addActionListener(e -> cards.show(panelName));
 
         // Hover effect
         button.addMouseListener(new MouseAdapter() {
@@ -163,17 +276,16 @@ public class DashboardFrame extends JFrame {
         statsPanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 20, 0));
 
         if (currentUser.getUserId() != -1) {
-            // Get financial summary
-            service.FinanceService financeService = new service.FinanceService();
-            java.util.Map<String, java.math.BigDecimal> summary = financeService.getFinancialSummary(currentUser.getUserId());
-            
-            java.math.BigDecimal income = summary.getOrDefault("totalIncome", java.math.BigDecimal.ZERO);
-            java.math.BigDecimal expenses = summary.getOrDefault("totalExpenses", java.math.BigDecimal.ZERO);
-            java.math.BigDecimal savings = summary.getOrDefault("savings", java.math.BigDecimal.ZERO);
-
-            statsPanel.add(createQuickStatCard("Total Income", "₹" + String.format("%,.2f", income), new Color(60, 179, 113), "💰"));
-            statsPanel.add(createQuickStatCard("Total Expenses", "₹" + String.format("%,.2f", expenses), new Color(220, 53, 69), "💸"));
-            statsPanel.add(createQuickStatCard("Savings", "₹" + String.format("%,.2f", savings), new Color(70, 130, 180), "💵"));
+            JPanel incomeCard = createQuickStatCard("Total Income", "Loading...", new Color(60, 179, 113), "💰");
+            JPanel expenseCard = createQuickStatCard("Total Expenses", "Loading...", new Color(220, 53, 69), "💸");
+            JPanel savingsCard = createQuickStatCard("Savings", "Loading...", new Color(70, 130, 180), "💵");
+            statsPanel.add(incomeCard);
+            statsPanel.add(expenseCard);
+            statsPanel.add(savingsCard);
+            // Index 4 = valueLabel (indexes 1 and 3 are rigid-area fillers)
+            bindAmount((JLabel) incomeCard.getComponent(4), DashboardModel.TOTAL_INCOME);
+            bindAmount((JLabel) expenseCard.getComponent(4), DashboardModel.TOTAL_EXPENSES);
+            bindAmount((JLabel) savingsCard.getComponent(4), DashboardModel.SAVINGS);
         } else {
             statsPanel.add(createQuickStatCard("Guest Mode", "Data not saved", new Color(128, 128, 128), "👤"));
             statsPanel.add(createQuickStatCard("Quick Start", "Add Income/Expenses", new Color(70, 130, 180), "⚡"));
@@ -188,7 +300,8 @@ public class DashboardFrame extends JFrame {
         centerSection.setBackground(new Color(35, 35, 35));
 
         // Recent transactions panel
-        JPanel recentPanel = createRecentTransactionsPanel();
+        JTextArea activityArea = new JTextArea();
+        JPanel recentPanel = createRecentTransactionsPanel(activityArea);
         centerSection.add(recentPanel);
 
         // Quick actions panel
@@ -200,6 +313,11 @@ public class DashboardFrame extends JFrame {
         return panel;
     }
 
+    private void bindAmount(JLabel label, String property) {
+        dashboardModel.addPropertyChangeListener(property,
+            e -> label.setText("₹" + String.format("%,.2f", (BigDecimal) e.getNewValue())));
+    }
+
     private JPanel createQuickStatCard(String title, String value, Color color, String emoji) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
@@ -232,7 +350,7 @@ public class DashboardFrame extends JFrame {
         return card;
     }
 
-    private JPanel createRecentTransactionsPanel() {
+    private JPanel createRecentTransactionsPanel(JTextArea activityArea) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(new Color(45, 45, 45));
         panel.setBorder(BorderFactory.createCompoundBorder(
@@ -245,7 +363,6 @@ public class DashboardFrame extends JFrame {
         titleLabel.setForeground(Color.WHITE);
         panel.add(titleLabel, BorderLayout.NORTH);
 
-        JTextArea activityArea = new JTextArea();
         activityArea.setEditable(false);
         activityArea.setBackground(new Color(35, 35, 35));
         activityArea.setForeground(new Color(200, 200, 200));
@@ -253,34 +370,9 @@ public class DashboardFrame extends JFrame {
         activityArea.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         if (currentUser.getUserId() != -1) {
-            dao.IncomeDAO incomeDAO = new dao.IncomeDAO();
-            dao.ExpenseDAO expenseDAO = new dao.ExpenseDAO();
-            
-            java.util.List<model.Income> recentIncomes = incomeDAO.getIncomesByUserId(currentUser.getUserId());
-            java.util.List<model.Expense> recentExpenses = expenseDAO.getExpensesByUserId(currentUser.getUserId());
-
-            StringBuilder activity = new StringBuilder();
-            activity.append("💰 Recent Income:\n");
-            int incomeCount = Math.min(3, recentIncomes.size());
-            for (int i = 0; i < incomeCount; i++) {
-                model.Income inc = recentIncomes.get(i);
-                activity.append(String.format("  • %s - ₹%,.2f (%s)\n", 
-                    inc.getCategory(), inc.getAmount(), inc.getDate()));
-            }
-            
-            activity.append("\n💸 Recent Expenses:\n");
-            int expenseCount = Math.min(3, recentExpenses.size());
-            for (int i = 0; i < expenseCount; i++) {
-                model.Expense exp = recentExpenses.get(i);
-                activity.append(String.format("  • %s - ₹%,.2f (%s)\n", 
-                    exp.getCategory(), exp.getAmount(), exp.getDate()));
-            }
-
-            if (incomeCount == 0 && expenseCount == 0) {
-                activity.append("\nNo transactions yet.\nStart by adding income or expenses!");
-            }
-
-            activityArea.setText(activity.toString());
+            activityArea.setText("Loading recent activity...");
+            dashboardModel.addPropertyChangeListener(DashboardModel.RECENT_ACTIVITY,
+                e -> activityArea.setText((String) e.getNewValue()));
         } else {
             activityArea.setText("Guest Mode - Add transactions to see activity here!");
         }
@@ -292,6 +384,27 @@ public class DashboardFrame extends JFrame {
         return panel;
     }
 
+    private String formatRecentActivity(List<Income> recentIncomes, List<Expense> recentExpenses) {
+        StringBuilder activity = new StringBuilder();
+        activity.append("💰 Recent Income:\n");
+        for (Income inc : recentIncomes) {
+            activity.append(String.format("  • %s - ₹%,.2f (%s)\n", 
+                inc.getCategory(), inc.getAmount(), inc.getDate()));
+        }
+        
+        activity.append("\n💸 Recent Expenses:\n");
+        for (Expense exp : recentExpenses) {
+            activity.append(String.format("  • %s - ₹%,.2f (%s)\n", 
+                exp.getCategory(), exp.getAmount(), exp.getDate()));
+        }
+
+        if (recentIncomes.isEmpty() && recentExpenses.isEmpty()) {
+            activity.append("\nNo transactions yet.\nStart by adding income or expenses!");
+        }
+
+        return activity.toString();
+    }
+
     private JPanel createQuickActionsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(new Color(45, 45, 45));
@@ -312,22 +425,22 @@ public class DashboardFrame extends JFrame {
 
         // Quick action buttons
         JButton addIncomeBtn = createQuickActionButton("➕ Add Income", new Color(60, 179, 113));
-        addIncomeBtn.addActionListener(e -> cardLayout.show(contentPanel, "Income"));
+        addIncomeBtn.addActionListener(e -> cards.show("Income"));
         buttonsPanel.add(addIncomeBtn);
         buttonsPanel.add(Box.createRigidArea(new Dimension(0, 15)));
 
         JButton addExpenseBtn = createQuickActionButton("➕ Add Expense", new Color(220, 53, 69));
-        addExpenseBtn.addActionListener(e -> cardLayout.show(contentPanel, "Expense"));
+        addExpenseBtn.addActionListener(e -> cards.show("Expense"));
         buttonsPanel.add(addExpenseBtn);
         buttonsPanel.add(Box.createRigidArea(new Dimension(0, 15)));
 
         JButton viewSummaryBtn = createQuickActionButton("📊 View Summary", new Color(70, 130, 180));
-        viewSummaryBtn.addActionListener(e -> cardLayout.show(contentPanel, "Summary"));
+        viewSummaryBtn.addActionListener(e -> cards.show("Summary"));
         buttonsPanel.add(viewSummaryBtn);
         buttonsPanel.add(Box.createRigidArea(new Dimension(0, 15)));
 
         JButton refreshBtn = createQuickActionButton("🔄 Refresh Dashboard", new Color(100, 100, 100));
-        refreshBtn.addActionListener(e -> refreshDashboard());
+        refreshBtn.addActionListener(e -> refreshDashboard(true));
         buttonsPanel.add(refreshBtn);
 
         // Tips section
@@ -372,12 +485,169 @@ public class DashboardFrame extends JFrame {
         return button;
     }
 
-    private void refreshDashboard() {
-        // Refresh the welcome panel by recreating it
-        contentPanel.remove(0); // Remove old welcome panel
-        contentPanel.add(createWelcomePanel(), "Welcome", 0);
-        cardLayout.show(contentPanel, "Welcome");
-        JOptionPane.showMessageDialog(this, "Dashboard refreshed!", "Success", JOptionPane.INFORMATION_MESSAGE);
+    /**
+     * Reload the welcome card's data if the user's data version has changed
+     * Loading happens on a worker thread; the model then updates only the
+     * components whose values differ.
+     * @param force Reload even if the version is unchanged
+     */
+    private void refreshDashboard(boolean force) {
+        int userId = currentUser.getUserId();
+        if (userId == -1 || refreshInFlight) {
+            return;
+        }
+        long knownVersion = dashboardModel.getVersion();
+        refreshInFlight = true;
+
+        new SwingWorker<Boolean, Void>() {
+            private long version;
+            private boolean changedWhileLoading;
+            private Map<String, BigDecimal> summary;
+            private List<Income> recentIncomes;
+            private List<Expense> recentExpenses;
+
+            @Override
+            protected Boolean doInBackground() {
+                // Read the version before loading, so the values are never labelled newer than they are
+                version = DataVersion.current(userId);
+                if (!force && version == knownVersion) {
+                    return false;
+                }
+                summary = new FinanceService().getFinancialSummary(userId);
+                // Both recent lists in one query
+                recentIncomes = new ArrayList<>();
+                recentExpenses = new ArrayList<>();
+                for (Transaction entry : new LedgerDAO().getRecent(userId, RECENT_COUNT)) {
+                    if (entry instanceof Income) {
+                        recentIncomes.add((Income) entry);
+                    } else {
+                        recentExpenses.add((Expense) entry);
+                    }
+                }
+                // A write committed during the load may or may not be in the values;
+                // its event can't be patched safely, so load again instead
+                changedWhileLoading = DataVersion.current(userId) != version;
+                return true;
+            }
+
+            @Override
+            protected void done() {
+                refreshInFlight = false;
+                boolean loaded;
+                try {
+                    loaded = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    // Version is left as is, so the next check retries
+                    System.err.println("Error refreshing dashboard: " + e.getMessage());
+                    return;
+                }
+
+                if (loaded) {
+                    DashboardFrame.this.recentIncomes = recentIncomes;
+                    DashboardFrame.this.recentExpenses = recentExpenses;
+                    dashboardModel.update(version,
+                        summary.getOrDefault("totalIncome", BigDecimal.ZERO),
+                        summary.getOrDefault("totalExpenses", BigDecimal.ZERO),
+                        summary.getOrDefault("savings", BigDecimal.ZERO),
+                        formatRecentActivity(recentIncomes, recentExpenses));
+                }
+
+                // Changes arrived meanwhile; the result may or may not include them
+                if (refreshPending || changedWhileLoading) {
+                    refreshPending = false;
+                    refreshDashboard(true);
+                }
+            }
+        }.execute();
+    }
+
+    private void onIncomeChange(TransactionEvent<Income> event) {
+        if (!acceptChange(event)) {
+            return;
+        }
+        List<Income> merged = mergeRecent(recentIncomes, event);
+        if (merged == null || !event.isAmountDeltaKnown()) {
+            refreshDashboard(true);
+            return;
+        }
+        recentIncomes = merged;
+        patchTotals(event.getAmountDelta(), BigDecimal.ZERO, event.getVersion());
+    }
+
+    private void onExpenseChange(TransactionEvent<Expense> event) {
+        if (!acceptChange(event)) {
+            return;
+        }
+        List<Expense> merged = mergeRecent(recentExpenses, event);
+        if (merged == null || !event.isAmountDeltaKnown()) {
+            refreshDashboard(true);
+            return;
+        }
+        recentExpenses = merged;
+        patchTotals(BigDecimal.ZERO, event.getAmountDelta(), event.getVersion());
+    }
+
+    /**
+     * Decide whether an event can be patched into the current values
+     */
+    private boolean acceptChange(TransactionEvent<?> event) {
+        if (event.getUserId() != currentUser.getUserId()) {
+            return false;
+        }
+        if (refreshInFlight) {
+            refreshPending = true;
+            return false;
+        }
+        // Nothing loaded yet (first load failed); the refresh timer retries it
+        return dashboardModel.getVersion() >= 0;
+    }
+
+    /**
+     * Merge an event into a recent-activity list
+     * @return The new list, or null if a row on display went away and the
+     *         list has to be reloaded to fill the gap
+     */
+    private <T extends Transaction> List<T> mergeRecent(List<T> shown, TransactionEvent<T> event) {
+        Set<Integer> removedIds = new HashSet<>(event.getRemovedIds());
+        for (T row : shown) {
+            if (removedIds.contains(row.getId())) {
+                return null;
+            }
+        }
+
+        List<T> merged = new ArrayList<>(shown);
+        merged.addAll(event.getAddedRows());
+        merged.sort(Comparator.comparing(Transaction::getDate).reversed());
+        return new ArrayList<>(merged.subList(0, Math.min(RECENT_COUNT, merged.size())));
+    }
+
+    private void patchTotals(BigDecimal incomeDelta, BigDecimal expenseDelta, long eventVersion) {
+        BigDecimal income = dashboardModel.getTotalIncome().add(incomeDelta);
+        BigDecimal expenses = dashboardModel.getTotalExpenses().add(expenseDelta);
+        // Only move to the event's version if it directly follows the one on display;
+        // after a gap (changes from another client) the next version check reloads
+        long version = dashboardModel.getVersion();
+        if (eventVersion == version + 1) {
+            version = eventVersion;
+        }
+        dashboardModel.update(version, income, expenses,
+            income.subtract(expenses), formatRecentActivity(recentIncomes, recentExpenses));
+    }
+
+    private void showBudgetAlert(BudgetStatus status) {
+        boolean exceeded = status.getLevel() == BudgetStatus.Level.EXCEEDED;
+        String message = String.format("%s budget %s: ₹%,.2f of ₹%,.2f spent this month (%d%%)",
+            status.getCategory(), exceeded ? "exceeded" : "almost used up",
+            status.getSpent(), status.getLimit(), status.getPercentUsed());
+        JOptionPane.showMessageDialog(this, message, "Budget Alert",
+            exceeded ? JOptionPane.ERROR_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void showAnomalyAlert(SpendAnomaly anomaly) {
+        String message = String.format("Unusual %s expense: ₹%,.2f on %s is %.1fx your typical ₹%,.2f",
+            anomaly.getCategory(), anomaly.getExpense().getAmount(), anomaly.getExpense().getDate(),
+            anomaly.getRatio(), anomaly.getTypicalAmount());
+        JOptionPane.showMessageDialog(this, message, "Unusual Expense", JOptionPane.WARNING_MESSAGE);
     }
 
     private void handleLogout() {
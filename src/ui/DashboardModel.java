@@ -0,0 +1,84 @@
+package ui;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.math.BigDecimal;
+
+/**
+ * View model behind the dashboard's stat cards and recent-activity list
+ * Components bind to single properties; update() only fires events for
+ * values that actually changed, so a refresh repaints just those
+ * components. Must be used from the Event Dispatch Thread.
+ */
+class DashboardModel {
+    static final String TOTAL_INCOME = "totalIncome";
+    static final String TOTAL_EXPENSES = "totalExpenses";
+    static final String SAVINGS = "savings";
+    static final String RECENT_ACTIVITY = "recentActivity";
+
+    private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+
+    private BigDecimal totalIncome;
+    private BigDecimal totalExpenses;
+    private BigDecimal savings;
+    private String recentActivity;
+    private long version = -1;
+
+    /**
+     * Bind a listener to one property
+     * @param property One of the property name constants
+     * @param listener Called with the old and new value
+     */
+    void addPropertyChangeListener(String property, PropertyChangeListener listener) {
+        changeSupport.addPropertyChangeListener(property, listener);
+    }
+
+    BigDecimal getTotalIncome() {
+        return totalIncome;
+    }
+
+    BigDecimal getTotalExpenses() {
+        return totalExpenses;
+    }
+
+    /**
+     * Data version the current values were loaded at, or -1 before the first load
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Apply freshly loaded values
+     * @param version Data version read before the values were loaded
+     */
+    void update(long version, BigDecimal totalIncome, BigDecimal totalExpenses, BigDecimal savings,
+                String recentActivity) {
+        this.version = version;
+
+        BigDecimal oldIncome = this.totalIncome;
+        this.totalIncome = totalIncome;
+        fireIfChanged(TOTAL_INCOME, oldIncome, totalIncome);
+
+        BigDecimal oldExpenses = this.totalExpenses;
+        this.totalExpenses = totalExpenses;
+        fireIfChanged(TOTAL_EXPENSES, oldExpenses, totalExpenses);
+
+        BigDecimal oldSavings = this.savings;
+        this.savings = savings;
+        fireIfChanged(SAVINGS, oldSavings, savings);
+
+        String oldActivity = this.recentActivity;
+        this.recentActivity = recentActivity;
+        changeSupport.firePropertyChange(RECENT_ACTIVITY, oldActivity, recentActivity);
+    }
+
+    /**
+     * Compare amounts by value so 10.0 and 10.00 don't count as a change
+     */
+    private void fireIfChanged(String property, BigDecimal oldValue, BigDecimal newValue) {
+        if (oldValue == null || newValue == null || oldValue.compareTo(newValue) != 0) {
+            changeSupport.firePropertyChange(property, oldValue, newValue);
+        }
+    }
+}
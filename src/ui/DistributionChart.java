@@ -0,0 +1,244 @@
+package ui;
+
+import model.AmountDistribution;
+
+import javax.swing.*;
+import java.awt.*;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Histogram of expense amounts with per-category statistics
+ * Bars follow the 1-2-5 amount buckets of AmountDistribution, so small
+ * daily spending and rare large payments both get readable bars; the
+ * median and p90 are marked on the same scale. Below the histogram are
+ * each category's count, median, p90 and largest amount, and the largest
+ * expenses of the range.
+ */
+class DistributionChart extends CachedChartPanel {
+    private static final int LEFT = 60;
+    private static final int HEADER = 60;
+    private static final int AXIS = 22;
+    private static final int Y_TICKS = 3;
+    private static final int LINE = 16;
+    private static final long[] EDGES = AmountDistribution.getBucketEdges();
+    private static final Color BAR = new Color(220, 53, 69);
+    private static final Color MEDIAN = Color.WHITE;
+    private static final Color P90 = new Color(255, 193, 7);
+    private static final Color GRID = new Color(70, 70, 70);
+    private static final Color AXIS_TEXT = new Color(180, 180, 180);
+    private static final DateTimeFormatter DATE_LABEL = DateTimeFormatter.ofPattern("d MMM yyyy");
+
+    private String title = "";
+    private AmountDistribution overall;
+    private List<Map.Entry<String, AmountDistribution>> categories = new ArrayList<>();
+
+    DistributionChart() {
+        setBackground(new Color(45, 45, 45));
+        setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(70, 130, 180), 2),
+            BorderFactory.createEmptyBorder(20, 20, 20, 20)
+        ));
+        setPreferredSize(new Dimension(600, 300));
+    }
+
+    /**
+     * Replace the data
+     * @param title Chart title
+     * @param byCategory Distribution per category; may be empty
+     */
+    void setDistributions(String title, Map<String, AmountDistribution> byCategory) {
+        this.title = title;
+        this.overall = new AmountDistribution();
+        this.categories = new ArrayList<>(byCategory.entrySet());
+        for (AmountDistribution distribution : byCategory.values()) {
+            overall.merge(distribution);
+        }
+        // Biggest spending first
+        categories.sort(Comparator.comparing(
+            (Map.Entry<String, AmountDistribution> entry) -> entry.getValue().getTotal()).reversed());
+        invalidateChart();
+    }
+
+    @Override
+    protected void renderChart(Graphics2D g2d, int width, int height) {
+        Insets insets = getInsets();
+        int left = insets.left;
+        int top = insets.top;
+        int innerWidth = width - insets.left - insets.right;
+        int innerHeight = height - insets.top - insets.bottom;
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(new Font("Arial", Font.BOLD, 18));
+        g2d.drawString(title, left, top + 18);
+
+        if (overall == null || overall.isEmpty() || innerWidth <= LEFT || innerHeight <= HEADER) {
+            g2d.setColor(AXIS_TEXT);
+            g2d.setFont(new Font("Arial", Font.PLAIN, 14));
+            g2d.drawString("No data yet", left + LEFT, top + HEADER + 20);
+            return;
+        }
+
+        g2d.setColor(AXIS_TEXT);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        g2d.drawString(String.format("%,d expenses · mean %s · median %s · p90 %s · max %s",
+            overall.getCount(), rupees(cents(overall.getMean())),
+            rupees(cents(overall.getQuantile(0.5))), rupees(cents(overall.getQuantile(0.9))),
+            rupees(cents(overall.getMax()))), left, top + 40);
+
+        // Histogram in the upper half, tables in the lower half
+        int histogramTop = top + HEADER;
+        int histogramHeight = (innerHeight - HEADER) / 2 - AXIS;
+        if (histogramHeight > 20) {
+            drawHistogram(g2d, left + LEFT, histogramTop, innerWidth - LEFT, histogramHeight);
+        }
+        int tablesTop = histogramTop + Math.max(0, histogramHeight) + AXIS + 20;
+        int tableRows = (top + innerHeight - tablesTop) / LINE - 1;
+        if (tableRows > 0) {
+            int split = left + innerWidth * 3 / 5;
+            drawCategoryTable(g2d, left, tablesTop, tableRows);
+            drawLargest(g2d, split + 10, tablesTop, tableRows);
+        }
+    }
+
+    private void drawHistogram(Graphics2D g2d, int left, int top, int width, int height) {
+        long[] counts = overall.getHistogram();
+        int first = 0;
+        while (counts[first] == 0) {
+            first++;
+        }
+        int last = counts.length - 1;
+        while (counts[last] == 0) {
+            last--;
+        }
+        long max = 0;
+        for (int b = first; b <= last; b++) {
+            max = Math.max(max, counts[b]);
+        }
+        double slot = (double) width / (last - first + 1);
+        int baseline = top + height;
+
+        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        FontMetrics metrics = g2d.getFontMetrics();
+        g2d.setStroke(new BasicStroke(1f));
+        for (int t = 0; t <= Y_TICKS; t++) {
+            int y = baseline - (int) Math.round(height * (double) t / Y_TICKS);
+            g2d.setColor(GRID);
+            g2d.drawLine(left, y, left + width, y);
+            String label = String.format("%,d", Math.round((double) max * t / Y_TICKS));
+            g2d.setColor(AXIS_TEXT);
+            g2d.drawString(label, left - 8 - metrics.stringWidth(label), y + metrics.getAscent() / 2);
+        }
+
+        int lastLabelEnd = Integer.MIN_VALUE;
+        for (int b = first; b <= last; b++) {
+            int x = left + (int) Math.round((b - first) * slot);
+            int barHeight = (int) Math.round((double) counts[b] * height / max);
+            g2d.setColor(BAR);
+            g2d.fillRect(x + 1, baseline - barHeight, Math.max(1, (int) slot - 2), barHeight);
+
+            String label = rupees(lowerEdge(b));
+            int labelX = x - metrics.stringWidth(label) / 2;
+            if (labelX > lastLabelEnd + 6) {
+                g2d.setColor(AXIS_TEXT);
+                g2d.drawString(label, labelX, baseline + 16);
+                lastLabelEnd = labelX + metrics.stringWidth(label);
+            }
+        }
+
+        drawMarker(g2d, "median", MEDIAN, cents(overall.getQuantile(0.5)), first, left, slot, top, baseline, 10);
+        drawMarker(g2d, "p90", P90, cents(overall.getQuantile(0.9)), first, left, slot, top, baseline, 24);
+    }
+
+    /**
+     * Vertical line at an amount, placed within its bucket on a log scale
+     * Labels are staggered by labelOffset so close markers stay readable.
+     */
+    private static void drawMarker(Graphics2D g2d, String label, Color color, long amountCents, int first,
+                                   int left, double slot, int top, int baseline, int labelOffset) {
+        int bucket = bucketOf(amountCents);
+        double low = lowerEdge(bucket);
+        double high = bucket < EDGES.length ? EDGES[bucket] : low * 2;
+        double fraction = low <= 0
+            ? amountCents / high
+            : Math.log(Math.max(amountCents, low) / low) / Math.log(high / low);
+        int x = left + (int) Math.round((bucket - first + Math.min(1, fraction)) * slot);
+
+        g2d.setColor(color);
+        g2d.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
+            new float[] {4f, 3f}, 0f));
+        g2d.drawLine(x, top, x, baseline);
+        g2d.setStroke(new BasicStroke(1f));
+        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        g2d.drawString(label, x + 3, top + labelOffset);
+    }
+
+    private void drawCategoryTable(Graphics2D g2d, int left, int top, int rows) {
+        int[] columns = {left, left + 110, left + 165, left + 240, left + 315};
+        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setColor(AXIS_TEXT);
+        String[] headers = {"Category", "Count", "Median", "p90", "Largest"};
+        for (int c = 0; c < headers.length; c++) {
+            g2d.drawString(headers[c], columns[c], top);
+        }
+
+        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        g2d.setColor(Color.WHITE);
+        int shown = Math.min(rows, categories.size());
+        for (int i = 0; i < shown; i++) {
+            int y = top + (i + 1) * LINE;
+            String category = categories.get(i).getKey();
+            AmountDistribution distribution = categories.get(i).getValue();
+            boolean more = i == shown - 1 && shown < categories.size();
+            g2d.drawString(more ? "+" + (categories.size() - i) + " more" : category, columns[0], y);
+            if (more) {
+                break;
+            }
+            g2d.drawString(String.format("%,d", distribution.getCount()), columns[1], y);
+            g2d.drawString(rupees(cents(distribution.getQuantile(0.5))), columns[2], y);
+            g2d.drawString(rupees(cents(distribution.getQuantile(0.9))), columns[3], y);
+            g2d.drawString(rupees(cents(distribution.getMax())), columns[4], y);
+        }
+    }
+
+    private void drawLargest(Graphics2D g2d, int left, int top, int rows) {
+        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setColor(AXIS_TEXT);
+        g2d.drawString("Largest expenses", left, top);
+
+        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        List<AmountDistribution.Largest> largest = overall.getLargest();
+        for (int i = 0; i < Math.min(rows, largest.size()); i++) {
+            AmountDistribution.Largest expense = largest.get(i);
+            int y = top + (i + 1) * LINE;
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(rupees(expense.getAmountCents()), left, y);
+            g2d.setColor(AXIS_TEXT);
+            g2d.drawString(expense.getCategory() + ", " + DATE_LABEL.format(expense.getDate()), left + 85, y);
+        }
+    }
+
+    private static int bucketOf(long amountCents) {
+        int bucket = 0;
+        while (bucket < EDGES.length && amountCents >= EDGES[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static long lowerEdge(int bucket) {
+        return bucket == 0 ? 0 : EDGES[bucket - 1];
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private static String rupees(long cents) {
+        return "₹" + String.format("%,.0f", cents / 100.0);
+    }
+}
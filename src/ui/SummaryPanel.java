@@ -1,21 +1,51 @@
 package ui;
 
+import event.EventBus;
+import event.TransactionEvent;
+import model.AmountDistribution;
+import model.Categories;
+import model.CategorySeries;
+import model.Expense;
+import model.Granularity;
+import model.Income;
+import model.TimeSeries;
 import model.User;
 import service.FinanceService;
+import service.RollupService;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Panel for displaying financial summary and charts
+ * Totals are loaded once and then adjusted from change events.
  */
 public class SummaryPanel extends JPanel {
+    private static final String TOTALS_VIEW = "Income vs Expenses";
+    private static final String TREND_VIEW = "Trend";
+    private static final String CATEGORY_VIEW = "Expenses by Category";
+    private static final String DISTRIBUTION_VIEW = "Expense Distribution";
+    private static final Color INCOME_COLOR = new Color(60, 179, 113);
+    private static final Color EXPENSE_COLOR = new Color(220, 53, 69);
+    private static final Color SAVINGS_COLOR = new Color(70, 130, 180);
+    private static final Color[] CATEGORY_COLORS = {
+        new Color(220, 53, 69), new Color(253, 126, 20), new Color(255, 193, 7),
+        new Color(60, 179, 113), new Color(32, 201, 151), new Color(23, 162, 184),
+        new Color(70, 130, 180), new Color(111, 66, 193), new Color(232, 62, 140),
+        new Color(134, 142, 150)
+    };
+    private static final String[] RANGES = {"All time", "Last 10 years", "Last 5 years", "Last year", "Last 3 months"};
+
     private User currentUser;
     private FinanceService financeService;
     
@@ -23,6 +53,24 @@ public class SummaryPanel extends JPanel {
     private JLabel totalExpenseLabel;
     private JLabel savingsLabel;
     private ChartPanel chartPanel;
+    private TimeSeriesChart trendChart;
+    private DistributionChart distributionChart;
+    private JComboBox<String> chartSelector;
+    private JComboBox<String> rangeSelector;
+    private CardLayout chartLayout;
+    private JPanel chartArea;
+    private int loadGeneration; // guards against out-of-order background loads
+    private boolean loading;
+    private BigDecimal totalIncome = BigDecimal.ZERO;
+    private BigDecimal totalExpenses = BigDecimal.ZERO;
+    private int trendGeneration;
+    private boolean trendStale = true; // series are loaded when a trend view is first shown
+    private TimeSeries trendSeries;
+    private CategorySeries categorySeries;
+    private int distributionGeneration;
+    private boolean distributionStale = true;
+    private EventBus.Subscription incomeSubscription;
+    private EventBus.Subscription expenseSubscription;
 
     public SummaryPanel(User user) {
         this.currentUser = user;
@@ -33,9 +81,29 @@ public class SummaryPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
         initializeComponents();
+
+        // Adjust the totals when transactions change
+        if (currentUser.getUserId() != -1) {
+            incomeSubscription = EventBus.getInstance().subscribe(Income.class,
+                event -> SwingUtilities.invokeLater(() -> applyChange(event, true)));
+            expenseSubscription = EventBus.getInstance().subscribe(Expense.class,
+                event -> SwingUtilities.invokeLater(() -> applyChange(event, false)));
+        }
         loadSummaryData();
     }
 
+    @Override
+    public void removeNotify() {
+        // Called when the dashboard is disposed
+        if (incomeSubscription != null) {
+            incomeSubscription.close();
+            expenseSubscription.close();
+            incomeSubscription = null;
+            expenseSubscription = null;
+        }
+        super.removeNotify();
+    }
+
     private void initializeComponents() {
         // Title panel
         JPanel titlePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -54,9 +122,31 @@ public class SummaryPanel extends JPanel {
         JPanel infoPanel = createInfoPanel();
         centerPanel.add(infoPanel, BorderLayout.NORTH);
 
-        // Chart panel
+        // Chart area: totals bar chart, the trend charts, or the amount distribution
         chartPanel = new ChartPanel();
-        centerPanel.add(chartPanel, BorderLayout.CENTER);
+        trendChart = new TimeSeriesChart();
+        distributionChart = new DistributionChart();
+        chartLayout = new CardLayout();
+        chartArea = new JPanel(chartLayout);
+        chartArea.add(chartPanel, TOTALS_VIEW);
+        chartArea.add(trendChart, TREND_VIEW);
+        chartArea.add(distributionChart, DISTRIBUTION_VIEW);
+
+        chartSelector = new JComboBox<>(new String[] {TOTALS_VIEW, TREND_VIEW, CATEGORY_VIEW, DISTRIBUTION_VIEW});
+        chartSelector.addActionListener(e -> showChart());
+        rangeSelector = new JComboBox<>(RANGES);
+        rangeSelector.setEnabled(false);
+        rangeSelector.addActionListener(e -> invalidateCharts());
+        JPanel selectorPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        selectorPanel.setBackground(new Color(35, 35, 35));
+        selectorPanel.add(rangeSelector);
+        selectorPanel.add(chartSelector);
+
+        JPanel chartContainer = new JPanel(new BorderLayout(0, 5));
+        chartContainer.setBackground(new Color(35, 35, 35));
+        chartContainer.add(selectorPanel, BorderLayout.NORTH);
+        chartContainer.add(chartArea, BorderLayout.CENTER);
+        centerPanel.add(chartContainer, BorderLayout.CENTER);
 
         add(centerPanel, BorderLayout.CENTER);
 
@@ -123,7 +213,10 @@ public class SummaryPanel extends JPanel {
         panel.setBackground(new Color(35, 35, 35));
 
         JButton refreshButton = createStyledButton("Refresh Data", new Color(70, 130, 180));
-        refreshButton.addActionListener(e -> loadSummaryData());
+        refreshButton.addActionListener(e -> {
+            loadSummaryData();
+            invalidateCharts();
+        });
         panel.add(refreshButton);
 
         JButton exportButton = createStyledButton("Export Summary", new Color(60, 179, 113));
@@ -146,33 +239,282 @@ public class SummaryPanel extends JPanel {
     }
 
     private void loadSummaryData() {
-        // Show loading cursor
+        if (currentUser.getUserId() == -1) {
+            // Guest mode - would need to access guest data from panels
+            // For simplicity, showing placeholder
+            showSummary(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            return;
+        }
+
+        // Show loading cursor while the summary is computed on a worker thread
         setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        
-        try {
-            if (currentUser.getUserId() == -1) {
-                // Guest mode - would need to access guest data from panels
-                // For simplicity, showing placeholder
-                totalIncomeLabel.setText("₹0.00");
-                totalExpenseLabel.setText("₹0.00");
-                savingsLabel.setText("₹0.00");
-                chartPanel.updateChart(BigDecimal.ZERO, BigDecimal.ZERO);
-            } else {
-                Map<String, BigDecimal> summary = financeService.getFinancialSummary(currentUser.getUserId());
-                
-                BigDecimal income = summary.getOrDefault("totalIncome", BigDecimal.ZERO);
-                BigDecimal expenses = summary.getOrDefault("totalExpenses", BigDecimal.ZERO);
-                BigDecimal savings = summary.getOrDefault("savings", BigDecimal.ZERO);
-
-                totalIncomeLabel.setText("₹" + String.format("%,.2f", income));
-                totalExpenseLabel.setText("₹" + String.format("%,.2f", expenses));
-                savingsLabel.setText("₹" + String.format("%,.2f", savings));
-
-                chartPanel.updateChart(income, expenses);
+        int generation = ++loadGeneration;
+        loading = true;
+
+        new SwingWorker<Map<String, BigDecimal>, Void>() {
+            @Override
+            protected Map<String, BigDecimal> doInBackground() {
+                return financeService.getFinancialSummary(currentUser.getUserId());
+            }
+
+            @Override
+            protected void done() {
+                if (generation != loadGeneration) {
+                    return; // superseded by a newer load
+                }
+                loading = false;
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    Map<String, BigDecimal> summary = get();
+                    showSummary(summary.getOrDefault("totalIncome", BigDecimal.ZERO),
+                                summary.getOrDefault("totalExpenses", BigDecimal.ZERO),
+                                summary.getOrDefault("savings", BigDecimal.ZERO));
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(SummaryPanel.this,
+                        "Error loading summary: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
             }
-        } finally {
-            setCursor(Cursor.getDefaultCursor());
+        }.execute();
+    }
+
+    /**
+     * Adjust the totals by the amount an event added or removed
+     */
+    private void applyChange(TransactionEvent<?> event, boolean income) {
+        if (event.getUserId() != currentUser.getUserId()) {
+            return;
         }
+        invalidateCharts();
+        if (loading || !event.isAmountDeltaKnown()) {
+            // The running load may or may not include this change, or
+            // another instance made it and only the new rows are known
+            loadSummaryData();
+            return;
+        }
+        BigDecimal newIncome = income ? totalIncome.add(event.getAmountDelta()) : totalIncome;
+        BigDecimal newExpenses = income ? totalExpenses : totalExpenses.add(event.getAmountDelta());
+        showSummary(newIncome, newExpenses, newIncome.subtract(newExpenses));
+    }
+
+    private void showSummary(BigDecimal income, BigDecimal expenses, BigDecimal savings) {
+        totalIncome = income;
+        totalExpenses = expenses;
+        totalIncomeLabel.setText("₹" + String.format("%,.2f", income));
+        totalExpenseLabel.setText("₹" + String.format("%,.2f", expenses));
+        savingsLabel.setText("₹" + String.format("%,.2f", savings));
+
+        chartPanel.updateChart(income, expenses);
+    }
+
+    /**
+     * Switch the chart area to the selected chart
+     */
+    private void showChart() {
+        Object view = chartSelector.getSelectedItem();
+        boolean totals = TOTALS_VIEW.equals(view);
+        rangeSelector.setEnabled(!totals);
+        if (totals) {
+            chartLayout.show(chartArea, TOTALS_VIEW);
+            return;
+        }
+        if (DISTRIBUTION_VIEW.equals(view)) {
+            chartLayout.show(chartArea, DISTRIBUTION_VIEW);
+            if (distributionStale) {
+                loadDistributions();
+            }
+            return;
+        }
+        chartLayout.show(chartArea, TREND_VIEW);
+        if (trendStale) {
+            loadTrendData();
+        } else {
+            showTrend();
+        }
+    }
+
+    /**
+     * Mark the trend series and distributions out of date, reloading the chart on screen
+     */
+    private void invalidateCharts() {
+        trendStale = true;
+        distributionStale = true;
+        Object view = chartSelector.getSelectedItem();
+        if (DISTRIBUTION_VIEW.equals(view)) {
+            loadDistributions();
+        } else if (!TOTALS_VIEW.equals(view)) {
+            loadTrendData();
+        }
+    }
+
+    private void loadTrendData() {
+        trendStale = false;
+        if (currentUser.getUserId() == -1) {
+            showTrend();
+            return;
+        }
+        int generation = ++trendGeneration;
+        LocalDate to = LocalDate.now().plusDays(1);
+        LocalDate from = rangeStart(to);
+        // The rollup level is picked so the chart gets about one point per two pixels
+        int width = trendChart.getPlotWidth();
+
+        new SwingWorker<Void, Void>() {
+            private TimeSeries series;
+            private CategorySeries expenses;
+
+            @Override
+            protected Void doInBackground() {
+                RollupService rollups = RollupService.getInstance();
+                series = rollups.getSeries(currentUser.getUserId(), from, to, width);
+                expenses = rollups.getCategorySeries(currentUser.getUserId(), "expense", from, to, width);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (generation != trendGeneration) {
+                    return; // superseded by a newer load
+                }
+                try {
+                    get();
+                    trendSeries = series;
+                    categorySeries = expenses;
+                    showTrend();
+                } catch (InterruptedException | ExecutionException e) {
+                    trendStale = true;
+                    JOptionPane.showMessageDialog(SummaryPanel.this,
+                        "Error loading trend: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Load the expense distributions of the selected range, in whole months
+     */
+    private void loadDistributions() {
+        distributionStale = false;
+        if (currentUser.getUserId() == -1) {
+            distributionChart.setDistributions(DISTRIBUTION_VIEW, Map.of());
+            return;
+        }
+        int generation = ++distributionGeneration;
+        LocalDate today = LocalDate.now();
+        LocalDate from = rangeStart(today.plusDays(1));
+        YearMonth fromMonth = from != null ? YearMonth.from(from) : null;
+        YearMonth toMonth = YearMonth.from(today);
+
+        new SwingWorker<Map<String, AmountDistribution>, Void>() {
+            @Override
+            protected Map<String, AmountDistribution> doInBackground() {
+                return financeService.getExpenseDistributions(currentUser.getUserId(), fromMonth, toMonth);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != distributionGeneration) {
+                    return; // superseded by a newer load
+                }
+                String error = "the expenses couldn't be read";
+                try {
+                    Map<String, AmountDistribution> distributions = get();
+                    if (distributions != null) {
+                        distributionChart.setDistributions(DISTRIBUTION_VIEW, distributions);
+                        return;
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    error = e.getMessage();
+                }
+                distributionStale = true;
+                JOptionPane.showMessageDialog(SummaryPanel.this,
+                    "Error loading distribution: " + error,
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        }.execute();
+    }
+
+    /**
+     * First date of the selected range, or null for all history
+     */
+    private LocalDate rangeStart(LocalDate to) {
+        switch (rangeSelector.getSelectedIndex()) {
+            case 1:
+                return to.minusYears(10);
+            case 2:
+                return to.minusYears(5);
+            case 3:
+                return to.minusYears(1);
+            case 4:
+                return to.minusMonths(3);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Build the selected trend chart from the loaded series
+     * Periods without transactions are filled with zeros.
+     */
+    private void showTrend() {
+        if (!CATEGORY_VIEW.equals(chartSelector.getSelectedItem())) {
+            TimeSeries series = trendSeries != null
+                ? trendSeries : new TimeSeries(Granularity.MONTH, new int[0], new long[0], new long[0]);
+            trendChart.setSeries(TREND_VIEW, TimeSeriesChart.Mode.LINES, series.getPeriodStarts(),
+                new String[] {"Income", "Expenses", "Savings"},
+                new double[][] {
+                    rupees(series.getIncomeCents()),
+                    rupees(series.getExpenseCents()),
+                    rupees(series.getSavingsCents())
+                },
+                new Color[] {INCOME_COLOR, EXPENSE_COLOR, SAVINGS_COLOR});
+            return;
+        }
+
+        CategorySeries series = categorySeries;
+        if (series == null || series.getCategories().length == 0) {
+            trendChart.setSeries(CATEGORY_VIEW, TimeSeriesChart.Mode.STACKED,
+                new int[0], new String[0], new double[0][], new Color[0]);
+            return;
+        }
+
+        // Known categories in their usual order, then any others found in the data
+        List<Integer> order = new ArrayList<>();
+        List<String> others = Arrays.asList(series.getCategories());
+        for (String category : Categories.EXPENSE) {
+            int index = others.indexOf(category);
+            if (index >= 0) {
+                order.add(index);
+            }
+        }
+        for (int c = 0; c < others.size(); c++) {
+            if (!order.contains(c)) {
+                order.add(c);
+            }
+        }
+
+        String[] names = new String[order.size()];
+        double[][] values = new double[order.size()][];
+        Color[] colors = new Color[order.size()];
+        for (int c = 0; c < order.size(); c++) {
+            names[c] = series.getCategories()[order.get(c)];
+            values[c] = rupees(series.getCents(order.get(c)));
+            colors[c] = CATEGORY_COLORS[c % CATEGORY_COLORS.length];
+        }
+        trendChart.setSeries(CATEGORY_VIEW, TimeSeriesChart.Mode.STACKED, series.getPeriodStarts(),
+            names, values, colors);
+    }
+
+    private static double[] rupees(long[] cents) {
+        double[] amounts = new double[cents.length];
+        for (int i = 0; i < cents.length; i++) {
+            amounts[i] = cents[i] / 100.0;
+        }
+        return amounts;
     }
 
     private void exportSummary() {
@@ -219,10 +561,12 @@ public class SummaryPanel extends JPanel {
 
     /**
      * Inner class for rendering the bar chart
+     * Amounts are converted to double once per update; the bars are drawn
+     * into a cached image that only changes with the data or the size.
      */
-    private class ChartPanel extends JPanel {
-        private BigDecimal incomeValue = BigDecimal.ZERO;
-        private BigDecimal expenseValue = BigDecimal.ZERO;
+    private class ChartPanel extends CachedChartPanel {
+        private double incomeValue;
+        private double expenseValue;
 
         public ChartPanel() {
             setBackground(new Color(45, 45, 45));
@@ -234,19 +578,13 @@ public class SummaryPanel extends JPanel {
         }
 
         public void updateChart(BigDecimal income, BigDecimal expense) {
-            this.incomeValue = income;
-            this.expenseValue = expense;
-            repaint();
+            this.incomeValue = income.doubleValue();
+            this.expenseValue = expense.doubleValue();
+            invalidateChart();
         }
 
         @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            int width = getWidth();
-            int height = getHeight();
+        protected void renderChart(Graphics2D g2d, int width, int height) {
             int chartHeight = height - 100;
             int barWidth = 100;
             int spacing = 150;
@@ -257,21 +595,17 @@ public class SummaryPanel extends JPanel {
             g2d.drawString("Income vs Expenses", width / 2 - 100, 30);
 
             // Calculate max value for scaling
-            BigDecimal maxValue = incomeValue.max(expenseValue);
-            if (maxValue.compareTo(BigDecimal.ZERO) == 0) {
-                maxValue = BigDecimal.valueOf(100);
+            double maxValue = Math.max(incomeValue, expenseValue);
+            if (maxValue <= 0) {
+                maxValue = 100;
             }
 
             // Draw Income bar
-            int incomeHeight = maxValue.compareTo(BigDecimal.ZERO) > 0 
-                ? incomeValue.multiply(BigDecimal.valueOf(chartHeight))
-                    .divide(maxValue, 0, RoundingMode.HALF_UP).intValue()
-                : 0;
-            
+            int incomeHeight = (int) Math.round(Math.max(0, incomeValue) * chartHeight / maxValue);
             int incomeX = width / 2 - spacing;
             int incomeY = height - 50 - incomeHeight;
 
-            g2d.setColor(new Color(60, 179, 113));
+            g2d.setColor(INCOME_COLOR);
             g2d.fillRect(incomeX, incomeY, barWidth, incomeHeight);
             g2d.setColor(new Color(80, 199, 133));
             g2d.drawRect(incomeX, incomeY, barWidth, incomeHeight);
@@ -284,15 +618,11 @@ public class SummaryPanel extends JPanel {
             g2d.drawString("₹" + String.format("%,.0f", incomeValue), incomeX + 10, height - 10);
 
             // Draw Expense bar
-            int expenseHeight = maxValue.compareTo(BigDecimal.ZERO) > 0
-                ? expenseValue.multiply(BigDecimal.valueOf(chartHeight))
-                    .divide(maxValue, 0, RoundingMode.HALF_UP).intValue()
-                : 0;
-            
+            int expenseHeight = (int) Math.round(Math.max(0, expenseValue) * chartHeight / maxValue);
             int expenseX = width / 2 + spacing - barWidth;
             int expenseY = height - 50 - expenseHeight;
 
-            g2d.setColor(new Color(220, 53, 69));
+            g2d.setColor(EXPENSE_COLOR);
             g2d.fillRect(expenseX, expenseY, barWidth, expenseHeight);
             g2d.setColor(new Color(240, 73, 89));
             g2d.drawRect(expenseX, expenseY, barWidth, expenseHeight);
@@ -0,0 +1,253 @@
+package ui;
+
+import util.Decimation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Time-series chart with line or stacked-area series
+ * Series share one x axis of epoch days. Long series are thinned with
+ * LTTB to about one point per two horizontal pixels before drawing, so a
+ * decade of daily values costs about as much as a year of them; stacked
+ * layers all use the points picked for their total so they stay aligned.
+ */
+class TimeSeriesChart extends CachedChartPanel {
+    enum Mode {
+        LINES,
+        STACKED
+    }
+
+    private static final int LEFT = 90;
+    private static final int RIGHT = 25;
+    private static final int TOP = 60;
+    private static final int BOTTOM = 40;
+    private static final int Y_TICKS = 5;
+    private static final int PIXELS_PER_POINT = 2;
+    private static final Color GRID = new Color(70, 70, 70);
+    private static final Color AXIS_TEXT = new Color(180, 180, 180);
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yy");
+
+    private String title = "";
+    private Mode mode = Mode.LINES;
+    private int[] days = new int[0];
+    private String[] names = new String[0];
+    private double[][] values = new double[0][];
+    private Color[] colors = new Color[0];
+
+    TimeSeriesChart() {
+        setBackground(new Color(45, 45, 45));
+        setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(70, 130, 180), 2),
+            BorderFactory.createEmptyBorder(20, 20, 20, 20)
+        ));
+        setPreferredSize(new Dimension(600, 300));
+    }
+
+    /**
+     * Replace the data
+     * @param title Chart title
+     * @param mode Lines, or areas stacked in the given order (bottom first)
+     * @param days Ascending x values as epoch days
+     * @param names Series names for the legend
+     * @param values One array per series, each as long as days
+     * @param colors One color per series
+     */
+    void setSeries(String title, Mode mode, int[] days, String[] names, double[][] values, Color[] colors) {
+        this.title = title;
+        this.mode = mode;
+        this.days = days;
+        this.names = names;
+        this.values = values;
+        this.colors = colors;
+        invalidateChart();
+    }
+
+    /**
+     * Width the series are drawn across, for choosing how many points to load
+     * Falls back to the preferred size before the chart is laid out.
+     */
+    int getPlotWidth() {
+        int width = getWidth() > 0 ? getWidth() : getPreferredSize().width;
+        Insets insets = getInsets();
+        return Math.max(1, width - insets.left - LEFT - insets.right - RIGHT);
+    }
+
+    @Override
+    protected void renderChart(Graphics2D g2d, int width, int height) {
+        Insets insets = getInsets();
+        int plotLeft = insets.left + LEFT;
+        int plotTop = insets.top + TOP;
+        int plotWidth = width - insets.right - RIGHT - plotLeft;
+        int plotHeight = height - insets.bottom - BOTTOM - plotTop;
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(new Font("Arial", Font.BOLD, 18));
+        g2d.drawString(title, insets.left, insets.top + 18);
+
+        if (days.length == 0 || values.length == 0 || plotWidth <= 0 || plotHeight <= 0) {
+            g2d.setColor(AXIS_TEXT);
+            g2d.setFont(new Font("Arial", Font.PLAIN, 14));
+            g2d.drawString("No data yet", plotLeft, plotTop + 20);
+            return;
+        }
+
+        double[][] plotted = mode == Mode.STACKED ? cumulative(values) : values;
+        int[][] picked = pickPoints(plotted, Math.max(3, plotWidth / PIXELS_PER_POINT));
+
+        double min = 0;
+        double max = 0;
+        for (int s = 0; s < plotted.length; s++) {
+            for (int i : picked[s]) {
+                min = Math.min(min, plotted[s][i]);
+                max = Math.max(max, plotted[s][i]);
+            }
+        }
+        if (max == min) {
+            max = min + 100;
+        }
+
+        double firstDay = days[0];
+        double daySpan = Math.max(1, days[days.length - 1] - days[0]);
+        double xScale = plotWidth / daySpan;
+        double yScale = plotHeight / (max - min);
+
+        drawGrid(g2d, plotLeft, plotTop, plotWidth, plotHeight, min, max);
+        drawTimeAxis(g2d, plotLeft, plotTop + plotHeight, plotWidth);
+
+        // Top layer first for stacked areas so lower layers paint over it
+        for (int s = plotted.length - 1; s >= 0; s--) {
+            int[] points = picked[s];
+            Path2D.Double path = new Path2D.Double();
+            for (int k = 0; k < points.length; k++) {
+                int i = points[k];
+                double px = plotLeft + (days[i] - firstDay) * xScale;
+                double py = plotTop + plotHeight - (plotted[s][i] - min) * yScale;
+                if (k == 0) {
+                    path.moveTo(px, py);
+                } else {
+                    path.lineTo(px, py);
+                }
+            }
+
+            if (mode == Mode.STACKED) {
+                double baseline = plotTop + plotHeight - (0 - min) * yScale;
+                path.lineTo(plotLeft + (days[points[points.length - 1]] - firstDay) * xScale, baseline);
+                path.lineTo(plotLeft + (days[points[0]] - firstDay) * xScale, baseline);
+                path.closePath();
+                g2d.setColor(colors[s]);
+                g2d.fill(path);
+            } else {
+                g2d.setColor(colors[s]);
+                g2d.setStroke(new BasicStroke(2f));
+                g2d.draw(path);
+            }
+        }
+
+        drawLegend(g2d, insets.left, insets.top + 40);
+    }
+
+    /**
+     * Running sums of the series, so series i is drawn on top of 0..i-1
+     */
+    private static double[][] cumulative(double[][] series) {
+        double[][] sums = new double[series.length][];
+        for (int s = 0; s < series.length; s++) {
+            sums[s] = series[s].clone();
+            for (int i = 0; i < sums[s].length; i++) {
+                // Negative amounts would fold the stack over itself
+                sums[s][i] = Math.max(0, sums[s][i]);
+                if (s > 0) {
+                    sums[s][i] += sums[s - 1][i];
+                }
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Points to draw per series: all of them for short series, LTTB picks for long ones
+     * Stacked layers share the picks of the top layer (the total).
+     */
+    private int[][] pickPoints(double[][] plotted, int threshold) {
+        int[][] picked = new int[plotted.length][];
+        double[] x = new double[days.length];
+        for (int i = 0; i < days.length; i++) {
+            x[i] = days[i];
+        }
+        if (mode == Mode.STACKED) {
+            int[] shared = Decimation.lttb(x, plotted[plotted.length - 1], threshold);
+            Arrays.fill(picked, shared);
+            return picked;
+        }
+        for (int s = 0; s < plotted.length; s++) {
+            picked[s] = Decimation.lttb(x, plotted[s], threshold);
+        }
+        return picked;
+    }
+
+    private void drawGrid(Graphics2D g2d, int left, int top, int width, int height, double min, double max) {
+        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        FontMetrics metrics = g2d.getFontMetrics();
+        g2d.setStroke(new BasicStroke(1f));
+        for (int t = 0; t <= Y_TICKS; t++) {
+            double value = min + (max - min) * t / Y_TICKS;
+            int y = top + height - (int) Math.round(height * (double) t / Y_TICKS);
+            g2d.setColor(GRID);
+            g2d.drawLine(left, y, left + width, y);
+
+            String label = "₹" + String.format("%,.0f", value);
+            g2d.setColor(AXIS_TEXT);
+            g2d.drawString(label, left - 8 - metrics.stringWidth(label), y + metrics.getAscent() / 2);
+        }
+    }
+
+    /**
+     * Year ticks for long ranges, month ticks for up to two years
+     */
+    private void drawTimeAxis(Graphics2D g2d, int left, int baseline, int width) {
+        LocalDate first = LocalDate.ofEpochDay(days[0]);
+        LocalDate last = LocalDate.ofEpochDay(days[days.length - 1]);
+        boolean years = first.plusYears(2).isBefore(last);
+        int yearStep = Math.max(1, (last.getYear() - first.getYear()) / 10);
+        double daySpan = Math.max(1, last.toEpochDay() - first.toEpochDay());
+
+        g2d.setFont(new Font("Arial", Font.PLAIN, 11));
+        FontMetrics metrics = g2d.getFontMetrics();
+        LocalDate tick = years ? LocalDate.of(first.getYear(), 1, 1) : first.withDayOfMonth(1);
+        int lastLabelEnd = Integer.MIN_VALUE;
+        while (!tick.isAfter(last)) {
+            if (!tick.isBefore(first)) {
+                int x = left + (int) Math.round((tick.toEpochDay() - first.toEpochDay()) * width / daySpan);
+                String label = years
+                    ? String.valueOf(tick.getYear())
+                    : MONTH_LABEL.format(tick);
+                int labelX = x - metrics.stringWidth(label) / 2;
+                if (labelX > lastLabelEnd + 6) {
+                    g2d.setColor(GRID);
+                    g2d.drawLine(x, baseline, x, baseline + 4);
+                    g2d.setColor(AXIS_TEXT);
+                    g2d.drawString(label, labelX, baseline + 18);
+                    lastLabelEnd = labelX + metrics.stringWidth(label);
+                }
+            }
+            tick = years ? tick.plusYears(yearStep) : tick.plusMonths(1);
+        }
+    }
+
+    private void drawLegend(Graphics2D g2d, int x, int y) {
+        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        FontMetrics metrics = g2d.getFontMetrics();
+        for (int s = 0; s < names.length; s++) {
+            g2d.setColor(colors[s]);
+            g2d.fillRect(x, y - 10, 12, 12);
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(names[s], x + 16, y);
+            x += 16 + metrics.stringWidth(names[s]) + 14;
+        }
+    }
+}
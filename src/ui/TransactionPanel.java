@@ -0,0 +1,975 @@
+package ui;
+
+import dao.RecurringRuleDAO;
+import dao.TransactionDAO;
+import event.EventBus;
+import event.TransactionEvent;
+import model.Granularity;
+import model.RecurringRule;
+import model.Transaction;
+import model.TransactionQuery;
+import model.TransactionRecord;
+import model.User;
+import service.RecurringScheduler;
+import service.SearchService;
+import util.InvertedIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shared panel for managing income or expense entries
+ * The filter bar and the column headers (Category, Amount, Date) are
+ * turned into a TransactionQuery that the database filters, sorts and
+ * pages, so only PAGE_SIZE rows are read at a time however long the
+ * history is. The table is then patched from change events, so adding or
+ * deleting a row doesn't reload it. The search box filters the loaded
+ * rows by words in the notes or category, looked up in the user's search
+ * index. IncomePanel and ExpensePanel supply the DAO, beans, categories
+ * and colours.
+ *
+ * @param <T> Bean type of a row, Income or Expense
+ */
+public abstract class TransactionPanel<T extends Transaction> extends JPanel {
+    private static final int PAGE_SIZE = 500;
+    private static final String[] COLUMNS = {"ID", "Category", "Amount (₹)", "Date", "Notes"};
+    // Repeat choices and the rule each one creates
+    private static final String[] REPEAT_OPTIONS =
+        {"Does not repeat", "Weekly", "Every 2 weeks", "Monthly", "Every 3 months", "Yearly"};
+    private static final Granularity[] REPEAT_FREQUENCIES =
+        {null, Granularity.WEEK, Granularity.WEEK, Granularity.MONTH, Granularity.MONTH, Granularity.YEAR};
+    private static final int[] REPEAT_INTERVALS = {1, 1, 2, 1, 3, 1};
+
+    private final String kind;
+    private final String kindTitle;
+    private final String icon;
+    private final String[] categories;
+    private final Color accentColor;
+    private final Color addColor;
+    private User currentUser;
+    private TransactionDAO<T> dao;
+    private RecurringRuleDAO recurringRuleDAO;
+    private List<T> guestRows; // For guest mode
+    
+    private JComboBox<String> categoryCombo;
+    private JTextField amountField;
+    private JTextField dateField;
+    private JTextField notesField;
+    private JComboBox<String> repeatCombo;
+    private JTable table;
+    private TransactionTableModel tableModel;
+    private TableRowSorter<TransactionTableModel> rowSorter;
+    private JComboBox<String> filterCategoryCombo;
+    private JTextField minAmountField;
+    private JTextField maxAmountField;
+    private JTextField fromDateField;
+    private JTextField toDateField;
+    private JButton loadMoreButton;
+    private TransactionQuery query;
+    private boolean morePages; // rows past the last loaded one exist
+    private JTextField searchField;
+    private Timer searchTimer;
+    private int searchGeneration;
+    private int loadGeneration; // guards against out-of-order background loads
+    private boolean loading;
+    private EventBus.Subscription subscription;
+
+    /**
+     * @param user Signed-in user, or the guest (ID -1)
+     * @param type Bean class, whose change events patch the table
+     * @param kind "income" or "expense"
+     * @param icon Emoji shown before the title
+     * @param categories Categories offered for this kind
+     * @param accentColor Border and table header colour
+     * @param addColor Add button colour
+     * @param dao DAO for this kind
+     */
+    protected TransactionPanel(User user, Class<T> type, String kind, String icon, String[] categories,
+                               Color accentColor, Color addColor, TransactionDAO<T> dao) {
+        this.currentUser = user;
+        this.kind = kind;
+        this.kindTitle = Character.toUpperCase(kind.charAt(0)) + kind.substring(1);
+        this.icon = icon;
+        this.categories = categories;
+        this.accentColor = accentColor;
+        this.addColor = addColor;
+        this.dao = dao;
+        this.recurringRuleDAO = new RecurringRuleDAO();
+        this.guestRows = new ArrayList<>();
+        this.query = new TransactionQuery();
+        this.query.setLimit(PAGE_SIZE);
+        
+        setLayout(new BorderLayout(10, 10));
+        setBackground(new Color(35, 35, 35));
+        setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        initializeComponents();
+
+        // Patch the table when rows change (guest data never goes through the DAO)
+        if (currentUser.getUserId() != -1) {
+            subscription = EventBus.getInstance().subscribe(type,
+                event -> SwingUtilities.invokeLater(() -> applyChange(event)));
+        }
+        loadData();
+    }
+
+    /**
+     * New bean for a row entered in the form
+     */
+    protected abstract T newRow(int userId, String category, BigDecimal amount, Date date, String notes);
+
+    /**
+     * Number a guest row, which never gets a database ID
+     */
+    protected abstract void setGuestId(T row, int id);
+
+    @Override
+    public void removeNotify() {
+        // Called when the dashboard is disposed
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        super.removeNotify();
+    }
+
+    private void initializeComponents() {
+        // Top panel for title
+        JPanel titlePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        titlePanel.setBackground(new Color(35, 35, 35));
+        JLabel titleLabel = new JLabel(icon + " " + kindTitle + " Management");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        titlePanel.add(titleLabel);
+        add(titlePanel, BorderLayout.NORTH);
+
+        // Center panel - split into form and table
+        JPanel centerPanel = new JPanel(new BorderLayout(10, 10));
+        centerPanel.setBackground(new Color(35, 35, 35));
+
+        // Form panel
+        JPanel formPanel = createFormPanel();
+        centerPanel.add(formPanel, BorderLayout.NORTH);
+
+        // Table panel
+        JPanel tablePanel = createTablePanel();
+        centerPanel.add(tablePanel, BorderLayout.CENTER);
+
+        add(centerPanel, BorderLayout.CENTER);
+    }
+
+    private JPanel createFormPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBackground(new Color(45, 45, 45));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(accentColor, 2),
+            BorderFactory.createEmptyBorder(15, 15, 15, 15)
+        ));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 10, 5, 10);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        // Category
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        panel.add(createLabel("Category:"), gbc);
+
+        categoryCombo = new JComboBox<>(categories);
+        categoryCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        categoryCombo.setBackground(new Color(60, 60, 60));
+        categoryCombo.setForeground(Color.WHITE);
+        gbc.gridx = 1;
+        panel.add(categoryCombo, gbc);
+
+        // Amount
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        panel.add(createLabel("Amount:"), gbc);
+
+        amountField = createTextField();
+        gbc.gridx = 1;
+        panel.add(amountField, gbc);
+
+        // Date
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        panel.add(createLabel("Date (YYYY-MM-DD):"), gbc);
+
+        dateField = createTextField();
+        dateField.setText(LocalDate.now().toString());
+        gbc.gridx = 1;
+        panel.add(dateField, gbc);
+
+        // Notes
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        panel.add(createLabel("Notes:"), gbc);
+
+        notesField = createTextField();
+        gbc.gridx = 1;
+        panel.add(notesField, gbc);
+
+        // Repeat
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        panel.add(createLabel("Repeat:"), gbc);
+
+        repeatCombo = new JComboBox<>(REPEAT_OPTIONS);
+        repeatCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        repeatCombo.setBackground(new Color(60, 60, 60));
+        repeatCombo.setForeground(Color.WHITE);
+        repeatCombo.setToolTipText("Add this " + kind + " again on a schedule, starting from the date");
+        gbc.gridx = 1;
+        panel.add(repeatCombo, gbc);
+
+        // Button panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        buttonPanel.setBackground(new Color(45, 45, 45));
+
+        JButton addButton = createStyledButton("Add " + kindTitle, addColor);
+        addButton.addActionListener(e -> handleAdd());
+        buttonPanel.add(addButton);
+
+        JButton clearButton = createStyledButton("Clear", new Color(128, 128, 128));
+        clearButton.addActionListener(e -> clearForm());
+        buttonPanel.add(clearButton);
+
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        panel.add(buttonPanel, gbc);
+
+        return panel;
+    }
+
+    private JPanel createTablePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(new Color(45, 45, 45));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(accentColor, 2),
+            BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+
+        // Title and search box
+        JLabel tableTitle = new JLabel(kindTitle + " Records");
+        tableTitle.setFont(new Font("Arial", Font.BOLD, 18));
+        tableTitle.setForeground(Color.WHITE);
+
+        searchField = createTextField();
+        searchField.setColumns(18);
+        searchField.setToolTipText("Find " + kind + "s by words in their notes or category");
+        // Search once typing pauses rather than on every key
+        searchTimer = new Timer(150, e -> applySearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        searchPanel.setBackground(new Color(45, 45, 45));
+        searchPanel.add(createLabel("🔍"));
+        searchPanel.add(searchField);
+
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(new Color(45, 45, 45));
+        headerPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        headerPanel.add(tableTitle, BorderLayout.WEST);
+        headerPanel.add(searchPanel, BorderLayout.EAST);
+        headerPanel.add(createFilterPanel(), BorderLayout.SOUTH);
+        panel.add(headerPanel, BorderLayout.NORTH);
+
+        // Table
+        tableModel = new TransactionTableModel(COLUMNS);
+
+        table = new JTable(tableModel);
+        rowSorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(rowSorter);
+        // Sorting happens in the query; the sorter only applies the search filter
+        for (int column = 0; column < COLUMNS.length; column++) {
+            rowSorter.setSortable(column, false);
+        }
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column != -1) {
+                    sortBy(sortKeyOf(table.convertColumnIndexToModel(column)));
+                }
+            }
+        });
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(25);
+        table.setBackground(new Color(50, 50, 50));
+        table.setForeground(Color.WHITE);
+        table.setGridColor(new Color(70, 70, 70));
+        table.getTableHeader().setBackground(accentColor);
+        table.getTableHeader().setForeground(Color.WHITE);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
+        updateSortHeaders();
+
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.getViewport().setBackground(new Color(50, 50, 50));
+        panel.add(scrollPane, BorderLayout.CENTER);
+
+        // Load more and delete buttons
+        loadMoreButton = createStyledButton("Load More", new Color(128, 128, 128));
+        loadMoreButton.setEnabled(false);
+        loadMoreButton.addActionListener(e -> loadMore());
+        JButton recategorizeButton = createStyledButton("Recategorize", new Color(128, 128, 128));
+        recategorizeButton.addActionListener(e -> handleRecategorize());
+        JButton deleteButton = createStyledButton("Delete Selected", new Color(220, 53, 69));
+        deleteButton.addActionListener(e -> handleDelete());
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottomPanel.setBackground(new Color(45, 45, 45));
+        bottomPanel.add(loadMoreButton);
+        bottomPanel.add(recategorizeButton);
+        bottomPanel.add(deleteButton);
+        panel.add(bottomPanel, BorderLayout.SOUTH);
+
+        return panel;
+    }
+
+    /**
+     * Category, amount and date filters, applied by the database
+     */
+    private JPanel createFilterPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        panel.setBackground(new Color(45, 45, 45));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+
+        String[] choices = new String[categories.length + 1];
+        choices[0] = "All categories";
+        System.arraycopy(categories, 0, choices, 1, categories.length);
+        filterCategoryCombo = new JComboBox<>(choices);
+        filterCategoryCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        filterCategoryCombo.setBackground(new Color(60, 60, 60));
+        filterCategoryCombo.setForeground(Color.WHITE);
+
+        minAmountField = createTextField();
+        minAmountField.setColumns(6);
+        maxAmountField = createTextField();
+        maxAmountField.setColumns(6);
+        fromDateField = createTextField();
+        fromDateField.setColumns(8);
+        fromDateField.setToolTipText("YYYY-MM-DD");
+        toDateField = createTextField();
+        toDateField.setColumns(8);
+        toDateField.setToolTipText("YYYY-MM-DD");
+
+        JButton applyButton = createStyledButton("Filter", new Color(128, 128, 128));
+        applyButton.setPreferredSize(new Dimension(80, 30));
+        applyButton.addActionListener(e -> applyFilters());
+        JButton resetButton = createStyledButton("Reset", new Color(128, 128, 128));
+        resetButton.setPreferredSize(new Dimension(80, 30));
+        resetButton.addActionListener(e -> resetFilters());
+
+        panel.add(filterCategoryCombo);
+        panel.add(createLabel("Amount:"));
+        panel.add(minAmountField);
+        panel.add(createLabel("to"));
+        panel.add(maxAmountField);
+        panel.add(createLabel("Date:"));
+        panel.add(fromDateField);
+        panel.add(createLabel("to"));
+        panel.add(toDateField);
+        panel.add(applyButton);
+        panel.add(resetButton);
+        return panel;
+    }
+
+    private JLabel createLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("Arial", Font.BOLD, 14));
+        label.setForeground(Color.WHITE);
+        return label;
+    }
+
+    private JTextField createTextField() {
+        JTextField field = new JTextField(20);
+        field.setFont(new Font("Arial", Font.PLAIN, 14));
+        field.setBackground(new Color(60, 60, 60));
+        field.setForeground(Color.WHITE);
+        field.setCaretColor(Color.WHITE);
+        field.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100)),
+            BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+        return field;
+    }
+
+    private JButton createStyledButton(String text, Color bgColor) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 13));
+        button.setBackground(bgColor);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setPreferredSize(new Dimension(130, 35));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+
+    private void handleAdd() {
+        try {
+            String category = (String) categoryCombo.getSelectedItem();
+            String amountStr = amountField.getText().trim();
+            String dateStr = dateField.getText().trim();
+            String notes = notesField.getText().trim();
+
+            // Validation
+            if (amountStr.isEmpty()) {
+                showError("Please enter an amount");
+                return;
+            }
+
+            BigDecimal amount = new BigDecimal(amountStr);
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                showError("Amount must be greater than zero");
+                return;
+            }
+
+            Date date = Date.valueOf(dateStr);
+            int repeat = repeatCombo.getSelectedIndex();
+
+            // Show loading cursor
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+            if (repeat > 0) {
+                if (currentUser.getUserId() == -1) {
+                    showError("Recurring entries need an account (not available in Guest Mode)");
+                    return;
+                }
+                if (!recurringRuleDAO.isAvailable()) {
+                    showError("Recurring entries need the latest database schema; restart to apply it");
+                    return;
+                }
+                RecurringRule rule = new RecurringRule(currentUser.getUserId(), kind, category, amount,
+                    notes, REPEAT_FREQUENCIES[repeat], REPEAT_INTERVALS[repeat], date);
+                if (!recurringRuleDAO.addRule(rule)) {
+                    showError("Failed to save recurring " + kind);
+                    return;
+                }
+                // Entries up to today, starting with this one, are written by the scheduler
+                RecurringScheduler.getInstance().runNow();
+                JOptionPane.showMessageDialog(this, "✓ Recurring " + kind + " saved! (" +
+                    REPEAT_OPTIONS[repeat].toLowerCase() + " from " + date + ")",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else if (currentUser.getUserId() == -1) {
+                // Guest mode
+                T row = newRow(-1, category, amount, date, notes);
+                setGuestId(row, guestRows.size() + 1);
+                guestRows.add(row);
+                loadData();
+                JOptionPane.showMessageDialog(this,
+                    "✓ " + kindTitle + " added successfully!\n(Guest Mode - Not saved to database)",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                // Regular user
+                T row = newRow(currentUser.getUserId(), category, amount, date, notes);
+                if (dao.add(row)) {
+                    JOptionPane.showMessageDialog(this, "✓ " + kindTitle + " added successfully!", 
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    showError("Failed to add " + kind);
+                    return;
+                }
+            }
+
+            clearForm();
+
+        } catch (NumberFormatException e) {
+            showError("Invalid amount format");
+        } catch (IllegalArgumentException e) {
+            showError("Invalid date format. Use YYYY-MM-DD");
+        } catch (Exception e) {
+            showError("Error adding " + kind + ": " + e.getMessage());
+        } finally {
+            setCursor(Cursor.getDefaultCursor());
+        }
+    }
+
+    /**
+     * Delete the selected rows in one operation
+     * With every loaded row selected under an active filter, all matching
+     * rows are deleted, including pages not loaded yet.
+     */
+    private void handleDelete() {
+        List<Integer> ids = selectedIds();
+        if (ids.isEmpty()) {
+            showError("Please select the " + kind + " entries to delete");
+            return;
+        }
+        boolean allMatching = allMatchingSelected();
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            allMatching ? "Delete every " + kind + " matching the current filter?"
+                        : "Are you sure you want to delete " + describe(ids.size()) + "?",
+            "Confirm Delete",
+            JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        if (currentUser.getUserId() == -1) {
+            // Guest mode
+            Set<Integer> selected = new HashSet<>(ids);
+            guestRows.removeIf(row -> allMatching ? query.matches(row) : selected.contains(row.getId()));
+            loadData();
+            JOptionPane.showMessageDialog(this, kindTitle + "s deleted (Guest Mode)");
+            return;
+        }
+
+        // Run on a worker thread; the table is patched from the change event
+        int userId = currentUser.getUserId();
+        TransactionQuery filter = query.allRows();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return allMatching
+                    ? dao.deleteWhere(userId, filter)
+                    : dao.deleteAll(userId, ids);
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    int deleted = get();
+                    if (deleted < 0) {
+                        showError("Failed to delete " + kind + "s");
+                    } else {
+                        JOptionPane.showMessageDialog(TransactionPanel.this, "Deleted " + describe(deleted) + ".");
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    showError("Error deleting " + kind + "s: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Move the selected rows (or every matching row, as for delete) to another category
+     */
+    private void handleRecategorize() {
+        List<Integer> ids = selectedIds();
+        if (ids.isEmpty()) {
+            showError("Please select the " + kind + " entries to recategorize");
+            return;
+        }
+        boolean allMatching = allMatchingSelected();
+
+        String category = (String) JOptionPane.showInputDialog(this,
+            allMatching ? "Move every " + kind + " matching the current filter to:"
+                        : "Move " + describe(ids.size()) + " to:",
+            "Recategorize",
+            JOptionPane.QUESTION_MESSAGE, null, categories, categories[0]);
+        if (category == null) {
+            return;
+        }
+
+        if (currentUser.getUserId() == -1) {
+            // Guest mode
+            Set<Integer> selected = new HashSet<>(ids);
+            for (ListIterator<T> rows = guestRows.listIterator(); rows.hasNext(); ) {
+                T row = rows.next();
+                if (allMatching ? query.matches(row) : selected.contains(row.getId())) {
+                    T moved = newRow(-1, category, row.getAmount(), row.getDate(), row.getNotes());
+                    setGuestId(moved, row.getId());
+                    rows.set(moved);
+                }
+            }
+            loadData();
+            return;
+        }
+
+        int userId = currentUser.getUserId();
+        TransactionQuery filter = query.allRows();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                int changed = allMatching
+                    ? dao.recategorizeWhere(userId, filter, category)
+                    : dao.recategorizeAll(userId, ids, category);
+                if (changed < 0) {
+                    return null;
+                }
+                // Archived rows are listed but not changed; say so rather than leave them silently
+                int archived = allMatching
+                    ? dao.countArchivedWhere(userId, filter)
+                    : dao.countArchived(userId, ids);
+                String message = "Moved " + describe(changed) + " to " + category + ".";
+                if (archived > 0) {
+                    message += "\n" + describe(archived) + " left unchanged because archived.";
+                }
+                return message;
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    String message = get();
+                    if (message == null) {
+                        showError("Failed to recategorize " + kind + "s");
+                    } else {
+                        JOptionPane.showMessageDialog(TransactionPanel.this, message);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    showError("Error recategorizing " + kind + "s: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * IDs of the selected rows
+     */
+    private List<Integer> selectedIds() {
+        int[] rows = table.getSelectedRows();
+        List<Integer> ids = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            ids.add(tableModel.getRow(table.convertRowIndexToModel(row)).id());
+        }
+        return ids;
+    }
+
+    /**
+     * Whether the selection stands for the whole filtered list rather than individual rows
+     * True when a filter is set, no search narrows the view, and every loaded row is selected.
+     */
+    private boolean allMatchingSelected() {
+        return query.isFiltered() && rowSorter.getRowFilter() == null
+            && table.getSelectedRowCount() == tableModel.getRowCount();
+    }
+
+    private String describe(int count) {
+        return count == 1 ? "1 " + kind : String.format("%,d " + kind + "s", count);
+    }
+
+    private void loadData() {
+        if (currentUser.getUserId() == -1) {
+            // Guest mode - same filters and order, applied in memory
+            List<TransactionRecord> matching = new ArrayList<>();
+            for (T row : guestRows) {
+                if (query.matches(row)) {
+                    matching.add(TransactionRecord.of(row));
+                }
+            }
+            matching.sort(query.comparator());
+            morePages = false;
+            loadMoreButton.setEnabled(false);
+            showRows(matching, false);
+            return;
+        }
+
+        // Regular user - query the first page on a worker thread, fill the table when done
+        loadPage(query, false);
+    }
+
+    /**
+     * Append the page after the last loaded row
+     */
+    private void loadMore() {
+        if (loading || !morePages || tableModel.getRowCount() == 0) {
+            return;
+        }
+        loadPage(query.nextPage(tableModel.getRow(tableModel.getRowCount() - 1)), true);
+    }
+
+    private void loadPage(TransactionQuery page, boolean append) {
+        int generation = ++loadGeneration;
+        loading = true;
+        loadMoreButton.setEnabled(false);
+        new SwingWorker<List<TransactionRecord>, Void>() {
+            @Override
+            protected List<TransactionRecord> doInBackground() {
+                return dao.findRecords(currentUser.getUserId(), page);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != loadGeneration) {
+                    return; // superseded by a newer load
+                }
+                loading = false;
+                try {
+                    List<TransactionRecord> rows = get();
+                    morePages = rows.size() == PAGE_SIZE;
+                    showRows(rows, append);
+                } catch (InterruptedException | ExecutionException e) {
+                    morePages = false;
+                    showError("Error loading " + kind + "s: " + e.getMessage());
+                }
+                loadMoreButton.setEnabled(morePages);
+            }
+        }.execute();
+    }
+
+    private void showRows(List<TransactionRecord> rows, boolean append) {
+        if (append) {
+            tableModel.addRows(rows);
+        } else {
+            tableModel.setRows(rows);
+        }
+    }
+
+    /**
+     * Read the filter bar into the query and reload
+     */
+    private void applyFilters() {
+        BigDecimal minAmount;
+        BigDecimal maxAmount;
+        try {
+            minAmount = parseAmount(minAmountField.getText());
+            maxAmount = parseAmount(maxAmountField.getText());
+        } catch (NumberFormatException e) {
+            showError("Invalid amount format");
+            return;
+        }
+
+        Date fromDate;
+        Date toDate;
+        try {
+            fromDate = parseDate(fromDateField.getText(), 0);
+            // The To field is inclusive; the query's end date is not
+            toDate = parseDate(toDateField.getText(), 1);
+        } catch (IllegalArgumentException e) {
+            showError("Invalid date format. Use YYYY-MM-DD");
+            return;
+        }
+
+        int categoryIndex = filterCategoryCombo.getSelectedIndex();
+        query.setCategories(categoryIndex > 0
+            ? Set.of((String) filterCategoryCombo.getSelectedItem())
+            : null);
+        query.setMinAmount(minAmount);
+        query.setMaxAmount(maxAmount);
+        query.setFromDate(fromDate);
+        query.setToDate(toDate);
+        loadData();
+    }
+
+    private void resetFilters() {
+        filterCategoryCombo.setSelectedIndex(0);
+        minAmountField.setText("");
+        maxAmountField.setText("");
+        fromDateField.setText("");
+        toDateField.setText("");
+        applyFilters();
+    }
+
+    private static BigDecimal parseAmount(String text) {
+        return text.isBlank() ? null : new BigDecimal(text.trim());
+    }
+
+    private static Date parseDate(String text, int plusDays) {
+        return text.isBlank() ? null : Date.valueOf(LocalDate.parse(text.trim()).plusDays(plusDays));
+    }
+
+    /**
+     * Sort by a column, reversing the order when it is already the sort column
+     */
+    private void sortBy(TransactionQuery.SortKey key) {
+        if (key == null) {
+            return;
+        }
+        boolean descending = key == query.getSortKey()
+            ? !query.isDescending()
+            : key != TransactionQuery.SortKey.CATEGORY;
+        query.setSort(key, descending);
+        updateSortHeaders();
+        loadData();
+    }
+
+    /**
+     * Sort key of a model column, or null if the column can't be sorted
+     */
+    private static TransactionQuery.SortKey sortKeyOf(int modelColumn) {
+        switch (modelColumn) {
+            case 1:
+                return TransactionQuery.SortKey.CATEGORY;
+            case 2:
+                return TransactionQuery.SortKey.AMOUNT;
+            case 3:
+                return TransactionQuery.SortKey.DATE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Mark the sort column and direction in the header
+     */
+    private void updateSortHeaders() {
+        for (int view = 0; view < table.getColumnCount(); view++) {
+            int column = table.convertColumnIndexToModel(view);
+            String header = COLUMNS[column];
+            if (sortKeyOf(column) == query.getSortKey()) {
+                header += query.isDescending() ? " ▼" : " ▲";
+            }
+            table.getColumnModel().getColumn(view).setHeaderValue(header);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    /**
+     * Apply a change event to the table in place
+     */
+    private void applyChange(TransactionEvent<T> event) {
+        if (event.getUserId() != currentUser.getUserId()) {
+            return;
+        }
+        if (loading) {
+            // The running load may or may not include this change
+            loadData();
+            return;
+        }
+        for (int id : event.getRemovedIds()) {
+            tableModel.removeId(id);
+        }
+        for (T row : event.getAddedRows()) {
+            if (query.matches(row)) {
+                insertRow(TransactionRecord.of(row));
+            }
+        }
+        if (!searchField.getText().isBlank()) {
+            // Changed rows may now match, or stop matching, the search
+            searchTimer.restart();
+        }
+    }
+
+    /**
+     * Filter the table to the rows matching the search box
+     * Falls back to matching the loaded rows while the index is loading,
+     * and for guests, whose rows never reach the index.
+     */
+    private void applySearch() {
+        String query = searchField.getText().trim();
+        int generation = ++searchGeneration;
+        if (query.isEmpty()) {
+            rowSorter.setRowFilter(null);
+            return;
+        }
+        if (currentUser.getUserId() == -1) {
+            rowSorter.setRowFilter(textFilter(query));
+            return;
+        }
+
+        new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() {
+                return SearchService.getInstance().search(currentUser.getUserId(), kind, query);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != searchGeneration) {
+                    return; // superseded by a newer search
+                }
+                try {
+                    int[] ids = get();
+                    rowSorter.setRowFilter(ids != null ? idFilter(ids) : textFilter(query));
+                } catch (InterruptedException | ExecutionException e) {
+                    rowSorter.setRowFilter(textFilter(query));
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Rows whose ID is in a sorted array
+     */
+    private static RowFilter<TransactionTableModel, Integer> idFilter(int[] ids) {
+        return new RowFilter<TransactionTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TransactionTableModel, ? extends Integer> entry) {
+                return Arrays.binarySearch(ids, entry.getModel().getRow(entry.getIdentifier()).id()) >= 0;
+            }
+        };
+    }
+
+    /**
+     * Rows whose category and notes match the query, checked one by one
+     */
+    private static RowFilter<TransactionTableModel, Integer> textFilter(String query) {
+        return new RowFilter<TransactionTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TransactionTableModel, ? extends Integer> entry) {
+                TransactionRecord row = entry.getModel().getRow(entry.getIdentifier());
+                return InvertedIndex.matches(query, TransactionDAO.searchText(row.category(), row.notes()));
+            }
+        };
+    }
+
+    /**
+     * Insert a row at its place in the query order
+     * A row that sorts after the last loaded one is left for a later page.
+     */
+    private void insertRow(TransactionRecord row) {
+        Comparator<Transaction> order = query.comparator();
+        int low = 0;
+        int high = tableModel.getRowCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(tableModel.getRow(mid), row) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == tableModel.getRowCount() && morePages) {
+            return;
+        }
+        tableModel.insertRow(low, row);
+    }
+
+    private void clearForm() {
+        categoryCombo.setSelectedIndex(0);
+        amountField.setText("");
+        dateField.setText(LocalDate.now().toString());
+        notesField.setText("");
+        repeatCombo.setSelectedIndex(0);
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Rows added in guest mode, which exist only in memory
+     */
+    protected List<T> getGuestRows() {
+        return guestRows;
+    }
+}
@@ -0,0 +1,97 @@
+package ui;
+
+import model.TransactionRecord;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Table model over compact transaction records
+ * Columns are ID, Category, Amount, Date and Notes. Rows stay records;
+ * cell values are converted only when a cell is painted or filtered, so a
+ * long table costs one small object per row rather than a row array of
+ * boxed values.
+ */
+class TransactionTableModel extends AbstractTableModel {
+    private final String[] columns;
+    private final List<TransactionRecord> rows = new ArrayList<>();
+
+    TransactionTableModel(String[] columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        TransactionRecord record = rows.get(row);
+        switch (column) {
+            case 0:
+                return record.id();
+            case 1:
+                return record.category();
+            case 2:
+                return record.getAmount();
+            case 3:
+                return record.getDate();
+            default:
+                return record.notes();
+        }
+    }
+
+    TransactionRecord getRow(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Replace all rows
+     */
+    void setRows(List<TransactionRecord> records) {
+        rows.clear();
+        rows.addAll(records);
+        fireTableDataChanged();
+    }
+
+    void addRows(List<TransactionRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        int first = rows.size();
+        rows.addAll(records);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    void insertRow(int row, TransactionRecord record) {
+        rows.add(row, record);
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Remove the row with an ID
+     * @return true if a row was removed
+     */
+    boolean removeId(int id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).id() == id) {
+                rows.remove(i);
+                fireTableRowsDeleted(i, i);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package util;
+
+/**
+ * Point decimation for drawing long time series
+ */
+public final class Decimation {
+
+    private Decimation() {}
+
+    /**
+     * Pick the points that best keep the shape of a series (Largest-Triangle-Three-Buckets)
+     * The first and last points are always kept; every bucket in between
+     * contributes the point forming the largest triangle with the previous
+     * pick and the average of the next bucket, so peaks and dips survive.
+     * @param x Ascending x values
+     * @param y Values, same length as x
+     * @param threshold Maximum number of points to keep
+     * @return Indices of the kept points in ascending order (all of them if
+     *         the series is not longer than threshold)
+     */
+    public static int[] lttb(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] picked = new int[threshold];
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        picked[0] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket (the last point for the final bucket)
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = x[n - 1];
+                avgY = y[n - 1];
+            }
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int best = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            picked[bucket + 1] = best;
+            a = best;
+        }
+
+        picked[threshold - 1] = n - 1;
+        return picked;
+    }
+}
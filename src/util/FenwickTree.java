@@ -0,0 +1,105 @@
+package util;
+
+/**
+ * Fenwick (binary indexed) tree of long values
+ * Point updates and prefix sums both take O(log n), so the total of any
+ * index range costs two short walks instead of a scan. The capacity is a
+ * power of two, which lets the tree grow to the right in O(n) without
+ * recomputing it.
+ */
+public final class FenwickTree {
+    private long[] tree; // 1-based; tree[i] holds the sum of (i - lowbit(i), i]
+
+    /**
+     * Empty tree
+     * @param minCapacity Number of indices needed (rounded up to a power of two)
+     */
+    public FenwickTree(int minCapacity) {
+        tree = new long[capacityFor(minCapacity) + 1];
+    }
+
+    /**
+     * Tree over existing values, built in O(n)
+     * @param values Value per index
+     */
+    public FenwickTree(long[] values) {
+        this(values.length);
+        System.arraycopy(values, 0, tree, 1, values.length);
+        int n = tree.length - 1;
+        for (int i = 1; i <= n; i++) {
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Number of indices the tree can hold
+     */
+    public int capacity() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Add to the value at an index, growing the tree if needed
+     * @param index Index, 0 or more
+     * @param delta Amount to add (negative to subtract)
+     */
+    public void add(int index, long delta) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative index " + index);
+        }
+        if (index >= capacity()) {
+            grow(index + 1);
+        }
+        int n = capacity();
+        for (int i = index + 1; i <= n; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of the values at indices [0, end)
+     * @param end First index excluded; clamped to the capacity
+     */
+    public long prefixSum(int end) {
+        long sum = 0;
+        for (int i = Math.min(end, capacity()); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of the values at indices [from, to)
+     */
+    public long rangeSum(int from, int to) {
+        if (to <= from) {
+            return 0;
+        }
+        return prefixSum(to) - prefixSum(Math.max(0, from));
+    }
+
+    /**
+     * Double the capacity until it covers minCapacity
+     * With a power-of-two size n, every new node below 2n covers only new
+     * (zero) indices and node 2n covers everything, i.e. the old node n.
+     */
+    private void grow(int minCapacity) {
+        int n = capacity();
+        long[] grown = new long[capacityFor(minCapacity) + 1];
+        System.arraycopy(tree, 0, grown, 0, tree.length);
+        for (int size = n; size < grown.length - 1; size *= 2) {
+            grown[size * 2] = grown[size];
+        }
+        tree = grown;
+    }
+
+    private static int capacityFor(int minCapacity) {
+        if (minCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity too large: " + minCapacity);
+        }
+        return Math.max(1, Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1);
+    }
+}
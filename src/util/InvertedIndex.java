@@ -0,0 +1,451 @@
+package util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Inverted index from words to document IDs, with prefix search
+ * The bulk of the index is an immutable segment: a sorted term array and
+ * one sorted posting array per term, so a prefix is a binary search plus
+ * a union of the postings it covers. Changes go to a small in-memory delta
+ * (documents added since the segment) and a bitmap of segment documents
+ * that were removed or replaced; compact() folds both into a new segment.
+ *
+ * On disk a segment is its terms in order, each followed by its postings
+ * as varint-encoded gaps, which keeps typical lists to a byte or two per
+ * document.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class InvertedIndex {
+    private static final int MAGIC = 0x46545349; // "FTSI"
+    private static final int FORMAT = 1;
+    private static final int[] NONE = new int[0];
+
+    private String[] terms = new String[0];
+    private int[][] postings = new int[0][];
+    private BitSet segmentDocs = new BitSet();
+    private final BitSet removed = new BitSet(); // segment documents removed or replaced since
+    // Documents added since the segment was built, with their text for removal
+    private final Map<Integer, String> deltaDocs = new HashMap<>();
+    private final TreeMap<String, TreeSet<Integer>> deltaTerms = new TreeMap<>();
+
+    /**
+     * Split text into lower-case words (runs of letters and digits)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Check a text against a query without an index
+     * @return true if every query word is a prefix of some word of the text
+     */
+    public static boolean matches(String query, String text) {
+        List<String> words = tokenize(text);
+        for (String prefix : tokenize(query)) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a document, replacing any earlier version with the same ID
+     * @param docId Document ID, 0 or more
+     * @param text Text to index
+     */
+    public void put(int docId, String text) {
+        remove(docId);
+        deltaDocs.put(docId, text);
+        for (String token : new TreeSet<>(tokenize(text))) {
+            deltaTerms.computeIfAbsent(token, t -> new TreeSet<>()).add(docId);
+        }
+    }
+
+    /**
+     * Remove a document; unknown IDs are ignored
+     */
+    public void remove(int docId) {
+        if (segmentDocs.get(docId)) {
+            removed.set(docId);
+        }
+        String text = deltaDocs.remove(docId);
+        if (text == null) {
+            return;
+        }
+        for (String token : tokenize(text)) {
+            TreeSet<Integer> docs = deltaTerms.get(token);
+            if (docs != null) {
+                docs.remove(docId);
+                if (docs.isEmpty()) {
+                    deltaTerms.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Documents matching every word of a query, each word as a prefix
+     * The cheapest word is expanded first; the others then only check its
+     * candidates unless expanding them is cheaper, so a rare word keeps a
+     * common one ("netflix s") from touching its long posting lists.
+     * @param query Free text, e.g. "netf rent"
+     * @return Matching document IDs in ascending order (none for an empty query)
+     */
+    public int[] search(String query) {
+        List<Prefix> prefixes = new ArrayList<>();
+        for (String word : new TreeSet<>(tokenize(query))) {
+            Prefix prefix = new Prefix(word);
+            if (prefix.cost == 0) {
+                return NONE;
+            }
+            prefixes.add(prefix);
+        }
+        if (prefixes.isEmpty()) {
+            return NONE;
+        }
+        prefixes.sort((a, b) -> Long.compare(a.cost, b.cost));
+
+        int[] result = expand(prefixes.get(0));
+        for (int i = 1; i < prefixes.size() && result.length > 0; i++) {
+            Prefix prefix = prefixes.get(i);
+            long probeCost = (long) result.length * (prefix.to - prefix.from + prefix.delta.size());
+            result = probeCost < prefix.cost ? probe(result, prefix) : intersect(result, expand(prefix));
+        }
+        return result;
+    }
+
+    /**
+     * Independent copy, e.g. to compact or write without holding the caller's lock
+     * The segment is never changed in place, so it is shared; only the
+     * delta and removals are copied.
+     */
+    public InvertedIndex copy() {
+        InvertedIndex copy = new InvertedIndex();
+        copy.terms = terms;
+        copy.postings = postings;
+        copy.segmentDocs = segmentDocs;
+        copy.removed.or(removed);
+        copy.deltaDocs.putAll(deltaDocs);
+        for (Map.Entry<String, TreeSet<Integer>> term : deltaTerms.entrySet()) {
+            copy.deltaTerms.put(term.getKey(), new TreeSet<>(term.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Number of documents in the delta, i.e. the work a compact() would fold in
+     */
+    public int deltaSize() {
+        return deltaDocs.size();
+    }
+
+    /**
+     * Fold the delta and removals into a new segment
+     */
+    public void compact() {
+        if (deltaDocs.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        List<String> newTerms = new ArrayList<>(terms.length + deltaTerms.size());
+        List<int[]> newPostings = new ArrayList<>(terms.length + deltaTerms.size());
+        int t = 0;
+        for (Map.Entry<String, TreeSet<Integer>> delta : deltaTerms.entrySet()) {
+            while (t < terms.length && terms[t].compareTo(delta.getKey()) < 0) {
+                addTerm(newTerms, newPostings, terms[t], live(postings[t]));
+                t++;
+            }
+            int[] base = NONE;
+            if (t < terms.length && terms[t].equals(delta.getKey())) {
+                base = live(postings[t]);
+                t++;
+            }
+            addTerm(newTerms, newPostings, delta.getKey(), union(base, toArray(delta.getValue())));
+        }
+        for (; t < terms.length; t++) {
+            addTerm(newTerms, newPostings, terms[t], live(postings[t]));
+        }
+        terms = newTerms.toArray(new String[0]);
+        postings = newPostings.toArray(new int[0][]);
+        segmentDocs = docsOf(postings);
+        removed.clear();
+        deltaDocs.clear();
+        deltaTerms.clear();
+    }
+
+    /**
+     * Write the index as a segment (compacting first)
+     */
+    public void write(DataOutputStream out) throws IOException {
+        compact();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeInt(terms.length);
+        for (int t = 0; t < terms.length; t++) {
+            out.writeUTF(terms[t]);
+            int[] docs = postings[t];
+            writeVarint(out, docs.length);
+            int previous = -1;
+            for (int doc : docs) {
+                writeVarint(out, doc - previous);
+                previous = doc;
+            }
+        }
+    }
+
+    /**
+     * Read a segment written by write()
+     * @throws IOException if the data is not a segment of this format
+     */
+    public static InvertedIndex read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+            throw new IOException("Not a search segment of format " + FORMAT);
+        }
+        InvertedIndex index = new InvertedIndex();
+        int count = in.readInt();
+        index.terms = new String[count];
+        index.postings = new int[count][];
+        for (int t = 0; t < count; t++) {
+            index.terms[t] = in.readUTF();
+            int[] docs = new int[readVarint(in)];
+            int previous = -1;
+            for (int i = 0; i < docs.length; i++) {
+                previous += readVarint(in);
+                docs[i] = previous;
+            }
+            index.postings[t] = docs;
+        }
+        index.segmentDocs = docsOf(index.postings);
+        return index;
+    }
+
+    /**
+     * Terms starting with a word, in the segment and in the delta
+     */
+    private final class Prefix {
+        final int from;
+        final int to;
+        final NavigableMap<String, TreeSet<Integer>> delta;
+        final long cost; // postings to read when expanding
+
+        Prefix(String word) {
+            from = lowerBound(word);
+            to = lowerBound(word + Character.MAX_VALUE);
+            delta = deltaTerms.subMap(word, true, word + Character.MAX_VALUE, false);
+            long total = 0;
+            for (int t = from; t < to; t++) {
+                total += postings[t].length;
+            }
+            for (TreeSet<Integer> docs : delta.values()) {
+                total += docs.size();
+            }
+            cost = total;
+        }
+    }
+
+    /**
+     * Live documents containing any term of a prefix
+     */
+    private int[] expand(Prefix prefix) {
+        if (prefix.to - prefix.from == 1 && prefix.delta.isEmpty()) {
+            return live(postings[prefix.from]);
+        }
+        BitSet docs = new BitSet();
+        for (int t = prefix.from; t < prefix.to; t++) {
+            for (int doc : postings[t]) {
+                docs.set(doc);
+            }
+        }
+        docs.andNot(removed);
+        for (TreeSet<Integer> delta : prefix.delta.values()) {
+            for (int doc : delta) {
+                docs.set(doc);
+            }
+        }
+        return docs.stream().toArray();
+    }
+
+    /**
+     * Candidates that contain some term of a prefix, by binary search
+     */
+    private int[] probe(int[] candidates, Prefix prefix) {
+        int[] kept = new int[candidates.length];
+        int n = 0;
+        for (int doc : candidates) {
+            boolean found = false;
+            if (!removed.get(doc)) {
+                for (int t = prefix.from; t < prefix.to && !found; t++) {
+                    found = Arrays.binarySearch(postings[t], doc) >= 0;
+                }
+            }
+            for (Iterator<TreeSet<Integer>> it = prefix.delta.values().iterator(); it.hasNext() && !found; ) {
+                found = it.next().contains(doc);
+            }
+            if (found) {
+                kept[n++] = doc;
+            }
+        }
+        return Arrays.copyOf(kept, n);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Segment postings minus removed documents
+     */
+    private int[] live(int[] docs) {
+        if (removed.isEmpty()) {
+            return docs;
+        }
+        int[] kept = new int[docs.length];
+        int n = 0;
+        for (int doc : docs) {
+            if (!removed.get(doc)) {
+                kept[n++] = doc;
+            }
+        }
+        return n == docs.length ? docs : Arrays.copyOf(kept, n);
+    }
+
+    private static BitSet docsOf(int[][] postings) {
+        BitSet docs = new BitSet();
+        for (int[] list : postings) {
+            for (int doc : list) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+
+    private static void addTerm(List<String> terms, List<int[]> postings, String term, int[] docs) {
+        if (docs.length > 0) {
+            terms.add(term);
+            postings.add(docs);
+        }
+    }
+
+    private static int[] toArray(TreeSet<Integer> docs) {
+        int[] array = new int[docs.size()];
+        int i = 0;
+        for (int doc : docs) {
+            array[i++] = doc;
+        }
+        return array;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            out[n++] = a[i++];
+        }
+        while (j < b.length) {
+            out[n++] = b[j++];
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
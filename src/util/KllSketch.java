@@ -0,0 +1,263 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch of long values
+ * Values are kept in levels; an item on level h stands for 2^h values.
+ * When the sketch is full, the lowest full level is sorted and every other
+ * item is promoted to the level above, so about k * 3 items are kept
+ * however many values are added. With the default k, a quantile's rank is
+ * within about 1.7% of the count with high probability. Sketches merge by concatenating
+ * their levels and compacting again, which makes per-month sketches add
+ * up to a sketch of any range of months. Until the first compaction the
+ * sketch holds every value and its quantiles are exact.
+ */
+public final class KllSketch {
+    public static final int DEFAULT_K = 200;
+    private static final double C = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 8;
+    private static final byte FORMAT = 1;
+
+    private final int k;
+    private long n;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long[][] levels = {new long[MIN_CAPACITY]};
+    private int[] sizes = new int[1];
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k Capacity of the top level; larger is more accurate and bigger
+     */
+    public KllSketch(int k) {
+        this.k = Math.max(MIN_CAPACITY, k);
+    }
+
+    /**
+     * Add a value
+     */
+    public void update(long value) {
+        n++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        if (retained() > totalCapacity()) {
+            compactLowestFull();
+        }
+    }
+
+    /**
+     * Add every value summarized by another sketch
+     */
+    public void merge(KllSketch other) {
+        if (other.n == 0) {
+            return;
+        }
+        n += other.n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        while (retained() > totalCapacity()) {
+            compactLowestFull();
+        }
+    }
+
+    /**
+     * Number of values added
+     */
+    public long getN() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Smallest value added (exact)
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * Largest value added (exact)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Value at a quantile
+     * @param q Quantile between 0 and 1, e.g. 0.5 for the median
+     * @return Estimated value, or 0 for an empty sketch
+     */
+    public long quantile(double q) {
+        if (n == 0) {
+            return 0;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        long[][] view = sortedView();
+        long[] values = view[0];
+        long[] cumulative = view[1];
+        long target = (long) Math.ceil(q * n);
+        int index = Arrays.binarySearch(cumulative, target);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return values[Math.min(index, values.length - 1)];
+    }
+
+    /**
+     * Serialized form for storage
+     */
+    public byte[] toBytes() {
+        int length = 1 + 4 + 8 * 3 + 1;
+        for (int size : sizes) {
+            length += 4 + 8 * size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(FORMAT).putInt(k).putLong(n).putLong(min).putLong(max).put((byte) levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putLong(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Read a sketch written by {@link #toBytes()}
+     * @throws IllegalArgumentException if the data is not a sketch
+     */
+    public static KllSketch fromBytes(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != FORMAT) {
+                throw new IllegalArgumentException("Unknown sketch format");
+            }
+            KllSketch sketch = new KllSketch(buffer.getInt());
+            sketch.n = buffer.getLong();
+            sketch.min = buffer.getLong();
+            sketch.max = buffer.getLong();
+            int height = buffer.get();
+            sketch.levels = new long[height][];
+            sketch.sizes = new int[height];
+            for (int h = 0; h < height; h++) {
+                int size = buffer.getInt();
+                sketch.levels[h] = new long[Math.max(MIN_CAPACITY, size)];
+                sketch.sizes[h] = size;
+                for (int i = 0; i < size; i++) {
+                    sketch.levels[h][i] = buffer.getLong();
+                }
+            }
+            return sketch;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Corrupt sketch: " + e.getMessage(), e);
+        }
+    }
+
+    private int retained() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(C, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < levels.length; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    private void append(int level, long value) {
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int h = 0; h <= level; h++) {
+                if (levels[h] == null) {
+                    levels[h] = new long[MIN_CAPACITY];
+                }
+            }
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Halve the lowest level that has reached its capacity
+     * Pairs of neighbouring values become one value of twice the weight;
+     * which of the two survives is random, so the rank error stays unbiased.
+     */
+    private void compactLowestFull() {
+        int level = 0;
+        while (level < levels.length - 1 && sizes[level] < capacity(level)) {
+            level++;
+        }
+        long[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        // An odd item out stays behind on this level
+        int kept = size % 2;
+        int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+        for (int i = kept + offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        sizes[level] = kept;
+    }
+
+    /**
+     * All kept values in order, with the cumulative weight up to each
+     */
+    private long[][] sortedView() {
+        int retained = retained();
+        long[] values = new long[retained];
+        long[] weights = new long[retained];
+        int[] next = new int[levels.length];
+        long[][] sorted = new long[levels.length][];
+        for (int h = 0; h < levels.length; h++) {
+            sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        // Merge the sorted levels; there are only a few dozen
+        long total = 0;
+        for (int i = 0; i < retained; i++) {
+            int best = -1;
+            for (int h = 0; h < sorted.length; h++) {
+                if (next[h] < sorted[h].length && (best == -1 || sorted[h][next[h]] < sorted[best][next[best]])) {
+                    best = h;
+                }
+            }
+            values[i] = sorted[best][next[best]++];
+            total += 1L << best;
+            weights[i] = total;
+        }
+        return new long[][] {values, weights};
+    }
+}
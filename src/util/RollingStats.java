@@ -0,0 +1,91 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics of a stream of amounts in fixed, primitive state
+ * Keeps an exponentially weighted mean and variance, which follow slow
+ * drifts in spending, and the last windowSize values in a ring buffer for
+ * quantiles, which ignore the odd large value. Memory stays the same
+ * however many values are added.
+ */
+public final class RollingStats {
+    private final long[] window; // ring buffer, oldest value at next once full
+    private int next;
+    private int size;
+    private long count;
+    private double mean;
+    private double variance;
+
+    /**
+     * @param windowSize Number of recent values kept for quantiles
+     */
+    public RollingStats(int windowSize) {
+        this.window = new long[windowSize];
+    }
+
+    /**
+     * Add a value
+     * @param value Value, e.g. an amount in cents
+     * @param alpha Weight of the new value in the mean and variance (0 to 1)
+     */
+    public void add(long value, double alpha) {
+        if (count == 0) {
+            mean = value;
+        } else {
+            // Incremental EWMA: variance decays, then takes in the new deviation
+            double diff = value - mean;
+            double increment = alpha * diff;
+            mean += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+        count++;
+        window[next] = value;
+        next = (next + 1) % window.length;
+        size = Math.min(size + 1, window.length);
+    }
+
+    /**
+     * Number of values added so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Standard deviations a value lies above the mean
+     * @return Score, or 0 while the variance is still zero and the value equals the mean
+     */
+    public double zScore(long value) {
+        double deviation = value - mean;
+        double stdDev = getStdDev();
+        if (stdDev == 0) {
+            return deviation == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, deviation);
+        }
+        return deviation / stdDev;
+    }
+
+    /**
+     * Quantile of the values in the window (nearest rank)
+     * Sorts a copy of the window, which is small and fixed in size.
+     * @param q Quantile between 0 and 1, e.g. 0.5 for the median
+     * @return Value at the quantile, or 0 if nothing was added
+     */
+    public long quantile(double q) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(q * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
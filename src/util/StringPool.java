@@ -0,0 +1,52 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares one instance of frequently repeated strings
+ * Categories and many notes ("Groceries", "Monthly rent") repeat across
+ * thousands of rows; pooling them keeps one copy each instead of one per
+ * row read from the database. Unlike String.intern() the pool is bounded:
+ * once full, the least recently used string is dropped, so one-off notes
+ * age out while the repeated ones stay shared.
+ */
+public final class StringPool {
+    private final Map<String, String> pool;
+
+    /**
+     * @param maxSize Maximum number of distinct strings kept
+     */
+    public StringPool(int maxSize) {
+        this.pool = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The pooled instance equal to a string
+     * @param value String to look up, may be null
+     * @return The shared instance, or value itself once it is pooled
+     */
+    public String get(String value) {
+        if (value == null) {
+            return null;
+        }
+        synchronized (pool) {
+            String pooled = pool.putIfAbsent(value, value);
+            return pooled != null ? pooled : value;
+        }
+    }
+
+    /**
+     * Number of distinct strings kept
+     */
+    public int size() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+}